@@ -4,7 +4,7 @@ import java.lang.annotation.*;
 
 /**
  * Excel列注解
- * 基于EasyExcel的ExcelProperty注解进行扩展
+ * 基于EasyExcel的ExcelProperty注解进行扩展，实体类标注后由 ExcelUtils 按列映射读写（表头、格式、导入校验）
  */
 @Target(ElementType.FIELD)
 @Retention(RetentionPolicy.RUNTIME)
@@ -12,30 +12,36 @@ import java.lang.annotation.*;
 public @interface ExcelColumn {
     
     /**
-     * 列名
+     * 列名（表头），为空时使用字段名；导入时按列名定位列
      */
     String value() default "";
     
     /**
-     * 列索引
+     * 列索引，导出时决定列顺序；导入时表头中找不到列名才按索引定位
      */
     int index() default -1;
     
     /**
-     * 是否必填
+     * 是否必填（空值和空白字符串校验不通过）
      */
     boolean required() default false;
     
     /**
-     * 最大长度
+     * 最大长度（仅文本字段）
      */
     int maxLength() default -1;
     
     /**
-     * 数据格式说明
+     * 数据格式：日期字段为DateTimeFormatter格式，数值字段为DecimalFormat格式，导出和导入都按该格式转换；
+     * 文本字段仅作格式说明，不参与校验
      */
     String format() default "";
     
+    /**
+     * 校验正则（仅文本字段），导入时非空值必须完整匹配
+     */
+    String pattern() default "";
+    
     /**
      * 示例值
      */
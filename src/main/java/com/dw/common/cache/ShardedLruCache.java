@@ -0,0 +1,153 @@
+package com.dw.common.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * 分段LRU缓存
+ * 按key哈希分为多个独立加锁的段，每段按访问顺序淘汰，降低高并发下的锁竞争
+ */
+public class ShardedLruCache<K, V> {
+    
+    private final Segment<K, V>[] segments;
+    private final int mask;
+    
+    /**
+     * @param capacity 总容量
+     * @param concurrency 期望并发度（会向上取整为2的幂作为段数）
+     */
+    @SuppressWarnings("unchecked")
+    public ShardedLruCache(int capacity, int concurrency) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("缓存容量必须大于0");
+        }
+        int shardCount = 1;
+        while (shardCount < concurrency) {
+            shardCount <<= 1;
+        }
+        shardCount = Math.min(shardCount, Integer.highestOneBit(capacity));
+        this.mask = shardCount - 1;
+        this.segments = new Segment[shardCount];
+        int segmentCapacity = Math.max(1, capacity / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            segments[i] = new Segment<>(segmentCapacity);
+        }
+    }
+    
+    public ShardedLruCache(int capacity) {
+        this(capacity, Runtime.getRuntime().availableProcessors() * 2);
+    }
+    
+    /**
+     * 获取缓存值
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+    
+    /**
+     * 写入缓存值
+     */
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, value);
+        }
+    }
+    
+    /**
+     * 获取缓存值，不存在时加载并写入
+     * 加载在锁外执行，并发未命中时可能重复加载，但不会阻塞同段其他key
+     */
+    public V computeIfAbsent(K key, Function<K, V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+        value = loader.apply(key);
+        if (value != null) {
+            put(key, value);
+        }
+        return value;
+    }
+    
+    /**
+     * 在段锁内根据当前值计算新值，返回null时移除；同一key的 compute/put 互斥执行
+     * @param remapping 入参为key和当前值（不存在时为null），不要在其中执行耗时操作
+     * @return 新值
+     */
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remapping) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            V value = remapping.apply(key, segment.get(key));
+            if (value != null) {
+                segment.put(key, value);
+            } else {
+                segment.remove(key);
+            }
+            return value;
+        }
+    }
+    
+    /**
+     * 移除缓存
+     */
+    public V remove(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.remove(key);
+        }
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+    
+    /**
+     * 当前缓存条数
+     */
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+    
+    private Segment<K, V> segmentFor(K key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return segments[h & mask];
+    }
+    
+    /**
+     * 缓存段（访问顺序的LinkedHashMap）
+     */
+    private static class Segment<K, V> extends LinkedHashMap<K, V> {
+        private final int capacity;
+        
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+        
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > capacity;
+        }
+    }
+}
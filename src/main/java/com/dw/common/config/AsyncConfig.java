@@ -91,4 +91,50 @@ public class AsyncConfig {
         log.info("文件处理线程池初始化完成");
         return executor;
     }
+    
+    /**
+     * Excel导出线程池
+     * 导出任务耗时长，与文件线程池隔离；队列满时拒绝提交，不在请求线程中执行
+     */
+    @Bean("excelExportExecutor")
+    public Executor excelExportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("dw-excel-export-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        
+        executor.initialize();
+        
+        log.info("Excel导出线程池初始化完成");
+        return executor;
+    }
+    
+    /**
+     * Excel导入线程池
+     * 导入任务耗时长，与导出线程池、通用任务线程池隔离；队列满时拒绝提交，不在请求线程中执行
+     */
+    @Bean("excelImportExecutor")
+    public Executor excelImportExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(50);
+        executor.setKeepAliveSeconds(60);
+        executor.setThreadNamePrefix("dw-excel-import-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        
+        executor.initialize();
+        
+        log.info("Excel导入线程池初始化完成");
+        return executor;
+    }
 }
\ No newline at end of file
@@ -1,16 +1,61 @@
 package com.dw.common.config;
 
+import com.dw.common.mapper.SysFileMetadataMapper;
+import com.dw.common.storage.AtRestCompression;
+import com.dw.common.storage.CompressedResourceResolver;
 import com.dw.common.storage.FileStorage;
 import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.storage.S3FileStorage;
+import com.dw.common.storage.StoragePathLayout;
+import com.dw.common.storage.TieredFileStorage;
+import com.dw.common.storage.image.ImageVariantService;
+import com.dw.common.storage.image.ImageVariantSpec;
+import com.dw.common.storage.lifecycle.LifecycleRule;
+import com.dw.common.storage.lifecycle.LifecycleSweeper;
+import com.dw.common.storage.metadata.CachingFileMetadataIndex;
+import com.dw.common.storage.metadata.FileMetadataIndex;
+import com.dw.common.storage.metadata.LocalFileMetadataIndex;
+import com.dw.common.storage.metadata.MybatisFileMetadataIndex;
+import com.dw.common.storage.quota.StorageAccounting;
+import com.dw.common.storage.signing.SignedUrlFilter;
+import com.dw.common.storage.signing.UrlSigner;
+import com.dw.common.storage.validation.UploadValidator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 文件存储配置
  */
+@Slf4j
 @Configuration
 @ConfigurationProperties(prefix = "file.storage")
 public class FileStorageConfig implements WebMvcConfigurer {
@@ -18,25 +63,254 @@ public class FileStorageConfig implements WebMvcConfigurer {
     private String type = "local";
     private String rootPath = "./uploads";
     private String urlPrefix = "/files";
+    private Index index = new Index();
+    private S3 s3 = new S3();
+    private Cache cache = new Cache();
+    private Image image = new Image();
+    private Compression compression = new Compression();
+    private Upload upload = new Upload();
+    private Quota quota = new Quota();
+    private Lifecycle lifecycle = new Lifecycle();
+    private Signing signing = new Signing();
+    
+    /**
+     * 目录扇出层级（0表示不扇出），每层按文件名哈希前缀分为256个子目录
+     */
+    private int fanOutDepth = 0;
+    
+    /**
+     * 静态资源访问时延迟获取存储（避免配置类与存储Bean循环依赖）
+     */
+    @Autowired
+    private ObjectProvider<FileStorage> fileStorageProvider;
     
     @Bean
-    public FileStorage fileStorage() {
+    public FileStorage fileStorage(ObjectProvider<SysFileMetadataMapper> metadataMapperProvider,
+                                   @Qualifier("fileExecutor") ObjectProvider<Executor> fileExecutorProvider,
+                                   ObjectProvider<UrlSigner> urlSignerProvider) {
         switch (type.toLowerCase()) {
+            case "s3":
+                S3FileStorage s3FileStorage = createS3FileStorage();
+                return cache.isEnabled() ? createTieredFileStorage(s3FileStorage, fileExecutorProvider) : s3FileStorage;
             case "local":
             default:
-                return new LocalFileStorage(rootPath, urlPrefix);
+                LocalFileStorage localFileStorage = new LocalFileStorage(rootPath, urlPrefix);
+                localFileStorage.setMetadataIndex(createMetadataIndex(metadataMapperProvider));
+                backfillMetadataIndex(localFileStorage, fileExecutorProvider.getIfAvailable());
+                if (compression.isEnabled()) {
+                    localFileStorage.setCompression(new AtRestCompression(
+                            compression.getLevel(), compression.getMinSize(), compression.getMaxRatio()));
+                }
+                localFileStorage.setUrlSigner(urlSignerProvider.getIfAvailable());
+                // 异步读写的回调在文件线程池中执行
+                if (fileExecutorProvider.getIfAvailable() instanceof ThreadPoolTaskExecutor fileExecutor) {
+                    localFileStorage.setAsyncExecutor(fileExecutor.getThreadPoolExecutor());
+                }
+                return localFileStorage;
                 // 其他存储类型可在此扩展
                 // case "oss": return new OssFileStorage();
                 // case "cos": return new CosFileStorage();
         }
     }
     
+    @Bean
+    public ImageVariantService imageVariantService(FileStorage fileStorage,
+                                                   @Qualifier("fileExecutor") ObjectProvider<Executor> fileExecutorProvider) {
+        List<ImageVariantSpec> eagerSpecs = image.getEagerVariants().stream()
+                .map(ImageVariantSpec::parse)
+                .toList();
+        return new ImageVariantService(fileStorage, fileExecutorProvider.getIfAvailable(),
+                image.getVariantMaxSize(), eagerSpecs);
+    }
+    
+    @Bean
+    public StoragePathLayout storagePathLayout() {
+        return new StoragePathLayout(fanOutDepth);
+    }
+    
+    @Bean
+    public UploadValidator uploadValidator() {
+        return new UploadValidator(upload.getMaxSize(), upload.getCategoryMaxSize(), upload.isSniffContent());
+    }
+    
+    /**
+     * 存储用量统计与配额（file.storage.quota.enabled=true 时启用）
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "file.storage.quota", name = "enabled", havingValue = "true")
+    public StorageAccounting storageAccounting(FileStorage fileStorage) {
+        Path snapshotPath = quota.getSnapshotPath() != null
+                ? Paths.get(quota.getSnapshotPath())
+                : Paths.get(rootPath, ".meta", "usage.properties");
+        boolean firstRun = !Files.exists(snapshotPath);
+        StorageAccounting accounting = new StorageAccounting(snapshotPath, quota.getCategory(),
+                quota.getOwner(), quota.getFlushInterval());
+        // 首次启用时从存储统计一次已有文件
+        if (firstRun && quota.isRebuildIfMissing()) {
+            accounting.rebuild(fileStorage, 1000);
+        }
+        return accounting;
+    }
+    
+    /**
+     * 过期文件清理（file.storage.lifecycle.enabled=true 时启用）
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "file.storage.lifecycle", name = "enabled", havingValue = "true")
+    public LifecycleSweeper lifecycleSweeper(FileStorage fileStorage,
+                                             ObjectProvider<StorageAccounting> storageAccountingProvider,
+                                             ObjectProvider<ImageVariantService> imageVariantServiceProvider) {
+        List<LifecycleRule> rules = lifecycle.getRules().stream()
+                .map(rule -> LifecycleRule.ofDays(rule.getPrefix(), rule.getExpireDays()))
+                .toList();
+        Path cursorPath = lifecycle.getCursorPath() != null
+                ? Paths.get(lifecycle.getCursorPath())
+                : "local".equalsIgnoreCase(type) ? Paths.get(rootPath, ".meta", "lifecycle.properties") : null;
+        LifecycleSweeper sweeper = new LifecycleSweeper(fileStorage, rules, lifecycle.getBatchSize(),
+                lifecycle.getMaxDeletesPerSecond(), cursorPath);
+        
+        // 过期删除同样按记录的归属者扣减存储用量并删除缩略图
+        StorageAccounting accounting = storageAccountingProvider.getIfAvailable();
+        ImageVariantService variantService = imageVariantServiceProvider.getIfAvailable();
+        sweeper.setExpiredListener(file -> {
+            if (accounting != null) {
+                accounting.release(StorageAccounting.categoryOf(file.getPath()), file.getOwner(), file.getSize());
+            }
+            if (variantService != null) {
+                variantService.deleteVariants(file.getPath());
+            }
+        });
+        sweeper.start(lifecycle.getInterval());
+        return sweeper;
+    }
+    
+    /**
+     * 文件访问URL签名（file.storage.signing.enabled=true 时启用）
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "file.storage.signing", name = "enabled", havingValue = "true")
+    public UrlSigner urlSigner() {
+        return new UrlSigner(signing.getSecret(), Duration.ofSeconds(signing.getDefaultTtl()));
+    }
+    
+    /**
+     * 签名校验过滤器，在静态资源处理之前拦截受保护目录的文件访问
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "file.storage.signing", name = "enabled", havingValue = "true")
+    public FilterRegistrationBean<SignedUrlFilter> signedUrlFilter(UrlSigner urlSigner) {
+        FilterRegistrationBean<SignedUrlFilter> registration = new FilterRegistrationBean<>(
+                new SignedUrlFilter(urlSigner, urlPrefix, signing.getProtectedPrefixes()));
+        registration.addUrlPatterns(urlPrefix + "/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+    
+    /**
+     * 创建S3协议对象存储（阿里云OSS、腾讯云COS、MinIO均兼容S3协议）
+     */
+    private S3FileStorage createS3FileStorage() {
+        S3Client s3Client = S3Client.builder()
+                .endpointOverride(URI.create(s3.getEndpoint()))
+                .region(Region.of(s3.getRegion()))
+                .credentialsProvider(StaticCredentialsProvider.create(
+                        AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey())))
+                .serviceConfiguration(S3Configuration.builder()
+                        .pathStyleAccessEnabled(s3.isPathStyleAccess())
+                        .build())
+                // 连接池：分片并行传输时每个分片占用一个连接
+                .httpClientBuilder(ApacheHttpClient.builder()
+                        .maxConnections(s3.getMaxConnections())
+                        .connectionTimeout(Duration.ofSeconds(5))
+                        .socketTimeout(Duration.ofSeconds(60))
+                        .connectionMaxIdleTime(Duration.ofSeconds(60)))
+                .build();
+        
+        return new S3FileStorage(s3Client, s3.getBucket(), getAccessUrlPrefix(),
+                s3.getPartSize(), s3.getConcurrency());
+    }
+    
+    /**
+     * 文件访问URL前缀：本地存储为url-prefix，对象存储为s3.url-prefix（未配置时为 endpoint/bucket）
+     * 访问URL = 前缀 + "/" + 存储路径
+     */
+    public String getAccessUrlPrefix() {
+        if (!"s3".equalsIgnoreCase(type)) {
+            return urlPrefix;
+        }
+        return s3.getUrlPrefix() != null ? s3.getUrlPrefix() : s3.getEndpoint() + "/" + s3.getBucket();
+    }
+    
+    /**
+     * 在远端存储前增加本地磁盘热缓存
+     */
+    private TieredFileStorage createTieredFileStorage(FileStorage remote, ObjectProvider<Executor> fileExecutorProvider) {
+        TieredFileStorage.WriteMode writeMode = TieredFileStorage.WriteMode.valueOf(
+                cache.getWriteMode().toUpperCase().replace('-', '_'));
+        TieredFileStorage.EvictionPolicy evictionPolicy = TieredFileStorage.EvictionPolicy.valueOf(
+                cache.getPolicy().toUpperCase());
+        return new TieredFileStorage(remote, cache.getPath(), cache.getMaxSize(),
+                evictionPolicy, writeMode, fileExecutorProvider.getIfAvailable());
+    }
+    
+    /**
+     * 创建文件元数据索引
+     * none：不使用索引；local：根目录下的本地索引文件；db：sys_file_metadata数据表（带缓存）
+     */
+    private FileMetadataIndex createMetadataIndex(ObjectProvider<SysFileMetadataMapper> metadataMapperProvider) {
+        switch (index.getType().toLowerCase()) {
+            case "local":
+                return new LocalFileMetadataIndex(Paths.get(rootPath, ".meta", "index.log"));
+            case "db":
+                SysFileMetadataMapper mapper = metadataMapperProvider.getIfAvailable();
+                if (mapper == null) {
+                    throw new IllegalStateException("未找到SysFileMetadataMapper，无法使用数据库元数据索引");
+                }
+                return new CachingFileMetadataIndex(new MybatisFileMetadataIndex(mapper), index.getCacheSize());
+            case "none":
+            default:
+                return null;
+        }
+    }
+    
+    /**
+     * 首次启用索引时，在文件线程池中把已有文件补写入索引，完成后写入标记文件不再重复
+     * 补写完成前索引未命中的查询回退到文件系统，结果不受影响
+     */
+    private void backfillMetadataIndex(LocalFileStorage localFileStorage, Executor executor) {
+        if (localFileStorage.getMetadataIndex() == null) {
+            return;
+        }
+        Path marker = Paths.get(rootPath, ".meta", "index-" + index.getType().toLowerCase() + ".backfilled");
+        if (Files.exists(marker)) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                localFileStorage.backfillMetadataIndex(1000);
+                Files.createDirectories(marker.getParent());
+                Files.writeString(marker, LocalDateTime.now().toString());
+            } catch (Exception e) {
+                log.warn("元数据索引补写失败，下次启动时重试: {}", e.getMessage());
+            }
+        };
+        if (executor != null) {
+            executor.execute(task);
+        } else {
+            task.run();
+        }
+    }
+    
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         // 配置静态资源访问映射
         if ("local".equalsIgnoreCase(type)) {
+            // 落盘压缩的文件按客户端Accept-Encoding直接输出gzip内容或解压输出
             registry.addResourceHandler(urlPrefix + "/**")
-                    .addResourceLocations("file:" + rootPath + "/");
+                    .addResourceLocations("file:" + rootPath + "/")
+                    .resourceChain(false)
+                    .addResolver(new CompressedResourceResolver(() ->
+                            fileStorageProvider.getIfAvailable() instanceof LocalFileStorage local ? local : null));
         }
     }
     
@@ -64,4 +338,698 @@ public class FileStorageConfig implements WebMvcConfigurer {
     public void setUrlPrefix(String urlPrefix) {
         this.urlPrefix = urlPrefix;
     }
-}
\ No newline at end of file
+    
+    public int getFanOutDepth() {
+        return fanOutDepth;
+    }
+    
+    public void setFanOutDepth(int fanOutDepth) {
+        this.fanOutDepth = fanOutDepth;
+    }
+    
+    public Index getIndex() {
+        return index;
+    }
+    
+    public void setIndex(Index index) {
+        this.index = index;
+    }
+    
+    public S3 getS3() {
+        return s3;
+    }
+    
+    public void setS3(S3 s3) {
+        this.s3 = s3;
+    }
+    
+    public Image getImage() {
+        return image;
+    }
+    
+    public void setImage(Image image) {
+        this.image = image;
+    }
+    
+    public Cache getCache() {
+        return cache;
+    }
+    
+    public void setCache(Cache cache) {
+        this.cache = cache;
+    }
+    
+    public Compression getCompression() {
+        return compression;
+    }
+    
+    public void setCompression(Compression compression) {
+        this.compression = compression;
+    }
+    
+    public Upload getUpload() {
+        return upload;
+    }
+    
+    public void setUpload(Upload upload) {
+        this.upload = upload;
+    }
+    
+    public Quota getQuota() {
+        return quota;
+    }
+    
+    public void setQuota(Quota quota) {
+        this.quota = quota;
+    }
+    
+    public Lifecycle getLifecycle() {
+        return lifecycle;
+    }
+    
+    public void setLifecycle(Lifecycle lifecycle) {
+        this.lifecycle = lifecycle;
+    }
+    
+    public Signing getSigning() {
+        return signing;
+    }
+    
+    public void setSigning(Signing signing) {
+        this.signing = signing;
+    }
+    
+    /**
+     * 元数据索引配置
+     */
+    public static class Index {
+        
+        /**
+         * 索引类型：none、local、db
+         */
+        private String type = "none";
+        
+        /**
+         * 数据库索引的缓存条数
+         */
+        private int cacheSize = 100000;
+        
+        public String getType() {
+            return type;
+        }
+        
+        public void setType(String type) {
+            this.type = type;
+        }
+        
+        public int getCacheSize() {
+            return cacheSize;
+        }
+        
+        public void setCacheSize(int cacheSize) {
+            this.cacheSize = cacheSize;
+        }
+    }
+    
+    /**
+     * S3协议对象存储配置
+     */
+    public static class S3 {
+        
+        /**
+         * 服务地址，如 http://localhost:9000
+         */
+        private String endpoint;
+        
+        private String region = "us-east-1";
+        private String bucket;
+        private String accessKey;
+        private String secretKey;
+        
+        /**
+         * 文件访问URL前缀（如CDN地址），为空时使用 endpoint/bucket
+         */
+        private String urlPrefix;
+        
+        /**
+         * 是否使用路径风格访问（MinIO需要开启）
+         */
+        private boolean pathStyleAccess = true;
+        
+        /**
+         * 连接池最大连接数
+         */
+        private int maxConnections = 64;
+        
+        /**
+         * 分片大小（字节），不能小于5MB
+         */
+        private int partSize = 8 * 1024 * 1024;
+        
+        /**
+         * 单个文件的并行分片数
+         */
+        private int concurrency = 4;
+        
+        public String getEndpoint() {
+            return endpoint;
+        }
+        
+        public void setEndpoint(String endpoint) {
+            this.endpoint = endpoint;
+        }
+        
+        public String getRegion() {
+            return region;
+        }
+        
+        public void setRegion(String region) {
+            this.region = region;
+        }
+        
+        public String getBucket() {
+            return bucket;
+        }
+        
+        public void setBucket(String bucket) {
+            this.bucket = bucket;
+        }
+        
+        public String getAccessKey() {
+            return accessKey;
+        }
+        
+        public void setAccessKey(String accessKey) {
+            this.accessKey = accessKey;
+        }
+        
+        public String getSecretKey() {
+            return secretKey;
+        }
+        
+        public void setSecretKey(String secretKey) {
+            this.secretKey = secretKey;
+        }
+        
+        public String getUrlPrefix() {
+            return urlPrefix;
+        }
+        
+        public void setUrlPrefix(String urlPrefix) {
+            this.urlPrefix = urlPrefix;
+        }
+        
+        public boolean isPathStyleAccess() {
+            return pathStyleAccess;
+        }
+        
+        public void setPathStyleAccess(boolean pathStyleAccess) {
+            this.pathStyleAccess = pathStyleAccess;
+        }
+        
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+        
+        public void setMaxConnections(int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+        
+        public int getPartSize() {
+            return partSize;
+        }
+        
+        public void setPartSize(int partSize) {
+            this.partSize = partSize;
+        }
+        
+        public int getConcurrency() {
+            return concurrency;
+        }
+        
+        public void setConcurrency(int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+    
+    /**
+     * 远端存储的本地热缓存配置
+     */
+    public static class Cache {
+        
+        /**
+         * 是否启用（仅对远端存储生效）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 本地缓存目录
+         */
+        private String path = "./cache";
+        
+        /**
+         * 缓存容量上限（字节）
+         */
+        private long maxSize = 1024L * 1024 * 1024;
+        
+        /**
+         * 淘汰策略：lru、lfu
+         */
+        private String policy = "lru";
+        
+        /**
+         * 写入模式：write-through（同步写远端）、write-back（后台写远端）
+         */
+        private String writeMode = "write-through";
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getPath() {
+            return path;
+        }
+        
+        public void setPath(String path) {
+            this.path = path;
+        }
+        
+        public long getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        public String getPolicy() {
+            return policy;
+        }
+        
+        public void setPolicy(String policy) {
+            this.policy = policy;
+        }
+        
+        public String getWriteMode() {
+            return writeMode;
+        }
+        
+        public void setWriteMode(String writeMode) {
+            this.writeMode = writeMode;
+        }
+    }
+    
+    /**
+     * 图片变体（缩略图）配置
+     */
+    public static class Image {
+        
+        /**
+         * 变体占用的存储空间上限（字节），超出后按最近最少使用淘汰
+         */
+        private long variantMaxSize = 512L * 1024 * 1024;
+        
+        /**
+         * 上传图片后预生成的规格，如 200x200、800x600.png
+         */
+        private List<String> eagerVariants = new ArrayList<>();
+        
+        public long getVariantMaxSize() {
+            return variantMaxSize;
+        }
+        
+        public void setVariantMaxSize(long variantMaxSize) {
+            this.variantMaxSize = variantMaxSize;
+        }
+        
+        public List<String> getEagerVariants() {
+            return eagerVariants;
+        }
+        
+        public void setEagerVariants(List<String> eagerVariants) {
+            this.eagerVariants = eagerVariants;
+        }
+    }
+    
+    /**
+     * 本地存储的落盘压缩配置（仅对文本类文件生效）
+     */
+    public static class Compression {
+        
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 压缩级别（1~9）
+         */
+        private int level = 6;
+        
+        /**
+         * 最小压缩大小（字节），更小的文件按原样保存
+         */
+        private long minSize = 1024;
+        
+        /**
+         * 压缩后与原大小之比超过该值时按原样保存
+         */
+        private double maxRatio = 0.9;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public int getLevel() {
+            return level;
+        }
+        
+        public void setLevel(int level) {
+            this.level = level;
+        }
+        
+        public long getMinSize() {
+            return minSize;
+        }
+        
+        public void setMinSize(long minSize) {
+            this.minSize = minSize;
+        }
+        
+        public double getMaxRatio() {
+            return maxRatio;
+        }
+        
+        public void setMaxRatio(double maxRatio) {
+            this.maxRatio = maxRatio;
+        }
+    }
+    
+    /**
+     * 上传校验配置
+     */
+    public static class Upload {
+        
+        /**
+         * 默认最大文件大小（字节）
+         */
+        private long maxSize = UploadValidator.DEFAULT_MAX_SIZE;
+        
+        /**
+         * 按分类覆盖的最大文件大小（字节），分类为 images、documents、files
+         */
+        private Map<String, Long> categoryMaxSize = new HashMap<>();
+        
+        /**
+         * 是否根据文件头校验内容与扩展名一致
+         */
+        private boolean sniffContent = true;
+        
+        public long getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(long maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        public Map<String, Long> getCategoryMaxSize() {
+            return categoryMaxSize;
+        }
+        
+        public void setCategoryMaxSize(Map<String, Long> categoryMaxSize) {
+            this.categoryMaxSize = categoryMaxSize;
+        }
+        
+        public boolean isSniffContent() {
+            return sniffContent;
+        }
+        
+        public void setSniffContent(boolean sniffContent) {
+            this.sniffContent = sniffContent;
+        }
+    }
+    
+    /**
+     * 存储用量统计与配额配置
+     */
+    public static class Quota {
+        
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 分类配额（字节），未配置的分类不限制
+         */
+        private Map<String, Long> category = new HashMap<>();
+        
+        /**
+         * 每个归属者的配额（字节），0表示不限制
+         */
+        private long owner = 0;
+        
+        /**
+         * 用量快照间隔（秒）
+         */
+        private long flushInterval = 30;
+        
+        /**
+         * 用量快照文件，为空时使用 根目录/.meta/usage.properties
+         */
+        private String snapshotPath;
+        
+        /**
+         * 快照不存在时是否从存储重新统计（仅统计分类用量）
+         */
+        private boolean rebuildIfMissing = true;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Map<String, Long> getCategory() {
+            return category;
+        }
+        
+        public void setCategory(Map<String, Long> category) {
+            this.category = category;
+        }
+        
+        public long getOwner() {
+            return owner;
+        }
+        
+        public void setOwner(long owner) {
+            this.owner = owner;
+        }
+        
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+        
+        public void setFlushInterval(long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+        
+        public String getSnapshotPath() {
+            return snapshotPath;
+        }
+        
+        public void setSnapshotPath(String snapshotPath) {
+            this.snapshotPath = snapshotPath;
+        }
+        
+        public boolean isRebuildIfMissing() {
+            return rebuildIfMissing;
+        }
+        
+        public void setRebuildIfMissing(boolean rebuildIfMissing) {
+            this.rebuildIfMissing = rebuildIfMissing;
+        }
+    }
+    
+    /**
+     * 文件访问URL签名配置
+     */
+    public static class Signing {
+        
+        /**
+         * 是否启用（启用后受保护目录只能通过签名URL访问）
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 签名密钥，不少于16个字符
+         */
+        private String secret;
+        
+        /**
+         * 默认有效期（秒）
+         */
+        private long defaultTtl = 3600;
+        
+        /**
+         * 需要签名访问的路径前缀，为空时全部文件都需要签名
+         */
+        private List<String> protectedPrefixes = new ArrayList<>();
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public String getSecret() {
+            return secret;
+        }
+        
+        public void setSecret(String secret) {
+            this.secret = secret;
+        }
+        
+        public long getDefaultTtl() {
+            return defaultTtl;
+        }
+        
+        public void setDefaultTtl(long defaultTtl) {
+            this.defaultTtl = defaultTtl;
+        }
+        
+        public List<String> getProtectedPrefixes() {
+            return protectedPrefixes;
+        }
+        
+        public void setProtectedPrefixes(List<String> protectedPrefixes) {
+            this.protectedPrefixes = protectedPrefixes;
+        }
+    }
+    
+    /**
+     * 文件生命周期配置
+     */
+    public static class Lifecycle {
+        
+        /**
+         * 是否启用
+         */
+        private boolean enabled = false;
+        
+        /**
+         * 每轮清理间隔（秒）
+         */
+        private long interval = 60;
+        
+        /**
+         * 每轮扫描的文件数
+         */
+        private int batchSize = 500;
+        
+        /**
+         * 每秒最多删除的文件数，0表示不限制
+         */
+        private int maxDeletesPerSecond = 50;
+        
+        /**
+         * 扫描游标文件，为空时本地存储使用 根目录/.meta/lifecycle.properties，其他存储只保存在内存中
+         */
+        private String cursorPath;
+        
+        private List<Rule> rules = new ArrayList<>();
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public long getInterval() {
+            return interval;
+        }
+        
+        public void setInterval(long interval) {
+            this.interval = interval;
+        }
+        
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+        
+        public int getMaxDeletesPerSecond() {
+            return maxDeletesPerSecond;
+        }
+        
+        public void setMaxDeletesPerSecond(int maxDeletesPerSecond) {
+            this.maxDeletesPerSecond = maxDeletesPerSecond;
+        }
+        
+        public String getCursorPath() {
+            return cursorPath;
+        }
+        
+        public void setCursorPath(String cursorPath) {
+            this.cursorPath = cursorPath;
+        }
+        
+        public List<Rule> getRules() {
+            return rules;
+        }
+        
+        public void setRules(List<Rule> rules) {
+            this.rules = rules;
+        }
+        
+        /**
+         * 生命周期规则：前缀下超过天数的文件删除
+         */
+        public static class Rule {
+            
+            /**
+             * 路径前缀，如 files/ 或 exports/
+             */
+            private String prefix;
+            
+            /**
+             * 保留天数
+             */
+            private int expireDays;
+            
+            public String getPrefix() {
+                return prefix;
+            }
+            
+            public void setPrefix(String prefix) {
+                this.prefix = prefix;
+            }
+            
+            public int getExpireDays() {
+                return expireDays;
+            }
+            
+            public void setExpireDays(int expireDays) {
+                this.expireDays = expireDays;
+            }
+        }
+    }
+}
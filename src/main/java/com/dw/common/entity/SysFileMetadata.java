@@ -0,0 +1,49 @@
+package com.dw.common.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * 文件元数据
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@TableName("sys_file_metadata")
+public class SysFileMetadata extends DWEntity {
+    
+    /**
+     * 存储路径
+     */
+    private String path;
+    
+    /**
+     * 访问URL
+     */
+    private String url;
+    
+    /**
+     * 文件大小（字节）
+     */
+    private Long size;
+    
+    /**
+     * 文件类型
+     */
+    private String contentType;
+    
+    /**
+     * SHA-256摘要
+     */
+    private String sha256;
+    
+    /**
+     * CRC32C校验值
+     */
+    private String crc32c;
+    
+    /**
+     * 归属者
+     */
+    private String owner;
+}
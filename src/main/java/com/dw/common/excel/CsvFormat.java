@@ -0,0 +1,72 @@
+package com.dw.common.excel;
+
+import java.util.Locale;
+
+/**
+ * 分隔符文本格式
+ */
+public enum CsvFormat {
+    
+    /**
+     * 逗号分隔
+     */
+    CSV(',', ".csv", "text/csv"),
+    
+    /**
+     * 制表符分隔
+     */
+    TSV('\t', ".tsv", "text/tab-separated-values");
+    
+    private final char delimiter;
+    private final String extension;
+    private final String contentType;
+    
+    CsvFormat(char delimiter, String extension, String contentType) {
+        this.delimiter = delimiter;
+        this.extension = extension;
+        this.contentType = contentType;
+    }
+    
+    public char getDelimiter() {
+        return delimiter;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    /**
+     * 按文件名（优先）或内容类型识别格式
+     * @param fileName 文件名，可为null
+     * @param contentType 内容类型，可为null
+     * @return 格式，不是分隔符文本时返回null
+     */
+    public static CsvFormat detect(String fileName, String contentType) {
+        if (fileName != null) {
+            String name = fileName.toLowerCase(Locale.ROOT);
+            if (name.endsWith(".csv")) {
+                return CSV;
+            }
+            if (name.endsWith(".tsv") || name.endsWith(".tab")) {
+                return TSV;
+            }
+            if (name.endsWith(".xlsx") || name.endsWith(".xls")) {
+                return null;
+            }
+        }
+        if (contentType != null) {
+            String type = contentType.toLowerCase(Locale.ROOT);
+            if (type.startsWith("text/csv")) {
+                return CSV;
+            }
+            if (type.startsWith("text/tab-separated-values")) {
+                return TSV;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,284 @@
+package com.dw.common.excel;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 流式CSV/TSV读取器
+ * 直接在字节缓冲区上按RFC 4180规则切分字段（分隔符、引号、换行都是ASCII，UTF-8与GBK的多字节字符不会与之冲突），
+ * 一行的字段字节连续存放在复用的数组中，调用 {@link #get(int)} 时才解码为字符串，未使用的列不产生对象。
+ * 未指定编码时按首块数据识别：有BOM或是合法UTF-8时按UTF-8，否则按GB18030（Excel在中文Windows下另存的CSV）
+ * 空行跳过；非线程安全
+ */
+public class CsvReader implements AutoCloseable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final Charset GB18030 = Charset.forName("GB18030");
+    
+    private final InputStream inputStream;
+    private final byte delimiter;
+    private Charset charset;
+    
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    private boolean started;
+    
+    /**
+     * 当前行的字段字节及每个字段的结束位置
+     */
+    private byte[] record = new byte[1024];
+    private int recordLength;
+    private int[] fieldEnds = new int[32];
+    private int fieldCount;
+    private long rowNum;
+    
+    /**
+     * @param inputStream 输入流（close时关闭）
+     * @param format 格式
+     * @param charset 编码，为null时自动识别
+     */
+    public CsvReader(InputStream inputStream, CsvFormat format, Charset charset) {
+        this.inputStream = inputStream;
+        this.delimiter = (byte) format.getDelimiter();
+        this.charset = charset;
+    }
+    
+    /**
+     * 读取下一行
+     * @return 没有更多数据时返回false
+     */
+    public boolean next() throws IOException {
+        if (!started) {
+            start();
+        }
+        while (true) {
+            rowNum++;
+            if (!readRecord()) {
+                return false;
+            }
+            if (fieldCount > 1 || recordLength > 0) {
+                return true;
+            }
+        }
+    }
+    
+    private void start() throws IOException {
+        started = true;
+        fill();
+        int offset = 0;
+        if (limit >= 3 && (buffer[0] & 0xFF) == 0xEF && (buffer[1] & 0xFF) == 0xBB && (buffer[2] & 0xFF) == 0xBF) {
+            offset = 3;
+            if (charset == null) {
+                charset = StandardCharsets.UTF_8;
+            }
+        }
+        if (charset == null) {
+            charset = detectCharset(buffer, 0, limit);
+        }
+        position = offset;
+    }
+    
+    /**
+     * 读取一行，到达末尾且没有数据时返回false
+     */
+    private boolean readRecord() throws IOException {
+        recordLength = 0;
+        fieldCount = 0;
+        if (position >= limit && !fill()) {
+            return false;
+        }
+        boolean quoted = false;
+        boolean fieldStart = true;
+        while (true) {
+            if (position >= limit && !fill()) {
+                endField();
+                return true;
+            }
+            if (quoted) {
+                // 引号内：整段复制到下一个引号，"" 转义为一个引号
+                int start = position;
+                while (position < limit && buffer[position] != '"') {
+                    position++;
+                }
+                append(buffer, start, position - start);
+                if (position < limit) {
+                    position++;
+                    if (peek() == '"') {
+                        position++;
+                        append((byte) '"');
+                    } else {
+                        quoted = false;
+                    }
+                }
+                continue;
+            }
+            byte b = buffer[position];
+            if (b == delimiter) {
+                position++;
+                endField();
+                fieldStart = true;
+                continue;
+            }
+            if (b == '\n') {
+                position++;
+                endField();
+                return true;
+            }
+            if (b == '\r') {
+                position++;
+                if (peek() == '\n') {
+                    position++;
+                }
+                endField();
+                return true;
+            }
+            if (b == '"' && fieldStart) {
+                position++;
+                quoted = true;
+                fieldStart = false;
+                continue;
+            }
+            // 普通字符：整段复制到下一个特殊字符
+            int start = position;
+            while (position < limit) {
+                b = buffer[position];
+                if (b == delimiter || b == '\n' || b == '\r') {
+                    break;
+                }
+                position++;
+            }
+            append(buffer, start, position - start);
+            fieldStart = false;
+        }
+    }
+    
+    private int peek() throws IOException {
+        if (position >= limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+    
+    private boolean fill() throws IOException {
+        int read = inputStream.read(buffer, 0, buffer.length);
+        while (read == 0) {
+            read = inputStream.read(buffer, 0, buffer.length);
+        }
+        position = 0;
+        limit = Math.max(read, 0);
+        return read > 0;
+    }
+    
+    private void append(byte b) {
+        if (recordLength == record.length) {
+            record = Arrays.copyOf(record, record.length * 2);
+        }
+        record[recordLength++] = b;
+    }
+    
+    private void append(byte[] bytes, int offset, int length) {
+        if (recordLength + length > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, recordLength + length));
+        }
+        System.arraycopy(bytes, offset, record, recordLength, length);
+        recordLength += length;
+    }
+    
+    private void endField() {
+        if (fieldCount == fieldEnds.length) {
+            fieldEnds = Arrays.copyOf(fieldEnds, fieldEnds.length * 2);
+        }
+        fieldEnds[fieldCount++] = recordLength;
+    }
+    
+    /**
+     * 当前行的字段数
+     */
+    public int size() {
+        return fieldCount;
+    }
+    
+    /**
+     * 当前行的字段文本
+     * @param index 字段位置（从0开始）
+     * @return 文本，超出字段数时返回null
+     */
+    public String get(int index) {
+        if (index < 0 || index >= fieldCount) {
+            return null;
+        }
+        int start = index == 0 ? 0 : fieldEnds[index - 1];
+        return new String(record, start, fieldEnds[index] - start, charset);
+    }
+    
+    /**
+     * 当前行转换为 列位置 -> 文本（用于表头）
+     */
+    public Map<Integer, String> toMap() {
+        Map<Integer, String> cells = new HashMap<>(fieldCount * 2);
+        for (int i = 0; i < fieldCount; i++) {
+            cells.put(i, get(i));
+        }
+        return cells;
+    }
+    
+    /**
+     * 当前记录号（从1开始，含表头和跳过的空行；引号内换行不另计）
+     */
+    public long getRowNum() {
+        return rowNum;
+    }
+    
+    /**
+     * 使用的编码（读取第一行后确定）
+     */
+    public Charset getCharset() {
+        return charset;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+    
+    /**
+     * 识别编码：合法UTF-8（末尾被截断的多字节字符不算错误）时返回UTF-8，否则返回GB18030
+     */
+    public static Charset detectCharset(byte[] bytes, int offset, int length) {
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int b = bytes[i] & 0xFF;
+            if (b < 0x80) {
+                i++;
+                continue;
+            }
+            int continuation;
+            if (b >= 0xC2 && b <= 0xDF) {
+                continuation = 1;
+            } else if (b >= 0xE0 && b <= 0xEF) {
+                continuation = 2;
+            } else if (b >= 0xF0 && b <= 0xF4) {
+                continuation = 3;
+            } else {
+                return GB18030;
+            }
+            for (int j = 1; j <= continuation; j++) {
+                if (i + j >= end) {
+                    return StandardCharsets.UTF_8;
+                }
+                if ((bytes[i + j] & 0xC0) != 0x80) {
+                    return GB18030;
+                }
+            }
+            i += continuation + 1;
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
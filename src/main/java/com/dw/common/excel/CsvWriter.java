@@ -0,0 +1,123 @@
+package com.dw.common.excel;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 流式CSV/TSV写入器
+ * UTF-8编码并写入BOM（Excel直接打开不乱码），行尾为CRLF；值中含分隔符、引号或换行时才加引号，
+ * 其余情况直接写出字符串，不做额外拷贝。
+ * 以 = + - @ 制表符 回车开头的文本（数值除外）前加单引号，防止表格软件打开时将其作为公式执行
+ */
+public class CsvWriter implements AutoCloseable {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final Writer writer;
+    private final char delimiter;
+    
+    /**
+     * @param outputStream 输出流（close时不关闭，只刷新）
+     * @param format 格式
+     */
+    public CsvWriter(OutputStream outputStream, CsvFormat format) throws IOException {
+        this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+        this.delimiter = format.getDelimiter();
+        this.writer.write('\uFEFF');
+    }
+    
+    /**
+     * 写入一行
+     * @param values 单元格值，null写为空
+     */
+    public void writeRow(List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(delimiter);
+            }
+            Object value = values.get(i);
+            if (value != null) {
+                writeValue(value.toString());
+            }
+        }
+        writer.write("\r\n");
+    }
+    
+    /**
+     * 会被表格软件当作公式的文本前加单引号，其余原样返回
+     * @param value 单元格文本
+     */
+    public static String neutralize(String value) {
+        return value != null && isFormula(value) ? "'" + value : value;
+    }
+    
+    private void writeValue(String value) throws IOException {
+        value = neutralize(value);
+        if (!needsQuote(value)) {
+            writer.write(value);
+            return;
+        }
+        writer.write('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) == '"') {
+                writer.write(value, start, i - start + 1);
+                writer.write('"');
+                start = i + 1;
+            }
+        }
+        writer.write(value, start, value.length() - start);
+        writer.write('"');
+    }
+    
+    /**
+     * 是否会被表格软件当作公式：以 = + - @ 开头且不是带符号的数值（如 -1,234.50），
+     * 或以制表符、回车开头（部分表格软件会去掉开头的空白后再解析）
+     */
+    private static boolean isFormula(String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        char first = value.charAt(0);
+        if (first == '=' || first == '@' || first == '\t' || first == '\r') {
+            return true;
+        }
+        if (first != '+' && first != '-') {
+            return false;
+        }
+        boolean digit = false;
+        for (int i = 1; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digit = true;
+            } else if (c != '.' && c != ',') {
+                return true;
+            }
+        }
+        return !digit;
+    }
+    
+    private boolean needsQuote(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == delimiter || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public void flush() throws IOException {
+        writer.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.flush();
+    }
+}
@@ -0,0 +1,553 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.alibaba.excel.annotation.format.DateTimeFormat;
+import com.alibaba.excel.annotation.format.NumberFormat;
+import com.dw.common.annotation.ExcelColumn;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.text.DecimalFormat;
+import java.text.ParsePosition;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * 基于 @ExcelColumn 的列映射
+ * 每个实体类只解析一次注解：字段读写通过LambdaMetafactory生成的函数（没有getter/setter时退化为MethodHandle），
+ * 导出时生成表头并按format格式化单元格，导入时按表头名（或index、声明顺序）定位列并转换类型
+ */
+public final class ExcelColumnMapping<T> {
+    
+    private static final ClassValue<ExcelColumnMapping<?>> MAPPINGS = new ClassValue<>() {
+        @Override
+        protected ExcelColumnMapping<?> computeValue(Class<?> type) {
+            return new ExcelColumnMapping<>(type);
+        }
+    };
+    
+    private static final ClassValue<Boolean> SUPPORTED = new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+            return checkSupported(type);
+        }
+    };
+    
+    private static final DateTimeFormatter DEFAULT_DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private final Class<T> clazz;
+    private final List<Column> columns;
+    private final Supplier<Object> constructor;
+    private final List<List<String>> head;
+    
+    private ExcelColumnMapping(Class<T> clazz) {
+        this.clazz = clazz;
+        MethodHandles.Lookup lookup = lookup(clazz);
+        this.columns = compileColumns(clazz, lookup);
+        this.constructor = compileConstructor(clazz, lookup);
+        List<List<String>> headers = new ArrayList<>();
+        for (Column column : columns) {
+            headers.add(List.of(column.header));
+        }
+        this.head = List.copyOf(headers);
+    }
+    
+    /**
+     * 实体类是否使用 @ExcelColumn 声明列
+     * 按 @ExcelColumn 映射时EasyExcel的列注解（@ExcelProperty的转换器、@DateTimeFormat、@NumberFormat）不生效，
+     * 同一个类（含父类）混用两种注解时直接报错，而不是静默忽略其中一种
+     * @throws IllegalArgumentException 混用 @ExcelColumn 和EasyExcel列注解时
+     */
+    public static boolean supports(Class<?> clazz) {
+        return SUPPORTED.get(clazz);
+    }
+    
+    private static boolean checkSupported(Class<?> clazz) {
+        Field columnField = null;
+        Field easyExcelField = null;
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            for (Field field : type.getDeclaredFields()) {
+                if (columnField == null && field.isAnnotationPresent(ExcelColumn.class)) {
+                    columnField = field;
+                }
+                if (easyExcelField == null && (field.isAnnotationPresent(ExcelProperty.class)
+                        || field.isAnnotationPresent(DateTimeFormat.class)
+                        || field.isAnnotationPresent(NumberFormat.class))) {
+                    easyExcelField = field;
+                }
+            }
+        }
+        if (columnField != null && easyExcelField != null) {
+            throw new IllegalArgumentException(clazz.getSimpleName() + "同时使用了@ExcelColumn和EasyExcel列注解（字段"
+                    + easyExcelField.getName() + "），请统一使用@ExcelColumn声明列");
+        }
+        return columnField != null;
+    }
+    
+    /**
+     * 获取实体类的列映射（按类缓存）
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelColumnMapping<T> of(Class<T> clazz) {
+        return (ExcelColumnMapping<T>) MAPPINGS.get(clazz);
+    }
+    
+    public Class<T> getType() {
+        return clazz;
+    }
+    
+    /**
+     * 按列顺序排列的列定义
+     */
+    public List<Column> getColumns() {
+        return columns;
+    }
+    
+    /**
+     * 导出表头（EasyExcel的List<List<String>>格式）
+     */
+    public List<List<String>> head() {
+        return head;
+    }
+    
+    /**
+     * 将实体转换为一行单元格值
+     */
+    public List<Object> toRow(T bean) {
+        List<Object> row = new ArrayList<>(columns.size());
+        for (Column column : columns) {
+            row.add(column.format(column.getter.apply(bean)));
+        }
+        return row;
+    }
+    
+    /**
+     * 按表头绑定列位置
+     * @param headMap 表头（列位置 -> 表头名），为null时按index或声明顺序定位
+     */
+    public RowReader<T> reader(Map<Integer, String> headMap) {
+        Map<String, Integer> positionsByName = new HashMap<>();
+        if (headMap != null) {
+            headMap.forEach((position, name) -> {
+                if (name != null) {
+                    positionsByName.putIfAbsent(name.trim(), position);
+                }
+            });
+        }
+        int[] positions = new int[columns.size()];
+        for (int i = 0; i < columns.size(); i++) {
+            Column column = columns.get(i);
+            Integer position = positionsByName.get(column.header);
+            positions[i] = position != null ? position : column.index >= 0 ? column.index : i;
+        }
+        return new RowReader<>(this, positions);
+    }
+    
+    @SuppressWarnings("unchecked")
+    T newInstance() {
+        return (T) constructor.get();
+    }
+    
+    /**
+     * 绑定了列位置的行读取器
+     */
+    public static final class RowReader<T> {
+        
+        private final ExcelColumnMapping<T> mapping;
+        private final int[] positions;
+        
+        private RowReader(ExcelColumnMapping<T> mapping, int[] positions) {
+            this.mapping = mapping;
+            this.positions = positions;
+        }
+        
+        /**
+         * 将一行单元格文本转换为实体
+         * @throws ConvertException 类型转换失败，消息为 "字段: 原因; " 格式
+         */
+        public T read(Map<Integer, String> cells) {
+            return read(cells::get);
+        }
+        
+        /**
+         * 将一行单元格文本转换为实体
+         * @param cells 列位置 -> 文本（如 {@link CsvReader#get(int)}，不需要先组装Map）
+         * @throws ConvertException 类型转换失败，消息为 "字段: 原因; " 格式
+         */
+        public T read(IntFunction<String> cells) {
+            T bean = mapping.newInstance();
+            List<ExcelFieldError> errors = null;
+            List<Column> columns = mapping.columns;
+            for (int i = 0; i < columns.size(); i++) {
+                Column column = columns.get(i);
+                String text = cells.apply(positions[i]);
+                if (text == null || text.isEmpty()) {
+                    continue;
+                }
+                try {
+                    column.setter.accept(bean, column.parse(text));
+                } catch (RuntimeException e) {
+                    errors = errors != null ? errors : new ArrayList<>(2);
+                    errors.add(column.convertError);
+                }
+            }
+            if (errors != null) {
+                throw new ConvertException(errors);
+            }
+            return bean;
+        }
+    }
+    
+    /**
+     * 一行中有单元格无法转换为字段类型
+     */
+    public static final class ConvertException extends IllegalArgumentException {
+        
+        private final transient List<ExcelFieldError> errors;
+        
+        ConvertException(List<ExcelFieldError> errors) {
+            super(ExcelFieldError.format(errors));
+            this.errors = errors;
+        }
+        
+        /**
+         * 转换失败的字段
+         */
+        public List<ExcelFieldError> getErrors() {
+            return errors;
+        }
+    }
+    
+    /**
+     * 列定义
+     */
+    public static final class Column {
+        
+        private final String name;
+        private final String header;
+        private final int index;
+        private final Class<?> type;
+        private final ExcelColumn annotation;
+        private final Function<Object, Object> getter;
+        private final BiConsumer<Object, Object> setter;
+        private final Pattern pattern;
+        private final DateTimeFormatter dateTimeFormatter;
+        private final ThreadLocal<DecimalFormat> decimalFormat;
+        private final ExcelFieldError convertError;
+        
+        private Column(Field field, ExcelColumn annotation, Function<Object, Object> getter,
+                       BiConsumer<Object, Object> setter) {
+            this.name = field.getName();
+            this.header = annotation.value().isEmpty() ? field.getName() : annotation.value();
+            this.index = annotation.index();
+            this.type = wrap(field.getType());
+            this.annotation = annotation;
+            this.getter = getter;
+            this.setter = setter;
+            this.convertError = new ExcelFieldError(name, ExcelFieldError.Code.CONVERT, "格式不正确");
+            String format = annotation.format();
+            boolean text = CharSequence.class.isAssignableFrom(type);
+            boolean temporal = TemporalAccessor.class.isAssignableFrom(type);
+            boolean number = Number.class.isAssignableFrom(type);
+            this.pattern = text && !annotation.pattern().isEmpty() ? Pattern.compile(annotation.pattern()) : null;
+            this.dateTimeFormatter = temporal
+                    ? format.isEmpty() ? defaultFormatter(type) : DateTimeFormatter.ofPattern(format)
+                    : null;
+            this.decimalFormat = number && !format.isEmpty() ? ThreadLocal.withInitial(() -> {
+                DecimalFormat decimal = new DecimalFormat(format);
+                decimal.setParseBigDecimal(true);
+                return decimal;
+            }) : null;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        public String getHeader() {
+            return header;
+        }
+        
+        public Class<?> getType() {
+            return type;
+        }
+        
+        public boolean isRequired() {
+            return annotation.required();
+        }
+        
+        /**
+         * 文本最大长度，非文本字段返回-1
+         */
+        public int getMaxLength() {
+            return CharSequence.class.isAssignableFrom(type) ? annotation.maxLength() : -1;
+        }
+        
+        /**
+         * 文本格式正则，非文本字段或未声明时返回null
+         */
+        public Pattern getPattern() {
+            return pattern;
+        }
+        
+        /**
+         * 读取字段值
+         */
+        public Object get(Object bean) {
+            return getter.apply(bean);
+        }
+        
+        /**
+         * 导出时的单元格值：日期按格式转为文本，声明了format的数值按DecimalFormat转为文本
+         */
+        Object format(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (dateTimeFormatter != null) {
+                return dateTimeFormatter.format((TemporalAccessor) value);
+            }
+            if (decimalFormat != null) {
+                return decimalFormat.get().format(value);
+            }
+            if (value instanceof Enum<?> enumValue) {
+                return enumValue.name();
+            }
+            return value;
+        }
+        
+        /**
+         * 导入时将单元格文本转换为字段类型
+         */
+        Object parse(String text) {
+            String value = type == String.class ? text : text.trim();
+            if (type == String.class) {
+                return value;
+            }
+            if (decimalFormat != null) {
+                ParsePosition position = new ParsePosition(0);
+                Number number = decimalFormat.get().parse(value, position);
+                if (number == null || position.getIndex() != value.length()) {
+                    throw new NumberFormatException(value);
+                }
+                value = number.toString();
+            }
+            if (type == Integer.class) {
+                return new BigDecimal(value).intValueExact();
+            }
+            if (type == Long.class) {
+                return new BigDecimal(value).longValueExact();
+            }
+            if (type == Short.class) {
+                return new BigDecimal(value).shortValueExact();
+            }
+            if (type == Double.class) {
+                return Double.valueOf(value);
+            }
+            if (type == Float.class) {
+                return Float.valueOf(value);
+            }
+            if (type == BigDecimal.class) {
+                return new BigDecimal(value);
+            }
+            if (type == Boolean.class) {
+                return parseBoolean(value);
+            }
+            if (type == LocalDateTime.class) {
+                return LocalDateTime.parse(value, dateTimeFormatter);
+            }
+            if (type == LocalDate.class) {
+                return LocalDate.parse(value, dateTimeFormatter);
+            }
+            if (type == LocalTime.class) {
+                return LocalTime.parse(value, dateTimeFormatter);
+            }
+            if (type.isEnum()) {
+                return parseEnum(value);
+            }
+            throw new IllegalArgumentException("不支持的Excel字段类型: " + type.getName());
+        }
+        
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Object parseEnum(String value) {
+            return Enum.valueOf((Class<? extends Enum>) type, value);
+        }
+        
+        private static Boolean parseBoolean(String value) {
+            switch (value.toLowerCase()) {
+                case "true", "1", "是", "y", "yes":
+                    return Boolean.TRUE;
+                case "false", "0", "否", "n", "no":
+                    return Boolean.FALSE;
+                default:
+                    throw new DateTimeParseException("无效的布尔值", value, 0);
+            }
+        }
+        
+        private static DateTimeFormatter defaultFormatter(Class<?> type) {
+            if (type == LocalDate.class) {
+                return DateTimeFormatter.ISO_LOCAL_DATE;
+            }
+            if (type == LocalTime.class) {
+                return DateTimeFormatter.ISO_LOCAL_TIME;
+            }
+            return DEFAULT_DATE_TIME;
+        }
+    }
+    
+    private static MethodHandles.Lookup lookup(Class<?> clazz) {
+        try {
+            return MethodHandles.privateLookupIn(clazz, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问Excel实体类: " + clazz.getName(), e);
+        }
+    }
+    
+    private static List<Column> compileColumns(Class<?> clazz, MethodHandles.Lookup lookup) {
+        List<Field> fields = new ArrayList<>();
+        for (Class<?> type = clazz; type != null && type != Object.class; type = type.getSuperclass()) {
+            List<Field> declared = new ArrayList<>();
+            for (Field field : type.getDeclaredFields()) {
+                if (field.isAnnotationPresent(ExcelColumn.class) && !Modifier.isStatic(field.getModifiers())) {
+                    declared.add(field);
+                }
+            }
+            // 父类字段排在前面
+            fields.addAll(0, declared);
+        }
+        
+        List<Column> columns = new ArrayList<>();
+        for (Field field : fields) {
+            columns.add(new Column(field, field.getAnnotation(ExcelColumn.class),
+                    compileGetter(clazz, field, lookup), compileSetter(clazz, field, lookup)));
+        }
+        // 声明了index的列按index排序，未声明的保持声明顺序排在后面
+        columns.sort(Comparator.comparingInt(column -> column.index >= 0 ? column.index : Integer.MAX_VALUE));
+        return List.copyOf(columns);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> compileGetter(Class<?> clazz, Field field, MethodHandles.Lookup lookup) {
+        Method method = findAccessor(clazz, field, true);
+        try {
+            if (method != null) {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                        MethodType.methodType(Function.class),
+                        MethodType.methodType(Object.class, Object.class),
+                        handle, MethodType.methodType(wrap(field.getType()), method.getDeclaringClass()));
+                return (Function<Object, Object>) site.getTarget().invokeExact();
+            }
+        } catch (Throwable e) {
+            // 无法生成函数时退化为MethodHandle
+        }
+        MethodHandle handle = unreflectField(lookup, field, true);
+        return bean -> {
+            try {
+                return handle.invokeExact(bean);
+            } catch (Throwable e) {
+                throw new IllegalStateException("读取Excel字段失败: " + field.getName(), e);
+            }
+        };
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static BiConsumer<Object, Object> compileSetter(Class<?> clazz, Field field, MethodHandles.Lookup lookup) {
+        Method method = findAccessor(clazz, field, false);
+        try {
+            if (method != null) {
+                MethodHandle handle = lookup.unreflect(method);
+                CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                        MethodType.methodType(BiConsumer.class),
+                        MethodType.methodType(void.class, Object.class, Object.class),
+                        handle, MethodType.methodType(void.class, method.getDeclaringClass(), wrap(field.getType())));
+                return (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            }
+        } catch (Throwable e) {
+            // 无法生成函数时退化为MethodHandle
+        }
+        if (Modifier.isFinal(field.getModifiers())) {
+            return (bean, value) -> {
+                throw new IllegalStateException("Excel字段不可写: " + field.getName());
+            };
+        }
+        MethodHandle handle = unreflectField(lookup, field, false);
+        return (bean, value) -> {
+            try {
+                handle.invokeExact(bean, value);
+            } catch (Throwable e) {
+                throw new IllegalStateException("写入Excel字段失败: " + field.getName(), e);
+            }
+        };
+    }
+    
+    private static Supplier<Object> compileConstructor(Class<?> clazz, MethodHandles.Lookup lookup) {
+        MethodHandle handle;
+        try {
+            handle = lookup.findConstructor(clazz, MethodType.methodType(void.class))
+                    .asType(MethodType.methodType(Object.class));
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            // 只导出的实体可以没有无参构造
+            return () -> {
+                throw new IllegalStateException("Excel实体类缺少无参构造: " + clazz.getName());
+            };
+        }
+        return () -> {
+            try {
+                return handle.invokeExact();
+            } catch (Throwable e) {
+                throw new IllegalStateException("创建Excel实体失败: " + clazz.getName(), e);
+            }
+        };
+    }
+    
+    private static Method findAccessor(Class<?> clazz, Field field, boolean getter) {
+        String suffix = Character.toUpperCase(field.getName().charAt(0)) + field.getName().substring(1);
+        try {
+            if (!getter) {
+                return clazz.getMethod("set" + suffix, field.getType());
+            }
+            Method method = field.getType() == boolean.class
+                    ? clazz.getMethod("is" + suffix)
+                    : clazz.getMethod("get" + suffix);
+            return method.getReturnType() == field.getType() ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+    
+    private static MethodHandle unreflectField(MethodHandles.Lookup lookup, Field field, boolean getter) {
+        try {
+            return getter
+                    ? lookup.unreflectGetter(field).asType(MethodType.methodType(Object.class, Object.class))
+                    : lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("无法访问Excel字段: " + field.getName(), e);
+        }
+    }
+    
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
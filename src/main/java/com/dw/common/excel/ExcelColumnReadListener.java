@@ -0,0 +1,67 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.util.ConverterUtils;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按 @ExcelColumn 映射读取的监听器
+ * EasyExcel按无模型方式读出单元格文本，表头行用于绑定列位置，每行通过 {@link ExcelColumnMapping} 转换为实体后交给下游监听器；
+ * 类型转换失败的行不交给下游，而是作为行错误报告
+ */
+public class ExcelColumnReadListener<T> implements ReadListener<Map<Integer, String>> {
+    
+    /**
+     * 行错误接收方
+     */
+    @FunctionalInterface
+    public interface RowErrorHandler {
+        
+        /**
+         * @param rowNum 行号（从1开始，含表头）
+         * @param errors 转换失败的字段
+         */
+        void onRowError(int rowNum, List<ExcelFieldError> errors);
+    }
+    
+    private final ExcelColumnMapping<T> mapping;
+    private final ReadListener<T> delegate;
+    private final RowErrorHandler errorHandler;
+    private ExcelColumnMapping.RowReader<T> reader;
+    
+    public ExcelColumnReadListener(ExcelColumnMapping<T> mapping, ReadListener<T> delegate, RowErrorHandler errorHandler) {
+        this.mapping = mapping;
+        this.delegate = delegate;
+        this.errorHandler = errorHandler;
+    }
+    
+    @Override
+    public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+        reader = mapping.reader(ConverterUtils.convertToStringMap(headMap, context));
+        delegate.invokeHead(headMap, context);
+    }
+    
+    @Override
+    public void invoke(Map<Integer, String> cells, AnalysisContext context) {
+        if (reader == null) {
+            reader = mapping.reader(null);
+        }
+        T row;
+        try {
+            row = reader.read(cells);
+        } catch (ExcelColumnMapping.ConvertException e) {
+            errorHandler.onRowError(context.readRowHolder().getRowIndex() + 1, e.getErrors());
+            return;
+        }
+        delegate.invoke(row, context);
+    }
+    
+    @Override
+    public void doAfterAllAnalysed(AnalysisContext context) {
+        delegate.doAfterAllAnalysed(context);
+    }
+}
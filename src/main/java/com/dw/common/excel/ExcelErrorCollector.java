@@ -0,0 +1,220 @@
+package com.dw.common.excel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * 导入错误收集器
+ * 前 limit 行的错误保留文本（行号 -> 错误信息）；超出后不再拼接文本，开启溢写时写入临时文件，否则只计入统计。
+ * 所有错误都按 字段 + 错误码 + 信息 汇总为 {@link ExcelErrorStat}，统计项数量有上限，超出的归入"其他错误"
+ * 非线程安全，由读取线程（或并行导入的写入线程）按行号顺序调用
+ */
+@Slf4j
+public class ExcelErrorCollector implements AutoCloseable {
+    
+    /**
+     * 默认保留错误信息的行数
+     */
+    public static final int DEFAULT_LIMIT = 1000;
+    
+    /**
+     * 统计项上限
+     */
+    public static final int MAX_STATS = 200;
+    
+    private static final ExcelFieldError OTHER_ERRORS = new ExcelFieldError(null, ExcelFieldError.Code.OTHER, "其他错误");
+    
+    /**
+     * 保留错误信息的行数，小于0表示不限制
+     */
+    private int limit = DEFAULT_LIMIT;
+    
+    /**
+     * 超出保留行数的错误是否溢写到临时文件
+     */
+    private boolean spill;
+    
+    private final Map<Integer, String> messages = new LinkedHashMap<>();
+    private final Map<ExcelFieldError, ExcelErrorStat> stats = new LinkedHashMap<>();
+    private long spilledRows;
+    private Path spillFile;
+    private BufferedWriter spillWriter;
+    
+    /**
+     * 记录一行的错误
+     * @param rowNum 行号
+     * @param errors 字段错误
+     */
+    public void add(int rowNum, List<ExcelFieldError> errors) {
+        for (ExcelFieldError error : errors) {
+            stat(error).record(rowNum);
+        }
+        if (limit < 0 || messages.size() < limit) {
+            messages.put(rowNum, ExcelFieldError.format(errors));
+        } else if (spill) {
+            writeSpill(rowNum, errors);
+        }
+    }
+    
+    /**
+     * 记录一行未分类的错误
+     * @param rowNum 行号
+     * @param errorMsg 错误信息
+     */
+    public void add(int rowNum, String errorMsg) {
+        add(rowNum, List.of(new ExcelFieldError(null, ExcelFieldError.Code.OTHER, errorMsg)));
+    }
+    
+    private ExcelErrorStat stat(ExcelFieldError error) {
+        ExcelErrorStat stat = stats.get(error);
+        if (stat != null) {
+            return stat;
+        }
+        ExcelFieldError key = stats.size() < MAX_STATS - 1 ? error : OTHER_ERRORS;
+        return stats.computeIfAbsent(key, ExcelErrorStat::new);
+    }
+    
+    private void writeSpill(int rowNum, List<ExcelFieldError> errors) {
+        try {
+            if (spillWriter == null) {
+                spillFile = Files.createTempFile("dw-import-errors-", ".tsv");
+                spillWriter = Files.newBufferedWriter(spillFile, StandardCharsets.UTF_8);
+            }
+            for (ExcelFieldError error : errors) {
+                spillWriter.write(Integer.toString(rowNum));
+                spillWriter.write('\t');
+                spillWriter.write(error.getCode().name());
+                spillWriter.write('\t');
+                spillWriter.write(error.getField() != null ? error.getField() : "");
+                spillWriter.write('\t');
+                spillWriter.write(escape(error.getMessage()));
+                spillWriter.write('\n');
+            }
+            spilledRows++;
+        } catch (IOException e) {
+            throw new RuntimeException("写入导入错误临时文件失败", e);
+        }
+    }
+    
+    private static String escape(String message) {
+        if (message == null) {
+            return "";
+        }
+        return message.indexOf('\t') < 0 && message.indexOf('\n') < 0 && message.indexOf('\r') < 0
+                ? message
+                : message.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+    
+    /**
+     * 保留的错误信息 (行号 -> 错误信息)，按行号顺序
+     */
+    public Map<Integer, String> getMessages() {
+        return messages;
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    /**
+     * @param limit 保留错误信息的行数，小于0表示不限制
+     */
+    public void setLimit(int limit) {
+        this.limit = limit;
+    }
+    
+    public boolean isSpill() {
+        return spill;
+    }
+    
+    /**
+     * @param spill 超出保留行数的错误是否溢写到临时文件
+     */
+    public void setSpill(boolean spill) {
+        this.spill = spill;
+    }
+    
+    /**
+     * 错误统计，按首次出现顺序
+     */
+    public List<ExcelErrorStat> getStats() {
+        return Collections.unmodifiableList(new ArrayList<>(stats.values()));
+    }
+    
+    /**
+     * 溢写到临时文件的行数
+     */
+    public long getSpilledRows() {
+        return spilledRows;
+    }
+    
+    /**
+     * 溢写文件，每个字段错误一行：行号、错误码、字段、信息，以制表符分隔；没有溢写时为null
+     */
+    public Path getSpillFile() {
+        flushSpill();
+        return spillFile;
+    }
+    
+    /**
+     * 按顺序遍历溢写的错误
+     * @param consumer 行号, 字段错误
+     */
+    public void forEachSpilled(BiConsumer<Integer, ExcelFieldError> consumer) {
+        if (spillFile == null) {
+            return;
+        }
+        flushSpill();
+        try (BufferedReader reader = Files.newBufferedReader(spillFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t", 4);
+                consumer.accept(Integer.parseInt(parts[0]), new ExcelFieldError(parts[2].isEmpty() ? null : parts[2],
+                        ExcelFieldError.Code.valueOf(parts[1]), parts[3]));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("读取导入错误临时文件失败", e);
+        }
+    }
+    
+    private void flushSpill() {
+        if (spillWriter == null) {
+            return;
+        }
+        try {
+            spillWriter.flush();
+        } catch (IOException e) {
+            throw new RuntimeException("写入导入错误临时文件失败", e);
+        }
+    }
+    
+    /**
+     * 关闭并删除溢写文件
+     */
+    @Override
+    public void close() {
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            spillWriter.close();
+            Files.deleteIfExists(spillFile);
+        } catch (IOException e) {
+            log.warn("删除导入错误临时文件失败: {}", spillFile);
+        }
+        spillWriter = null;
+        spillFile = null;
+    }
+}
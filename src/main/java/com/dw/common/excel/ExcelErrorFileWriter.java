@@ -0,0 +1,186 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.util.ConverterUtils;
+import com.alibaba.excel.write.metadata.WriteSheet;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 导入错误文件写入器
+ * 出错的行按原样（原表头、原单元格文本）写入新的Excel，末尾追加"原行号"和"错误信息"两列，
+ * 用户修改后可以直接重新导入。错误行逐批写出，不在内存中累积；没有错误时不生成文件
+ */
+public class ExcelErrorFileWriter implements AutoCloseable {
+    
+    /**
+     * 原行号列名
+     */
+    public static final String ROW_NUM_HEADER = "原行号";
+    
+    /**
+     * 错误信息列名
+     */
+    public static final String ERROR_HEADER = "错误信息";
+    
+    /**
+     * 每批写出的行数
+     */
+    private static final int FLUSH_ROWS = 100;
+    
+    private final OutputStream outputStream;
+    private List<String> head;
+    private ExcelWriter excelWriter;
+    private WriteSheet writeSheet;
+    private List<List<Object>> buffer = new ArrayList<>(FLUSH_ROWS);
+    private long errorCount;
+    
+    /**
+     * @param outputStream 输出流（不关闭）
+     */
+    public ExcelErrorFileWriter(OutputStream outputStream) {
+        this.outputStream = outputStream;
+    }
+    
+    /**
+     * 设置原文件表头，已设置时忽略
+     * @param headMap 列位置 -> 表头名
+     */
+    public void setHead(Map<Integer, String> headMap) {
+        if (head != null) {
+            return;
+        }
+        head = toList(headMap);
+    }
+    
+    /**
+     * 写入一行错误
+     * @param cells 原单元格文本（列位置 -> 文本）
+     * @param rowNum 原行号
+     * @param errorMsg 错误信息
+     */
+    public void write(Map<Integer, String> cells, int rowNum, String errorMsg) {
+        List<Object> row = new ArrayList<>(toList(cells));
+        if (head != null) {
+            // 与表头对齐，保证追加的两列位置固定
+            while (row.size() < head.size()) {
+                row.add(null);
+            }
+            row.subList(head.size(), row.size()).clear();
+        }
+        row.add(rowNum);
+        row.add(errorMsg);
+        buffer.add(row);
+        errorCount++;
+        if (buffer.size() >= FLUSH_ROWS) {
+            flush();
+        }
+    }
+    
+    /**
+     * 按当前读取行写入错误（原单元格取自读取上下文）
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void write(AnalysisContext context, String errorMsg) {
+        Map<Integer, String> cells = ConverterUtils.convertToStringMap((Map) context.readRowHolder().getCellMap(), context);
+        write(cells, context.readRowHolder().getRowIndex() + 1, errorMsg);
+    }
+    
+    /**
+     * 复制之前生成的错误文件中原行号不超过指定行的错误（断点续传时保留检查点之前的错误）
+     * @param previous 之前的错误文件
+     * @param maxRowNum 最大原行号
+     */
+    public void copyFrom(InputStream previous, long maxRowNum) {
+        EasyExcel.read(previous, new ReadListener<Map<Integer, String>>() {
+            private int columns;
+            
+            @Override
+            public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+                List<String> previousHead = toList(ConverterUtils.convertToStringMap(headMap, context));
+                columns = previousHead.size() - 2;
+                setHead(toMap(previousHead.subList(0, columns)));
+            }
+            
+            @Override
+            public void invoke(Map<Integer, String> cells, AnalysisContext context) {
+                String rowNum = cells.get(columns);
+                if (rowNum == null || Long.parseLong(rowNum.trim()) > maxRowNum) {
+                    return;
+                }
+                Map<Integer, String> original = new HashMap<>(cells);
+                original.keySet().removeIf(index -> index >= columns);
+                write(original, Integer.parseInt(rowNum.trim()), cells.get(columns + 1));
+            }
+            
+            @Override
+            public void doAfterAllAnalysed(AnalysisContext context) {
+            }
+        }).sheet().doRead();
+    }
+    
+    /**
+     * 已写入的错误行数
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+    
+    /**
+     * 写出缓冲的错误行
+     */
+    public void flush() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        if (excelWriter == null) {
+            List<List<String>> writeHead = new ArrayList<>();
+            if (head != null) {
+                head.forEach(name -> writeHead.add(List.of(name != null ? name : "")));
+            }
+            writeHead.add(List.of(ROW_NUM_HEADER));
+            writeHead.add(List.of(ERROR_HEADER));
+            excelWriter = EasyExcel.write(outputStream).head(writeHead).autoCloseStream(false).build();
+            writeSheet = EasyExcel.writerSheet(0, "错误数据").build();
+        }
+        excelWriter.write(buffer, writeSheet);
+        buffer = new ArrayList<>(FLUSH_ROWS);
+    }
+    
+    @Override
+    public void close() {
+        flush();
+        if (excelWriter != null) {
+            excelWriter.finish();
+        }
+    }
+    
+    private static List<String> toList(Map<Integer, String> cells) {
+        int size = 0;
+        for (Integer index : cells.keySet()) {
+            size = Math.max(size, index + 1);
+        }
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            list.add(cells.get(i));
+        }
+        return list;
+    }
+    
+    private static Map<Integer, String> toMap(List<String> list) {
+        Map<Integer, String> map = new HashMap<>();
+        for (int i = 0; i < list.size(); i++) {
+            map.put(i, list.get(i));
+        }
+        return map;
+    }
+}
@@ -0,0 +1,121 @@
+package com.dw.common.excel;
+
+/**
+ * 同一类错误（字段 + 错误码 + 信息）的统计
+ * 行号按连续区间合并保存，区间数超过上限后只计数，不再记录新的区间
+ */
+public class ExcelErrorStat {
+    
+    /**
+     * 最多记录的行区间数
+     */
+    public static final int MAX_RANGES = 20;
+    
+    private final ExcelFieldError error;
+    private long count;
+    private int firstRow = -1;
+    private int lastRow = -1;
+    private final int[] ranges = new int[MAX_RANGES * 2];
+    private int rangeCount;
+    private boolean truncated;
+    
+    public ExcelErrorStat(ExcelFieldError error) {
+        this.error = error;
+    }
+    
+    /**
+     * 记录一次错误
+     */
+    void record(int rowNum) {
+        count++;
+        if (firstRow < 0 || rowNum < firstRow) {
+            firstRow = rowNum;
+        }
+        lastRow = Math.max(lastRow, rowNum);
+        if (rangeCount > 0) {
+            int end = ranges[rangeCount * 2 - 1];
+            if (rowNum <= end) {
+                return;
+            }
+            if (rowNum == end + 1) {
+                ranges[rangeCount * 2 - 1] = rowNum;
+                return;
+            }
+        }
+        if (rangeCount == MAX_RANGES) {
+            truncated = true;
+            return;
+        }
+        ranges[rangeCount * 2] = rowNum;
+        ranges[rangeCount * 2 + 1] = rowNum;
+        rangeCount++;
+    }
+    
+    public String getField() {
+        return error.getField();
+    }
+    
+    public ExcelFieldError.Code getCode() {
+        return error.getCode();
+    }
+    
+    public String getMessage() {
+        return error.getMessage();
+    }
+    
+    /**
+     * 出错次数
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * 第一次出错的行号
+     */
+    public int getFirstRow() {
+        return firstRow;
+    }
+    
+    /**
+     * 最后一次出错的行号
+     */
+    public int getLastRow() {
+        return lastRow;
+    }
+    
+    /**
+     * 区间数超过上限，行区间不完整
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+    
+    /**
+     * 出错的行区间，如 "8-9、15、22-30"，不完整时以 "..." 结尾
+     */
+    public String getRowRanges() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < rangeCount; i++) {
+            if (i > 0) {
+                builder.append('、');
+            }
+            int start = ranges[i * 2];
+            int end = ranges[i * 2 + 1];
+            builder.append(start);
+            if (end > start) {
+                builder.append('-').append(end);
+            }
+        }
+        if (truncated) {
+            builder.append("...");
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public String toString() {
+        String target = error.getField() != null ? error.getField() + " " : "";
+        return target + error.getMessage() + "（" + error.getCode() + "）: " + count + "条，第" + getRowRanges() + "行";
+    }
+}
@@ -0,0 +1,32 @@
+package com.dw.common.excel;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Excel导出任务
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ExcelExportJob extends ExcelJob {
+    
+    /**
+     * 下载文件名（不含扩展名）
+     */
+    private String fileName;
+    
+    /**
+     * 去重键，相同键的请求在去重窗口内复用同一个任务
+     */
+    private String dedupKey;
+    
+    /**
+     * 导出文件的存储路径
+     */
+    private volatile String path;
+    
+    /**
+     * 导出文件的下载URL（存储启用签名时为限时链接）
+     */
+    private volatile String downloadUrl;
+}
@@ -0,0 +1,93 @@
+package com.dw.common.excel;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 导入时单个字段的错误
+ * 错误按 字段 + 错误码 + 信息 区分，同一列的同类错误通常是同一个实例（由 {@link ExcelValidationPlan} 预先创建），
+ * 失败行只持有引用，需要文本时才拼接为 "字段: 信息; " 格式
+ */
+public final class ExcelFieldError {
+    
+    /**
+     * 错误码
+     */
+    public enum Code {
+        /** 必填项为空 */
+        REQUIRED,
+        /** 长度超限 */
+        LENGTH,
+        /** 格式不匹配 */
+        FORMAT,
+        /** 单元格无法转换为字段类型 */
+        CONVERT,
+        /** 其他校验约束 */
+        CONSTRAINT,
+        /** 未分类的行错误 */
+        OTHER
+    }
+    
+    private final String field;
+    private final Code code;
+    private final String message;
+    
+    /**
+     * @param field 字段名，行级错误为null
+     * @param code 错误码
+     * @param message 错误信息
+     */
+    public ExcelFieldError(String field, Code code, String message) {
+        this.field = field;
+        this.code = code;
+        this.message = message;
+    }
+    
+    public String getField() {
+        return field;
+    }
+    
+    public Code getCode() {
+        return code;
+    }
+    
+    public String getMessage() {
+        return message;
+    }
+    
+    /**
+     * 拼接一行的错误信息，格式与之前的 "字段: 信息; " 保持一致
+     */
+    public static String format(List<ExcelFieldError> errors) {
+        StringBuilder builder = new StringBuilder();
+        for (ExcelFieldError error : errors) {
+            if (error.field == null) {
+                builder.append(error.message);
+            } else {
+                builder.append(error.field).append(": ").append(error.message).append("; ");
+            }
+        }
+        return builder.toString();
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ExcelFieldError other)) {
+            return false;
+        }
+        return Objects.equals(field, other.field) && code == other.code && Objects.equals(message, other.message);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(field, code, message);
+    }
+    
+    @Override
+    public String toString() {
+        return field != null ? field + ": " + message + " [" + code + "]" : message + " [" + code + "]";
+    }
+}
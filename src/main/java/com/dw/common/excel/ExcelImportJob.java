@@ -0,0 +1,63 @@
+package com.dw.common.excel;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Excel导入任务
+ * 每处理完一批数据记录一次检查点（已交给接收方的最后一行及当时的计数），失败后可从检查点继续
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ExcelImportJob extends ExcelJob {
+    
+    /**
+     * 上传文件名
+     */
+    private String fileName;
+    
+    /**
+     * 导入文件的存储路径（续传时重新读取）
+     */
+    private String inputPath;
+    
+    /**
+     * 检查点间隔（行数）
+     */
+    private int checkpointInterval;
+    
+    /**
+     * 检查点：已交给接收方的最后一行行号，0表示还没有检查点
+     */
+    private volatile int checkpointRow;
+    
+    /**
+     * 检查点时的成功条数
+     */
+    private volatile long checkpointSuccessCount;
+    
+    /**
+     * 检查点时的失败条数
+     */
+    private volatile long checkpointFailCount;
+    
+    /**
+     * 成功条数
+     */
+    private volatile long successCount;
+    
+    /**
+     * 失败条数
+     */
+    private volatile long failCount;
+    
+    /**
+     * 错误文件的存储路径，没有错误时为null
+     */
+    private volatile String errorFilePath;
+    
+    /**
+     * 错误文件的下载URL
+     */
+    private volatile String errorFileUrl;
+}
@@ -5,14 +5,14 @@ import com.alibaba.excel.read.listener.ReadListener;
 import com.alibaba.excel.util.ListUtils;
 import lombok.extern.slf4j.Slf4j;
 
-import jakarta.validation.ConstraintViolation;
-import jakarta.validation.Validation;
 import jakarta.validation.Validator;
 import java.util.List;
-import java.util.Set;
+import java.util.function.Consumer;
 
 /**
  * Excel导入监听器
+ * 未指定数据接收方时，校验通过的数据收集到导入结果中；
+ * 指定接收方时为流式导入，每批数据直接交给接收方（如写库、投递队列），结果中只保留计数和有限条错误信息
  */
 @Slf4j
 public class ExcelImportListener<T> implements ReadListener<T> {
@@ -20,12 +20,27 @@ public class ExcelImportListener<T> implements ReadListener<T> {
     /**
      * 每隔100条处理一次数据，然后清空list，方便内存回收
      */
-    private static final int BATCH_COUNT = 100;
+    public static final int BATCH_COUNT = 100;
+    
+    /**
+     * 流式导入时默认保留的错误信息条数
+     */
+    public static final int DEFAULT_ERROR_SAMPLE_SIZE = 100;
+    
+    /**
+     * 每批条数
+     */
+    private final int batchCount;
+    
+    /**
+     * 批量数据接收方，为null时数据收集到导入结果中
+     */
+    private final Consumer<List<T>> sink;
     
     /**
      * 缓存的数据
      */
-    private List<T> cachedDataList = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
+    private List<T> cachedDataList;
     
     /**
      * 导入结果
@@ -33,24 +48,64 @@ public class ExcelImportListener<T> implements ReadListener<T> {
     private final ExcelImportResult<T> result = new ExcelImportResult<>();
     
     /**
-     * 数据校验器
+     * 数据校验器（共享实例，不再每个监听器创建ValidatorFactory）
+     */
+    private final Validator validator;
+    
+    /**
+     * 行校验计划，首行数据到达时按实体类获取
      */
-    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private ExcelValidationPlan<T> validationPlan;
+    
+    public ExcelImportListener() {
+        this(BATCH_COUNT, null);
+    }
+    
+    /**
+     * 流式导入
+     * @param batchCount 每批条数
+     * @param sink 批量数据接收方，每批数据校验通过后调用一次，接收方可以持有收到的列表
+     */
+    public ExcelImportListener(int batchCount, Consumer<List<T>> sink) {
+        this(batchCount, sink, null);
+    }
+    
+    /**
+     * @param batchCount 每批条数
+     * @param sink 批量数据接收方，为null时数据收集到导入结果中
+     * @param validator 校验器，为null时使用共享的默认校验器
+     */
+    public ExcelImportListener(int batchCount, Consumer<List<T>> sink, Validator validator) {
+        if (batchCount <= 0) {
+            throw new IllegalArgumentException("每批条数必须大于0");
+        }
+        this.batchCount = batchCount;
+        this.sink = sink;
+        this.validator = validator != null ? validator : ExcelValidationPlan.defaultValidator();
+        this.cachedDataList = ListUtils.newArrayListWithExpectedSize(batchCount);
+        if (sink != null) {
+            result.setErrorLimit(DEFAULT_ERROR_SAMPLE_SIZE);
+        }
+    }
     
     @Override
     public void invoke(T data, AnalysisContext context) {
+        accept(data, context.readRowHolder().getRowIndex() + 1);
+    }
+    
+    /**
+     * 校验并处理一行数据（不经过EasyExcel时使用，如CSV导入）
+     * @param data 行数据
+     * @param rowNum 行号
+     */
+    public void accept(T data, int rowNum) {
         // 校验数据
-        Set<ConstraintViolation<T>> violations = validator.validate(data);
-        if (!violations.isEmpty()) {
-            StringBuilder errorMsg = new StringBuilder();
-            for (ConstraintViolation<T> violation : violations) {
-                errorMsg.append(violation.getPropertyPath())
-                        .append(": ")
-                        .append(violation.getMessage())
-                        .append("; ");
-            }
-            
-            result.addError(context.readRowHolder().getRowIndex() + 1, errorMsg.toString());
+        if (validationPlan == null) {
+            validationPlan = ExcelValidationPlan.of(getDataClass(data));
+        }
+        List<ExcelFieldError> errors = validationPlan.check(data, validator);
+        if (errors != null) {
+            result.addError(rowNum, errors);
             result.incrementFailCount();
             return;
         }
@@ -59,32 +114,70 @@ public class ExcelImportListener<T> implements ReadListener<T> {
         result.incrementSuccessCount();
         
         // 达到BATCH_COUNT了，需要去处理一次数据，防止数据几万条数据在内存，容易OOM
-        if (cachedDataList.size() >= BATCH_COUNT) {
+        if (cachedDataList.size() >= batchCount) {
             saveData();
             // 存储完成清理 list
-            cachedDataList = ListUtils.newArrayListWithExpectedSize(BATCH_COUNT);
+            cachedDataList = ListUtils.newArrayListWithExpectedSize(batchCount);
         }
     }
     
+    /**
+     * 记录无法转换为实体的行（如 @ExcelColumn 映射读取时的类型错误）
+     * @param rowNum 行号
+     * @param errorMsg 错误信息
+     */
+    public void rejectRow(int rowNum, String errorMsg) {
+        result.addError(rowNum, errorMsg);
+        result.incrementFailCount();
+    }
+    
+    /**
+     * 记录无法转换为实体的行
+     * @param rowNum 行号
+     * @param errors 转换失败的字段
+     */
+    public void rejectRow(int rowNum, List<ExcelFieldError> errors) {
+        result.addError(rowNum, errors);
+        result.incrementFailCount();
+    }
+    
     @Override
     public void doAfterAllAnalysed(AnalysisContext context) {
+        finish();
+    }
+    
+    /**
+     * 读取结束：处理剩余数据
+     */
+    public void finish() {
         // 这里也要保存数据，确保最后遗留的数据也存储到数据库
         saveData();
         log.info("所有数据解析完成，成功: {}条, 失败: {}条", result.getSuccessCount(), result.getFailCount());
     }
     
     /**
-     * 保存数据到结果集
+     * 保存数据：交给接收方，未指定接收方时保存到结果集
      */
     private void saveData() {
-        if (!cachedDataList.isEmpty()) {
+        if (cachedDataList.isEmpty()) {
+            return;
+        }
+        if (sink != null) {
+            sink.accept(cachedDataList);
+            log.debug("处理{}条数据", cachedDataList.size());
+        } else {
             result.addData(cachedDataList);
             log.info("处理{}条数据", cachedDataList.size());
         }
     }
     
+    @SuppressWarnings("unchecked")
+    private static <T> Class<T> getDataClass(T data) {
+        return (Class<T>) data.getClass();
+    }
+    
     /**
-     * 获取导入结果
+     * 获取导入结果，读取前可以调整错误收集方式（如 getResult().getErrors().setSpill(true)）
      */
     public ExcelImportResult<T> getResult() {
         return result;
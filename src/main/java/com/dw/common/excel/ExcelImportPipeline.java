@@ -0,0 +1,302 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.read.listener.ReadListener;
+import lombok.extern.slf4j.Slf4j;
+
+import jakarta.validation.Validator;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 流水线并行导入
+ * 解析、校验、写入分阶段执行：EasyExcel读取线程只负责解析并按块分发，校验在线程池中并行执行，
+ * 单个写入线程按原始顺序取回校验结果、攒批后交给接收方。同时处理中的块数有上限，
+ * 写入跟不上时解析线程阻塞等待（背压）。错误信息和数据都按行号顺序输出
+ */
+@Slf4j
+public class ExcelImportPipeline<T> {
+    
+    /**
+     * 每个校验块的行数
+     */
+    private static final int CHUNK_SIZE = 256;
+    
+    /**
+     * 结束标记
+     */
+    private static final CompletableFuture<?> END = CompletableFuture.completedFuture(null);
+    
+    private static final AtomicInteger WRITER_INDEX = new AtomicInteger();
+    
+    private final Class<T> clazz;
+    private final Validator validator;
+    private final ExcelValidationPlan<T> validationPlan;
+    private final Executor executor;
+    private final int parallelism;
+    private final int batchSize;
+    private final Consumer<List<T>> sink;
+    
+    /**
+     * 超出保留行数的错误是否写入临时文件
+     */
+    private boolean spillErrors;
+    
+    /**
+     * @param clazz 实体类
+     * @param validator 校验器，为null时使用共享的默认校验器
+     * @param executor 校验线程池，为null时按并行度创建临时线程池
+     * @param parallelism 并行校验数
+     * @param batchSize 每批交给接收方的条数
+     * @param sink 批量数据接收方，在写入线程中调用
+     */
+    public ExcelImportPipeline(Class<T> clazz, Validator validator, Executor executor, int parallelism,
+                               int batchSize, Consumer<List<T>> sink) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("并行度和每批条数必须大于0");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("数据接收方不能为空");
+        }
+        this.clazz = clazz;
+        this.validator = validator != null ? validator : ExcelValidationPlan.defaultValidator();
+        this.validationPlan = ExcelValidationPlan.of(clazz);
+        this.executor = executor;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.sink = sink;
+    }
+    
+    /**
+     * 超出保留行数（{@link ExcelImportListener#DEFAULT_ERROR_SAMPLE_SIZE}）的错误写入临时文件，
+     * 结果用完后调用 {@link ExcelImportResult#close()} 删除
+     */
+    public void setSpillErrors(boolean spillErrors) {
+        this.spillErrors = spillErrors;
+    }
+    
+    /**
+     * 执行导入
+     * @param inputStream 输入流
+     * @return 导入结果（不含数据，只有计数和部分错误信息）
+     */
+    public ExcelImportResult<T> run(InputStream inputStream) {
+        ExecutorService ownExecutor = executor == null ? Executors.newFixedThreadPool(parallelism) : null;
+        Run run = new Run(executor != null ? executor : ownExecutor);
+        try {
+            if (ExcelColumnMapping.supports(clazz)) {
+                EasyExcel.read(inputStream, new ExcelColumnReadListener<>(ExcelColumnMapping.of(clazz), run, run::reject))
+                        .sheet().doRead();
+            } else {
+                EasyExcel.read(inputStream, clazz, run).sheet().doRead();
+            }
+        } catch (Exception e) {
+            run.finish();
+            run.result.close();
+            Throwable failure = run.failure.get();
+            throw new RuntimeException("导入Excel失败: " + (failure != null ? failure.getMessage() : e.getMessage()),
+                    failure != null ? failure : e);
+        } finally {
+            if (ownExecutor != null) {
+                ownExecutor.shutdown();
+            }
+        }
+        run.finish();
+        if (run.failure.get() != null) {
+            run.result.close();
+            throw new RuntimeException("导入Excel失败: " + run.failure.get().getMessage(), run.failure.get());
+        }
+        log.info("所有数据解析完成，成功: {}条, 失败: {}条", run.result.getSuccessCount(), run.result.getFailCount());
+        return run.result;
+    }
+    
+    /**
+     * 一次导入的状态
+     */
+    private class Run implements ReadListener<T> {
+        
+        private final Executor validateExecutor;
+        private final ExcelImportResult<T> result = new ExcelImportResult<>();
+        
+        /**
+         * 按提交顺序排列的校验结果
+         */
+        private final BlockingQueue<CompletableFuture<?>> pending = new LinkedBlockingQueue<>();
+        
+        /**
+         * 同时处理中的块数上限
+         */
+        private final Semaphore inFlight = new Semaphore(parallelism * 2);
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+        private final Thread writer;
+        
+        private Chunk<T> chunk = new Chunk<>();
+        private boolean finished;
+        
+        Run(Executor validateExecutor) {
+            this.validateExecutor = validateExecutor;
+            this.result.setErrorLimit(ExcelImportListener.DEFAULT_ERROR_SAMPLE_SIZE);
+            this.result.getErrors().setSpill(spillErrors);
+            this.writer = new Thread(this::write, "dw-excel-writer-" + WRITER_INDEX.incrementAndGet());
+            this.writer.setDaemon(true);
+            this.writer.start();
+        }
+        
+        @Override
+        public void invoke(T data, AnalysisContext context) {
+            if (failure.get() != null) {
+                throw new IllegalStateException("导入已中止", failure.get());
+            }
+            chunk.add(context.readRowHolder().getRowIndex() + 1, data, null);
+            if (chunk.size() >= CHUNK_SIZE) {
+                dispatch();
+            }
+        }
+        
+        /**
+         * 无法转换为实体的行，随块按顺序报告错误
+         */
+        void reject(int rowNum, List<ExcelFieldError> errors) {
+            chunk.add(rowNum, null, errors);
+            if (chunk.size() >= CHUNK_SIZE) {
+                dispatch();
+            }
+        }
+        
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+            if (chunk.size() > 0) {
+                dispatch();
+            }
+        }
+        
+        /**
+         * 提交当前块校验，处理中的块数达到上限时等待
+         */
+        private void dispatch() {
+            Chunk<T> current = chunk;
+            chunk = new Chunk<>();
+            try {
+                inFlight.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("导入被中断", e);
+            }
+            pending.add(CompletableFuture.runAsync(() -> current.validate(validationPlan, validator), validateExecutor)
+                    .thenApply(ignored -> current));
+        }
+        
+        /**
+         * 结束写入线程并等待剩余数据写完
+         */
+        void finish() {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            pending.add(END);
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure.compareAndSet(null, e);
+            }
+        }
+        
+        /**
+         * 写入线程：按顺序取回校验结果，攒批交给接收方；失败后只释放许可不再写入
+         */
+        @SuppressWarnings("unchecked")
+        private void write() {
+            List<T> batch = new ArrayList<>(batchSize);
+            while (true) {
+                CompletableFuture<?> future;
+                try {
+                    future = pending.take();
+                } catch (InterruptedException e) {
+                    failure.compareAndSet(null, e);
+                    return;
+                }
+                if (future == END) {
+                    break;
+                }
+                try {
+                    Chunk<T> validated = (Chunk<T>) future.join();
+                    if (failure.get() == null) {
+                        batch = drain(validated, batch);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e.getCause() != null ? e.getCause() : e);
+                } finally {
+                    inFlight.release();
+                }
+            }
+            if (failure.get() == null && !batch.isEmpty()) {
+                try {
+                    sink.accept(batch);
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+        
+        private List<T> drain(Chunk<T> validated, List<T> batch) {
+            for (int i = 0; i < validated.size(); i++) {
+                List<ExcelFieldError> errors = validated.errors[i];
+                if (errors != null) {
+                    result.addError(validated.rowNums[i], errors);
+                    result.incrementFailCount();
+                    continue;
+                }
+                batch.add(validated.rows.get(i));
+                result.incrementSuccessCount();
+                if (batch.size() >= batchSize) {
+                    sink.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            return batch;
+        }
+    }
+    
+    /**
+     * 校验块：连续的若干行及其校验结果
+     */
+    private static class Chunk<T> {
+        
+        private final List<T> rows = new ArrayList<>(CHUNK_SIZE);
+        private final int[] rowNums = new int[CHUNK_SIZE];
+        @SuppressWarnings("unchecked")
+        private final List<ExcelFieldError>[] errors = new List[CHUNK_SIZE];
+        
+        void add(int rowNum, T row, List<ExcelFieldError> error) {
+            rowNums[rows.size()] = rowNum;
+            errors[rows.size()] = error;
+            rows.add(row);
+        }
+        
+        int size() {
+            return rows.size();
+        }
+        
+        void validate(ExcelValidationPlan<T> plan, Validator validator) {
+            for (int i = 0; i < rows.size(); i++) {
+                if (errors[i] == null) {
+                    errors[i] = plan.check(rows.get(i), validator);
+                }
+            }
+        }
+    }
+}
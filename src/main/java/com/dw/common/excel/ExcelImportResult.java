@@ -1,17 +1,19 @@
 package com.dw.common.excel;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Data;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 /**
  * Excel导入结果
+ * 错误由 {@link ExcelErrorCollector} 收集：默认只保留前1000行的错误信息，全部错误计入按列的统计；
+ * 开启溢写（getErrors().setSpill(true)）后超出部分写入临时文件，用完后调用 {@link #close()} 删除
  */
 @Data
-public class ExcelImportResult<T> {
+public class ExcelImportResult<T> implements AutoCloseable {
     
     /**
      * 导入成功的数据
@@ -29,9 +31,11 @@ public class ExcelImportResult<T> {
     private int failCount = 0;
     
     /**
-     * 错误信息 (行号 -> 错误信息)
+     * 错误收集器：保留有限条错误信息，按列汇总统计，可溢写到临时文件
+     * 不参与序列化，避免暴露溢写文件路径；对外通过 errorMessages / errorStats 输出
      */
-    private Map<Integer, String> errorMessages = new HashMap<>();
+    @JsonIgnore
+    private final ExcelErrorCollector errors = new ExcelErrorCollector();
     
     /**
      * 添加成功数据
@@ -65,7 +69,60 @@ public class ExcelImportResult<T> {
      * 添加错误信息
      */
     public void addError(int rowNum, String errorMsg) {
-        this.errorMessages.put(rowNum, errorMsg);
+        errors.add(rowNum, errorMsg);
+    }
+    
+    /**
+     * 添加结构化的字段错误，超出保留行数时不再拼接错误文本
+     */
+    public void addError(int rowNum, List<ExcelFieldError> fieldErrors) {
+        errors.add(rowNum, fieldErrors);
+    }
+    
+    /**
+     * 错误信息 (行号 -> 错误信息)，按行号顺序，最多保留 errorLimit 行
+     */
+    public Map<Integer, String> getErrorMessages() {
+        return errors.getMessages();
+    }
+    
+    /**
+     * 替换保留的错误信息，不影响错误统计
+     * @deprecated 仅为兼容旧代码保留，请使用 {@link #addError(int, String)}
+     */
+    @Deprecated
+    public void setErrorMessages(Map<Integer, String> errorMessages) {
+        Map<Integer, String> messages = errors.getMessages();
+        messages.clear();
+        if (errorMessages != null) {
+            messages.putAll(errorMessages);
+        }
+    }
+    
+    /**
+     * 最多保留的错误信息行数，默认 {@link ExcelErrorCollector#DEFAULT_LIMIT}，小于0表示不限制；超出后只计数不保存
+     */
+    public int getErrorLimit() {
+        return errors.getLimit();
+    }
+    
+    public void setErrorLimit(int errorLimit) {
+        errors.setLimit(errorLimit);
+    }
+    
+    /**
+     * 按 字段 + 错误码 汇总的错误统计
+     */
+    public List<ExcelErrorStat> getErrorStats() {
+        return errors.getStats();
+    }
+    
+    /**
+     * 删除错误溢写文件
+     */
+    @Override
+    public void close() {
+        errors.close();
     }
     
     /**
@@ -105,21 +162,29 @@ public class ExcelImportResult<T> {
                .append("成功: ").append(successCount).append("条，")
                .append("失败: ").append(failCount).append("条。");
         
-        if (errorMessages.size() <= 5) {
+        // 限制了错误条数时，未保存的错误也计入总数
+        Map<Integer, String> errorMessages = errors.getMessages();
+        int errorCount = Math.max(errorMessages.size(), failCount);
+        if (errorCount <= 5 && errorMessages.size() == errorCount) {
             // 错误较少时，显示具体错误
             summary.append("错误详情：");
             errorMessages.forEach((rowNum, errorMsg) -> 
                 summary.append("\n第").append(rowNum).append("行: ").append(errorMsg)
             );
         } else {
-            // 错误较多时，只显示前5条
-            summary.append("部分错误详情（前5条）：");
+            // 错误较多时，只显示前5条，再按列汇总
+            int shown = Math.min(5, errorMessages.size());
+            summary.append("部分错误详情（前").append(shown).append("条）：");
             errorMessages.entrySet().stream()
-                .limit(5)
+                .limit(shown)
                 .forEach(entry -> 
                     summary.append("\n第").append(entry.getKey()).append("行: ").append(entry.getValue())
                 );
-            summary.append("\n...还有").append(errorMessages.size() - 5).append("条错误");
+            summary.append("\n...还有").append(errorCount - shown).append("条错误");
+            summary.append("\n错误统计：");
+            errors.getStats().stream()
+                .limit(10)
+                .forEach(stat -> summary.append("\n").append(stat));
         }
         
         return summary.toString();
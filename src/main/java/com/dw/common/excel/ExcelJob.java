@@ -0,0 +1,119 @@
+package com.dw.common.excel;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * Excel后台任务状态
+ * 进度字段由执行任务的线程更新，其他线程轮询读取
+ */
+@Data
+public class ExcelJob {
+    
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 已提交，等待执行
+         */
+        PENDING,
+        /**
+         * 执行中
+         */
+        RUNNING,
+        /**
+         * 已完成
+         */
+        SUCCESS,
+        /**
+         * 执行失败
+         */
+        FAILED;
+        
+        public boolean isFinished() {
+            return this == SUCCESS || this == FAILED;
+        }
+    }
+    
+    /**
+     * 任务ID
+     */
+    private String jobId;
+    
+    /**
+     * 任务状态
+     */
+    private volatile Status status = Status.PENDING;
+    
+    /**
+     * 已处理行数
+     */
+    private volatile long processedRows;
+    
+    /**
+     * 总行数，未知时为-1
+     */
+    private volatile long totalRows = -1;
+    
+    /**
+     * 失败原因
+     */
+    private volatile String errorMessage;
+    
+    /**
+     * 提交时间
+     */
+    private LocalDateTime createTime = LocalDateTime.now();
+    
+    /**
+     * 开始执行时间
+     */
+    private volatile LocalDateTime startTime;
+    
+    /**
+     * 结束时间
+     */
+    private volatile LocalDateTime finishTime;
+    
+    /**
+     * 进度百分比：完成时为100，总行数未知时为0，执行中最多99
+     */
+    public int getPercent() {
+        if (status == Status.SUCCESS) {
+            return 100;
+        }
+        long total = totalRows;
+        if (total <= 0) {
+            return 0;
+        }
+        return (int) Math.min(99, processedRows * 100 / total);
+    }
+    
+    /**
+     * 标记开始执行
+     */
+    public void markRunning() {
+        this.startTime = LocalDateTime.now();
+        this.status = Status.RUNNING;
+    }
+    
+    /**
+     * 标记执行完成
+     */
+    public void markSuccess() {
+        this.finishTime = LocalDateTime.now();
+        this.status = Status.SUCCESS;
+    }
+    
+    /**
+     * 标记执行失败
+     * @param errorMessage 失败原因
+     */
+    public void markFailed(String errorMessage) {
+        this.errorMessage = errorMessage;
+        this.finishTime = LocalDateTime.now();
+        this.status = Status.FAILED;
+    }
+}
@@ -0,0 +1,142 @@
+package com.dw.common.excel;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.segments.NormalSegmentList;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import org.apache.ibatis.cursor.Cursor;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 分页导出的数据源
+ * 导出时逐页取数、逐页写入，内存中只保留当前页
+ */
+@FunctionalInterface
+public interface ExcelPageSource<T> extends AutoCloseable {
+    
+    /**
+     * 获取下一页数据
+     * @return 下一页数据，没有更多数据时返回空列表或null
+     */
+    List<T> nextPage();
+    
+    /**
+     * 导出结束（包括失败）时调用，释放游标等资源
+     */
+    @Override
+    default void close() {
+    }
+    
+    /**
+     * 只有一页的数据源，首次取数时才调用生产方
+     * @param producer 数据生产方（如一次查询）
+     */
+    static <T> ExcelPageSource<T> once(Supplier<List<T>> producer) {
+        return new ExcelPageSource<>() {
+            private boolean fetched;
+            
+            @Override
+            public List<T> nextPage() {
+                if (fetched) {
+                    return List.of();
+                }
+                fetched = true;
+                return producer.get();
+            }
+        };
+    }
+    
+    /**
+     * 按迭代器分页
+     * @param iterator 数据迭代器
+     * @param pageSize 每页条数
+     */
+    static <T> ExcelPageSource<T> of(Iterator<T> iterator, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于0");
+        }
+        return () -> {
+            List<T> page = new ArrayList<>(pageSize);
+            while (page.size() < pageSize && iterator.hasNext()) {
+                page.add(iterator.next());
+            }
+            return page;
+        };
+    }
+    
+    /**
+     * 按MyBatis游标分页，导出结束时关闭游标
+     * 游标依赖打开的SqlSession，调用方需在事务（如 @Transactional(readOnly = true)）内完成导出
+     * @param cursor MyBatis游标
+     * @param pageSize 每页条数
+     */
+    static <T> ExcelPageSource<T> cursor(Cursor<T> cursor, int pageSize) {
+        ExcelPageSource<T> pages = of(cursor.iterator(), pageSize);
+        return new ExcelPageSource<>() {
+            @Override
+            public List<T> nextPage() {
+                return pages.nextPage();
+            }
+            
+            @Override
+            public void close() {
+                try {
+                    cursor.close();
+                } catch (IOException e) {
+                    throw new IllegalStateException("关闭游标失败: " + e.getMessage(), e);
+                }
+            }
+        };
+    }
+    
+    /**
+     * 按主键（或其他唯一、有序的列）做游标分页：每页查询 key > 上一页最后一条的key，按key升序取pageSize条
+     * 与offset分页不同，每页查询的代价与页码无关。查询条件中不要再指定排序
+     * @param mapper Mapper
+     * @param query 查询条件，为null时导出全表；每页查询基于它的副本，不会修改原条件
+     * @param key 分页列，值必须唯一且非空
+     * @param pageSize 每页条数
+     */
+    static <T, K> ExcelPageSource<T> keyset(BaseMapper<T> mapper, LambdaQueryWrapper<T> query, SFunction<T, K> key,
+                                            int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于0");
+        }
+        LambdaQueryWrapper<T> base = query != null ? query : Wrappers.<T>lambdaQuery();
+        return new ExcelPageSource<>() {
+            private K lastKey;
+            private boolean exhausted;
+            
+            @Override
+            public List<T> nextPage() {
+                if (exhausted) {
+                    return List.of();
+                }
+                LambdaQueryWrapper<T> pageQuery = base.clone();
+                NormalSegmentList conditions = pageQuery.getExpression().getNormal();
+                if (!conditions.isEmpty()) {
+                    // 原条件整体加括号，避免其中的 OR 与分页条件的 AND 优先级混淆；参数仍沿用副本中的参数
+                    String where = conditions.getSqlSegment();
+                    conditions.clear();
+                    pageQuery.apply(where);
+                }
+                pageQuery.gt(lastKey != null, key, lastKey).orderByAsc(key);
+                List<T> page = mapper.selectList(new Page<>(1, pageSize, false), pageQuery);
+                if (page.size() < pageSize) {
+                    exhausted = true;
+                }
+                if (!page.isEmpty()) {
+                    lastKey = key.apply(page.get(page.size() - 1));
+                }
+                return page;
+            }
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.dw.common.excel;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * 单个Sheet的预取器
+ * 在线程池中从数据源逐页取数放入缓冲，写入线程按顺序取走；缓冲中最多保留若干页，写入跟不上时取数线程等待
+ * 多个Sheet各自预取，导出总耗时接近最慢的那个查询而不是所有查询之和
+ */
+public class ExcelSheetPrefetcher<T> {
+    
+    /**
+     * 结束标记
+     */
+    private static final Object END = new Object();
+    
+    private final ExcelPageSource<T> source;
+    private final BlockingQueue<Object> pages = new LinkedBlockingQueue<>();
+    private final Semaphore capacity;
+    private volatile boolean cancelled;
+    private volatile boolean bounded = true;
+    private volatile Thread consumer;
+    
+    /**
+     * @param source 数据源，取数结束后关闭
+     * @param bufferPages 缓冲的最大页数
+     */
+    public ExcelSheetPrefetcher(ExcelPageSource<T> source, int bufferPages) {
+        if (bufferPages <= 0) {
+            throw new IllegalArgumentException("缓冲页数必须大于0");
+        }
+        this.source = source;
+        this.capacity = new Semaphore(bufferPages);
+    }
+    
+    /**
+     * 在线程池中开始取数
+     * @param executor 取数线程池
+     * @param consumer 写入线程；线程池拒绝策略为由调用者执行时取数可能落在写入线程上，此时不限制缓冲以免自己等待自己
+     */
+    public void start(Executor executor, Thread consumer) {
+        this.consumer = consumer;
+        executor.execute(this::produce);
+    }
+    
+    /**
+     * 取下一页，等待取数线程
+     * @return 下一页数据，没有更多数据时返回null
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> take() throws InterruptedException {
+        Object page = pages.take();
+        if (page == END) {
+            pages.add(END);
+            return null;
+        }
+        if (page instanceof Failure failure) {
+            throw new IllegalStateException(failure.cause.getMessage(), failure.cause);
+        }
+        if (bounded) {
+            capacity.release();
+        }
+        return (List<T>) page;
+    }
+    
+    /**
+     * 取消取数（写入失败时调用），唤醒等待中的取数线程
+     */
+    public void cancel() {
+        cancelled = true;
+        capacity.release(Integer.MAX_VALUE / 2);
+    }
+    
+    private void produce() {
+        try (source) {
+            bounded = Thread.currentThread() != consumer;
+            List<T> page;
+            while (!cancelled && (page = source.nextPage()) != null && !page.isEmpty()) {
+                if (bounded) {
+                    capacity.acquire();
+                }
+                pages.add(page);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pages.add(new Failure(e));
+        } catch (Throwable e) {
+            pages.add(new Failure(e));
+        } finally {
+            pages.add(END);
+        }
+    }
+    
+    /**
+     * 取数失败标记
+     */
+    private static final class Failure {
+        
+        private final Throwable cause;
+        
+        Failure(Throwable cause) {
+            this.cause = cause;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.dw.common.excel;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Email;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 按实体类预编译的行校验计划
+ * @ExcelColumn 的 required、maxLength、pattern 规则在首次使用时编译为字段检查（字段读取复用 {@link ExcelColumnMapping} 生成的访问函数，不走反射校验），
+ * 类上存在 Jakarta 约束时再调用 Validator 兜底；没有 Jakarta 约束的类完全跳过 Validator
+ * 每列的错误以 {@link ExcelFieldError} 预先创建，失败行只引用错误实例，需要文本时才拼接
+ * 计划按类缓存，可在多线程间共享
+ */
+public final class ExcelValidationPlan<T> {
+    
+    private static final ClassValue<ExcelValidationPlan<?>> PLANS = new ClassValue<>() {
+        @Override
+        protected ExcelValidationPlan<?> computeValue(Class<?> type) {
+            return new ExcelValidationPlan<>(type);
+        }
+    };
+    
+    private final List<ColumnCheck> checks;
+    private final boolean jakartaConstrained;
+    
+    private ExcelValidationPlan(Class<T> clazz) {
+        this.checks = compile(clazz);
+        this.jakartaConstrained = defaultValidator().getConstraintsForClass(clazz).isBeanConstrained();
+    }
+    
+    /**
+     * 获取实体类的校验计划
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> ExcelValidationPlan<T> of(Class<T> clazz) {
+        return (ExcelValidationPlan<T>) PLANS.get(clazz);
+    }
+    
+    /**
+     * 共享的默认校验器（整个进程只创建一次ValidatorFactory）
+     */
+    public static Validator defaultValidator() {
+        return ValidatorHolder.VALIDATOR;
+    }
+    
+    /**
+     * 校验一行数据
+     * @param row 行数据
+     * @param validator Jakarta校验器，为null时使用共享的默认校验器
+     * @return 错误信息，校验通过返回null
+     */
+    public String validate(T row, Validator validator) {
+        List<ExcelFieldError> errors = check(row, validator);
+        return errors != null ? ExcelFieldError.format(errors) : null;
+    }
+    
+    /**
+     * 校验一行数据，返回结构化的字段错误
+     * @param row 行数据
+     * @param validator Jakarta校验器，为null时使用共享的默认校验器
+     * @return 字段错误，校验通过返回null
+     */
+    public List<ExcelFieldError> check(T row, Validator validator) {
+        List<ExcelFieldError> errors = null;
+        for (ColumnCheck check : checks) {
+            ExcelFieldError error = check.check(row);
+            if (error != null) {
+                errors = add(errors, error);
+            }
+        }
+        if (jakartaConstrained) {
+            Set<ConstraintViolation<T>> violations = (validator != null ? validator : defaultValidator()).validate(row);
+            for (ConstraintViolation<T> violation : violations) {
+                errors = add(errors, new ExcelFieldError(violation.getPropertyPath().toString(),
+                        codeOf(violation), violation.getMessage()));
+            }
+        }
+        return errors;
+    }
+    
+    /**
+     * 类上是否有Jakarta约束（没有时不调用Validator）
+     */
+    public boolean isJakartaConstrained() {
+        return jakartaConstrained;
+    }
+    
+    /**
+     * 预编译的 @ExcelColumn 检查数
+     */
+    public int getColumnCheckCount() {
+        return checks.size();
+    }
+    
+    private static List<ExcelFieldError> add(List<ExcelFieldError> errors, ExcelFieldError error) {
+        List<ExcelFieldError> list = errors != null ? errors : new ArrayList<>(2);
+        list.add(error);
+        return list;
+    }
+    
+    /**
+     * 按约束注解归类错误码
+     */
+    private static ExcelFieldError.Code codeOf(ConstraintViolation<?> violation) {
+        Class<?> annotation = violation.getConstraintDescriptor().getAnnotation().annotationType();
+        if (annotation == NotNull.class || annotation == NotBlank.class || annotation == NotEmpty.class) {
+            return ExcelFieldError.Code.REQUIRED;
+        }
+        if (annotation == Size.class) {
+            return ExcelFieldError.Code.LENGTH;
+        }
+        if (annotation == jakarta.validation.constraints.Pattern.class || annotation == Email.class) {
+            return ExcelFieldError.Code.FORMAT;
+        }
+        return ExcelFieldError.Code.CONSTRAINT;
+    }
+    
+    private static List<ColumnCheck> compile(Class<?> clazz) {
+        if (!ExcelColumnMapping.supports(clazz)) {
+            return List.of();
+        }
+        List<ColumnCheck> checks = new ArrayList<>();
+        for (ExcelColumnMapping.Column column : ExcelColumnMapping.of(clazz).getColumns()) {
+            if (column.isRequired() || column.getMaxLength() > 0 || column.getPattern() != null) {
+                checks.add(new ColumnCheck(column));
+            }
+        }
+        return List.copyOf(checks);
+    }
+    
+    /**
+     * 单个字段的检查
+     */
+    private static final class ColumnCheck {
+        
+        private final ExcelColumnMapping.Column column;
+        private final boolean required;
+        private final int maxLength;
+        private final Pattern pattern;
+        private final ExcelFieldError requiredError;
+        private final ExcelFieldError lengthError;
+        private final ExcelFieldError formatError;
+        
+        ColumnCheck(ExcelColumnMapping.Column column) {
+            String name = column.getName();
+            this.column = column;
+            this.required = column.isRequired();
+            this.maxLength = column.getMaxLength();
+            this.pattern = column.getPattern();
+            this.requiredError = new ExcelFieldError(name, ExcelFieldError.Code.REQUIRED, "不能为空");
+            this.lengthError = new ExcelFieldError(name, ExcelFieldError.Code.LENGTH, "长度不能超过" + maxLength);
+            this.formatError = new ExcelFieldError(name, ExcelFieldError.Code.FORMAT, "格式不正确");
+        }
+        
+        ExcelFieldError check(Object row) {
+            Object value = column.get(row);
+            if (value == null) {
+                return required ? requiredError : null;
+            }
+            if (!(value instanceof CharSequence text)) {
+                return null;
+            }
+            if (required && text.toString().isBlank()) {
+                return requiredError;
+            }
+            if (maxLength > 0 && text.length() > maxLength) {
+                return lengthError;
+            }
+            if (pattern != null && text.length() > 0 && !pattern.matcher(text).matches()) {
+                return formatError;
+            }
+            return null;
+        }
+    }
+    
+    private static final class ValidatorHolder {
+        private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+}
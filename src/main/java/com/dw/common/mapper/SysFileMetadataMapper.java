@@ -0,0 +1,35 @@
+package com.dw.common.mapper;
+
+import com.dw.common.entity.SysFileMetadata;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * 文件元数据Mapper
+ * 表结构见 db/sys_file_metadata.sql，path列上有唯一索引
+ */
+@Mapper
+public interface SysFileMetadataMapper extends DWMapper<SysFileMetadata> {
+    
+    /**
+     * 按路径插入或覆盖元数据（依赖path唯一索引，单条语句完成，并发写入不会产生重复记录）
+     * @param entity 元数据
+     * @return 影响行数
+     */
+    @Insert("INSERT INTO sys_file_metadata (path, url, size, content_type, sha256, crc32c, owner, create_time, update_time, is_deleted) "
+            + "VALUES (#{path}, #{url}, #{size}, #{contentType}, #{sha256}, #{crc32c}, #{owner}, COALESCE(#{createTime}, NOW()), NOW(), 0) "
+            + "ON DUPLICATE KEY UPDATE url = VALUES(url), size = VALUES(size), content_type = VALUES(content_type), "
+            + "sha256 = VALUES(sha256), crc32c = VALUES(crc32c), owner = VALUES(owner), create_time = VALUES(create_time), "
+            + "update_time = NOW(), is_deleted = 0")
+    int upsert(SysFileMetadata entity);
+    
+    /**
+     * 按路径物理删除（元数据随文件删除，不保留逻辑删除记录）
+     * @param path 存储路径
+     * @return 删除行数
+     */
+    @Delete("DELETE FROM sys_file_metadata WHERE path = #{path}")
+    int deleteByPath(@Param("path") String path);
+}
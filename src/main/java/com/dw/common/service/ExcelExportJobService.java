@@ -0,0 +1,291 @@
+package com.dw.common.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.dw.common.excel.ExcelExportJob;
+import com.dw.common.excel.ExcelJob;
+import com.dw.common.excel.ExcelPageSource;
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePathLayout;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.utils.ExcelUtils;
+import com.dw.common.utils.IdUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Excel异步导出服务
+ * 提交导出后立即返回任务，文件在导出线程池中生成（先写临时文件，再通过FileStorage保存），
+ * 进度可以轮询 {@link #getJob} 或注册监听器推送；完成后返回下载URL。
+ * 去重窗口内相同去重键的请求复用执行中或已完成的任务，失败的任务不复用；
+ * 任务状态过期时一并删除导出文件
+ */
+@Slf4j
+@Service
+public class ExcelExportJobService {
+    
+    /**
+     * 导出文件的存储分类目录
+     */
+    public static final String EXPORT_CATEGORY = "exports";
+    
+    /**
+     * 去重窗口：窗口内完成的任务可被相同请求复用
+     */
+    public static final Duration DEDUP_WINDOW = Duration.ofMinutes(10);
+    
+    /**
+     * 任务状态保留时长，超过后不可再查询
+     */
+    public static final Duration JOB_RETENTION = Duration.ofHours(24);
+    
+    /**
+     * 下载链接有效期
+     */
+    public static final Duration DOWNLOAD_URL_TTL = Duration.ofHours(1);
+    
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
+    @Autowired
+    private FileStorage fileStorage;
+    
+    @Autowired(required = false)
+    @Qualifier("excelExportExecutor")
+    private Executor exportExecutor;
+    
+    @Autowired(required = false)
+    private StoragePathLayout storagePathLayout;
+    
+    private final Map<String, ExcelExportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ExcelExportJob> jobsByKey = new ConcurrentHashMap<>();
+    private final List<Consumer<ExcelExportJob>> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 提交导出任务
+     * @param fileName 下载文件名（不含扩展名）
+     * @param clazz 实体类
+     * @param sourceFactory 数据源工厂，在执行线程中调用
+     * @param totalRows 预计总行数，未知时传-1（进度只有行数没有百分比）
+     * @param dedupKey 去重键（如 用户+查询条件），为null时不去重
+     * @return 导出任务
+     */
+    public <T> ExcelExportJob submit(String fileName, Class<T> clazz, Supplier<ExcelPageSource<T>> sourceFactory,
+                                     long totalRows, String dedupKey) {
+        return submit(fileName, clazz, () -> totalRows, sourceFactory, dedupKey);
+    }
+    
+    /**
+     * 按查询条件提交导出任务：执行时先统计总行数，再按key列游标分页导出，相同实体、文件名和查询条件的请求去重
+     * @param fileName 下载文件名（不含扩展名）
+     * @param mapper Mapper
+     * @param query 查询条件，为null时导出全表；不要在条件中指定排序
+     * @param key 分页列，如主键 DWEntity::getId
+     * @param clazz 实体类
+     * @return 导出任务
+     */
+    public <T> ExcelExportJob submit(String fileName, BaseMapper<T> mapper, LambdaQueryWrapper<T> query,
+                                     SFunction<T, ?> key, Class<T> clazz) {
+        String dedupKey = clazz.getName() + "|" + fileName;
+        if (query != null) {
+            dedupKey += "|" + query.getSqlSegment() + "|" + new TreeMap<>(query.getParamNameValuePairs());
+        }
+        return submit(fileName, clazz, () -> mapper.selectCount(query),
+                () -> ExcelPageSource.keyset(mapper, query, key, ExcelService.EXPORT_PAGE_SIZE), dedupKey);
+    }
+    
+    /**
+     * 查询任务
+     * @param jobId 任务ID
+     * @return 任务，不存在或已过期返回null
+     */
+    public ExcelExportJob getJob(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+    
+    /**
+     * 重新生成已完成任务的下载URL（原链接过期后使用）
+     * @param jobId 任务ID
+     * @return 下载URL，任务不存在或未完成返回null
+     */
+    public String refreshDownloadUrl(String jobId) {
+        ExcelExportJob job = getJob(jobId);
+        if (job == null || job.getStatus() != ExcelJob.Status.SUCCESS) {
+            return null;
+        }
+        String url = fileStorage.getSignedUrl(job.getPath(), DOWNLOAD_URL_TTL);
+        job.setDownloadUrl(url);
+        return url;
+    }
+    
+    /**
+     * 注册进度监听器：任务开始、每写完一页、结束时调用（在执行线程中）
+     * @param listener 监听器，可用于WebSocket/SSE推送
+     */
+    public void addListener(Consumer<ExcelExportJob> listener) {
+        listeners.add(listener);
+    }
+    
+    private <T> ExcelExportJob submit(String fileName, Class<T> clazz, Supplier<Long> totalRows,
+                                      Supplier<ExcelPageSource<T>> sourceFactory, String dedupKey) {
+        evictExpired();
+        ExcelExportJob job = new ExcelExportJob();
+        job.setJobId(IdUtils.simpleUuid());
+        job.setFileName(fileName);
+        job.setDedupKey(dedupKey);
+        
+        if (dedupKey != null) {
+            ExcelExportJob existing = jobsByKey.compute(dedupKey, (k, current) -> reusable(current) ? current : job);
+            if (existing != job) {
+                log.info("导出请求与任务{}相同，复用该任务", existing.getJobId());
+                return existing;
+            }
+        }
+        jobs.put(job.getJobId(), job);
+        
+        Runnable task = () -> run(job, clazz, totalRows, sourceFactory);
+        try {
+            if (exportExecutor != null) {
+                CompletableFuture.runAsync(task, exportExecutor);
+            } else {
+                CompletableFuture.runAsync(task);
+            }
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            if (dedupKey != null) {
+                jobsByKey.remove(dedupKey, job);
+            }
+            throw new IllegalStateException("导出任务过多，请稍后重试");
+        }
+        return job;
+    }
+    
+    private <T> void run(ExcelExportJob job, Class<T> clazz, Supplier<Long> totalRows,
+                         Supplier<ExcelPageSource<T>> sourceFactory) {
+        job.markRunning();
+        notifyListeners(job);
+        Path tempFile = null;
+        try {
+            Long total = totalRows.get();
+            job.setTotalRows(total != null ? total : -1);
+            
+            tempFile = Files.createTempFile("dw-export-", ".xlsx");
+            try (OutputStream outputStream = Files.newOutputStream(tempFile)) {
+                ExcelUtils.writeExcelByPage(outputStream, clazz, trackProgress(job, sourceFactory.get()));
+            }
+            
+            StoragePathLayout layout = storagePathLayout != null ? storagePathLayout : StoragePathLayout.DEFAULT;
+            String path = layout.generate(EXPORT_CATEGORY, "xlsx");
+            try (InputStream inputStream = Files.newInputStream(tempFile)) {
+                StoredFile storedFile = fileStorage.store(inputStream, path, XLSX_CONTENT_TYPE);
+                if (storedFile == null) {
+                    throw new IllegalStateException("导出文件保存失败");
+                }
+            }
+            job.setPath(path);
+            job.setDownloadUrl(fileStorage.getSignedUrl(path, DOWNLOAD_URL_TTL));
+            job.markSuccess();
+            log.info("导出任务{}完成，共{}行", job.getJobId(), job.getProcessedRows());
+        } catch (Exception e) {
+            log.error("导出任务{}失败", job.getJobId(), e);
+            job.markFailed(e.getMessage());
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    log.warn("删除导出临时文件失败: {}", tempFile);
+                }
+            }
+        }
+        notifyListeners(job);
+    }
+    
+    /**
+     * 包装数据源，每取到一页更新已处理行数并通知监听器
+     */
+    private <T> ExcelPageSource<T> trackProgress(ExcelExportJob job, ExcelPageSource<T> source) {
+        return new ExcelPageSource<>() {
+            @Override
+            public List<T> nextPage() {
+                List<T> page = source.nextPage();
+                if (page != null && !page.isEmpty()) {
+                    job.setProcessedRows(job.getProcessedRows() + page.size());
+                    notifyListeners(job);
+                }
+                return page;
+            }
+            
+            @Override
+            public void close() {
+                source.close();
+            }
+        };
+    }
+    
+    private boolean reusable(ExcelExportJob job) {
+        if (job == null || job.getStatus() == ExcelJob.Status.FAILED) {
+            return false;
+        }
+        return !job.getStatus().isFinished()
+                || job.getFinishTime().isAfter(LocalDateTime.now().minus(DEDUP_WINDOW));
+    }
+    
+    private void notifyListeners(ExcelExportJob job) {
+        for (Consumer<ExcelExportJob> listener : listeners) {
+            try {
+                listener.accept(job);
+            } catch (Exception e) {
+                log.warn("导出进度监听器执行失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 清理过期任务状态并删除导出文件（重启前未清理的文件可配置 exports/ 生命周期规则兜底）
+     */
+    private void evictExpired() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getStatus().isFinished() && job.getFinishTime().isBefore(expireBefore);
+            if (expired) {
+                if (job.getDedupKey() != null) {
+                    jobsByKey.remove(job.getDedupKey(), job);
+                }
+                deleteQuietly(job.getPath());
+            }
+            return expired;
+        });
+    }
+    
+    private void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            fileStorage.delete(path);
+        } catch (Exception e) {
+            log.warn("删除过期导出文件失败: {}", path);
+        }
+    }
+}
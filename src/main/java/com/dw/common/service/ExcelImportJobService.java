@@ -0,0 +1,498 @@
+package com.dw.common.service;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.context.AnalysisContext;
+import com.alibaba.excel.exception.ExcelDataConvertException;
+import com.alibaba.excel.metadata.data.ReadCellData;
+import com.alibaba.excel.read.listener.ReadListener;
+import com.alibaba.excel.util.ConverterUtils;
+import com.dw.common.excel.ExcelColumnMapping;
+import com.dw.common.excel.ExcelColumnReadListener;
+import com.dw.common.excel.ExcelErrorFileWriter;
+import com.dw.common.excel.ExcelFieldError;
+import com.dw.common.excel.ExcelImportJob;
+import com.dw.common.excel.ExcelJob;
+import com.dw.common.excel.ExcelValidationPlan;
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePathLayout;
+import com.dw.common.utils.IdUtils;
+import com.dw.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * Excel异步导入服务
+ * 上传文件先保存到FileStorage，导入在独立的导入线程池中执行（队列满时拒绝提交）：每 checkpointInterval 行把校验通过的数据交给接收方并记录检查点，
+ * 进度可以轮询 {@link #getJob} 或注册监听器推送。校验失败的行写入错误文件（原表头、原单元格加行号和错误信息），
+ * 不在内存中保留。失败的任务可以 {@link #resume} 从检查点继续，检查点之前的行不会再交给接收方；
+ * 导入成功后删除上传的导入文件，任务状态过期时删除剩余的导入文件和错误文件
+ */
+@Slf4j
+@Service
+public class ExcelImportJobService {
+    
+    /**
+     * 导入文件的存储分类目录
+     */
+    public static final String IMPORT_CATEGORY = "imports";
+    
+    /**
+     * 错误文件的存储分类目录
+     */
+    public static final String ERROR_CATEGORY = "import-errors";
+    
+    /**
+     * 默认检查点间隔（行数）
+     */
+    public static final int DEFAULT_CHECKPOINT_INTERVAL = 1000;
+    
+    /**
+     * 任务状态保留时长，超过后不可再查询和续传
+     */
+    public static final Duration JOB_RETENTION = Duration.ofHours(24);
+    
+    /**
+     * 错误文件下载链接有效期
+     */
+    public static final Duration DOWNLOAD_URL_TTL = Duration.ofHours(1);
+    
+    private static final String XLSX_CONTENT_TYPE = "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+    
+    @Autowired
+    private FileStorage fileStorage;
+    
+    @Autowired(required = false)
+    @Qualifier("excelImportExecutor")
+    private Executor importExecutor;
+    
+    @Autowired(required = false)
+    private Validator validator;
+    
+    @Autowired(required = false)
+    private StoragePathLayout storagePathLayout;
+    
+    private final Map<String, ExcelImportJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, ImportTask<?>> tasks = new ConcurrentHashMap<>();
+    private final List<Consumer<ExcelImportJob>> listeners = new CopyOnWriteArrayList<>();
+    
+    /**
+     * 提交导入任务（默认每1000行一个检查点）
+     * @param file 上传文件
+     * @param clazz 实体类
+     * @param sink 批量数据接收方，在任务线程中调用；需要事务时应在接收方内部开启
+     * @return 导入任务
+     */
+    public <T> ExcelImportJob submit(MultipartFile file, Class<T> clazz, Consumer<List<T>> sink) {
+        return submit(file, clazz, DEFAULT_CHECKPOINT_INTERVAL, sink);
+    }
+    
+    /**
+     * 提交导入任务
+     * @param file 上传文件
+     * @param clazz 实体类
+     * @param checkpointInterval 检查点间隔（行数），也是每批交给接收方的最大行数
+     * @param sink 批量数据接收方，在任务线程中调用；需要事务时应在接收方内部开启
+     * @return 导入任务
+     * @throws IllegalStateException 导入线程池已满
+     */
+    public <T> ExcelImportJob submit(MultipartFile file, Class<T> clazz, int checkpointInterval, Consumer<List<T>> sink) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        if (checkpointInterval <= 0) {
+            throw new IllegalArgumentException("检查点间隔必须大于0");
+        }
+        if (sink == null) {
+            throw new IllegalArgumentException("数据接收方不能为空");
+        }
+        evictExpired();
+        
+        String extension = StringUtils.isNotEmpty(file.getOriginalFilename()) && file.getOriginalFilename().contains(".")
+                ? file.getOriginalFilename().substring(file.getOriginalFilename().lastIndexOf('.') + 1)
+                : "xlsx";
+        String inputPath = layout().generate(IMPORT_CATEGORY, extension);
+        if (fileStorage.store(file, inputPath) == null) {
+            throw new RuntimeException("保存导入文件失败");
+        }
+        
+        ExcelImportJob job = new ExcelImportJob();
+        job.setJobId(IdUtils.simpleUuid());
+        job.setFileName(file.getOriginalFilename());
+        job.setInputPath(inputPath);
+        job.setCheckpointInterval(checkpointInterval);
+        jobs.put(job.getJobId(), job);
+        tasks.put(job.getJobId(), new ImportTask<>(clazz, sink));
+        try {
+            execute(job);
+        } catch (RejectedExecutionException e) {
+            jobs.remove(job.getJobId());
+            tasks.remove(job.getJobId());
+            deleteQuietly(inputPath);
+            throw new IllegalStateException("导入任务过多，请稍后重试");
+        }
+        return job;
+    }
+    
+    /**
+     * 从检查点继续失败的任务
+     * @param jobId 任务ID
+     * @return 导入任务
+     * @throws IllegalStateException 任务不是失败状态，或导入线程池已满
+     */
+    public ExcelImportJob resume(String jobId) {
+        ExcelImportJob job = getJob(jobId);
+        if (job == null || !tasks.containsKey(jobId)) {
+            throw new IllegalArgumentException("导入任务不存在或已过期");
+        }
+        String errorMessage;
+        LocalDateTime finishTime;
+        synchronized (job) {
+            if (job.getStatus() != ExcelJob.Status.FAILED) {
+                throw new IllegalStateException("只有失败的导入任务可以继续");
+            }
+            errorMessage = job.getErrorMessage();
+            finishTime = job.getFinishTime();
+            job.setStatus(ExcelJob.Status.PENDING);
+            job.setErrorMessage(null);
+            job.setFinishTime(null);
+        }
+        try {
+            execute(job);
+        } catch (RejectedExecutionException e) {
+            // 未能提交时保持失败状态，稍后可以再次续传
+            synchronized (job) {
+                job.setErrorMessage(errorMessage);
+                job.setFinishTime(finishTime);
+                job.setStatus(ExcelJob.Status.FAILED);
+            }
+            throw new IllegalStateException("导入任务过多，请稍后重试");
+        }
+        log.info("导入任务{}从第{}行之后继续", jobId, job.getCheckpointRow());
+        return job;
+    }
+    
+    /**
+     * 查询任务
+     * @param jobId 任务ID
+     * @return 任务，不存在或已过期返回null
+     */
+    public ExcelImportJob getJob(String jobId) {
+        return jobId != null ? jobs.get(jobId) : null;
+    }
+    
+    /**
+     * 注册进度监听器：任务开始、每个检查点、结束时调用（在执行线程中）
+     * @param listener 监听器，可用于WebSocket/SSE推送
+     */
+    public void addListener(Consumer<ExcelImportJob> listener) {
+        listeners.add(listener);
+    }
+    
+    private void execute(ExcelImportJob job) {
+        Runnable task = () -> run(job, tasks.get(job.getJobId()));
+        if (importExecutor != null) {
+            CompletableFuture.runAsync(task, importExecutor);
+        } else {
+            CompletableFuture.runAsync(task);
+        }
+    }
+    
+    private <T> void run(ExcelImportJob job, ImportTask<T> task) {
+        job.markRunning();
+        job.setSuccessCount(job.getCheckpointSuccessCount());
+        job.setFailCount(job.getCheckpointFailCount());
+        job.setProcessedRows(job.getSuccessCount() + job.getFailCount());
+        notifyListeners(job);
+        
+        Path errorFile = null;
+        String failure = null;
+        ExcelErrorFileWriter errors = null;
+        try {
+            errorFile = Files.createTempFile("dw-import-errors-", ".xlsx");
+            try (OutputStream errorOutput = Files.newOutputStream(errorFile)) {
+                errors = new ExcelErrorFileWriter(errorOutput);
+                try {
+                    if (job.getErrorFilePath() != null && job.getCheckpointRow() > 0) {
+                        try (InputStream previous = fileStorage.download(job.getErrorFilePath())) {
+                            if (previous != null) {
+                                errors.copyFrom(previous, job.getCheckpointRow());
+                            }
+                        }
+                    }
+                    read(job, task, errors);
+                } catch (Exception e) {
+                    failure = rootMessage(e);
+                    log.error("导入任务{}失败，检查点: 第{}行", job.getJobId(), job.getCheckpointRow(), e);
+                } finally {
+                    errors.close();
+                }
+            }
+            // 失败时也保存错误文件，续传时从中取回检查点之前的错误
+            String errorFilePath = null;
+            if (errors.getErrorCount() > 0) {
+                errorFilePath = layout().generate(ERROR_CATEGORY, "xlsx");
+                try (InputStream inputStream = Files.newInputStream(errorFile)) {
+                    if (fileStorage.store(inputStream, errorFilePath, XLSX_CONTENT_TYPE) == null) {
+                        throw new IllegalStateException("错误文件保存失败");
+                    }
+                }
+            }
+            replaceErrorFile(job, errorFilePath);
+        } catch (Exception e) {
+            log.error("导入任务{}保存错误文件失败", job.getJobId(), e);
+            failure = failure != null ? failure : rootMessage(e);
+        } finally {
+            if (errorFile != null) {
+                try {
+                    Files.deleteIfExists(errorFile);
+                } catch (IOException e) {
+                    log.warn("删除错误临时文件失败: {}", errorFile);
+                }
+            }
+        }
+        
+        if (failure != null) {
+            job.markFailed(failure);
+        } else {
+            // 导入文件只用于续传，成功后不再需要
+            deleteQuietly(job.getInputPath());
+            job.markSuccess();
+            log.info("导入任务{}完成，成功: {}条, 失败: {}条", job.getJobId(), job.getSuccessCount(), job.getFailCount());
+        }
+        notifyListeners(job);
+    }
+    
+    private <T> void read(ExcelImportJob job, ImportTask<T> task, ExcelErrorFileWriter errors) throws IOException {
+        JobReadListener<T> listener = new JobReadListener<>(job, task, errors);
+        try (InputStream inputStream = fileStorage.download(job.getInputPath())) {
+            if (inputStream == null) {
+                throw new IllegalStateException("导入文件不存在: " + job.getInputPath());
+            }
+            if (ExcelColumnMapping.supports(task.clazz)) {
+                EasyExcel.read(inputStream, new ExcelColumnReadListener<>(ExcelColumnMapping.of(task.clazz), listener,
+                        (rowNum, fieldErrors) -> listener.reject(ExcelFieldError.format(fieldErrors)))).sheet().doRead();
+            } else {
+                EasyExcel.read(inputStream, task.clazz, listener).sheet().doRead();
+            }
+        }
+    }
+    
+    private void replaceErrorFile(ExcelImportJob job, String errorFilePath) {
+        String previous = job.getErrorFilePath();
+        job.setErrorFilePath(errorFilePath);
+        job.setErrorFileUrl(errorFilePath != null ? fileStorage.getSignedUrl(errorFilePath, DOWNLOAD_URL_TTL) : null);
+        if (previous != null && !previous.equals(errorFilePath)) {
+            fileStorage.delete(previous);
+        }
+    }
+    
+    private StoragePathLayout layout() {
+        return storagePathLayout != null ? storagePathLayout : StoragePathLayout.DEFAULT;
+    }
+    
+    private void notifyListeners(ExcelImportJob job) {
+        for (Consumer<ExcelImportJob> listener : listeners) {
+            try {
+                listener.accept(job);
+            } catch (Exception e) {
+                log.warn("导入进度监听器执行失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 清理过期任务状态，并删除任务的导入文件（失败未续传时仍保留）和错误文件
+     */
+    private void evictExpired() {
+        LocalDateTime expireBefore = LocalDateTime.now().minus(JOB_RETENTION);
+        jobs.values().removeIf(job -> {
+            boolean expired = job.getStatus().isFinished() && job.getFinishTime().isBefore(expireBefore);
+            if (expired) {
+                tasks.remove(job.getJobId());
+                if (job.getStatus() == ExcelJob.Status.FAILED) {
+                    deleteQuietly(job.getInputPath());
+                }
+                deleteQuietly(job.getErrorFilePath());
+            }
+            return expired;
+        });
+    }
+    
+    private void deleteQuietly(String path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            fileStorage.delete(path);
+        } catch (Exception e) {
+            log.warn("删除导入任务文件失败: {}", path);
+        }
+    }
+    
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null && cause.getCause() != cause) {
+            cause = cause.getCause();
+        }
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+    
+    /**
+     * 导入任务的执行参数（续传时复用）
+     */
+    private static final class ImportTask<T> {
+        
+        private final Class<T> clazz;
+        private final Consumer<List<T>> sink;
+        
+        ImportTask(Class<T> clazz, Consumer<List<T>> sink) {
+            this.clazz = clazz;
+            this.sink = sink;
+        }
+    }
+    
+    /**
+     * 一次执行的读取监听器：跳过检查点之前的行，校验、攒批、记录检查点
+     */
+    private class JobReadListener<T> implements ReadListener<T> {
+        
+        private final ExcelImportJob job;
+        private final ImportTask<T> task;
+        private final ExcelErrorFileWriter errors;
+        private final int skipUntilRow;
+        private final Validator rowValidator;
+        private List<T> batch;
+        private AnalysisContext context;
+        private ExcelValidationPlan<T> validationPlan;
+        private int lastRow;
+        private int rowsSinceCheckpoint;
+        
+        JobReadListener(ExcelImportJob job, ImportTask<T> task, ExcelErrorFileWriter errors) {
+            this.job = job;
+            this.task = task;
+            this.errors = errors;
+            this.skipUntilRow = job.getCheckpointRow();
+            this.rowValidator = validator != null ? validator : ExcelValidationPlan.defaultValidator();
+            this.batch = new ArrayList<>(Math.min(job.getCheckpointInterval(), 1024));
+            this.validationPlan = ExcelValidationPlan.of(task.clazz);
+        }
+        
+        @Override
+        public void invokeHead(Map<Integer, ReadCellData<?>> headMap, AnalysisContext context) {
+            this.context = context;
+            errors.setHead(ConverterUtils.convertToStringMap(headMap, context));
+            Integer approximateRows = context.readSheetHolder().getApproximateTotalRowNumber();
+            if (approximateRows != null && approximateRows > 1) {
+                job.setTotalRows(approximateRows - 1);
+            }
+        }
+        
+        @Override
+        public void invoke(T data, AnalysisContext context) {
+            this.context = context;
+            if (!advance()) {
+                return;
+            }
+            String errorMsg = validationPlan.validate(data, rowValidator);
+            if (errorMsg != null) {
+                recordError(errorMsg);
+            } else {
+                batch.add(data);
+                job.setSuccessCount(job.getSuccessCount() + 1);
+            }
+            afterRow();
+        }
+        
+        /**
+         * 无法转换为实体的行
+         */
+        void reject(String errorMsg) {
+            if (!advance()) {
+                return;
+            }
+            recordError(errorMsg);
+            afterRow();
+        }
+        
+        /**
+         * 单元格类型转换失败时记为行错误继续读取，而不是中止导入
+         */
+        @Override
+        public void onException(Exception exception, AnalysisContext context) throws Exception {
+            if (exception instanceof ExcelDataConvertException convertException) {
+                this.context = context;
+                String column = convertException.getExcelContentProperty() != null
+                        && convertException.getExcelContentProperty().getField() != null
+                        ? convertException.getExcelContentProperty().getField().getName()
+                        : "第" + (convertException.getColumnIndex() + 1) + "列";
+                reject(column + ": 格式不正确; ");
+                return;
+            }
+            throw exception;
+        }
+        
+        @Override
+        public void doAfterAllAnalysed(AnalysisContext context) {
+            if (rowsSinceCheckpoint > 0) {
+                checkpoint();
+            }
+        }
+        
+        /**
+         * 定位当前行，检查点之前的行返回false
+         */
+        private boolean advance() {
+            lastRow = context.readRowHolder().getRowIndex() + 1;
+            return lastRow > skipUntilRow;
+        }
+        
+        private void recordError(String errorMsg) {
+            errors.write(context, errorMsg);
+            job.setFailCount(job.getFailCount() + 1);
+        }
+        
+        private void afterRow() {
+            job.setProcessedRows(job.getSuccessCount() + job.getFailCount());
+            if (++rowsSinceCheckpoint >= job.getCheckpointInterval()) {
+                checkpoint();
+            }
+        }
+        
+        /**
+         * 交出当前批次并记录检查点；接收方失败时检查点保持不变
+         */
+        private void checkpoint() {
+            if (!batch.isEmpty()) {
+                task.sink.accept(batch);
+                batch = new ArrayList<>(batch.size());
+            }
+            errors.flush();
+            job.setCheckpointSuccessCount(job.getSuccessCount());
+            job.setCheckpointFailCount(job.getFailCount());
+            job.setCheckpointRow(lastRow);
+            rowsSinceCheckpoint = 0;
+            notifyListeners(job);
+        }
+    }
+}
@@ -1,13 +1,26 @@
 package com.dw.common.service;
 
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
+import com.dw.common.excel.CsvFormat;
+import com.dw.common.excel.ExcelImportPipeline;
 import com.dw.common.excel.ExcelImportResult;
+import com.dw.common.excel.ExcelPageSource;
+import com.dw.common.utils.CsvUtils;
 import com.dw.common.utils.ExcelUtils;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletResponse;
+import jakarta.validation.Validator;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -18,6 +31,18 @@ import java.util.function.Function;
 @Service
 public class ExcelService {
     
+    /**
+     * 分页导出默认每页条数
+     */
+    public static final int EXPORT_PAGE_SIZE = 1000;
+    
+    @Autowired(required = false)
+    @Qualifier("taskExecutor")
+    private Executor taskExecutor;
+    
+    @Autowired(required = false)
+    private Validator validator;
+    
     /**
      * 导出Excel
      * @param response HTTP响应
@@ -30,17 +55,74 @@ public class ExcelService {
     }
     
     /**
-     * 导出多Sheet Excel
+     * 分页导出Excel：逐页取数、逐页写入响应，适用于大表导出
+     * @param response HTTP响应
+     * @param clazz 实体类
+     * @param fileName 文件名
+     * @param source 分页数据源（迭代器、MyBatis游标或按key分页的查询）
+     * @return 导出行数
+     */
+    public <T> long exportExcelByPage(HttpServletResponse response, Class<T> clazz, String fileName, ExcelPageSource<T> source) {
+        return ExcelUtils.exportExcelByPage(response, clazz, fileName, source);
+    }
+    
+    /**
+     * 按查询条件分页导出Excel：以key列做游标分页（每页 key > 上一页最后的key），不会一次加载全部数据
+     * @param response HTTP响应
+     * @param mapper Mapper
+     * @param query 查询条件，为null时导出全表；不要在条件中指定排序
+     * @param key 分页列，如主键 DWEntity::getId
+     * @param clazz 实体类
+     * @param fileName 文件名
+     * @return 导出行数
+     */
+    public <T> long exportExcel(HttpServletResponse response, BaseMapper<T> mapper, LambdaQueryWrapper<T> query,
+                                SFunction<T, ?> key, Class<T> clazz, String fileName) {
+        return exportExcelByPage(response, clazz, fileName,
+                ExcelPageSource.keyset(mapper, query, key, EXPORT_PAGE_SIZE));
+    }
+    
+    /**
+     * 导出多Sheet Excel：各Sheet的数据在任务线程池中并行获取（未配置线程池时按顺序获取），按Sheet顺序写入
      * @param response HTTP响应
      * @param fileName 文件名
-     * @param sheets Sheet数据
+     * @param sheets Sheet数据，可以用 ExcelSheet.lazy / ExcelSheet.paged 在导出时才查询
      */
     public void exportMultipleSheets(HttpServletResponse response, String fileName, List<ExcelUtils.ExcelSheet<?>> sheets) {
-        ExcelUtils.exportExcelWithMultipleSheets(response, fileName, sheets);
+        ExcelUtils.exportExcelWithMultipleSheets(response, fileName, sheets, taskExecutor);
+    }
+    
+    /**
+     * 导出CSV/TSV
+     * @param response HTTP响应
+     * @param data 数据列表
+     * @param clazz 实体类
+     * @param fileName 文件名
+     * @param format 格式
+     */
+    public <T> void exportCsv(HttpServletResponse response, List<T> data, Class<T> clazz, String fileName, CsvFormat format) {
+        CsvUtils.exportCsv(response, data, clazz, fileName, format);
     }
     
     /**
-     * 导入Excel
+     * 按查询条件分页导出CSV/TSV：以key列做游标分页，逐页写出
+     * @param response HTTP响应
+     * @param mapper Mapper
+     * @param query 查询条件，为null时导出全表；不要在条件中指定排序
+     * @param key 分页列，如主键 DWEntity::getId
+     * @param clazz 实体类
+     * @param fileName 文件名
+     * @param format 格式
+     * @return 导出行数
+     */
+    public <T> long exportCsv(HttpServletResponse response, BaseMapper<T> mapper, LambdaQueryWrapper<T> query,
+                              SFunction<T, ?> key, Class<T> clazz, String fileName, CsvFormat format) {
+        return CsvUtils.exportCsvByPage(response, clazz, fileName,
+                ExcelPageSource.keyset(mapper, query, key, EXPORT_PAGE_SIZE), format);
+    }
+    
+    /**
+     * 导入Excel，.csv/.tsv 文件按分隔符文本导入
      * @param file 上传文件
      * @param clazz 实体类
      * @return 导入结果
@@ -49,6 +131,58 @@ public class ExcelService {
         return ExcelUtils.importExcel(file, clazz);
     }
     
+    /**
+     * 流式导入Excel：每批校验通过的数据交给接收方，适用于大文件，结果中只包含计数和部分错误信息
+     * .csv/.tsv 文件按分隔符文本流式解析
+     * @param file 上传文件
+     * @param clazz 实体类
+     * @param batchSize 每批条数
+     * @param sink 批量数据接收方
+     * @return 导入结果（不含数据）
+     */
+    public <T> ExcelImportResult<T> importExcel(MultipartFile file, Class<T> clazz, int batchSize, Consumer<List<T>> sink) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        CsvFormat csvFormat = CsvFormat.detect(file.getOriginalFilename(), file.getContentType());
+        try (InputStream inputStream = file.getInputStream()) {
+            if (csvFormat != null) {
+                return CsvUtils.importCsv(inputStream, clazz, csvFormat, batchSize, sink);
+            }
+            return ExcelUtils.importExcel(inputStream, clazz, batchSize, sink);
+        } catch (IOException e) {
+            log.error("读取Excel文件失败", e);
+            throw new RuntimeException("读取Excel文件失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 流水线并行导入Excel：校验在任务线程池中并行执行，接收方在独立写入线程中按行顺序调用
+     * 注意接收方不在调用线程中执行，需要事务时应在接收方内部开启
+     * .csv/.tsv 文件解析开销很小，按流式导入在调用线程中处理
+     * @param file 上传文件
+     * @param clazz 实体类
+     * @param batchSize 每批条数
+     * @param sink 批量数据接收方
+     * @return 导入结果（不含数据）
+     */
+    public <T> ExcelImportResult<T> importExcelParallel(MultipartFile file, Class<T> clazz, int batchSize, Consumer<List<T>> sink) {
+        if (file == null || file.isEmpty()) {
+            throw new IllegalArgumentException("文件不能为空");
+        }
+        if (CsvFormat.detect(file.getOriginalFilename(), file.getContentType()) != null) {
+            return importExcel(file, clazz, batchSize, sink);
+        }
+        ExcelImportPipeline<T> pipeline = new ExcelImportPipeline<>(clazz, validator, taskExecutor,
+                Runtime.getRuntime().availableProcessors(), batchSize, sink);
+        try (InputStream inputStream = file.getInputStream()) {
+            return pipeline.run(inputStream);
+        } catch (IOException e) {
+            log.error("读取Excel文件失败", e);
+            throw new RuntimeException("读取Excel文件失败: " + e.getMessage());
+        }
+    }
+    
     /**
      * 导入Excel并处理数据
      * @param file 上传文件
@@ -1,18 +1,46 @@
 package com.dw.common.service;
 
+import com.dw.common.config.FileStorageConfig;
+import com.dw.common.storage.AsyncFileStorage;
+import com.dw.common.storage.BatchExecutor;
+import com.dw.common.storage.BatchResult;
 import com.dw.common.storage.FileStorage;
-import com.dw.common.utils.DateUtils;
-import com.dw.common.utils.IdUtils;
+import com.dw.common.storage.StoragePage;
+import com.dw.common.storage.StoragePathLayout;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.storage.ZipArchiveWriter;
+import com.dw.common.storage.image.ImageVariantService;
+import com.dw.common.storage.image.ImageVariantSpec;
+import com.dw.common.storage.quota.StorageAccounting;
+import com.dw.common.storage.quota.StorageUsage;
+import com.dw.common.storage.validation.UploadValidator;
+import com.dw.common.storage.validation.ValidatingInputStream;
+import com.dw.common.storage.validation.ValidatingMultipartFile;
 import com.dw.common.utils.StringUtils;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
-import java.time.LocalDate;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 文件服务
@@ -24,6 +52,27 @@ public class FileService {
     @Autowired
     private FileStorage fileStorage;
     
+    @Autowired(required = false)
+    @Qualifier("fileExecutor")
+    private Executor fileExecutor;
+    
+    @Autowired(required = false)
+    private StoragePathLayout storagePathLayout;
+    
+    @Autowired(required = false)
+    private ImageVariantService imageVariantService;
+    
+    @Autowired(required = false)
+    private UploadValidator uploadValidator;
+    
+    @Autowired(required = false)
+    private StorageAccounting storageAccounting;
+    
+    @Autowired(required = false)
+    private FileStorageConfig fileStorageConfig;
+    
+    private volatile AsyncFileStorage asyncFileStorage;
+    
     // 允许上传的图片类型
     private static final List<String> IMAGE_TYPES = Arrays.asList(
             "jpg", "jpeg", "png", "gif", "bmp", "webp"
@@ -34,43 +83,196 @@ public class FileService {
             "pdf", "doc", "docx", "xls", "xlsx", "ppt", "pptx", "txt"
     );
     
-    // 最大文件大小（10MB）
-    private static final long MAX_FILE_SIZE = 10 * 1024 * 1024;
+    // 未配置时的文件访问URL前缀
+    private static final String DEFAULT_URL_PREFIX = "/files";
+    
+    // 批量操作的最大并行度
+    private static final int BATCH_PARALLELISM = 8;
+    
+    // 单次打包下载的最大文件数
+    private static final int MAX_ZIP_FILES = 1000;
+    
+    // 打包下载时同时预读的文件数
+    private static final int ZIP_PREFETCH = 4;
     
     /**
      * 上传图片
      */
     public String uploadImage(MultipartFile file) {
-        return uploadFile(file, "images", IMAGE_TYPES);
+        return uploadFile(file, "images", IMAGE_TYPES, null);
+    }
+    
+    /**
+     * 上传图片并计入归属者的存储用量
+     * @param owner 归属者（如用户ID），按归属者统计用量和检查配额
+     */
+    public String uploadImage(MultipartFile file, String owner) {
+        return uploadFile(file, "images", IMAGE_TYPES, owner);
     }
     
     /**
      * 上传文档
      */
     public String uploadDocument(MultipartFile file) {
-        return uploadFile(file, "documents", DOCUMENT_TYPES);
+        return uploadFile(file, "documents", DOCUMENT_TYPES, null);
+    }
+    
+    /**
+     * 上传文档并计入归属者的存储用量
+     */
+    public String uploadDocument(MultipartFile file, String owner) {
+        return uploadFile(file, "documents", DOCUMENT_TYPES, owner);
     }
     
     /**
      * 通用文件上传
      */
     public String uploadFile(MultipartFile file) {
-        return uploadFile(file, "files", null);
+        return uploadFile(file, "files", null, null);
+    }
+    
+    /**
+     * 通用文件上传并计入归属者的存储用量
+     */
+    public String uploadFile(MultipartFile file, String owner) {
+        return uploadFile(file, "files", null, owner);
+    }
+    
+    /**
+     * 异步上传图片
+     */
+    public CompletableFuture<String> uploadImageAsync(MultipartFile file) {
+        return uploadFileAsync(file, "images", IMAGE_TYPES, null);
+    }
+    
+    /**
+     * 异步上传图片并计入归属者的存储用量
+     */
+    public CompletableFuture<String> uploadImageAsync(MultipartFile file, String owner) {
+        return uploadFileAsync(file, "images", IMAGE_TYPES, owner);
+    }
+    
+    /**
+     * 异步上传文档
+     */
+    public CompletableFuture<String> uploadDocumentAsync(MultipartFile file) {
+        return uploadFileAsync(file, "documents", DOCUMENT_TYPES, null);
+    }
+    
+    /**
+     * 异步上传文档并计入归属者的存储用量
+     */
+    public CompletableFuture<String> uploadDocumentAsync(MultipartFile file, String owner) {
+        return uploadFileAsync(file, "documents", DOCUMENT_TYPES, owner);
+    }
+    
+    /**
+     * 异步通用文件上传
+     * Controller直接返回该Future即可，写盘期间不占用请求线程
+     */
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file) {
+        return uploadFileAsync(file, "files", null, null);
+    }
+    
+    /**
+     * 异步通用文件上传并计入归属者的存储用量
+     */
+    public CompletableFuture<String> uploadFileAsync(MultipartFile file, String owner) {
+        return uploadFileAsync(file, "files", null, owner);
+    }
+    
+    /**
+     * 异步上传核心方法，参数校验同步进行，校验失败直接抛出异常
+     */
+    private CompletableFuture<String> uploadFileAsync(MultipartFile file, String category, List<String> allowedTypes,
+                                                      String owner) {
+        String storagePath = validateAndGeneratePath(file, category, allowedTypes);
+        String originalFilename = file.getOriginalFilename();
+        ValidatingMultipartFile validatingFile = getUploadValidator().wrap(file, category, getFileExtension(storagePath));
+        long size = file.getSize();
+        reserveQuota(category, owner, size);
+        
+        return getAsyncFileStorage().storeAsync(validatingFile, storagePath)
+                .handle((storedFile, e) -> {
+                    if (e != null || storedFile == null || StringUtils.isEmpty(storedFile.getUrl())) {
+                        releaseQuota(category, owner, size);
+                        if (e != null) {
+                            throw e instanceof CompletionException ce ? ce : new CompletionException(e);
+                        }
+                        throw uploadFailure(validatingFile.getRejection());
+                    }
+                    recordOwner(storagePath, owner);
+                    log.info("文件上传成功: {} -> {}", originalFilename, storedFile.getUrl());
+                    return toAccessUrl(storagePath, storedFile.getUrl());
+                });
+    }
+    
+    /**
+     * 异步删除文件
+     */
+    public CompletableFuture<Boolean> deleteFileAsync(String url) {
+        if (StringUtils.isEmpty(url)) {
+            return CompletableFuture.completedFuture(false);
+        }
+        
+        String path = extractPathFromUrl(url);
+        StoredFile usage = getQuotaUsage(path);
+        return getAsyncFileStorage().deleteAsync(path)
+                .thenApply(deleted -> {
+                    if (Boolean.TRUE.equals(deleted)) {
+                        deleteVariants(path);
+                        releaseStoredQuota(usage, null);
+                    }
+                    return deleted;
+                });
     }
     
     /**
      * 文件上传核心方法
      */
-    private String uploadFile(MultipartFile file, String category, List<String> allowedTypes) {
+    private String uploadFile(MultipartFile file, String category, List<String> allowedTypes, String owner) {
+        String storagePath = validateAndGeneratePath(file, category, allowedTypes);
+        String originalFilename = file.getOriginalFilename();
+        
+        // 先预占配额，上传失败时释放
+        long size = file.getSize();
+        reserveQuota(category, owner, size);
+        
+        // 上传文件，文件内容和实际大小在写入过程中校验，不合法时写入中断
+        ValidatingMultipartFile validatingFile = getUploadValidator().wrap(file, category, getFileExtension(storagePath));
+        String url;
+        try {
+            url = fileStorage.upload(validatingFile, storagePath);
+        } catch (RuntimeException e) {
+            releaseQuota(category, owner, size);
+            throw e;
+        }
+        if (StringUtils.isEmpty(url)) {
+            releaseQuota(category, owner, size);
+            throw uploadFailure(validatingFile.getRejection());
+        }
+        recordOwner(storagePath, owner);
+        
+        // 图片按配置预生成缩略图
+        if ("images".equals(category) && imageVariantService != null) {
+            imageVariantService.generateEagerly(storagePath);
+        }
+        
+        log.info("文件上传成功: {} -> {}", originalFilename, url);
+        return toAccessUrl(storagePath, url);
+    }
+    
+    /**
+     * 校验上传文件并生成存储路径
+     */
+    private String validateAndGeneratePath(MultipartFile file, String category, List<String> allowedTypes) {
         // 基础校验
         if (file == null || file.isEmpty()) {
             throw new IllegalArgumentException("文件不能为空");
         }
         
-        // 文件大小校验
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("文件大小不能超过10MB");
-        }
+        // 文件大小校验（声明的大小，实际大小在写入时校验）
+        getUploadValidator().checkSize(category, file.getSize());
         
         // 获取文件信息
         String originalFilename = file.getOriginalFilename();
@@ -89,16 +291,7 @@ public class FileService {
         }
         
         // 生成存储路径
-        String storagePath = generateStoragePath(category, fileExtension);
-        
-        // 上传文件
-        String url = fileStorage.upload(file, storagePath);
-        if (StringUtils.isEmpty(url)) {
-            throw new RuntimeException("文件上传失败");
-        }
-        
-        log.info("文件上传成功: {} -> {}", originalFilename, url);
-        return url;
+        return generateStoragePath(category, fileExtension);
     }
     
     /**
@@ -112,25 +305,214 @@ public class FileService {
         String fileExtension = getFileExtension(filename);
         String storagePath = generateStoragePath("files", fileExtension);
         
-        String url = fileStorage.upload(inputStream, storagePath, contentType);
+        // 流式上传前大小未知，先按0预占（已超出配额时拒绝），完成后计入实际大小
+        reserveQuota("files", null, 0);
+        ValidatingInputStream validatingStream = getUploadValidator().wrap(inputStream, "files", fileExtension);
+        String url;
+        try {
+            url = fileStorage.upload(validatingStream, storagePath, contentType);
+        } catch (RuntimeException e) {
+            releaseQuota("files", null, 0);
+            throw e;
+        }
         if (StringUtils.isEmpty(url)) {
-            throw new RuntimeException("文件上传失败");
+            releaseQuota("files", null, 0);
+            throw uploadFailure(validatingStream.getRejection());
+        }
+        if (storageAccounting != null) {
+            storageAccounting.adjustBytes("files", null, validatingStream.getCount());
         }
         
-        return url;
+        return toAccessUrl(storagePath, url);
     }
     
     /**
      * 删除文件
      */
     public boolean deleteFile(String url) {
+        return deleteFile(url, null);
+    }
+    
+    /**
+     * 删除文件并从归属者的存储用量中扣除
+     * @param owner 上传时指定的归属者，文件元数据中记录了归属者时以记录为准
+     */
+    public boolean deleteFile(String url, String owner) {
         if (StringUtils.isEmpty(url)) {
             return false;
         }
         
         // 从URL中提取文件路径
+        return deleteStored(extractPathFromUrl(url), owner);
+    }
+    
+    /**
+     * 获取归属者的存储用量
+     */
+    public StorageUsage getStorageUsage(String owner) {
+        return storageAccounting != null ? storageAccounting.getOwnerUsage(owner) : new StorageUsage();
+    }
+    
+    /**
+     * 获取各分类的存储用量
+     */
+    public Map<String, StorageUsage> getCategoryStorageUsages() {
+        return storageAccounting != null ? storageAccounting.getCategoryUsages() : Collections.emptyMap();
+    }
+    
+    /**
+     * 获取图片缩略图URL（等比缩放到宽高范围内），首次访问时生成
+     */
+    public String getImageVariantUrl(String url, int width, int height) {
+        if (StringUtils.isEmpty(url)) {
+            throw new IllegalArgumentException("图片地址不能为空");
+        }
+        if (imageVariantService == null) {
+            throw new IllegalStateException("未启用图片变体服务");
+        }
+        
         String path = extractPathFromUrl(url);
-        return fileStorage.delete(path);
+        String extension = getFileExtension(path);
+        if (!IMAGE_TYPES.contains(extension.toLowerCase())) {
+            throw new IllegalArgumentException("不支持的图片类型: " + extension);
+        }
+        return imageVariantService.getVariantUrl(path, ImageVariantSpec.of(width, height));
+    }
+    
+    /**
+     * 获取文件的签名限时访问URL，受保护目录的文件只能通过该URL访问
+     * @param url 文件URL或存储路径（已带签名参数时重新签名）
+     * @param ttl 有效期，为null时使用配置的默认有效期
+     * @return 签名URL，存储未启用签名时返回普通访问URL
+     */
+    public String getSignedUrl(String url, Duration ttl) {
+        if (StringUtils.isEmpty(url)) {
+            throw new IllegalArgumentException("文件地址不能为空");
+        }
+        return fileStorage.getSignedUrl(extractPathFromUrl(url), ttl);
+    }
+    
+    /**
+     * 获取文件的签名限时访问URL（默认有效期）
+     */
+    public String getSignedUrl(String url) {
+        return getSignedUrl(url, null);
+    }
+    
+    /**
+     * 批量上传文件（通用文件）
+     * 单个文件校验或上传失败不影响其他文件，结果与输入顺序一致
+     */
+    public BatchResult uploadAll(Collection<MultipartFile> files) {
+        if (files == null || files.isEmpty()) {
+            return new BatchResult();
+        }
+        
+        // 先逐个校验并生成路径，校验失败的文件直接记为失败
+        List<BatchResult.Item> items = new ArrayList<>(files.size());
+        Map<String, MultipartFile> toUpload = new LinkedHashMap<>();
+        for (MultipartFile file : files) {
+            try {
+                String storagePath = validateAndGeneratePath(file, "files", null);
+                reserveQuota("files", null, file.getSize());
+                toUpload.put(storagePath, getUploadValidator().wrap(file, "files", getFileExtension(storagePath)));
+                items.add(null);
+            } catch (IllegalArgumentException e) {
+                String name = file != null ? file.getOriginalFilename() : null;
+                items.add(BatchResult.Item.failure(name, e.getMessage()));
+            }
+        }
+        
+        Iterator<BatchResult.Item> uploaded = toUpload.isEmpty()
+                ? Collections.emptyIterator()
+                : fileStorage.uploadAll(toUpload, fileExecutor, BATCH_PARALLELISM).getItems().iterator();
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == null) {
+                BatchResult.Item item = uploaded.next();
+                MultipartFile uploadedFile = toUpload.get(item.getPath());
+                if (!item.isSuccess() && uploadedFile != null) {
+                    releaseQuota("files", null, uploadedFile.getSize());
+                    // 内容校验失败时给出具体原因
+                    if (uploadedFile instanceof ValidatingMultipartFile validatingFile
+                            && validatingFile.getRejection() != null) {
+                        item.setErrorMessage(validatingFile.getRejection());
+                    }
+                } else if (item.isSuccess() && item.getFile() != null) {
+                    item.getFile().setUrl(toAccessUrl(item.getPath(), item.getFile().getUrl()));
+                }
+                items.set(i, item);
+            }
+        }
+        
+        BatchResult result = new BatchResult();
+        result.setItems(items);
+        log.info("批量上传完成: 成功{}个，失败{}个", result.getSuccessCount(), result.getFailCount());
+        return result;
+    }
+    
+    /**
+     * 批量删除文件
+     * 每项的用量记录、删除和图片变体清理在同一个批量任务中完成，各项并行执行
+     * 结果与输入顺序一致，每项的path为从URL中解析出的存储路径
+     */
+    public BatchResult deleteAll(Collection<String> urls) {
+        if (urls == null || urls.isEmpty()) {
+            return new BatchResult();
+        }
+        
+        List<String> paths = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            paths.add(StringUtils.isEmpty(url) ? "" : extractPathFromUrl(url));
+        }
+        BatchResult result = BatchExecutor.execute(paths, fileExecutor, BATCH_PARALLELISM,
+                path -> StringUtils.isNotEmpty(path) && deleteStored(path, null)
+                        ? BatchResult.Item.success(path, null)
+                        : BatchResult.Item.failure(path, "文件不存在或删除失败"));
+        log.info("批量删除完成: 成功{}个，失败{}个", result.getSuccessCount(), result.getFailCount());
+        return result;
+    }
+    
+    /**
+     * 打包下载多个文件（ZIP），边读边写到响应流
+     * @param response HTTP响应
+     * @param urls 文件URL列表，不存在的文件会被跳过
+     * @param fileName 压缩包文件名（不含扩展名）
+     */
+    public void downloadZip(HttpServletResponse response, List<String> urls, String fileName) {
+        try {
+            response.setContentType("application/zip");
+            fileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+            response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".zip");
+            
+            writeZip(urls, response.getOutputStream());
+            
+        } catch (IOException e) {
+            log.error("打包下载失败", e);
+            throw new RuntimeException("打包下载失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 将多个文件打包为ZIP写入输出流（输出流不会被关闭）
+     * @return 写入的文件数
+     */
+    public int writeZip(List<String> urls, OutputStream outputStream) throws IOException {
+        if (urls == null || urls.isEmpty()) {
+            throw new IllegalArgumentException("文件列表不能为空");
+        }
+        if (urls.size() > MAX_ZIP_FILES) {
+            throw new IllegalArgumentException("单次最多打包" + MAX_ZIP_FILES + "个文件");
+        }
+        
+        List<String> paths = new ArrayList<>(urls.size());
+        for (String url : urls) {
+            if (!StringUtils.isEmpty(url)) {
+                paths.add(extractPathFromUrl(url));
+            }
+        }
+        int written = new ZipArchiveWriter(fileStorage, fileExecutor, ZIP_PREFETCH).write(paths, outputStream);
+        log.info("打包下载完成: 共{}个文件，写入{}个", paths.size(), written);
+        return written;
     }
     
     /**
@@ -145,6 +527,182 @@ public class FileService {
         return fileStorage.exists(path);
     }
     
+    /**
+     * 获取文件信息（大小、类型、摘要等）
+     */
+    public StoredFile getFileInfo(String url) {
+        if (StringUtils.isEmpty(url)) {
+            return null;
+        }
+        
+        String path = extractPathFromUrl(url);
+        return fileStorage.getMetadata(path);
+    }
+    
+    /**
+     * 获取文件大小，不存在返回-1
+     */
+    public long getFileSize(String url) {
+        if (StringUtils.isEmpty(url)) {
+            return -1;
+        }
+        
+        String path = extractPathFromUrl(url);
+        return fileStorage.size(path);
+    }
+    
+    /**
+     * 按路径前缀分页列出文件
+     * @param prefix 路径前缀，如 images/2024/01
+     * @param startAfter 上一页最后一个文件的路径，首页传null
+     * @param limit 每页条数
+     */
+    public List<StoredFile> listFiles(String prefix, String startAfter, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于0");
+        }
+        return fileStorage.list(prefix, startAfter, limit);
+    }
+    
+    /**
+     * 按路径前缀游标分页列出文件
+     * @param prefix 路径前缀
+     * @param cursor 上一页返回的nextCursor，首页传null
+     * @param limit 每页条数
+     */
+    public StoragePage listFilesPage(String prefix, String cursor, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("每页条数必须大于0");
+        }
+        return fileStorage.listPage(prefix, cursor, limit);
+    }
+    
+    /**
+     * 获取异步存储视图（存储不支持原生异步时在文件线程池中执行）
+     */
+    private AsyncFileStorage getAsyncFileStorage() {
+        AsyncFileStorage storage = asyncFileStorage;
+        if (storage == null) {
+            storage = AsyncFileStorage.of(fileStorage, fileExecutor);
+            asyncFileStorage = storage;
+        }
+        return storage;
+    }
+    
+    /**
+     * 获取上传校验规则（未配置时使用默认规则）
+     */
+    private UploadValidator getUploadValidator() {
+        return uploadValidator != null ? uploadValidator : UploadValidator.DEFAULT;
+    }
+    
+    /**
+     * 预占存储配额（未启用用量统计时忽略），超出配额时抛出参数异常
+     */
+    private void reserveQuota(String category, String owner, long size) {
+        if (storageAccounting != null) {
+            storageAccounting.reserve(category, owner, size);
+        }
+    }
+    
+    private void releaseQuota(String category, String owner, long size) {
+        if (storageAccounting != null) {
+            storageAccounting.release(category, owner, size);
+        }
+    }
+    
+    /**
+     * 记录上传文件的归属者，删除时按记录的归属者扣减用量
+     */
+    private void recordOwner(String path, String owner) {
+        if (StringUtils.isNotEmpty(owner) && !fileStorage.setOwner(path, owner)) {
+            log.debug("存储未记录文件归属者: {}", path);
+        }
+    }
+    
+    /**
+     * 删除文件及其图片变体，并扣减删除前记录的用量
+     */
+    private boolean deleteStored(String path, String owner) {
+        StoredFile usage = getQuotaUsage(path);
+        boolean deleted = fileStorage.delete(path);
+        if (deleted) {
+            deleteVariants(path);
+            releaseStoredQuota(usage, owner);
+        }
+        return deleted;
+    }
+    
+    private void deleteVariants(String path) {
+        if (imageVariantService != null) {
+            imageVariantService.deleteVariants(path);
+        }
+    }
+    
+    /**
+     * 删除前读取文件大小和记录的归属者，未启用用量统计或文件不存在时返回null
+     */
+    private StoredFile getQuotaUsage(String path) {
+        if (storageAccounting == null) {
+            return null;
+        }
+        StoredFile metadata = fileStorage.getMetadata(path);
+        if (metadata != null) {
+            return metadata;
+        }
+        long size = fileStorage.size(path);
+        if (size < 0) {
+            return null;
+        }
+        StoredFile usage = new StoredFile();
+        usage.setPath(path);
+        usage.setSize(size);
+        return usage;
+    }
+    
+    /**
+     * 按删除前读取的大小扣减用量，优先扣减记录的归属者
+     */
+    private void releaseStoredQuota(StoredFile usage, String owner) {
+        if (usage != null) {
+            String storedOwner = StringUtils.isNotEmpty(usage.getOwner()) ? usage.getOwner() : owner;
+            releaseQuota(StorageAccounting.categoryOf(usage.getPath()), storedOwner, usage.getSize());
+        }
+    }
+    
+    /**
+     * 上传后返回的访问URL：受保护目录的文件返回签名URL，否则返回普通URL
+     */
+    private String toAccessUrl(String path, String url) {
+        return isSignedAccess(path) ? fileStorage.getSignedUrl(path, null) : url;
+    }
+    
+    /**
+     * 文件是否需要签名访问：启用签名时，未配置受保护前缀则全部文件都需要签名，否则按前缀匹配
+     */
+    private boolean isSignedAccess(String path) {
+        if (fileStorageConfig == null || !fileStorageConfig.getSigning().isEnabled()) {
+            return false;
+        }
+        List<String> prefixes = fileStorageConfig.getSigning().getProtectedPrefixes();
+        if (prefixes == null || prefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix.startsWith("/") ? prefix.substring(1) : prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 上传失败异常：内容校验不通过时为参数异常，其余为上传失败
+     */
+    private RuntimeException uploadFailure(String rejection) {
+        return rejection != null ? new IllegalArgumentException(rejection) : new RuntimeException("文件上传失败");
+    }
+    
     /**
      * 获取文件扩展名
      */
@@ -161,18 +719,46 @@ public class FileService {
      * 生成存储路径
      */
     private String generateStoragePath(String category, String extension) {
-        String dateStr = DateUtils.format(LocalDate.now(), "yyyy/MM/dd");
-        String filename = IdUtils.uuid() + "." + extension.toLowerCase();
-        return String.format("%s/%s/%s", category, dateStr, filename);
+        StoragePathLayout layout = storagePathLayout != null ? storagePathLayout : StoragePathLayout.DEFAULT;
+        return layout.generate(category, extension);
     }
     
     /**
-     * 从URL中提取文件路径
+     * 从URL中提取存储路径：去掉查询参数（如签名）和配置的访问URL前缀，
+     * 如 http://domain/files/images/a.jpg -> images/a.jpg；不带前缀的URL按存储路径处理
+     * @throws IllegalArgumentException 路径含 . 开头的目录或文件名（.. 穿越、.meta 等内部文件）时
      */
     private String extractPathFromUrl(String url) {
-        // 这里需要根据具体的URL格式来提取路径
-        // 简单实现：假设URL格式为 http://domain/files/xxx
-        int index = url.lastIndexOf("/files/");
-        return index > 0 ? url.substring(index + 1) : url;
+        int query = url.indexOf('?');
+        String path = query >= 0 ? url.substring(0, query) : url;
+        String prefix = getUrlPrefix();
+        if (path.startsWith(prefix + "/")) {
+            path = path.substring(prefix.length());
+        } else if (prefix.startsWith("/")) {
+            // 本地存储的访问前缀为站内路径，URL可能带有协议和域名
+            int scheme = path.indexOf("://");
+            int pathStart = scheme >= 0 ? path.indexOf('/', scheme + 3) : -1;
+            if (pathStart >= 0 && path.startsWith(prefix + "/", pathStart)) {
+                path = path.substring(pathStart + prefix.length());
+            }
+        }
+        path = path.startsWith("/") ? path.substring(1) : path;
+        for (String segment : path.split("[/\\\\]")) {
+            if (segment.startsWith(".")) {
+                throw new IllegalArgumentException("非法的文件路径: " + path);
+            }
+        }
+        return path;
+    }
+    
+    /**
+     * 文件访问URL前缀（不以 / 结尾）
+     */
+    private String getUrlPrefix() {
+        String prefix = fileStorageConfig != null ? fileStorageConfig.getAccessUrlPrefix() : null;
+        if (StringUtils.isEmpty(prefix)) {
+            return DEFAULT_URL_PREFIX;
+        }
+        return prefix.endsWith("/") ? prefix.substring(0, prefix.length() - 1) : prefix;
     }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.dw.common.storage;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 异步文件存储接口
+ * 所有方法立即返回，IO在后台完成，Web层可直接返回CompletableFuture而不占用请求线程
+ */
+public interface AsyncFileStorage {
+    
+    /**
+     * 异步上传文件
+     * @param inputStream 文件流（不会被关闭）
+     * @param path 存储路径
+     * @param contentType 文件类型
+     * @return 存储结果，失败时结果为null
+     */
+    CompletableFuture<StoredFile> storeAsync(InputStream inputStream, String path, String contentType);
+    
+    /**
+     * 异步上传文件
+     * @param file 文件
+     * @param path 存储路径
+     * @return 存储结果，失败时结果为null
+     */
+    default CompletableFuture<StoredFile> storeAsync(MultipartFile file, String path) {
+        if (file == null || file.isEmpty()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        
+        InputStream inputStream;
+        try {
+            inputStream = file.getInputStream();
+        } catch (IOException e) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return storeAsync(inputStream, path, file.getContentType())
+                .whenComplete((result, e) -> {
+                    try {
+                        inputStream.close();
+                    } catch (IOException ignored) {
+                        // 关闭失败不影响结果
+                    }
+                });
+    }
+    
+    /**
+     * 异步读取文件并写入输出流
+     * @param path 文件路径
+     * @param outputStream 输出流（不会被关闭）
+     * @return 写入的字节数，文件不存在时结果为-1
+     */
+    CompletableFuture<Long> downloadAsync(String path, OutputStream outputStream);
+    
+    /**
+     * 异步删除文件
+     * @param path 文件路径
+     * @return 是否删除成功
+     */
+    CompletableFuture<Boolean> deleteAsync(String path);
+    
+    /**
+     * 异步检查文件是否存在
+     * @param path 文件路径
+     * @return 是否存在
+     */
+    CompletableFuture<Boolean> existsAsync(String path);
+    
+    /**
+     * 获取文件存储的异步视图
+     * 存储本身支持异步时直接返回，否则包装为在线程池中执行同步调用的适配器
+     * @param fileStorage 文件存储
+     * @param executor 执行同步调用的线程池，为null时在调用线程执行
+     */
+    static AsyncFileStorage of(FileStorage fileStorage, Executor executor) {
+        if (fileStorage instanceof AsyncFileStorage asyncFileStorage) {
+            return asyncFileStorage;
+        }
+        return new AsyncFileStorageAdapter(fileStorage, executor != null ? executor : Runnable::run);
+    }
+}
@@ -0,0 +1,45 @@
+package com.dw.common.storage;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 同步存储的异步适配器
+ * 在指定线程池中执行同步调用，适用于没有原生异步IO的存储实现（如S3、分层存储）
+ */
+public class AsyncFileStorageAdapter implements AsyncFileStorage {
+    
+    private final FileStorage delegate;
+    private final Executor executor;
+    
+    public AsyncFileStorageAdapter(FileStorage delegate, Executor executor) {
+        this.delegate = delegate;
+        this.executor = executor;
+    }
+    
+    @Override
+    public CompletableFuture<StoredFile> storeAsync(InputStream inputStream, String path, String contentType) {
+        return CompletableFuture.supplyAsync(() -> delegate.store(inputStream, path, contentType), executor);
+    }
+    
+    @Override
+    public CompletableFuture<Long> downloadAsync(String path, OutputStream outputStream) {
+        return CompletableFuture.supplyAsync(() -> delegate.download(path, outputStream), executor);
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String path) {
+        return CompletableFuture.supplyAsync(() -> delegate.delete(path), executor);
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String path) {
+        return CompletableFuture.supplyAsync(() -> delegate.exists(path), executor);
+    }
+    
+    public FileStorage getDelegate() {
+        return delegate;
+    }
+}
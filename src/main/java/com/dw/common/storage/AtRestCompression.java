@@ -0,0 +1,208 @@
+package com.dw.common.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 落盘压缩
+ * 对文本类文件（按扩展名判断）在写入时流式gzip压缩，读取时透明解压；
+ * 小于阈值或头部样本压缩效果不明显的文件按原样保存。同时统计压缩率和压缩耗费的CPU时间
+ */
+public class AtRestCompression {
+    
+    /**
+     * 压缩编码（与HTTP Content-Encoding取值一致）
+     */
+    public static final String ENCODING_GZIP = "gzip";
+    
+    /**
+     * 可压缩的文件扩展名，图片、Office文档、压缩包等已压缩格式不再压缩
+     */
+    private static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of(
+            "txt", "csv", "tsv", "log", "md", "json", "xml", "html", "htm",
+            "css", "js", "svg", "sql", "yml", "yaml", "properties"
+    );
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    /**
+     * 判断压缩效果时采样的头部大小
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    
+    private final int level;
+    private final long minSize;
+    private final double maxRatio;
+    
+    private final LongAdder compressedFiles = new LongAdder();
+    private final LongAdder skippedFiles = new LongAdder();
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder storedBytes = new LongAdder();
+    private final LongAdder cpuNanos = new LongAdder();
+    
+    /**
+     * @param level 压缩级别（1~9，越大压缩率越高、越耗CPU）
+     * @param minSize 最小压缩大小（字节），更小的文件按原样保存
+     * @param maxRatio 头部样本压缩后与原大小之比超过该值时按原样保存
+     */
+    public AtRestCompression(int level, long minSize, double maxRatio) {
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("压缩级别必须在1到9之间");
+        }
+        if (maxRatio <= 0 || maxRatio > 1) {
+            throw new IllegalArgumentException("压缩率阈值必须在0到1之间");
+        }
+        this.level = level;
+        this.minSize = Math.max(0, minSize);
+        this.maxRatio = maxRatio;
+    }
+    
+    /**
+     * 是否可能被压缩保存（只看扩展名，读取时据此决定是否需要检查元数据）
+     */
+    public static boolean isCompressible(String path) {
+        if (path == null) {
+            return false;
+        }
+        int dot = path.lastIndexOf('.');
+        return dot >= 0 && dot > path.lastIndexOf('/')
+                && COMPRESSIBLE_EXTENSIONS.contains(path.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * 将数据写入目标文件，满足条件时压缩
+     * 是否压缩按头部样本的压缩率预先判断，写入过程中不回退，压缩效果不明显的文件直接原样写入
+     * @param source 源数据（读到末尾，不关闭）
+     * @param target 目标文件
+     * @return 压缩编码，未压缩时返回null
+     */
+    public String write(InputStream source, Path target) throws IOException {
+        // 先读取头部（不少于阈值和样本大小），数据不足阈值时直接原样写入
+        byte[] head = source.readNBytes((int) Math.min(Math.max(minSize, SAMPLE_SIZE), Integer.MAX_VALUE - 8));
+        if (head.length < minSize || !worthCompressing(head)) {
+            try (OutputStream out = Files.newOutputStream(target)) {
+                out.write(head);
+                source.transferTo(out);
+            }
+            skippedFiles.increment();
+            return null;
+        }
+        
+        long cpuStart = threadCpuTime();
+        long original = head.length;
+        try (GZIPOutputStream gzip = new LeveledGzipOutputStream(Files.newOutputStream(target), level)) {
+            gzip.write(head);
+            original += source.transferTo(gzip);
+        }
+        long stored = Files.size(target);
+        cpuNanos.add(threadCpuTime() - cpuStart);
+        
+        compressedFiles.increment();
+        originalBytes.add(original);
+        storedBytes.add(stored);
+        return ENCODING_GZIP;
+    }
+    
+    /**
+     * 按头部样本的压缩率判断是否值得压缩
+     */
+    private boolean worthCompressing(byte[] head) {
+        int sampleLength = Math.min(head.length, SAMPLE_SIZE);
+        if (sampleLength == 0) {
+            return false;
+        }
+        long cpuStart = threadCpuTime();
+        Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(head, 0, sampleLength);
+            deflater.finish();
+            byte[] buffer = new byte[BUFFER_SIZE];
+            long compressed = 0;
+            while (!deflater.finished()) {
+                compressed += deflater.deflate(buffer);
+            }
+            return compressed <= sampleLength * maxRatio;
+        } finally {
+            deflater.end();
+            cpuNanos.add(threadCpuTime() - cpuStart);
+        }
+    }
+    
+    /**
+     * 打开解压输入流
+     */
+    public static InputStream decode(InputStream encoded) throws IOException {
+        return new GZIPInputStream(encoded, BUFFER_SIZE);
+    }
+    
+    /**
+     * 已压缩文件数
+     */
+    public long getCompressedFiles() {
+        return compressedFiles.sum();
+    }
+    
+    /**
+     * 因过小或压缩效果不明显而原样保存的文件数
+     */
+    public long getSkippedFiles() {
+        return skippedFiles.sum();
+    }
+    
+    /**
+     * 已压缩文件的原始总大小
+     */
+    public long getOriginalBytes() {
+        return originalBytes.sum();
+    }
+    
+    /**
+     * 已压缩文件的落盘总大小
+     */
+    public long getStoredBytes() {
+        return storedBytes.sum();
+    }
+    
+    /**
+     * 压缩率（落盘大小 / 原始大小），没有压缩过文件时返回1
+     */
+    public double getRatio() {
+        long original = getOriginalBytes();
+        return original > 0 ? (double) getStoredBytes() / original : 1.0;
+    }
+    
+    /**
+     * 压缩累计耗费的CPU时间（纳秒），JVM不支持线程CPU计时时为0
+     */
+    public long getCpuNanos() {
+        return cpuNanos.sum();
+    }
+    
+    private static long threadCpuTime() {
+        return THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported() ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+    
+    /**
+     * 可指定压缩级别的gzip输出流
+     */
+    private static class LeveledGzipOutputStream extends GZIPOutputStream {
+        
+        LeveledGzipOutputStream(OutputStream out, int level) throws IOException {
+            super(out, BUFFER_SIZE);
+            def.setLevel(level);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.dw.common.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * 批量操作执行器
+ * 按父目录分组，同一目录的操作集中在同一线程顺序执行（目录元数据局部性好、减少目录锁竞争），
+ * 不同分组由固定数量的工作线程并行处理
+ */
+public final class BatchExecutor {
+    
+    /**
+     * 单个分组的最大条数，超过后拆分，避免大目录拖慢整体进度
+     */
+    private static final int MAX_GROUP_SIZE = 256;
+    
+    private BatchExecutor() {
+    }
+    
+    /**
+     * 执行批量操作
+     * @param paths 路径列表
+     * @param executor 线程池，为null时在调用线程顺序执行
+     * @param parallelism 最大并行度
+     * @param operation 单项操作，抛出的异常记为该项失败
+     * @return 与输入顺序一致的逐项结果
+     */
+    public static BatchResult execute(List<String> paths, Executor executor, int parallelism,
+                                      Function<String, BatchResult.Item> operation) {
+        BatchResult.Item[] results = new BatchResult.Item[paths.size()];
+        Queue<List<Integer>> groups = new ConcurrentLinkedQueue<>(groupByDirectory(paths));
+        
+        CountDownLatch remaining = new CountDownLatch(paths.size());
+        Runnable worker = () -> {
+            List<Integer> group;
+            while ((group = groups.poll()) != null) {
+                for (int index : group) {
+                    String path = paths.get(index);
+                    try {
+                        results[index] = operation.apply(path);
+                    } catch (Exception e) {
+                        results[index] = BatchResult.Item.failure(path, e.getMessage());
+                    } finally {
+                        remaining.countDown();
+                    }
+                }
+            }
+        };
+        
+        // 调用线程也作为一个工作线程，即使线程池繁忙（或调用方本身就在该线程池中）也能推进；
+        // 等待的是逐项完成计数而不是工作任务，排队中尚未启动的任务不会阻塞调用方
+        int workers = executor == null ? 1 : Math.max(1, Math.min(parallelism, groups.size()));
+        for (int i = 1; i < workers; i++) {
+            executor.execute(worker);
+        }
+        worker.run();
+        try {
+            remaining.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量操作被中断", e);
+        }
+        
+        BatchResult result = new BatchResult();
+        result.setItems(new ArrayList<>(Arrays.asList(results)));
+        return result;
+    }
+    
+    /**
+     * 按父目录分组，组内按路径排序，超大分组拆分
+     */
+    static Collection<List<Integer>> groupByDirectory(List<String> paths) {
+        Map<String, List<Integer>> byDirectory = new LinkedHashMap<>();
+        for (int i = 0; i < paths.size(); i++) {
+            String path = paths.get(i);
+            int slash = path.lastIndexOf('/');
+            String directory = slash > 0 ? path.substring(0, slash) : "";
+            byDirectory.computeIfAbsent(directory, k -> new ArrayList<>()).add(i);
+        }
+        
+        List<List<Integer>> groups = new ArrayList<>();
+        for (List<Integer> indices : byDirectory.values()) {
+            indices.sort(Comparator.comparing(paths::get));
+            for (int from = 0; from < indices.size(); from += MAX_GROUP_SIZE) {
+                groups.add(indices.subList(from, Math.min(from + MAX_GROUP_SIZE, indices.size())));
+            }
+        }
+        return groups;
+    }
+}
@@ -0,0 +1,101 @@
+package com.dw.common.storage;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量操作结果（逐项结果与输入顺序一致）
+ */
+@Data
+public class BatchResult {
+    
+    /**
+     * 逐项结果
+     */
+    private List<Item> items = new ArrayList<>();
+    
+    /**
+     * 成功条数
+     */
+    public int getSuccessCount() {
+        int count = 0;
+        for (Item item : items) {
+            if (item.isSuccess()) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * 失败条数
+     */
+    public int getFailCount() {
+        return items.size() - getSuccessCount();
+    }
+    
+    /**
+     * 是否全部成功
+     */
+    public boolean isAllSuccess() {
+        return getFailCount() == 0;
+    }
+    
+    /**
+     * 获取失败项
+     */
+    public List<Item> getFailedItems() {
+        List<Item> failed = new ArrayList<>();
+        for (Item item : items) {
+            if (!item.isSuccess()) {
+                failed.add(item);
+            }
+        }
+        return failed;
+    }
+    
+    /**
+     * 单项结果
+     */
+    @Data
+    public static class Item {
+        
+        /**
+         * 存储路径
+         */
+        private String path;
+        
+        /**
+         * 是否成功
+         */
+        private boolean success;
+        
+        /**
+         * 存储结果（仅上传成功时有值）
+         */
+        private StoredFile file;
+        
+        /**
+         * 失败原因
+         */
+        private String errorMessage;
+        
+        public static Item success(String path, StoredFile file) {
+            Item item = new Item();
+            item.setPath(path);
+            item.setSuccess(true);
+            item.setFile(file);
+            return item;
+        }
+        
+        public static Item failure(String path, String errorMessage) {
+            Item item = new Item();
+            item.setPath(path);
+            item.setSuccess(false);
+            item.setErrorMessage(errorMessage);
+            return item;
+        }
+    }
+}
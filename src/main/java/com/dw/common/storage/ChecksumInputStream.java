@@ -0,0 +1,102 @@
+package com.dw.common.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.zip.CRC32C;
+
+/**
+ * 校验输入流
+ * 在读取数据的同时计算SHA-256摘要、CRC32C校验值和字节数，避免写入后再次读取文件
+ */
+public class ChecksumInputStream extends FilterInputStream {
+    
+    private final MessageDigest sha256;
+    private final CRC32C crc32c = new CRC32C();
+    private long count;
+    
+    public ChecksumInputStream(InputStream in) {
+        super(in);
+        try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256算法不可用", e);
+        }
+    }
+    
+    @Override
+    public int read() throws IOException {
+        int b = in.read();
+        if (b != -1) {
+            sha256.update((byte) b);
+            crc32c.update(b);
+            count++;
+        }
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = in.read(b, off, len);
+        if (n > 0) {
+            sha256.update(b, off, n);
+            crc32c.update(b, off, n);
+            count += n;
+        }
+        return n;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        // 跳过的字节无法参与摘要计算，这里改为读取后丢弃
+        byte[] buffer = new byte[8192];
+        long remaining = n;
+        while (remaining > 0) {
+            int read = read(buffer, 0, (int) Math.min(buffer.length, remaining));
+            if (read < 0) {
+                break;
+            }
+            remaining -= read;
+        }
+        return n - remaining;
+    }
+    
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+    
+    @Override
+    public synchronized void mark(int readlimit) {
+        // 不支持mark/reset，否则摘要会被重复计算
+    }
+    
+    @Override
+    public synchronized void reset() throws IOException {
+        throw new IOException("ChecksumInputStream不支持reset");
+    }
+    
+    /**
+     * 获取SHA-256摘要（16进制），调用后摘要状态会被重置
+     */
+    public String getSha256Hex() {
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+    
+    /**
+     * 获取CRC32C校验值（16进制）
+     */
+    public String getCrc32cHex() {
+        return String.format("%08x", crc32c.getValue());
+    }
+    
+    /**
+     * 获取已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+}
@@ -0,0 +1,204 @@
+package com.dw.common.storage;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.core.io.AbstractResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * 落盘压缩文件的静态资源解析器
+ * 客户端支持gzip时直接输出压缩内容（Content-Encoding: gzip），不支持时边读边解压输出；
+ * 存储内部文件（.meta 元数据、临时文件等）不对外提供，按不存在处理
+ */
+public class CompressedResourceResolver extends AbstractResourceResolver {
+    
+    private final Supplier<LocalFileStorage> storageSupplier;
+    
+    /**
+     * @param storageSupplier 本地存储（延迟获取，非本地存储时返回null）
+     */
+    public CompressedResourceResolver(Supplier<LocalFileStorage> storageSupplier) {
+        this.storageSupplier = storageSupplier;
+    }
+    
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        if (LocalFileStorage.isInternalPath(requestPath)) {
+            return null;
+        }
+        Resource resource = chain.resolveResource(request, requestPath, locations);
+        if (resource == null || !AtRestCompression.isCompressible(requestPath)) {
+            return resource;
+        }
+        LocalFileStorage storage = storageSupplier.get();
+        if (storage == null || storage.getEncoding(requestPath) == null) {
+            return resource;
+        }
+        return acceptsGzip(request)
+                ? new GzipResource(resource)
+                : new DecodedResource(resource, storage.size(requestPath));
+    }
+    
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        if (LocalFileStorage.isInternalPath(resourceUrlPath)) {
+            return null;
+        }
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+    
+    private static boolean acceptsGzip(HttpServletRequest request) {
+        return acceptsGzip(request != null ? request.getHeader(HttpHeaders.ACCEPT_ENCODING) : null);
+    }
+    
+    /**
+     * 按Accept-Encoding判断客户端是否接受gzip：q=0表示拒绝，未列出gzip时按通配符 * 判断
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean wildcard = false;
+        for (String element : acceptEncoding.split(",")) {
+            String[] params = element.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            boolean accepted = qualityOf(params) > 0;
+            if (AtRestCompression.ENCODING_GZIP.equals(coding) || "x-gzip".equals(coding)) {
+                gzip = accepted;
+            } else if ("*".equals(coding)) {
+                wildcard = accepted;
+            }
+        }
+        return gzip != null ? gzip : wildcard;
+    }
+    
+    /**
+     * 解析q值，未指定时为1，格式不正确时按0处理
+     */
+    private static double qualityOf(String[] params) {
+        for (int i = 1; i < params.length; i++) {
+            String param = params[i].trim();
+            if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                try {
+                    return Double.parseDouble(param.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+    
+    /**
+     * 按原样输出的压缩内容
+     */
+    static class GzipResource extends AbstractResource implements HttpResource {
+        
+        private final Resource encoded;
+        
+        GzipResource(Resource encoded) {
+            this.encoded = encoded;
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return encoded.getInputStream();
+        }
+        
+        @Override
+        public boolean exists() {
+            return encoded.exists();
+        }
+        
+        @Override
+        public long contentLength() throws IOException {
+            return encoded.contentLength();
+        }
+        
+        @Override
+        public long lastModified() throws IOException {
+            return encoded.lastModified();
+        }
+        
+        @Override
+        public String getFilename() {
+            return encoded.getFilename();
+        }
+        
+        @Override
+        public String getDescription() {
+            return "gzip " + encoded.getDescription();
+        }
+        
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add(HttpHeaders.CONTENT_ENCODING, AtRestCompression.ENCODING_GZIP);
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+    
+    /**
+     * 边读边解压输出的内容
+     */
+    static class DecodedResource extends AbstractResource implements HttpResource {
+        
+        private final Resource encoded;
+        private final long size;
+        
+        DecodedResource(Resource encoded, long size) {
+            this.encoded = encoded;
+            this.size = size;
+        }
+        
+        @Override
+        public InputStream getInputStream() throws IOException {
+            return AtRestCompression.decode(encoded.getInputStream());
+        }
+        
+        @Override
+        public boolean exists() {
+            return encoded.exists();
+        }
+        
+        @Override
+        public long contentLength() {
+            return size;
+        }
+        
+        @Override
+        public long lastModified() throws IOException {
+            return encoded.lastModified();
+        }
+        
+        @Override
+        public String getFilename() {
+            return encoded.getFilename();
+        }
+        
+        @Override
+        public String getDescription() {
+            return "decoded " + encoded.getDescription();
+        }
+        
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            return headers;
+        }
+    }
+}
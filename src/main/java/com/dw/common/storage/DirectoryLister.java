@@ -0,0 +1,153 @@
+package com.dw.common.storage;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiFunction;
+
+/**
+ * 基于DirectoryStream的目录分页遍历
+ * 按路径分段字典序深度优先遍历，每个目录只保留本页所需数量的候选名称（有界堆），
+ * 不会把整个目录读入内存；以"."开头的隐藏文件（元数据目录、上传临时文件）不会被列出
+ */
+class DirectoryLister {
+    
+    private final Path root;
+    private final BiFunction<String, BasicFileAttributes, StoredFile> converter;
+    
+    DirectoryLister(Path root, BiFunction<String, BasicFileAttributes, StoredFile> converter) {
+        this.root = root;
+        this.converter = converter;
+    }
+    
+    /**
+     * 列出文件
+     * @param prefix 路径前缀，如 images/2024/01（匹配01开头的目录及文件）或 images/2024/01/
+     * @param cursor 上一页最后一个文件的路径（不包含），为空时从头开始
+     * @param limit 最大返回条数
+     */
+    List<StoredFile> list(String prefix, String cursor, int limit) throws IOException {
+        if (limit <= 0) {
+            return Collections.emptyList();
+        }
+        
+        String normalizedPrefix = normalize(prefix);
+        int slash = normalizedPrefix.lastIndexOf('/');
+        String baseDir = slash >= 0 ? normalizedPrefix.substring(0, slash) : "";
+        String namePrefix = normalizedPrefix.substring(slash + 1);
+        
+        List<String> cursorSegments = null;
+        String normalizedCursor = normalize(cursor);
+        if (!normalizedCursor.isEmpty()) {
+            String basePrefix = baseDir.isEmpty() ? "" : baseDir + "/";
+            if (normalizedCursor.startsWith(basePrefix)) {
+                cursorSegments = Arrays.asList(normalizedCursor.substring(basePrefix.length()).split("/"));
+            } else if (normalizedCursor.compareTo(basePrefix) > 0) {
+                // 游标已越过前缀范围
+                return Collections.emptyList();
+            }
+        }
+        
+        Path dir = baseDir.isEmpty() ? root : root.resolve(baseDir);
+        if (!Files.isDirectory(dir)) {
+            return Collections.emptyList();
+        }
+        
+        List<StoredFile> result = new ArrayList<>(Math.min(limit, 1024));
+        walk(dir, baseDir, namePrefix, cursorSegments, limit, result);
+        return result;
+    }
+    
+    private void walk(Path dir, String relativeDir, String namePrefix, List<String> cursor,
+                      int limit, List<StoredFile> result) throws IOException {
+        String lowerBound = cursor != null ? cursor.get(0) : null;
+        // 游标指向更深层路径时，与游标同名的目录本身仍需进入继续遍历
+        boolean inclusive = cursor != null && cursor.size() > 1;
+        
+        while (result.size() < limit) {
+            int need = limit - result.size();
+            List<String> names = smallestNames(dir, namePrefix, lowerBound, inclusive, need);
+            
+            for (String name : names) {
+                Path child = dir.resolve(name);
+                String relativePath = relativeDir.isEmpty() ? name : relativeDir + "/" + name;
+                BasicFileAttributes attrs;
+                try {
+                    attrs = Files.readAttributes(child, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                } catch (NoSuchFileException e) {
+                    // 遍历期间被删除
+                    continue;
+                }
+                
+                boolean onCursorPath = inclusive && name.equals(lowerBound);
+                if (attrs.isDirectory()) {
+                    walk(child, relativePath, "", onCursorPath ? cursor.subList(1, cursor.size()) : null, limit, result);
+                } else if (attrs.isRegularFile() && !onCursorPath) {
+                    result.add(converter.apply(relativePath, attrs));
+                }
+                if (result.size() >= limit) {
+                    return;
+                }
+            }
+            
+            if (names.size() < need) {
+                // 目录已遍历完
+                return;
+            }
+            // 候选名称中有空目录，本页未填满，从最后一个候选之后继续
+            lowerBound = names.get(names.size() - 1);
+            inclusive = false;
+        }
+    }
+    
+    /**
+     * 选出目录中大于下界的最小的若干个名称（升序）
+     */
+    private List<String> smallestNames(Path dir, String namePrefix, String lowerBound,
+                                       boolean inclusive, int count) throws IOException {
+        PriorityQueue<String> heap = new PriorityQueue<>(Math.min(count, 1024) + 1, Comparator.reverseOrder());
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+            for (Path entry : stream) {
+                String name = entry.getFileName().toString();
+                if (name.startsWith(".") || !name.startsWith(namePrefix)) {
+                    continue;
+                }
+                if (lowerBound != null) {
+                    int cmp = name.compareTo(lowerBound);
+                    if (cmp < 0 || (cmp == 0 && !inclusive)) {
+                        continue;
+                    }
+                }
+                if (heap.size() < count) {
+                    heap.offer(name);
+                } else if (name.compareTo(heap.peek()) < 0) {
+                    heap.poll();
+                    heap.offer(name);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return Collections.emptyList();
+        }
+        
+        List<String> names = new ArrayList<>(heap);
+        Collections.sort(names);
+        return names;
+    }
+    
+    private static String normalize(String path) {
+        if (path == null) {
+            return "";
+        }
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
@@ -2,7 +2,16 @@ package com.dw.common.storage;
 
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
 
 /**
  * 文件存储策略接口
@@ -40,10 +49,184 @@ public interface FileStorage {
      */
     String getUrl(String path);
     
+    /**
+     * 获取带签名的限时访问URL，存储未启用签名时返回普通访问URL
+     * @param path 文件路径
+     * @param ttl 有效期，为null时使用默认有效期
+     * @return 访问URL
+     */
+    default String getSignedUrl(String path, Duration ttl) {
+        return getUrl(path);
+    }
+    
     /**
      * 检查文件是否存在
      * @param path 文件路径
      * @return 是否存在
      */
     boolean exists(String path);
-}
\ No newline at end of file
+    
+    /**
+     * 读取文件
+     * @param path 文件路径
+     * @return 文件流（调用方负责关闭），不存在返回null
+     */
+    default InputStream download(String path) {
+        throw new UnsupportedOperationException("当前存储不支持读取文件");
+    }
+    
+    /**
+     * 读取文件并写入输出流
+     * @param path 文件路径
+     * @param outputStream 输出流（不会被关闭）
+     * @return 写入的字节数，文件不存在返回-1
+     */
+    default long download(String path, OutputStream outputStream) {
+        try (InputStream inputStream = download(path)) {
+            if (inputStream == null) {
+                return -1;
+            }
+            return inputStream.transferTo(outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + path, e);
+        }
+    }
+    
+    /**
+     * 上传文件并返回存储结果（包含大小、摘要等元数据）
+     * @param inputStream 文件流
+     * @param path 存储路径
+     * @param contentType 文件类型
+     * @return 存储结果，失败返回null
+     */
+    default StoredFile store(InputStream inputStream, String path, String contentType) {
+        String url = upload(inputStream, path, contentType);
+        if (url == null) {
+            return null;
+        }
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl(url);
+        storedFile.setContentType(contentType);
+        return storedFile;
+    }
+    
+    /**
+     * 上传文件并返回存储结果
+     * @param file 文件
+     * @param path 存储路径
+     * @return 存储结果，失败返回null
+     */
+    default StoredFile store(MultipartFile file, String path) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        try {
+            return store(file.getInputStream(), path, file.getContentType());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 获取文件元数据
+     * @param path 文件路径
+     * @return 文件元数据，不存在或不支持时返回null
+     */
+    default StoredFile getMetadata(String path) {
+        return null;
+    }
+    
+    /**
+     * 记录文件归属者，存储支持时持久化到文件元数据（getMetadata返回的owner），
+     * 删除或过期清理时按记录的归属者扣减存储用量
+     * @param path 文件路径
+     * @param owner 归属者
+     * @return 是否已记录，文件不存在或存储不支持时返回false
+     */
+    default boolean setOwner(String path, String owner) {
+        return false;
+    }
+    
+    /**
+     * 获取文件大小
+     * @param path 文件路径
+     * @return 文件大小（字节），不存在返回-1
+     */
+    default long size(String path) {
+        StoredFile metadata = getMetadata(path);
+        return metadata != null ? metadata.getSize() : -1;
+    }
+    
+    /**
+     * 按路径前缀分页列出文件（按路径升序）
+     * @param prefix 路径前缀
+     * @param startAfter 起始游标（不包含），为空时从头开始
+     * @param limit 最大返回条数
+     * @return 文件元数据列表
+     */
+    default List<StoredFile> list(String prefix, String startAfter, int limit) {
+        throw new UnsupportedOperationException("当前存储不支持列表查询");
+    }
+    
+    /**
+     * 按路径前缀游标分页列出文件
+     * @param prefix 路径前缀
+     * @param cursor 游标（上一页返回的nextCursor），首页传null
+     * @param limit 每页条数
+     * @return 分页结果，nextCursor为null表示没有更多数据
+     */
+    default StoragePage listPage(String prefix, String cursor, int limit) {
+        List<StoredFile> items = list(prefix, cursor, limit);
+        StoragePage page = new StoragePage();
+        page.setItems(items);
+        if (!items.isEmpty() && items.size() >= limit) {
+            page.setNextCursor(items.get(items.size() - 1).getPath());
+        }
+        return page;
+    }
+    
+    /**
+     * 批量上传（按目录分组，有界并行）
+     * @param files 存储路径 -> 文件
+     * @param executor 线程池，为null时顺序执行
+     * @param parallelism 最大并行度
+     * @return 与输入顺序一致的逐项结果
+     */
+    default BatchResult uploadAll(Map<String, MultipartFile> files, Executor executor, int parallelism) {
+        List<String> paths = new ArrayList<>(files.keySet());
+        return BatchExecutor.execute(paths, executor, parallelism, path -> {
+            StoredFile storedFile = store(files.get(path), path);
+            return storedFile != null
+                    ? BatchResult.Item.success(path, storedFile)
+                    : BatchResult.Item.failure(path, "文件上传失败");
+        });
+    }
+    
+    /**
+     * 批量上传（调用线程顺序执行）
+     */
+    default BatchResult uploadAll(Map<String, MultipartFile> files) {
+        return uploadAll(files, null, 1);
+    }
+    
+    /**
+     * 批量删除（按目录分组，有界并行）
+     * @param paths 文件路径
+     * @param executor 线程池，为null时顺序执行
+     * @param parallelism 最大并行度
+     * @return 与输入顺序一致的逐项结果，文件不存在记为失败
+     */
+    default BatchResult deleteAll(Collection<String> paths, Executor executor, int parallelism) {
+        return BatchExecutor.execute(new ArrayList<>(paths), executor, parallelism, path -> delete(path)
+                ? BatchResult.Item.success(path, null)
+                : BatchResult.Item.failure(path, "文件不存在或删除失败"));
+    }
+    
+    /**
+     * 批量删除（调用线程顺序执行）
+     */
+    default BatchResult deleteAll(Collection<String> paths) {
+        return deleteAll(paths, null, 1);
+    }
+}
@@ -1,27 +1,93 @@
 package com.dw.common.storage;
 
+import com.dw.common.storage.metadata.FileMetadataIndex;
+import com.dw.common.storage.signing.UrlSigner;
 import com.dw.common.utils.StringUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.util.UriUtils;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
 
 /**
  * 本地文件存储实现
+ * 同时实现异步接口，异步读写基于AsynchronousFileChannel
  */
 @Slf4j
-public class LocalFileStorage implements FileStorage {
+public class LocalFileStorage implements FileStorage, AsyncFileStorage {
+    
+    /**
+     * 元数据旁路文件目录（位于根目录下，与文件目录结构一一对应）
+     */
+    private static final String META_DIR = ".meta";
+    
+    /**
+     * 图片变体目录（可公开访问）
+     */
+    private static final String VARIANT_DIR = ".variants";
+    private static final String META_SUFFIX = ".properties";
+    
+    /**
+     * 异步读写的分块大小
+     */
+    private static final int ASYNC_BUFFER_SIZE = 64 * 1024;
     
     private final String rootPath;
+    private final Path root;
     private final String urlPrefix;
+    private final DirectoryLister directoryLister;
+    
+    /**
+     * 元数据索引（可选），配置后存在性、大小和列表查询优先查询索引；
+     * 索引未命中时回退到文件系统，找到的文件补写入索引（兼容启用索引之前写入的文件）
+     */
+    private FileMetadataIndex metadataIndex;
+    
+    /**
+     * 异步IO线程池（可选）
+     */
+    private ExecutorService asyncExecutor;
+    
+    /**
+     * 落盘压缩（可选），已压缩保存的文件在关闭压缩后仍可正常读取
+     */
+    private AtRestCompression compression;
+    
+    /**
+     * URL签名（可选）
+     */
+    private UrlSigner urlSigner;
     
     public LocalFileStorage(String rootPath, String urlPrefix) {
         this.rootPath = rootPath;
+        this.root = Paths.get(rootPath).toAbsolutePath().normalize();
         this.urlPrefix = urlPrefix;
         
         // 确保根目录存在
@@ -29,16 +95,29 @@ public class LocalFileStorage implements FileStorage {
         if (!rootDir.exists()) {
             rootDir.mkdirs();
         }
+        this.directoryLister = new DirectoryLister(Paths.get(rootPath), this::toStoredFile);
     }
     
     @Override
     public String upload(MultipartFile file, String path) {
+        StoredFile storedFile = store(file, path);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public String upload(InputStream inputStream, String path, String contentType) {
+        StoredFile storedFile = store(inputStream, path, contentType);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public StoredFile store(MultipartFile file, String path) {
         if (file == null || file.isEmpty()) {
             return null;
         }
         
         try {
-            return upload(file.getInputStream(), path, file.getContentType());
+            return store(file.getInputStream(), path, file.getContentType());
         } catch (Exception e) {
             log.error("上传文件失败: {}", e.getMessage());
             return null;
@@ -46,26 +125,37 @@ public class LocalFileStorage implements FileStorage {
     }
     
     @Override
-    public String upload(InputStream inputStream, String path, String contentType) {
+    public StoredFile store(InputStream inputStream, String path, String contentType) {
         if (inputStream == null || StringUtils.isEmpty(path)) {
             return null;
         }
         
+        Path tempPath = null;
         try {
-            Path filePath = Paths.get(rootPath, path);
+            Path filePath = resolve(path);
             
             // 创建父目录
             Files.createDirectories(filePath.getParent());
             
-            // 保存文件
-            Files.copy(inputStream, filePath, StandardCopyOption.REPLACE_EXISTING);
-            
-            log.info("文件上传成功: {}", filePath);
-            return getUrl(path);
+            // 先写入同目录临时文件，写入过程中同步计算摘要，完成后原子替换
+            tempPath = Files.createTempFile(filePath.getParent(), ".upload-", ".tmp");
+            ChecksumInputStream checksumStream = new ChecksumInputStream(inputStream);
+            String encoding = null;
+            if (compression != null && AtRestCompression.isCompressible(path)) {
+                // 摘要基于原始内容计算，压缩只影响落盘格式
+                encoding = compression.write(checksumStream, tempPath);
+            } else {
+                Files.copy(checksumStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            }
+            StoredFile storedFile = commit(tempPath, path, contentType, checksumStream, encoding);
+            tempPath = null;
+            return storedFile;
             
         } catch (Exception e) {
             log.error("上传文件失败: {}", e.getMessage());
             return null;
+        } finally {
+            deleteQuietly(tempPath);
         }
     }
     
@@ -76,9 +166,13 @@ public class LocalFileStorage implements FileStorage {
         }
         
         try {
-            Path filePath = Paths.get(rootPath, path);
+            if (metadataIndex != null) {
+                metadataIndex.remove(path);
+            }
+            Path filePath = resolve(path);
             boolean deleted = Files.deleteIfExists(filePath);
             if (deleted) {
+                deleteQuietly(metadataPath(path));
                 log.info("文件删除成功: {}", filePath);
             }
             return deleted;
@@ -96,12 +190,592 @@ public class LocalFileStorage implements FileStorage {
         return urlPrefix + (path.startsWith("/") ? path : "/" + path);
     }
     
+    @Override
+    public String getSignedUrl(String path, Duration ttl) {
+        String url = getUrl(path);
+        if (url == null || urlSigner == null) {
+            return url;
+        }
+        return url + "?" + urlSigner.sign(path, ttl);
+    }
+    
     @Override
     public boolean exists(String path) {
         if (StringUtils.isEmpty(path)) {
             return false;
         }
-        Path filePath = Paths.get(rootPath, path);
-        return Files.exists(filePath);
+        if (metadataIndex != null && metadataIndex.contains(path)) {
+            return true;
+        }
+        Path filePath = resolve(path);
+        if (!Files.isRegularFile(filePath)) {
+            return false;
+        }
+        if (metadataIndex != null) {
+            indexMissing(path);
+        }
+        return true;
+    }
+    
+    @Override
+    public InputStream download(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        try {
+            InputStream inputStream = Files.newInputStream(resolve(path));
+            return getEncoding(path) != null ? AtRestCompression.decode(inputStream) : inputStream;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + path, e);
+        }
+    }
+    
+    @Override
+    public StoredFile getMetadata(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        if (metadataIndex != null) {
+            StoredFile indexed = metadataIndex.get(path);
+            if (indexed != null) {
+                return indexed;
+            }
+            return Files.isRegularFile(resolve(path)) ? indexMissing(path) : null;
+        }
+        return readMetadata(path);
+    }
+    
+    /**
+     * 读取元数据旁路文件，不存在返回null
+     */
+    private StoredFile readMetadata(String path) {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(metadataPath(path), StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (Exception e) {
+            log.warn("读取文件元数据失败: {}", e.getMessage());
+            return null;
+        }
+        
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl(getUrl(path));
+        storedFile.setSize(Long.parseLong(props.getProperty("size", "0")));
+        storedFile.setContentType(props.getProperty("contentType"));
+        storedFile.setSha256(props.getProperty("sha256"));
+        storedFile.setCrc32c(props.getProperty("crc32c"));
+        storedFile.setEncoding(props.getProperty("encoding"));
+        String storedSize = props.getProperty("storedSize");
+        storedFile.setStoredSize(storedSize != null ? Long.parseLong(storedSize) : null);
+        storedFile.setOwner(props.getProperty("owner"));
+        String createdAt = props.getProperty("createdAt");
+        storedFile.setCreatedAt(createdAt != null ? LocalDateTime.parse(createdAt) : null);
+        return storedFile;
+    }
+    
+    @Override
+    public long size(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return -1;
+        }
+        StoredFile metadata = getMetadata(path);
+        if (metadata != null) {
+            return metadata.getSize();
+        }
+        try {
+            return Files.size(resolve(path));
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * 列出文件：配置了元数据索引时查询索引，否则流式遍历目录（结果不含摘要，需要时调用getMetadata）
+     */
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        if (metadataIndex != null) {
+            return metadataIndex.list(prefix, startAfter, limit);
+        }
+        try {
+            return directoryLister.list(prefix, startAfter, limit);
+        } catch (IOException e) {
+            throw new UncheckedIOException("列出文件失败: " + prefix, e);
+        }
+    }
+    
+    /**
+     * 记录归属者：写入元数据旁路文件并同步到索引（早期上传没有旁路文件时按文件属性补建）
+     */
+    @Override
+    public boolean setOwner(String path, String owner) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        StoredFile metadata = readMetadata(path);
+        if (metadata == null) {
+            try {
+                metadata = toStoredFile(path, Files.readAttributes(resolve(path), BasicFileAttributes.class));
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        metadata.setOwner(owner);
+        try {
+            writeMetadata(metadata);
+        } catch (IOException e) {
+            log.warn("写入文件归属者失败: {}", e.getMessage());
+            return false;
+        }
+        if (metadataIndex != null) {
+            metadataIndex.put(metadata);
+        }
+        return true;
+    }
+    
+    /**
+     * 将目录中尚未写入索引的文件补写入元数据索引（启用索引之前已存在的文件）
+     * 按目录分页遍历，有元数据旁路文件时使用其中的摘要，否则只记录大小和修改时间
+     * @param batchSize 每页遍历的文件数
+     * @return 补写的文件数
+     */
+    public long backfillMetadataIndex(int batchSize) {
+        if (metadataIndex == null) {
+            return 0;
+        }
+        long count = 0;
+        String cursor = null;
+        List<StoredFile> page;
+        do {
+            try {
+                page = directoryLister.list(null, cursor, batchSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException("遍历文件失败", e);
+            }
+            for (StoredFile listed : page) {
+                if (!metadataIndex.contains(listed.getPath())) {
+                    StoredFile metadata = readMetadata(listed.getPath());
+                    metadataIndex.put(metadata != null ? metadata : listed);
+                    count++;
+                }
+                cursor = listed.getPath();
+            }
+        } while (page.size() >= batchSize);
+        log.info("元数据索引补写完成，共{}个文件", count);
+        return count;
+    }
+    
+    /**
+     * 索引未命中但文件存在时补写索引
+     */
+    private StoredFile indexMissing(String path) {
+        StoredFile metadata = readMetadata(path);
+        if (metadata == null) {
+            try {
+                Path filePath = resolve(path);
+                metadata = toStoredFile(path, Files.readAttributes(filePath, BasicFileAttributes.class));
+            } catch (IOException e) {
+                return null;
+            }
+        }
+        metadataIndex.put(metadata);
+        return metadata;
+    }
+    
+    /**
+     * 是否为存储内部文件（元数据、索引、临时文件等），不能通过访问URL读取
+     * 路径按URL解码后存在 . 开头的段即为内部文件，图片变体目录除外
+     */
+    public static boolean isInternalPath(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        String decoded;
+        try {
+            decoded = UriUtils.decode(path, StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+        boolean first = true;
+        for (String segment : decoded.split("[/\\\\]")) {
+            if (segment.isEmpty()) {
+                continue;
+            }
+            if (segment.startsWith(".") && !(first && VARIANT_DIR.equals(segment))) {
+                return true;
+            }
+            first = false;
+        }
+        return false;
+    }
+    
+    /**
+     * 获取文件的落盘压缩编码，未压缩返回null
+     * 只有可压缩扩展名的文件才读取元数据旁路文件，其余文件不产生额外IO
+     */
+    public String getEncoding(String path) {
+        if (!AtRestCompression.isCompressible(path)) {
+            return null;
+        }
+        StoredFile metadata = readMetadata(path);
+        return metadata != null ? metadata.getEncoding() : null;
+    }
+    
+    /**
+     * 异步上传：基于AsynchronousFileChannel分块写入临时文件，写完后原子替换
+     * 源数据在IO完成回调中逐块读取，调用线程只负责提交第一块
+     */
+    @Override
+    public CompletableFuture<StoredFile> storeAsync(InputStream inputStream, String path, String contentType) {
+        if (inputStream == null || StringUtils.isEmpty(path)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        if (compression != null && AtRestCompression.isCompressible(path)) {
+            // 压缩是CPU密集的流式处理，在线程池中同步完成
+            return supplyAsync(() -> store(inputStream, path, contentType));
+        }
+        
+        CompletableFuture<StoredFile> result = new CompletableFuture<>();
+        Path tempPath = null;
+        try {
+            Path filePath = resolve(path);
+            Files.createDirectories(filePath.getParent());
+            tempPath = Files.createTempFile(filePath.getParent(), ".upload-", ".tmp");
+            AsynchronousFileChannel channel = AsynchronousFileChannel.open(tempPath,
+                    EnumSet.of(StandardOpenOption.WRITE), asyncExecutor);
+            new AsyncWriter(channel, tempPath, path, contentType, new ChecksumInputStream(inputStream), result).writeNext();
+        } catch (Exception e) {
+            log.error("上传文件失败: {}", e.getMessage());
+            deleteQuietly(tempPath);
+            result.complete(null);
+        }
+        return result;
+    }
+    
+    /**
+     * 异步读取：基于AsynchronousFileChannel分块读取后写入输出流
+     */
+    @Override
+    public CompletableFuture<Long> downloadAsync(String path, OutputStream outputStream) {
+        if (StringUtils.isEmpty(path)) {
+            return CompletableFuture.completedFuture(-1L);
+        }
+        
+        if (getEncoding(path) != null) {
+            // 压缩文件需要边读边解压，在线程池中同步完成
+            return supplyAsync(() -> {
+                try (InputStream inputStream = download(path)) {
+                    return inputStream != null ? inputStream.transferTo(outputStream) : -1L;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取文件失败: " + path, e);
+                }
+            });
+        }
+        
+        CompletableFuture<Long> result = new CompletableFuture<>();
+        try {
+            AsynchronousFileChannel channel = AsynchronousFileChannel.open(resolve(path),
+                    EnumSet.of(StandardOpenOption.READ), asyncExecutor);
+            new AsyncReader(channel, outputStream, result).readNext();
+        } catch (NoSuchFileException e) {
+            result.complete(-1L);
+        } catch (IOException e) {
+            result.completeExceptionally(new UncheckedIOException("读取文件失败: " + path, e));
+        }
+        return result;
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> deleteAsync(String path) {
+        return supplyAsync(() -> delete(path));
+    }
+    
+    @Override
+    public CompletableFuture<Boolean> existsAsync(String path) {
+        return supplyAsync(() -> exists(path));
+    }
+    
+    /**
+     * 设置异步IO线程池，未设置时使用JVM默认的异步通道线程池
+     */
+    public void setAsyncExecutor(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+    
+    /**
+     * 设置元数据索引
+     */
+    public void setMetadataIndex(FileMetadataIndex metadataIndex) {
+        this.metadataIndex = metadataIndex;
+    }
+    
+    public FileMetadataIndex getMetadataIndex() {
+        return metadataIndex;
+    }
+    
+    /**
+     * 设置落盘压缩，为null时关闭
+     */
+    public void setCompression(AtRestCompression compression) {
+        this.compression = compression;
+    }
+    
+    public AtRestCompression getCompression() {
+        return compression;
+    }
+    
+    /**
+     * 设置URL签名，为null时getSignedUrl返回普通访问URL
+     */
+    public void setUrlSigner(UrlSigner urlSigner) {
+        this.urlSigner = urlSigner;
+    }
+    
+    /**
+     * 将写完的临时文件替换到目标路径，并记录元数据
+     */
+    private StoredFile commit(Path tempPath, String path, String contentType, ChecksumInputStream checksumStream,
+                              String encoding) throws IOException {
+        Path filePath = resolve(path);
+        long storedSize = Files.size(tempPath);
+        moveReplacing(tempPath, filePath);
+        
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl(getUrl(path));
+        storedFile.setSize(checksumStream.getCount());
+        storedFile.setContentType(contentType);
+        storedFile.setSha256(checksumStream.getSha256Hex());
+        storedFile.setCrc32c(checksumStream.getCrc32cHex());
+        if (encoding != null) {
+            storedFile.setEncoding(encoding);
+            storedFile.setStoredSize(storedSize);
+        }
+        storedFile.setCreatedAt(LocalDateTime.now());
+        try {
+            writeMetadata(storedFile);
+        } catch (IOException e) {
+            if (encoding != null) {
+                // 没有元数据的压缩文件会被当作原始内容读取，按上传失败处理
+                deleteQuietly(filePath);
+                deleteQuietly(metadataPath(path));
+                throw e;
+            }
+            // 未压缩文件的元数据写入失败不影响文件本身
+            log.warn("写入文件元数据失败: {}", e.getMessage());
+        }
+        if (metadataIndex != null) {
+            metadataIndex.put(storedFile);
+        }
+        
+        log.info("文件上传成功: {}", filePath);
+        return storedFile;
+    }
+    
+    /**
+     * 根据文件属性构造存储结果（目录遍历使用，不读取元数据旁路文件）
+     */
+    private StoredFile toStoredFile(String path, BasicFileAttributes attrs) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl(getUrl(path));
+        storedFile.setSize(attrs.size());
+        storedFile.setCreatedAt(LocalDateTime.ofInstant(attrs.lastModifiedTime().toInstant(), ZoneId.systemDefault()));
+        return storedFile;
+    }
+    
+    private <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier) {
+        return asyncExecutor != null
+                ? CompletableFuture.supplyAsync(supplier, asyncExecutor)
+                : CompletableFuture.completedFuture(supplier.get());
+    }
+    
+    /**
+     * 写入元数据旁路文件
+     */
+    private void writeMetadata(StoredFile storedFile) throws IOException {
+        Properties props = new Properties();
+        props.setProperty("size", String.valueOf(storedFile.getSize()));
+        if (storedFile.getContentType() != null) {
+            props.setProperty("contentType", storedFile.getContentType());
+        }
+        if (storedFile.getSha256() != null) {
+            props.setProperty("sha256", storedFile.getSha256());
+            props.setProperty("crc32c", storedFile.getCrc32c());
+        }
+        if (storedFile.getEncoding() != null) {
+            props.setProperty("encoding", storedFile.getEncoding());
+            props.setProperty("storedSize", String.valueOf(storedFile.getStoredSize()));
+        }
+        if (storedFile.getOwner() != null) {
+            props.setProperty("owner", storedFile.getOwner());
+        }
+        props.setProperty("createdAt", storedFile.getCreatedAt().toString());
+        
+        Path metaPath = metadataPath(storedFile.getPath());
+        Files.createDirectories(metaPath.getParent());
+        try (Writer writer = Files.newBufferedWriter(metaPath, StandardCharsets.UTF_8)) {
+            props.store(writer, null);
+        }
+    }
+    
+    /**
+     * 获取元数据旁路文件路径
+     */
+    private Path metadataPath(String path) {
+        return root.resolve(META_DIR).resolve(root.relativize(resolve(path)) + META_SUFFIX);
+    }
+    
+    /**
+     * 解析存储路径对应的文件，路径必须位于根目录内
+     * @throws IllegalArgumentException 路径越出根目录时
+     */
+    private Path resolve(String path) {
+        int start = 0;
+        while (start < path.length() && (path.charAt(start) == '/' || path.charAt(start) == '\\')) {
+            start++;
+        }
+        Path filePath = root.resolve(path.substring(start)).normalize();
+        if (!filePath.startsWith(root) || filePath.equals(root)) {
+            throw new IllegalArgumentException("非法的文件路径: " + path);
+        }
+        return filePath;
+    }
+    
+    /**
+     * 原子替换目标文件，文件系统不支持时退化为普通替换
+     */
+    private void moveReplacing(Path source, Path target) throws IOException {
+        try {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("清理文件失败: {}", path);
+        }
+    }
+    
+    /**
+     * 异步分块写入：读取一块 -> 提交写入 -> 回调中读取下一块，直到源数据读完
+     */
+    private class AsyncWriter implements CompletionHandler<Integer, Void> {
+        
+        private final AsynchronousFileChannel channel;
+        private final Path tempPath;
+        private final String path;
+        private final String contentType;
+        private final ChecksumInputStream source;
+        private final CompletableFuture<StoredFile> result;
+        private final ByteBuffer buffer = ByteBuffer.allocate(ASYNC_BUFFER_SIZE);
+        private long position;
+        
+        AsyncWriter(AsynchronousFileChannel channel, Path tempPath, String path, String contentType,
+                    ChecksumInputStream source, CompletableFuture<StoredFile> result) {
+            this.channel = channel;
+            this.tempPath = tempPath;
+            this.path = path;
+            this.contentType = contentType;
+            this.source = source;
+            this.result = result;
+        }
+        
+        void writeNext() {
+            try {
+                int read = source.read(buffer.array(), 0, buffer.capacity());
+                if (read < 0) {
+                    channel.close();
+                    result.complete(commit(tempPath, path, contentType, source, null));
+                    return;
+                }
+                buffer.clear().limit(read);
+                channel.write(buffer, position, null, this);
+            } catch (Exception e) {
+                failed(e, null);
+            }
+        }
+        
+        @Override
+        public void completed(Integer written, Void attachment) {
+            position += written;
+            if (buffer.hasRemaining()) {
+                channel.write(buffer, position, null, this);
+            } else {
+                writeNext();
+            }
+        }
+        
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            log.error("上传文件失败: {}", e.getMessage());
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 已失败，忽略关闭异常
+            }
+            deleteQuietly(tempPath);
+            result.complete(null);
+        }
+    }
+    
+    /**
+     * 异步分块读取：提交读取 -> 回调中写入输出流 -> 读取下一块，直到文件末尾
+     */
+    private static class AsyncReader implements CompletionHandler<Integer, Void> {
+        
+        private final AsynchronousFileChannel channel;
+        private final OutputStream target;
+        private final CompletableFuture<Long> result;
+        private final ByteBuffer buffer = ByteBuffer.allocate(ASYNC_BUFFER_SIZE);
+        private long position;
+        
+        AsyncReader(AsynchronousFileChannel channel, OutputStream target, CompletableFuture<Long> result) {
+            this.channel = channel;
+            this.target = target;
+            this.result = result;
+        }
+        
+        void readNext() {
+            buffer.clear();
+            channel.read(buffer, position, null, this);
+        }
+        
+        @Override
+        public void completed(Integer read, Void attachment) {
+            try {
+                if (read < 0) {
+                    channel.close();
+                    result.complete(position);
+                    return;
+                }
+                target.write(buffer.array(), 0, read);
+                position += read;
+                readNext();
+            } catch (Exception e) {
+                failed(e, null);
+            }
+        }
+        
+        @Override
+        public void failed(Throwable e, Void attachment) {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // 已失败，忽略关闭异常
+            }
+            result.completeExceptionally(e);
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,561 @@
+package com.dw.common.storage;
+
+import com.dw.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectTaggingRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectTaggingRequest;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.Tag;
+import software.amazon.awssdk.services.s3.model.Tagging;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * S3协议对象存储实现（兼容AWS S3、MinIO等）
+ * 大文件按分片并行上传（分片缓冲区池化复用），大文件下载按Range并行拉取后顺序写出
+ */
+@Slf4j
+public class S3FileStorage implements FileStorage, Closeable {
+    
+    /**
+     * S3要求的最小分片大小（最后一片除外）
+     */
+    public static final int MIN_PART_SIZE = 5 * 1024 * 1024;
+    
+    /**
+     * 上传时的初始读取缓冲区大小，不超过该大小的文件不占用分片缓冲区
+     */
+    private static final int INITIAL_BUFFER_SIZE = 64 * 1024;
+    
+    private static final String META_SHA256 = "sha256";
+    private static final String META_CRC32C = "crc32c";
+    
+    private final S3Client s3Client;
+    private final String bucket;
+    private final String urlPrefix;
+    
+    /**
+     * 分片大小（S3要求除最后一片外不小于5MB）
+     */
+    private final int partSize;
+    
+    /**
+     * 单个文件的最大并行传输分片数
+     */
+    private final int concurrency;
+    
+    private final ExecutorService transferExecutor;
+    
+    /**
+     * 分片缓冲池：空闲缓冲区复用，总数不超过 concurrency + 1
+     */
+    private final Semaphore bufferPermits;
+    private final BlockingQueue<byte[]> idleBuffers;
+    
+    public S3FileStorage(S3Client s3Client, String bucket, String urlPrefix, int partSize, int concurrency) {
+        if (partSize < MIN_PART_SIZE) {
+            throw new IllegalArgumentException("分片大小不能小于5MB: " + partSize);
+        }
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("并发数必须大于0");
+        }
+        this.s3Client = s3Client;
+        this.bucket = bucket;
+        this.urlPrefix = urlPrefix;
+        this.partSize = partSize;
+        this.concurrency = concurrency;
+        this.bufferPermits = new Semaphore(concurrency + 1);
+        this.idleBuffers = new ArrayBlockingQueue<>(concurrency + 1);
+        
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.transferExecutor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "dw-s3-transfer-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    @Override
+    public String upload(MultipartFile file, String path) {
+        StoredFile storedFile = store(file, path);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public String upload(InputStream inputStream, String path, String contentType) {
+        StoredFile storedFile = store(inputStream, path, contentType);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public StoredFile store(MultipartFile file, String path) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            return store(file.getInputStream(), path, file.getContentType());
+        } catch (Exception e) {
+            log.error("上传文件失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public StoredFile store(InputStream inputStream, String path, String contentType) {
+        if (inputStream == null || StringUtils.isEmpty(path)) {
+            return null;
+        }
+        
+        String key = toKey(path);
+        try {
+            ChecksumInputStream checksumStream = new ChecksumInputStream(inputStream);
+            // 先读入小缓冲区，超过后才换用分片缓冲区，小文件不必占用整个分片大小的内存
+            byte[] head = new byte[Math.min(INITIAL_BUFFER_SIZE, partSize)];
+            int headLength = readFully(checksumStream, head, 0);
+            if (headLength < head.length) {
+                return putObject(key, path, contentType, checksumStream, head, headLength);
+            }
+            
+            byte[] firstPart = acquireBuffer();
+            try {
+                System.arraycopy(head, 0, firstPart, 0, headLength);
+                int firstLength = readFully(checksumStream, firstPart, headLength);
+                if (firstLength < partSize) {
+                    return putObject(key, path, contentType, checksumStream, firstPart, firstLength);
+                }
+                byte[] parts = firstPart;
+                firstPart = null;
+                return multipartUpload(key, path, contentType, checksumStream, parts);
+            } finally {
+                if (firstPart != null) {
+                    releaseBuffer(firstPart);
+                }
+            }
+            
+        } catch (Exception e) {
+            log.error("上传文件失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * 不超过一个分片的文件一次性上传，摘要随对象元数据一起写入
+     */
+    private StoredFile putObject(String key, String path, String contentType, ChecksumInputStream checksumStream,
+                                 byte[] data, int length) {
+        String sha256 = checksumStream.getSha256Hex();
+        String crc32c = checksumStream.getCrc32cHex();
+        PutObjectRequest request = PutObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .contentType(contentType)
+                .metadata(Map.of(META_SHA256, sha256, META_CRC32C, crc32c))
+                .build();
+        s3Client.putObject(request, RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+        return buildStoredFile(path, length, contentType, sha256, crc32c);
+    }
+    
+    /**
+     * 分片并行上传
+     * 读取线程顺序读取分片，最多同时有concurrency个分片在上传；分片缓冲区从缓冲池获取，上传结束后归还
+     * @param firstPart 已读满的第一个分片，由本方法负责归还
+     */
+    private StoredFile multipartUpload(String key, String path, String contentType,
+                                       ChecksumInputStream checksumStream, byte[] firstPart) throws Exception {
+        String uploadId;
+        try {
+            uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .contentType(contentType)
+                    .build()).uploadId();
+        } catch (RuntimeException e) {
+            releaseBuffer(firstPart);
+            throw e;
+        }
+        
+        Semaphore permits = new Semaphore(concurrency);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<CompletedPart>> futures = new ArrayList<>();
+        
+        byte[] buffer = firstPart;
+        try {
+            int length = partSize;
+            int partNumber = 1;
+            while (length > 0 && failure.get() == null) {
+                permits.acquire();
+                final byte[] data = buffer;
+                final int dataLength = length;
+                final int currentPart = partNumber++;
+                futures.add(CompletableFuture.supplyAsync(
+                        () -> uploadPart(key, uploadId, currentPart, data, dataLength, failure, permits),
+                        transferExecutor));
+                buffer = null;
+                
+                if (length < partSize) {
+                    break;
+                }
+                buffer = acquireBuffer();
+                length = readFully(checksumStream, buffer, 0);
+            }
+            
+            List<CompletedPart> parts = new ArrayList<>(futures.size());
+            for (CompletableFuture<CompletedPart> future : futures) {
+                parts.add(future.join());
+            }
+            
+            s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+                    .bucket(bucket)
+                    .key(key)
+                    .uploadId(uploadId)
+                    .multipartUpload(CompletedMultipartUpload.builder().parts(parts).build())
+                    .build());
+        
+        } catch (Exception e) {
+            failure.compareAndSet(null, e);
+            // 未开始的分片看到失败标记后直接跳过，等进行中的分片结束后再取消上传，避免取消后仍有分片写入
+            futures.forEach(future -> future.handle((part, error) -> null).join());
+            abortQuietly(key, uploadId);
+            Throwable cause = failure.get();
+            if (cause instanceof CompletionException && cause.getCause() instanceof Exception inner) {
+                cause = inner;
+            }
+            throw cause instanceof Exception exception ? exception : e;
+        } finally {
+            if (buffer != null) {
+                releaseBuffer(buffer);
+            }
+        }
+        
+        // 分片上传创建时摘要尚未计算完成，通过对象标签记录
+        String sha256 = checksumStream.getSha256Hex();
+        String crc32c = checksumStream.getCrc32cHex();
+        s3Client.putObjectTagging(PutObjectTaggingRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .tagging(Tagging.builder().tagSet(
+                        Tag.builder().key(META_SHA256).value(sha256).build(),
+                        Tag.builder().key(META_CRC32C).value(crc32c).build()).build())
+                .build());
+        
+        log.info("分片上传完成: {}，共{}片", key, futures.size());
+        return buildStoredFile(path, checksumStream.getCount(), contentType, sha256, crc32c);
+    }
+    
+    /**
+     * 上传单个分片，结束后归还缓冲区和并发许可；上传已失败时直接跳过
+     */
+    private CompletedPart uploadPart(String key, String uploadId, int partNumber, byte[] data, int length,
+                                     AtomicReference<Throwable> failure, Semaphore permits) {
+        try {
+            if (failure.get() != null) {
+                throw new CancellationException("分片上传已取消: " + key + "#" + partNumber);
+            }
+            UploadPartResponse response = s3Client.uploadPart(UploadPartRequest.builder()
+                            .bucket(bucket)
+                            .key(key)
+                            .uploadId(uploadId)
+                            .partNumber(partNumber)
+                            .contentLength((long) length)
+                            .build(),
+                    RequestBody.fromInputStream(new ByteArrayInputStream(data, 0, length), length));
+            return CompletedPart.builder().partNumber(partNumber).eTag(response.eTag()).build();
+        } catch (RuntimeException e) {
+            failure.compareAndSet(null, e);
+            throw e;
+        } finally {
+            releaseBuffer(data);
+            permits.release();
+        }
+    }
+    
+    /**
+     * 从缓冲池获取分片缓冲区，所有上传共用 concurrency + 1 个分片缓冲区，用尽时等待归还
+     */
+    private byte[] acquireBuffer() throws InterruptedException {
+        bufferPermits.acquire();
+        byte[] buffer = idleBuffers.poll();
+        return buffer != null ? buffer : new byte[partSize];
+    }
+    
+    private void releaseBuffer(byte[] buffer) {
+        idleBuffers.offer(buffer);
+        bufferPermits.release();
+    }
+    
+    @Override
+    public boolean delete(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        
+        try {
+            // S3删除不存在的对象也会返回成功，这里先确认存在以保持与本地存储一致的语义
+            if (!exists(path)) {
+                return false;
+            }
+            s3Client.deleteObject(DeleteObjectRequest.builder().bucket(bucket).key(toKey(path)).build());
+            log.info("文件删除成功: {}", path);
+            return true;
+        } catch (Exception e) {
+            log.error("删除文件失败: {}", e.getMessage());
+            return false;
+        }
+    }
+    
+    @Override
+    public String getUrl(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        return urlPrefix + (path.startsWith("/") ? path : "/" + path);
+    }
+    
+    @Override
+    public boolean exists(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        return head(toKey(path)) != null;
+    }
+    
+    @Override
+    public StoredFile getMetadata(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        
+        String key = toKey(path);
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            return null;
+        }
+        
+        Map<String, String> digests = head.metadata();
+        if (!digests.containsKey(META_SHA256)) {
+            digests = s3Client.getObjectTagging(GetObjectTaggingRequest.builder().bucket(bucket).key(key).build())
+                    .tagSet().stream()
+                    .collect(Collectors.toMap(Tag::key, Tag::value, (a, b) -> a, HashMap::new));
+        }
+        
+        StoredFile storedFile = buildStoredFile(path, head.contentLength(), head.contentType(),
+                digests.get(META_SHA256), digests.get(META_CRC32C));
+        storedFile.setCreatedAt(head.lastModified() != null
+                ? LocalDateTime.ofInstant(head.lastModified(), ZoneId.systemDefault()) : null);
+        return storedFile;
+    }
+    
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        ListObjectsV2Request.Builder request = ListObjectsV2Request.builder()
+                .bucket(bucket)
+                .maxKeys(limit);
+        if (StringUtils.isNotEmpty(prefix)) {
+            request.prefix(toKey(prefix));
+        }
+        if (StringUtils.isNotEmpty(startAfter)) {
+            request.startAfter(toKey(startAfter));
+        }
+        
+        List<StoredFile> result = new ArrayList<>();
+        for (S3Object object : s3Client.listObjectsV2(request.build()).contents()) {
+            StoredFile storedFile = buildStoredFile(object.key(), object.size(), null, null, null);
+            storedFile.setCreatedAt(object.lastModified() != null
+                    ? LocalDateTime.ofInstant(object.lastModified(), ZoneId.systemDefault()) : null);
+            result.add(storedFile);
+        }
+        return result;
+    }
+    
+    @Override
+    public InputStream download(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        try {
+            return s3Client.getObject(GetObjectRequest.builder().bucket(bucket).key(toKey(path)).build());
+        } catch (NoSuchKeyException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 下载到输出流
+     * 大于一个分片的对象按Range并行拉取，按顺序写出；通过If-Match保证各分片来自同一版本
+     */
+    @Override
+    public long download(String path, OutputStream outputStream) {
+        if (StringUtils.isEmpty(path)) {
+            return -1;
+        }
+        
+        String key = toKey(path);
+        HeadObjectResponse head = head(key);
+        if (head == null) {
+            return -1;
+        }
+        
+        long size = head.contentLength();
+        try {
+            if (size <= partSize) {
+                try (InputStream inputStream = s3Client.getObject(GetObjectRequest.builder()
+                        .bucket(bucket).key(key).ifMatch(head.eTag()).build())) {
+                    return inputStream.transferTo(outputStream);
+                }
+            }
+            
+            long partCount = (size + partSize - 1) / partSize;
+            Deque<CompletableFuture<byte[]>> window = new ArrayDeque<>(concurrency);
+            long nextPart = 0;
+            long written = 0;
+            try {
+                while (written < size) {
+                    while (window.size() < concurrency && nextPart < partCount) {
+                        long start = nextPart * partSize;
+                        long end = Math.min(start + partSize, size) - 1;
+                        window.add(CompletableFuture.supplyAsync(() -> fetchRange(key, head.eTag(), start, end), transferExecutor));
+                        nextPart++;
+                    }
+                    byte[] data = window.poll().join();
+                    outputStream.write(data);
+                    written += data.length;
+                }
+            } finally {
+                window.forEach(future -> future.cancel(true));
+            }
+            return written;
+            
+        } catch (IOException e) {
+            throw new UncheckedIOException("下载文件失败: " + path, e);
+        } catch (CompletionException e) {
+            // 分片拉取在传输线程中失败，抛出原始异常
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("下载文件失败: " + path, e.getCause());
+        }
+    }
+    
+    @Override
+    public void close() {
+        transferExecutor.shutdown();
+        try {
+            if (!transferExecutor.awaitTermination(30, TimeUnit.SECONDS)) {
+                transferExecutor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            transferExecutor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        s3Client.close();
+    }
+    
+    private byte[] fetchRange(String key, String eTag, long start, long end) {
+        ResponseBytes<GetObjectResponse> bytes = s3Client.getObjectAsBytes(GetObjectRequest.builder()
+                .bucket(bucket)
+                .key(key)
+                .ifMatch(eTag)
+                .range("bytes=" + start + "-" + end)
+                .build());
+        return bytes.asByteArrayUnsafe();
+    }
+    
+    private HeadObjectResponse head(String key) {
+        try {
+            return s3Client.headObject(HeadObjectRequest.builder().bucket(bucket).key(key).build());
+        } catch (NoSuchKeyException e) {
+            return null;
+        } catch (S3Exception e) {
+            if (e.statusCode() == 404) {
+                return null;
+            }
+            throw e;
+        }
+    }
+    
+    private void abortQuietly(String key, String uploadId) {
+        try {
+            s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+                    .bucket(bucket).key(key).uploadId(uploadId).build());
+        } catch (Exception e) {
+            log.warn("取消分片上传失败: {}, {}", key, e.getMessage());
+        }
+    }
+    
+    private StoredFile buildStoredFile(String path, long size, String contentType, String sha256, String crc32c) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl(getUrl(path));
+        storedFile.setSize(size);
+        storedFile.setContentType(contentType);
+        storedFile.setSha256(sha256);
+        storedFile.setCrc32c(crc32c);
+        storedFile.setCreatedAt(LocalDateTime.now());
+        return storedFile;
+    }
+    
+    /**
+     * 从offset处读满缓冲区，返回缓冲区中的有效字节数（小于缓冲区长度说明流已结束）
+     */
+    private static int readFully(InputStream inputStream, byte[] buffer, int offset) throws IOException {
+        int total = offset;
+        while (total < buffer.length) {
+            int read = inputStream.read(buffer, total, buffer.length - total);
+            if (read < 0) {
+                break;
+            }
+            total += read;
+        }
+        return total;
+    }
+    
+    private static String toKey(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
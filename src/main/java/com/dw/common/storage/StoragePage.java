@@ -0,0 +1,30 @@
+package com.dw.common.storage;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 文件列表分页结果（游标分页）
+ */
+@Data
+public class StoragePage {
+    
+    /**
+     * 本页文件
+     */
+    private List<StoredFile> items = new ArrayList<>();
+    
+    /**
+     * 下一页游标，为null表示没有更多数据
+     */
+    private String nextCursor;
+    
+    /**
+     * 是否还有下一页
+     */
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,63 @@
+package com.dw.common.storage;
+
+import com.dw.common.utils.DateUtils;
+import com.dw.common.utils.IdUtils;
+
+import java.time.LocalDate;
+
+/**
+ * 存储路径布局
+ * 默认按 分类/年/月/日/文件名 存放；配置扇出层级后在日期目录下再按文件名哈希前缀分散到子目录，
+ * 如 images/2024/01/15/3f/a2/3fa2...jpg，避免单个目录文件过多拖慢创建、查询和删除
+ */
+public class StoragePathLayout {
+    
+    /**
+     * 不扇出的默认布局
+     */
+    public static final StoragePathLayout DEFAULT = new StoragePathLayout(0);
+    
+    /**
+     * 每层扇出使用的十六进制字符数（每层256个子目录）
+     */
+    private static final int CHARS_PER_LEVEL = 2;
+    
+    /**
+     * 最大扇出层级（文件名为32位十六进制UUID）
+     */
+    private static final int MAX_DEPTH = 4;
+    
+    private final int fanOutDepth;
+    
+    /**
+     * @param fanOutDepth 扇出层级，0表示不扇出
+     */
+    public StoragePathLayout(int fanOutDepth) {
+        if (fanOutDepth < 0 || fanOutDepth > MAX_DEPTH) {
+            throw new IllegalArgumentException("扇出层级必须在0到" + MAX_DEPTH + "之间");
+        }
+        this.fanOutDepth = fanOutDepth;
+    }
+    
+    /**
+     * 生成存储路径
+     * @param category 分类目录
+     * @param extension 文件扩展名
+     */
+    public String generate(String category, String extension) {
+        String dateStr = DateUtils.format(LocalDate.now(), "yyyy/MM/dd");
+        String id = IdUtils.uuid();
+        
+        StringBuilder path = new StringBuilder(category.length() + 64)
+                .append(category).append('/').append(dateStr).append('/');
+        // UUID是随机的十六进制串，前缀分布均匀，直接用作哈希前缀
+        for (int level = 0; level < fanOutDepth; level++) {
+            path.append(id, level * CHARS_PER_LEVEL, (level + 1) * CHARS_PER_LEVEL).append('/');
+        }
+        return path.append(id).append('.').append(extension.toLowerCase()).toString();
+    }
+    
+    public int getFanOutDepth() {
+        return fanOutDepth;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dw.common.storage;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 文件存储结果（包含文件元数据）
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class StoredFile {
+    
+    /**
+     * 存储路径
+     */
+    private String path;
+    
+    /**
+     * 访问URL
+     */
+    private String url;
+    
+    /**
+     * 文件大小（字节）
+     */
+    private long size;
+    
+    /**
+     * 文件类型
+     */
+    private String contentType;
+    
+    /**
+     * SHA-256摘要（16进制）
+     */
+    private String sha256;
+    
+    /**
+     * CRC32C校验值（16进制），用于快速校验
+     */
+    private String crc32c;
+    
+    /**
+     * 落盘压缩编码（如gzip），为空表示按原样保存
+     */
+    private String encoding;
+    
+    /**
+     * 实际占用的磁盘大小（字节），仅压缩保存时有值
+     */
+    private Long storedSize;
+    
+    /**
+     * 归属者（上传时指定，删除和过期清理时据此扣减存储用量），未指定时为空
+     */
+    private String owner;
+    
+    /**
+     * 创建时间
+     */
+    private LocalDateTime createdAt;
+    
+    /**
+     * 获取ETag（基于SHA-256摘要）
+     */
+    public String getEtag() {
+        return sha256 != null ? "\"" + sha256 + "\"" : null;
+    }
+}
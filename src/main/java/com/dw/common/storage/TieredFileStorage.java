@@ -0,0 +1,795 @@
+package com.dw.common.storage;
+
+import com.dw.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * 分层存储：本地磁盘热缓存 + 远端存储
+ * 读取时优先命中本地缓存，未命中时从远端拉取（同一文件的并发未命中只拉取一次），
+ * 缓存总大小超过上限时按LRU或LFU淘汰。
+ * WRITE_BACK模式下，尚未写入远端的文件在缓存中固定不被淘汰，并在同目录写入 .pending- 标记文件，
+ * 重启后据此重新写入远端；同一文件的多次写入按顺序写回，远端最终是最后一次写入的内容
+ * 元数据和列表查询以远端为准，查询前等待相关的后台写入完成，写入后立即查询也能看到结果
+ */
+@Slf4j
+public class TieredFileStorage implements FileStorage, Closeable {
+    
+    /**
+     * 淘汰策略
+     */
+    public enum EvictionPolicy {
+        /**
+         * 最近最少使用
+         */
+        LRU,
+        /**
+         * 最不经常使用（访问次数相同时按最近访问时间）
+         */
+        LFU
+    }
+    
+    /**
+     * 写入模式
+     */
+    public enum WriteMode {
+        /**
+         * 同步写入远端，成功后写入本地缓存
+         */
+        WRITE_THROUGH,
+        /**
+         * 先写本地缓存并立即返回，由后台线程异步写入远端
+         */
+        WRITE_BACK
+    }
+    
+    /**
+     * 淘汰时降到上限的比例，避免每次写入都触发淘汰
+     */
+    private static final double EVICT_TARGET_RATIO = 0.9;
+    
+    private static final String TEMP_PREFIX = ".fill-";
+    
+    /**
+     * 待写回标记文件前缀，内容为文件类型
+     */
+    private static final String PENDING_PREFIX = ".pending-";
+    
+    private final FileStorage remote;
+    private final Path cacheRoot;
+    private final long maxCacheBytes;
+    private final EvictionPolicy evictionPolicy;
+    private final WriteMode writeMode;
+    private final Executor writeBackExecutor;
+    
+    private final Map<String, CacheEntry> entries = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Path>> inflightFills = new ConcurrentHashMap<>();
+    private final Map<String, CompletableFuture<Void>> pendingWrites = new ConcurrentHashMap<>();
+    private final AtomicLong cachedBytes = new AtomicLong();
+    private final AtomicLong accessClock = new AtomicLong();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final Object evictLock = new Object();
+    
+    /**
+     * 分段锁：同一文件的标记文件、缓存条目和待写回任务一起更新
+     */
+    private final Object[] writeLocks = new Object[64];
+    
+    /**
+     * 分段版本号：写入和删除在分段锁内递增，回源开始后版本变化说明内容已被替换，回源结果不再纳入缓存
+     */
+    private final AtomicLongArray generations = new AtomicLongArray(writeLocks.length);
+    
+    /**
+     * 回源结果因并发写入被丢弃时的最大尝试次数
+     */
+    private static final int MAX_FILL_ATTEMPTS = 3;
+    
+    /**
+     * 后台写入失败时的最大尝试次数和首次重试间隔（之后每次翻倍）
+     */
+    private int writeBackMaxAttempts = 5;
+    private Duration writeBackRetryDelay = Duration.ofSeconds(1);
+    
+    public TieredFileStorage(FileStorage remote, String cachePath, long maxCacheBytes,
+                             EvictionPolicy evictionPolicy, WriteMode writeMode, Executor writeBackExecutor) {
+        if (writeMode == WriteMode.WRITE_BACK && writeBackExecutor == null) {
+            throw new IllegalArgumentException("WRITE_BACK模式需要提供后台写入线程池");
+        }
+        this.remote = remote;
+        this.cacheRoot = Paths.get(cachePath).toAbsolutePath().normalize();
+        this.maxCacheBytes = maxCacheBytes;
+        this.evictionPolicy = evictionPolicy;
+        this.writeMode = writeMode;
+        this.writeBackExecutor = writeBackExecutor;
+        for (int i = 0; i < writeLocks.length; i++) {
+            writeLocks[i] = new Object();
+        }
+        
+        Map<String, String> unsynced;
+        try {
+            Files.createDirectories(cacheRoot);
+            unsynced = loadExistingEntries();
+        } catch (IOException e) {
+            throw new IllegalStateException("初始化本地缓存目录失败: " + cacheRoot, e);
+        }
+        // 上次运行未写入远端的文件重新写回
+        unsynced.forEach(this::recoverWriteBack);
+    }
+    
+    @Override
+    public String upload(MultipartFile file, String path) {
+        StoredFile storedFile = store(file, path);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public String upload(InputStream inputStream, String path, String contentType) {
+        StoredFile storedFile = store(inputStream, path, contentType);
+        return storedFile != null ? storedFile.getUrl() : null;
+    }
+    
+    @Override
+    public StoredFile store(MultipartFile file, String path) {
+        if (file == null || file.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            return store(file.getInputStream(), path, file.getContentType());
+        } catch (Exception e) {
+            log.error("上传文件失败: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    @Override
+    public StoredFile store(InputStream inputStream, String path, String contentType) {
+        if (inputStream == null || StringUtils.isEmpty(path)) {
+            return null;
+        }
+        
+        String key = normalize(path);
+        Path tempPath = null;
+        try {
+            // 先落到本地缓存，同时计算摘要
+            tempPath = createTempFile(key);
+            ChecksumInputStream checksumStream = new ChecksumInputStream(inputStream);
+            Files.copy(checksumStream, tempPath, StandardCopyOption.REPLACE_EXISTING);
+            
+            if (writeMode == WriteMode.WRITE_THROUGH) {
+                StoredFile storedFile;
+                try (InputStream cached = Files.newInputStream(tempPath)) {
+                    storedFile = remote.store(cached, key, contentType);
+                }
+                if (storedFile == null) {
+                    return null;
+                }
+                admit(key, tempPath, false);
+                tempPath = null;
+                evictIfNecessary();
+                return storedFile;
+            }
+            
+            // WRITE_BACK：本地写入完成即返回，远端写入在后台进行；写入完成前该文件不会被淘汰
+            scheduleWriteBack(key, tempPath, contentType);
+            tempPath = null;
+            
+            StoredFile storedFile = new StoredFile();
+            storedFile.setPath(key);
+            storedFile.setUrl(remote.getUrl(key));
+            storedFile.setSize(checksumStream.getCount());
+            storedFile.setContentType(contentType);
+            storedFile.setSha256(checksumStream.getSha256Hex());
+            storedFile.setCrc32c(checksumStream.getCrc32cHex());
+            storedFile.setCreatedAt(LocalDateTime.now());
+            return storedFile;
+            
+        } catch (Exception e) {
+            log.error("上传文件失败: {}", e.getMessage());
+            return null;
+        } finally {
+            deleteQuietly(tempPath);
+        }
+    }
+    
+    @Override
+    public boolean delete(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        
+        String key = normalize(path);
+        // 等待后台写入完成后再删除，避免删除后又被写回
+        awaitWriteBack(key);
+        deleteQuietly(pendingMarker(key));
+        // 先删远端再清缓存：清缓存时递增版本号，删除前开始的回源不会再把旧内容纳入缓存
+        boolean deleted = remote.delete(key);
+        boolean cached = invalidate(key);
+        return deleted || cached;
+    }
+    
+    @Override
+    public String getUrl(String path) {
+        return remote.getUrl(path);
+    }
+    
+    @Override
+    public String getSignedUrl(String path, Duration ttl) {
+        return remote.getSignedUrl(path, ttl);
+    }
+    
+    @Override
+    public boolean exists(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        return entries.containsKey(normalize(path)) || remote.exists(path);
+    }
+    
+    @Override
+    public StoredFile getMetadata(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        // 元数据以远端为准，WRITE_BACK模式下先等待该文件的后台写入完成
+        awaitWriteBack(normalize(path));
+        return remote.getMetadata(path);
+    }
+    
+    @Override
+    public boolean setOwner(String path, String owner) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        awaitWriteBack(normalize(path));
+        return remote.setOwner(path, owner);
+    }
+    
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        // 列表以远端为准，先等待后台写入完成，保证已返回的写入都能列出
+        flush();
+        return remote.list(prefix, startAfter, limit);
+    }
+    
+    @Override
+    public InputStream download(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        Path cachePath = fetch(normalize(path));
+        if (cachePath == null) {
+            return null;
+        }
+        try {
+            return Files.newInputStream(cachePath);
+        } catch (NoSuchFileException e) {
+            // 打开前恰好被淘汰，直接回源
+            return remote.download(path);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取缓存文件失败: " + path, e);
+        }
+    }
+    
+    @Override
+    public long download(String path, OutputStream outputStream) {
+        try (InputStream inputStream = download(path)) {
+            if (inputStream == null) {
+                return -1;
+            }
+            return inputStream.transferTo(outputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取文件失败: " + path, e);
+        }
+    }
+    
+    /**
+     * 等待文件的后台写入完成（写入失败时不抛出异常）
+     */
+    private void awaitWriteBack(String key) {
+        CompletableFuture<Void> pending = pendingWrites.get(key);
+        if (pending != null) {
+            pending.exceptionally(e -> null).join();
+        }
+    }
+    
+    /**
+     * 等待所有后台写入完成
+     */
+    public void flush() {
+        CompletableFuture.allOf(pendingWrites.values().toArray(new CompletableFuture[0]))
+                .exceptionally(e -> null)
+                .join();
+    }
+    
+    @Override
+    public void close() {
+        flush();
+        if (remote instanceof Closeable closeable) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                log.warn("关闭远端存储失败: {}", e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * 设置后台写入失败的重试策略
+     * @param maxAttempts 最大尝试次数（含首次），用尽后文件保持固定，重启后再次写回
+     * @param retryDelay 首次重试间隔，之后每次翻倍
+     */
+    public void setWriteBackRetry(int maxAttempts, Duration retryDelay) {
+        if (maxAttempts <= 0) {
+            throw new IllegalArgumentException("最大尝试次数必须大于0");
+        }
+        this.writeBackMaxAttempts = maxAttempts;
+        this.writeBackRetryDelay = retryDelay;
+    }
+    
+    /**
+     * 尚未写入远端的文件数
+     */
+    public int getPendingWriteCount() {
+        return (int) entries.values().stream().filter(entry -> entry.pinned).count();
+    }
+    
+    /**
+     * 当前缓存占用字节数
+     */
+    public long getCachedBytes() {
+        return cachedBytes.get();
+    }
+    
+    public long getHitCount() {
+        return hits.get();
+    }
+    
+    public long getMissCount() {
+        return misses.get();
+    }
+    
+    /**
+     * 获取本地缓存文件，未命中时回源（单飞：同一文件并发未命中只回源一次）
+     */
+    private Path fetch(String key) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null && Files.exists(entry.path)) {
+            entry.touch(accessClock.incrementAndGet());
+            hits.incrementAndGet();
+            return entry.path;
+        }
+        
+        CompletableFuture<Path> fill = new CompletableFuture<>();
+        CompletableFuture<Path> existing = inflightFills.putIfAbsent(key, fill);
+        if (existing != null) {
+            hits.incrementAndGet();
+            return joinFill(existing);
+        }
+        
+        misses.incrementAndGet();
+        try {
+            fill.complete(fillFromRemote(key));
+        } catch (Throwable e) {
+            fill.completeExceptionally(e);
+        } finally {
+            inflightFills.remove(key, fill);
+        }
+        return joinFill(fill);
+    }
+    
+    /**
+     * 回源读取到临时文件后纳入缓存
+     * 回源期间该文件被写入或删除时丢弃读到的内容：已有新条目时直接使用，否则重新回源
+     */
+    private Path fillFromRemote(String key) throws IOException {
+        for (int attempt = 0; attempt < MAX_FILL_ATTEMPTS; attempt++) {
+            long generation = generations.get(stripe(key));
+            Path tempPath = createTempFile(key);
+            try {
+                long size;
+                try (OutputStream out = Files.newOutputStream(tempPath)) {
+                    size = remote.download(key, out);
+                }
+                if (size < 0) {
+                    return null;
+                }
+                CacheEntry entry = admitFill(key, tempPath, generation);
+                if (entry != null) {
+                    tempPath = null;
+                    evictIfNecessary();
+                    return entry.path;
+                }
+            } finally {
+                deleteQuietly(tempPath);
+            }
+            CacheEntry current = entries.get(key);
+            if (current != null && Files.exists(current.path)) {
+                return current.path;
+            }
+        }
+        throw new IllegalStateException("文件被频繁并发修改，回源读取失败: " + key);
+    }
+    
+    private Path joinFill(CompletableFuture<Path> fill) {
+        try {
+            return fill.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new UncheckedIOException("回源读取失败", cause instanceof IOException io ? io : new IOException(cause));
+        }
+    }
+    
+    /**
+     * 纳入缓存并安排后台写入远端
+     * 标记文件先于缓存文件落盘，条目在纳入时即固定，淘汰不会删除唯一的副本；
+     * 同一文件的写回串行执行，新的写回在前一次结束后才开始
+     */
+    private void scheduleWriteBack(String key, Path tempPath, String contentType) throws IOException {
+        CacheEntry entry;
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        CompletableFuture<Void> previous;
+        synchronized (writeLock(key)) {
+            Files.writeString(pendingMarker(key), contentType != null ? contentType : "");
+            entry = admit(key, tempPath, true);
+            previous = pendingWrites.put(key, done);
+        }
+        evictIfNecessary();
+        startWriteBack(key, entry, contentType, previous, done);
+    }
+    
+    /**
+     * 在前一次写回结束后开始写回，结束时先处理固定和标记再完成done
+     */
+    private void startWriteBack(String key, CacheEntry entry, String contentType,
+                                CompletableFuture<Void> previous, CompletableFuture<Void> done) {
+        CompletableFuture<Void> after = previous != null
+                ? previous.handle((result, e) -> null)
+                : CompletableFuture.completedFuture(null);
+        after.thenCompose(ignored -> writeBack(key, contentType, 1)).whenComplete((result, e) -> {
+            onWriteBackDone(key, entry, done, e);
+            if (e != null) {
+                done.completeExceptionally(e);
+            } else {
+                done.complete(null);
+            }
+        });
+    }
+    
+    /**
+     * 写入远端，失败时按间隔翻倍重试
+     */
+    private CompletableFuture<Void> writeBack(String key, String contentType, int attempt) {
+        Executor executor = attempt == 1 ? writeBackExecutor : CompletableFuture.delayedExecutor(
+                writeBackRetryDelay.toMillis() << (attempt - 2), TimeUnit.MILLISECONDS, writeBackExecutor);
+        return CompletableFuture.runAsync(() -> {
+            try (InputStream in = Files.newInputStream(resolve(key))) {
+                if (remote.store(in, key, contentType) == null) {
+                    throw new IllegalStateException("远端写入失败: " + key);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor).handle((result, e) -> {
+            if (e == null) {
+                return CompletableFuture.<Void>completedFuture(null);
+            }
+            if (attempt >= writeBackMaxAttempts) {
+                return CompletableFuture.<Void>failedFuture(e);
+            }
+            log.warn("后台写入远端失败，第{}次重试: {}", attempt, key);
+            return writeBack(key, contentType, attempt + 1);
+        }).thenCompose(future -> future);
+    }
+    
+    /**
+     * 写回结束：成功时解除固定；只有在没有更新的写回时才删除标记文件
+     * 失败时保持固定和标记，避免唯一的副本被淘汰，重启后再次写回
+     */
+    private void onWriteBackDone(String key, CacheEntry entry, CompletableFuture<Void> done, Throwable e) {
+        if (e == null) {
+            entry.pinned = false;
+        } else {
+            log.error("后台写入远端失败，文件保留在本地缓存: {}", key, e);
+        }
+        synchronized (writeLock(key)) {
+            if (pendingWrites.remove(key, done) && e == null) {
+                deleteQuietly(pendingMarker(key));
+            }
+        }
+        if (e == null) {
+            evictIfNecessary();
+        }
+    }
+    
+    /**
+     * 重新写回上次运行未完成的文件（没有后台线程池时同步写入）
+     */
+    private void recoverWriteBack(String key, String contentType) {
+        CacheEntry entry = entries.get(key);
+        log.info("重新写入上次未同步到远端的文件: {}", key);
+        if (writeBackExecutor != null) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            pendingWrites.put(key, done);
+            startWriteBack(key, entry, contentType, null, done);
+            return;
+        }
+        try (InputStream in = Files.newInputStream(entry.path)) {
+            if (remote.store(in, key, contentType) != null) {
+                entry.pinned = false;
+                deleteQuietly(pendingMarker(key));
+                return;
+            }
+        } catch (IOException e) {
+            log.warn("写入远端失败: {}", e.getMessage());
+        }
+        log.error("写入远端失败，文件保留在本地缓存: {}", key);
+    }
+    
+    private Object writeLock(String key) {
+        return writeLocks[stripe(key)];
+    }
+    
+    private int stripe(String key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % writeLocks.length;
+    }
+    
+    /**
+     * 待写回标记文件路径（与缓存文件同目录）
+     */
+    private Path pendingMarker(String key) {
+        Path cachePath = resolve(key);
+        return cachePath.resolveSibling(PENDING_PREFIX + cachePath.getFileName());
+    }
+    
+    /**
+     * 将临时文件纳入缓存（不触发淘汰，调用方在释放锁后调用evictIfNecessary）
+     * 替换文件与登记条目在同一把分段锁内完成，与淘汰删除文件互斥
+     * @param pinned 是否固定（固定的条目在纳入前即不可淘汰）
+     */
+    private CacheEntry admit(String key, Path tempPath, boolean pinned) throws IOException {
+        Path cachePath = resolve(key);
+        Files.createDirectories(cachePath.getParent());
+        synchronized (writeLock(key)) {
+            generations.incrementAndGet(stripe(key));
+            return replace(key, tempPath, cachePath, pinned);
+        }
+    }
+    
+    /**
+     * 纳入回源读取的内容：回源开始后版本号已变化或已有固定条目（尚未写回的新内容）时放弃，返回null
+     */
+    private CacheEntry admitFill(String key, Path tempPath, long generation) throws IOException {
+        Path cachePath = resolve(key);
+        synchronized (writeLock(key)) {
+            CacheEntry current = entries.get(key);
+            if (generations.get(stripe(key)) != generation || (current != null && current.pinned)) {
+                return null;
+            }
+            return replace(key, tempPath, cachePath, false);
+        }
+    }
+    
+    /**
+     * 替换缓存文件并登记条目，调用方持有分段锁
+     */
+    private CacheEntry replace(String key, Path tempPath, Path cachePath, boolean pinned) throws IOException {
+        try {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempPath, cachePath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        
+        long size = Files.size(cachePath);
+        CacheEntry entry = new CacheEntry(cachePath, size, accessClock.incrementAndGet());
+        entry.pinned = pinned;
+        CacheEntry previous = entries.put(key, entry);
+        cachedBytes.addAndGet(size - (previous != null ? previous.size : 0));
+        return entry;
+    }
+    
+    /**
+     * 移除缓存条目并递增版本号，进行中的回源结果不再纳入缓存
+     */
+    private boolean invalidate(String key) {
+        CacheEntry entry;
+        synchronized (writeLock(key)) {
+            generations.incrementAndGet(stripe(key));
+            entry = entries.remove(key);
+            if (entry == null) {
+                return false;
+            }
+            cachedBytes.addAndGet(-entry.size);
+            deleteQuietly(entry.path);
+        }
+        return true;
+    }
+    
+    /**
+     * 超出容量时批量淘汰到上限的90%
+     * 排序前先对访问时间和次数取快照，避免排序过程中并发访问改变比较结果
+     */
+    private void evictIfNecessary() {
+        if (cachedBytes.get() <= maxCacheBytes) {
+            return;
+        }
+        synchronized (evictLock) {
+            if (cachedBytes.get() <= maxCacheBytes) {
+                return;
+            }
+            List<EvictionCandidate> candidates = new ArrayList<>(entries.size());
+            entries.forEach((key, entry) -> {
+                if (!entry.pinned) {
+                    candidates.add(new EvictionCandidate(key, entry));
+                }
+            });
+            Comparator<EvictionCandidate> order = evictionPolicy == EvictionPolicy.LFU
+                    ? Comparator.<EvictionCandidate>comparingLong(c -> c.hitCount).thenComparingLong(c -> c.lastAccess)
+                    : Comparator.comparingLong(c -> c.lastAccess);
+            candidates.sort(order);
+            
+            long target = (long) (maxCacheBytes * EVICT_TARGET_RATIO);
+            for (EvictionCandidate candidate : candidates) {
+                if (cachedBytes.get() <= target) {
+                    break;
+                }
+                // 取快照后重新写入的条目已被替换，remove不会成功；删除文件与纳入新文件互斥
+                synchronized (writeLock(candidate.key)) {
+                    if (!candidate.entry.pinned && entries.remove(candidate.key, candidate.entry)) {
+                        cachedBytes.addAndGet(-candidate.entry.size);
+                        deleteQuietly(candidate.entry.path);
+                    }
+                }
+            }
+        }
+    }
+    
+    /**
+     * 启动时加载已有缓存文件
+     * @return 有待写回标记的文件（路径 -> 文件类型），这些条目保持固定
+     */
+    private Map<String, String> loadExistingEntries() throws IOException {
+        Map<String, String> unsynced = new HashMap<>();
+        List<Path> markers = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(cacheRoot)) {
+            files.filter(Files::isRegularFile).forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(TEMP_PREFIX)) {
+                    deleteQuietly(file);
+                    return;
+                }
+                if (name.startsWith(PENDING_PREFIX)) {
+                    markers.add(file);
+                    return;
+                }
+                try {
+                    String key = cacheRoot.relativize(file).toString().replace('\\', '/');
+                    long size = Files.size(file);
+                    entries.put(key, new CacheEntry(file, size, accessClock.incrementAndGet()));
+                    cachedBytes.addAndGet(size);
+                } catch (IOException e) {
+                    log.warn("加载缓存文件失败: {}", file);
+                }
+            });
+        }
+        for (Path marker : markers) {
+            Path file = marker.resolveSibling(marker.getFileName().toString().substring(PENDING_PREFIX.length()));
+            String key = cacheRoot.relativize(file).toString().replace('\\', '/');
+            CacheEntry entry = entries.get(key);
+            if (entry == null) {
+                // 标记写入后、文件纳入缓存前中断，上传未成功返回
+                deleteQuietly(marker);
+                continue;
+            }
+            entry.pinned = true;
+            String contentType = Files.readString(marker);
+            unsynced.put(key, contentType.isEmpty() ? null : contentType);
+        }
+        evictIfNecessary();
+        return unsynced;
+    }
+    
+    private Path createTempFile(String key) throws IOException {
+        Path parent = resolve(key).getParent();
+        Files.createDirectories(parent);
+        return Files.createTempFile(parent, TEMP_PREFIX, ".tmp");
+    }
+    
+    private Path resolve(String key) {
+        Path path = cacheRoot.resolve(key).normalize();
+        if (!path.startsWith(cacheRoot)) {
+            throw new IllegalArgumentException("非法的文件路径: " + key);
+        }
+        return path;
+    }
+    
+    private static String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    private static void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.warn("清理缓存文件失败: {}", path);
+        }
+    }
+    
+    /**
+     * 缓存条目
+     */
+    private static class CacheEntry {
+        private final Path path;
+        private final long size;
+        private final AtomicLong hitCount = new AtomicLong();
+        private volatile long lastAccess;
+        
+        /**
+         * 固定的条目不参与淘汰（尚未写入远端）
+         */
+        private volatile boolean pinned;
+        
+        CacheEntry(Path path, long size, long lastAccess) {
+            this.path = path;
+            this.size = size;
+            this.lastAccess = lastAccess;
+        }
+        
+        void touch(long clock) {
+            lastAccess = clock;
+            hitCount.incrementAndGet();
+        }
+    }
+    
+    /**
+     * 淘汰候选（访问次数和时间的快照）
+     */
+    private static class EvictionCandidate {
+        private final String key;
+        private final CacheEntry entry;
+        private final long hitCount;
+        private final long lastAccess;
+        
+        EvictionCandidate(String key, CacheEntry entry) {
+            this.key = key;
+            this.entry = entry;
+            this.hitCount = entry.hitCount.get();
+            this.lastAccess = entry.lastAccess;
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package com.dw.common.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * ZIP打包输出
+ * 将多个存储文件边读边写成ZIP流：后续若干文件在线程池中并行预读到有界缓冲区，按顺序写入，
+ * 不产生临时文件，内存占用与文件大小和数量无关；已压缩格式（图片、Office文档、压缩包等）不再压缩
+ */
+@Slf4j
+public class ZipArchiveWriter {
+    
+    /**
+     * 已压缩格式，按不压缩写入以节省CPU
+     */
+    private static final Set<String> COMPRESSED_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "webp", "bmp",
+            "xlsx", "docx", "pptx", "pdf",
+            "zip", "gz", "rar", "7z", "mp3", "mp4", "mov", "avi"
+    );
+    
+    private static final int CHUNK_SIZE = 64 * 1024;
+    
+    /**
+     * 每个预读文件最多缓冲的分块数
+     */
+    private static final int CHUNKS_PER_ENTRY = 4;
+    
+    private static final Object MISSING = new Object();
+    private static final Object EOF = new Object();
+    
+    private final FileStorage fileStorage;
+    private final Executor executor;
+    private final int parallelism;
+    
+    /**
+     * @param fileStorage 文件存储
+     * @param executor 预读线程池，为null时顺序读取
+     * @param parallelism 同时预读的文件数
+     */
+    public ZipArchiveWriter(FileStorage fileStorage, Executor executor, int parallelism) {
+        this.fileStorage = fileStorage;
+        this.executor = executor;
+        this.parallelism = executor != null ? Math.max(1, parallelism) : 0;
+    }
+    
+    /**
+     * 写出ZIP（输出流不会被关闭）
+     * @param paths 存储路径，不存在的文件会被跳过
+     * @param outputStream 输出流
+     * @return 写入的文件数
+     */
+    public int write(List<String> paths, OutputStream outputStream) throws IOException {
+        ZipOutputStream zip = new ZipOutputStream(outputStream);
+        Thread writer = Thread.currentThread();
+        Deque<Prefetch> window = new ArrayDeque<>();
+        Set<String> usedNames = new HashSet<>();
+        int next = 0;
+        int written = 0;
+        try {
+            while (next < paths.size() && window.size() < parallelism) {
+                window.add(prefetch(paths.get(next++), writer));
+            }
+            while (!window.isEmpty() || next < paths.size()) {
+                Prefetch current = window.isEmpty() ? new Prefetch(paths.get(next++), writer) : window.poll();
+                if (next < paths.size() && window.size() < parallelism) {
+                    window.add(prefetch(paths.get(next++), writer));
+                }
+                if (writeEntry(zip, current, usedNames)) {
+                    written++;
+                }
+            }
+            zip.finish();
+            zip.flush();
+            return written;
+        } finally {
+            window.forEach(Prefetch::cancel);
+        }
+    }
+    
+    private Prefetch prefetch(String path, Thread writer) {
+        Prefetch prefetch = new Prefetch(path, writer);
+        executor.execute(prefetch);
+        return prefetch;
+    }
+    
+    private boolean writeEntry(ZipOutputStream zip, Prefetch prefetch, Set<String> usedNames) throws IOException {
+        try (InputStream inputStream = prefetch.open()) {
+            if (inputStream == null) {
+                log.warn("打包时文件不存在，已跳过: {}", prefetch.path);
+                return false;
+            }
+            
+            String name = uniqueName(entryName(prefetch.path), usedNames);
+            zip.setLevel(isCompressed(name) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+            zip.putNextEntry(new ZipEntry(name));
+            inputStream.transferTo(zip);
+            zip.closeEntry();
+            return true;
+        } finally {
+            prefetch.cancel();
+        }
+    }
+    
+    /**
+     * 取路径最后一段作为条目名，避免目录穿越
+     */
+    private static String entryName(String path) {
+        String name = path.substring(path.lastIndexOf('/') + 1).replace('\\', '_');
+        return name.isEmpty() || ".".equals(name) || "..".equals(name) ? "file" : name;
+    }
+    
+    /**
+     * 同名文件追加序号：a.jpg、a (1).jpg、a (2).jpg
+     */
+    private static String uniqueName(String name, Set<String> usedNames) {
+        if (usedNames.add(name)) {
+            return name;
+        }
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String ext = dot > 0 ? name.substring(dot) : "";
+        for (int i = 1; ; i++) {
+            String candidate = base + " (" + i + ")" + ext;
+            if (usedNames.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+    
+    private static boolean isCompressed(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && COMPRESSED_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+    
+    /**
+     * 单个文件的预读任务
+     * 写入线程轮到该文件时若预读尚未开始，直接在写入线程读取（避免线程池繁忙时互相等待）；
+     * 线程池饱和按CallerRunsPolicy在写入线程执行预读时不认领，否则缓冲区写满后没有消费者，写入线程永久阻塞
+     */
+    private final class Prefetch implements Runnable {
+        
+        private final String path;
+        private final Thread writer;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private final BlockingQueue<Object> chunks = new ArrayBlockingQueue<>(CHUNKS_PER_ENTRY);
+        private volatile boolean cancelled;
+        
+        Prefetch(String path, Thread writer) {
+            this.path = path;
+            this.writer = writer;
+        }
+        
+        @Override
+        public void run() {
+            if (Thread.currentThread() == writer || !claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try (InputStream inputStream = fileStorage.download(path)) {
+                if (inputStream == null) {
+                    put(MISSING);
+                    return;
+                }
+                while (!cancelled) {
+                    byte[] chunk = new byte[CHUNK_SIZE];
+                    int read = inputStream.readNBytes(chunk, 0, CHUNK_SIZE);
+                    if (read > 0 && !put(read < CHUNK_SIZE ? Arrays.copyOf(chunk, read) : chunk)) {
+                        return;
+                    }
+                    if (read < CHUNK_SIZE) {
+                        break;
+                    }
+                }
+                put(EOF);
+            } catch (Throwable e) {
+                put(e);
+            }
+        }
+        
+        /**
+         * 放入缓冲区，缓冲区满时等待写入线程消费（背压），取消后放弃
+         */
+        private boolean put(Object item) {
+            try {
+                while (!cancelled) {
+                    if (chunks.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return false;
+        }
+        
+        /**
+         * 打开文件内容，不存在返回null
+         */
+        InputStream open() throws IOException {
+            if (claimed.compareAndSet(false, true)) {
+                return fileStorage.download(path);
+            }
+            Object first = take();
+            if (first == MISSING) {
+                return null;
+            }
+            return new ChunkInputStream(first);
+        }
+        
+        void cancel() {
+            cancelled = true;
+            chunks.clear();
+        }
+        
+        private Object take() throws IOException {
+            try {
+                return chunks.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("读取文件被中断: " + path);
+            }
+        }
+        
+        /**
+         * 从预读缓冲区读取的输入流
+         */
+        private final class ChunkInputStream extends InputStream {
+            
+            private Object current;
+            private int position;
+            
+            ChunkInputStream(Object first) {
+                this.current = first;
+            }
+            
+            @Override
+            public int read() throws IOException {
+                byte[] one = new byte[1];
+                return read(one, 0, 1) < 0 ? -1 : one[0] & 0xff;
+            }
+            
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (len == 0) {
+                    return 0;
+                }
+                while (true) {
+                    if (current == EOF) {
+                        return -1;
+                    }
+                    if (current instanceof Throwable e) {
+                        throw e instanceof IOException io ? io : new IOException("读取文件失败: " + path, e);
+                    }
+                    byte[] chunk = (byte[]) current;
+                    if (position < chunk.length) {
+                        int n = Math.min(len, chunk.length - position);
+                        System.arraycopy(chunk, position, b, off, n);
+                        position += n;
+                        return n;
+                    }
+                    current = take();
+                    position = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package com.dw.common.storage.image;
+
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePage;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 图片变体（缩略图）服务
+ * 变体保存在文件存储的派生路径下（.variants/原图路径/宽x高.格式），首次访问时生成或上传后在线程池中预生成；
+ * 同一变体的并发请求只生成一次，变体总大小超过预算时按最近最少使用淘汰
+ */
+@Slf4j
+public class ImageVariantService {
+    
+    /**
+     * 变体根目录（以"."开头，不会出现在目录列表中）
+     */
+    public static final String VARIANT_ROOT = ".variants/";
+    
+    /**
+     * 原图最大像素数，防止解压炸弹
+     */
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+    
+    private static final float JPEG_QUALITY = 0.85f;
+    
+    private final FileStorage fileStorage;
+    private final Executor executor;
+    private final long maxVariantBytes;
+    private final List<ImageVariantSpec> eagerSpecs;
+    
+    private final Map<String, CompletableFuture<StoredFile>> inflight = new ConcurrentHashMap<>();
+    /**
+     * 已知变体及大小（访问顺序），用于预算淘汰
+     */
+    private final LinkedHashMap<String, Long> usage = new LinkedHashMap<>(256, 0.75f, true);
+    private long usedBytes;
+    private volatile boolean usageLoaded;
+    
+    /**
+     * 限制同时解码的图片数，避免大图并发解码占满内存
+     */
+    private final Semaphore decodePermits = new Semaphore(Math.max(1, Runtime.getRuntime().availableProcessors()));
+    private final AtomicLong generatedCount = new AtomicLong();
+    
+    /**
+     * @param fileStorage 文件存储
+     * @param executor 预生成线程池，为null时在调用线程生成
+     * @param maxVariantBytes 变体磁盘预算（字节）
+     * @param eagerSpecs 上传后预生成的规格
+     */
+    public ImageVariantService(FileStorage fileStorage, Executor executor, long maxVariantBytes,
+                               List<ImageVariantSpec> eagerSpecs) {
+        this.fileStorage = fileStorage;
+        this.executor = executor;
+        this.maxVariantBytes = maxVariantBytes;
+        this.eagerSpecs = eagerSpecs != null ? eagerSpecs : Collections.emptyList();
+    }
+    
+    /**
+     * 获取变体访问URL，不存在时同步生成
+     * @param path 原图存储路径
+     * @param spec 变体规格
+     */
+    public String getVariantUrl(String path, ImageVariantSpec spec) {
+        try {
+            StoredFile storedFile = getVariant(path, spec, null).join();
+            return storedFile.getUrl();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 在线程池中异步生成变体
+     */
+    public CompletableFuture<StoredFile> getVariantAsync(String path, ImageVariantSpec spec) {
+        return getVariant(path, spec, executor);
+    }
+    
+    /**
+     * 按配置的规格预生成变体（异步，失败只记录日志）
+     */
+    public void generateEagerly(String path) {
+        for (ImageVariantSpec spec : eagerSpecs) {
+            getVariantAsync(path, spec).exceptionally(e -> {
+                log.warn("预生成图片变体失败: {} {}", path, spec, e);
+                return null;
+            });
+        }
+    }
+    
+    /**
+     * 删除原图的所有变体
+     * @return 删除的变体数
+     */
+    public int deleteVariants(String path) {
+        if (StringUtils.isEmpty(path) || !isOriginalPath(normalize(path))) {
+            return 0;
+        }
+        String prefix = VARIANT_ROOT + normalize(path) + "/";
+        List<String> paths = new ArrayList<>();
+        try {
+            String cursor = null;
+            do {
+                StoragePage page = fileStorage.listPage(prefix, cursor, 100);
+                page.getItems().forEach(item -> paths.add(item.getPath()));
+                cursor = page.getNextCursor();
+            } while (cursor != null);
+        } catch (UnsupportedOperationException e) {
+            return 0;
+        }
+        
+        int deleted = 0;
+        for (String variantPath : paths) {
+            if (fileStorage.delete(variantPath)) {
+                deleted++;
+            }
+            forget(variantPath);
+        }
+        return deleted;
+    }
+    
+    /**
+     * 获取变体存储路径
+     * @throws IllegalArgumentException 原图路径含 . 开头的目录或文件名（如 .. 穿越、变体目录本身）时
+     */
+    public static String variantPath(String path, ImageVariantSpec spec) {
+        String normalized = normalize(path);
+        if (!isOriginalPath(normalized)) {
+            throw new IllegalArgumentException("非法的原图路径: " + path);
+        }
+        return VARIANT_ROOT + normalized + "/" + spec.getWidth() + "x" + spec.getHeight()
+                + "." + spec.resolveFormat(getExtension(normalized));
+    }
+    
+    /**
+     * 已生成的变体数（不含命中已有变体）
+     */
+    public long getGeneratedCount() {
+        return generatedCount.get();
+    }
+    
+    /**
+     * 当前变体占用字节数
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+    
+    private CompletableFuture<StoredFile> getVariant(String path, ImageVariantSpec spec, Executor runOn) {
+        if (StringUtils.isEmpty(path) || spec == null) {
+            throw new IllegalArgumentException("原图路径和图片规格不能为空");
+        }
+        
+        ensureUsageLoaded();
+        String derivedPath = variantPath(path, spec);
+        if (touch(derivedPath)) {
+            return CompletableFuture.completedFuture(reference(derivedPath));
+        }
+        
+        CompletableFuture<StoredFile> future = new CompletableFuture<>();
+        CompletableFuture<StoredFile> existing = inflight.putIfAbsent(derivedPath, future);
+        if (existing != null) {
+            return existing;
+        }
+        
+        Runnable task = () -> {
+            try {
+                future.complete(generate(path, spec, derivedPath));
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                inflight.remove(derivedPath, future);
+            }
+        };
+        if (runOn != null) {
+            runOn.execute(task);
+        } else {
+            task.run();
+        }
+        return future;
+    }
+    
+    private StoredFile generate(String path, ImageVariantSpec spec, String derivedPath) {
+        // 其他节点或重启前已生成
+        if (fileStorage.exists(derivedPath)) {
+            record(derivedPath, Math.max(0, fileStorage.size(derivedPath)));
+            return reference(derivedPath);
+        }
+        
+        String format = spec.resolveFormat(getExtension(path));
+        byte[] encoded;
+        try {
+            decodePermits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("生成图片变体被中断", e);
+        }
+        try (InputStream inputStream = fileStorage.download(path)) {
+            if (inputStream == null) {
+                throw new IllegalArgumentException("原图不存在: " + path);
+            }
+            BufferedImage source = decode(inputStream, spec);
+            encoded = encode(resize(source, spec, format), format);
+        } catch (IOException e) {
+            throw new UncheckedIOException("生成图片变体失败: " + path, e);
+        } finally {
+            decodePermits.release();
+        }
+        
+        String contentType = "png".equals(format) ? "image/png" : "image/jpeg";
+        StoredFile storedFile = fileStorage.store(new ByteArrayInputStream(encoded), derivedPath, contentType);
+        if (storedFile == null) {
+            throw new RuntimeException("图片变体保存失败: " + derivedPath);
+        }
+        generatedCount.incrementAndGet();
+        record(derivedPath, encoded.length);
+        log.debug("图片变体生成成功: {} ({}字节)", derivedPath, encoded.length);
+        return storedFile;
+    }
+    
+    /**
+     * 解码原图，原图远大于目标尺寸时按行列抽样读取，减少解码耗时和内存
+     */
+    private BufferedImage decode(InputStream inputStream, ImageVariantSpec spec) throws IOException {
+        try (ImageInputStream imageInput = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInput != null ? ImageIO.getImageReaders(imageInput) : null;
+            if (readers == null || !readers.hasNext()) {
+                throw new IllegalArgumentException("不支持的图片格式");
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInput, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > MAX_SOURCE_PIXELS) {
+                    throw new IllegalArgumentException("图片尺寸过大: " + width + "x" + height);
+                }
+                
+                // 保留至少2倍目标尺寸，后续再平滑缩放，兼顾速度和质量
+                int subsampling = Math.max(1, Math.min(width / (spec.getWidth() * 2), height / (spec.getHeight() * 2)));
+                ImageReadParam param = reader.getDefaultReadParam();
+                if (subsampling > 1) {
+                    param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+    
+    /**
+     * 等比缩放到规格范围内（不放大），大幅缩小时逐级减半以保证质量
+     */
+    private BufferedImage resize(BufferedImage source, ImageVariantSpec spec, String format) {
+        double scale = Math.min(1.0, Math.min((double) spec.getWidth() / source.getWidth(),
+                (double) spec.getHeight() / source.getHeight()));
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int imageType = "png".equals(format) ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, imageType);
+            Graphics2D g = next.createGraphics();
+            try {
+                if (imageType == BufferedImage.TYPE_INT_RGB) {
+                    // JPEG不支持透明，透明区域填充白色
+                    g.setColor(Color.WHITE);
+                    g.fillRect(0, 0, width, height);
+                }
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+    
+    private byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 * 1024);
+        if ("png".equals(format)) {
+            ImageIO.write(image, "png", out);
+            return out.toByteArray();
+        }
+        
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream imageOutput = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(JPEG_QUALITY);
+            writer.setOutput(imageOutput);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+    
+    private StoredFile reference(String derivedPath) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(derivedPath);
+        storedFile.setUrl(fileStorage.getUrl(derivedPath));
+        return storedFile;
+    }
+    
+    /**
+     * 首次使用时加载已有变体的占用情况，存储不支持列表时只统计之后生成的变体
+     */
+    private void ensureUsageLoaded() {
+        if (usageLoaded) {
+            return;
+        }
+        synchronized (this) {
+            if (usageLoaded) {
+                return;
+            }
+            try {
+                String cursor = null;
+                do {
+                    StoragePage page = fileStorage.listPage(VARIANT_ROOT, cursor, 1000);
+                    for (StoredFile item : page.getItems()) {
+                        usage.put(item.getPath(), item.getSize());
+                        usedBytes += item.getSize();
+                    }
+                    cursor = page.getNextCursor();
+                } while (cursor != null);
+            } catch (UnsupportedOperationException e) {
+                log.debug("存储不支持列表查询，变体预算只统计新生成的变体");
+            } catch (RuntimeException e) {
+                log.warn("加载已有图片变体失败: {}", e.getMessage());
+            }
+            usageLoaded = true;
+        }
+        evictIfNecessary();
+    }
+    
+    private synchronized boolean touch(String derivedPath) {
+        return usage.get(derivedPath) != null;
+    }
+    
+    private void record(String derivedPath, long size) {
+        synchronized (this) {
+            Long previous = usage.put(derivedPath, size);
+            usedBytes += size - (previous != null ? previous : 0);
+        }
+        evictIfNecessary();
+    }
+    
+    private synchronized void forget(String derivedPath) {
+        Long size = usage.remove(derivedPath);
+        if (size != null) {
+            usedBytes -= size;
+        }
+    }
+    
+    /**
+     * 超出预算时淘汰最久未访问的变体（至少保留最近一个）
+     */
+    private void evictIfNecessary() {
+        List<String> victims = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> iterator = usage.entrySet().iterator();
+            while (usedBytes > maxVariantBytes && usage.size() > 1 && iterator.hasNext()) {
+                Map.Entry<String, Long> eldest = iterator.next();
+                usedBytes -= eldest.getValue();
+                victims.add(eldest.getKey());
+                iterator.remove();
+            }
+        }
+        for (String victim : victims) {
+            fileStorage.delete(victim);
+        }
+    }
+    
+    private static String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    /**
+     * 原图路径不能含 . 开头的段，否则派生路径可能越出变体目录
+     */
+    private static boolean isOriginalPath(String normalized) {
+        for (String segment : normalized.split("[/\\\\]")) {
+            if (segment.isEmpty() || segment.startsWith(".")) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static String getExtension(String path) {
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        return dot > slash ? path.substring(dot + 1) : "";
+    }
+}
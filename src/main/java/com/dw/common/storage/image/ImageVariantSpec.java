@@ -0,0 +1,111 @@
+package com.dw.common.storage.image;
+
+import com.dw.common.utils.StringUtils;
+
+import java.util.Objects;
+
+/**
+ * 图片变体规格
+ * 按等比缩放到宽高范围内（不放大），格式为空时按原图决定：png/gif输出png以保留透明度，其余输出jpg
+ */
+public class ImageVariantSpec {
+    
+    private static final int MAX_DIMENSION = 4096;
+    
+    private final int width;
+    private final int height;
+    private final String format;
+    
+    public ImageVariantSpec(int width, int height, String format) {
+        if (width <= 0 || height <= 0 || width > MAX_DIMENSION || height > MAX_DIMENSION) {
+            throw new IllegalArgumentException("图片宽高必须在1到" + MAX_DIMENSION + "之间");
+        }
+        String normalizedFormat = StringUtils.isEmpty(format) ? null : format.toLowerCase();
+        if ("jpeg".equals(normalizedFormat)) {
+            normalizedFormat = "jpg";
+        }
+        if (normalizedFormat != null && !"jpg".equals(normalizedFormat) && !"png".equals(normalizedFormat)) {
+            throw new IllegalArgumentException("不支持的图片输出格式: " + format);
+        }
+        this.width = width;
+        this.height = height;
+        this.format = normalizedFormat;
+    }
+    
+    public static ImageVariantSpec of(int width, int height) {
+        return new ImageVariantSpec(width, height, null);
+    }
+    
+    /**
+     * 解析规格字符串，如 200x200 或 800x600.png
+     */
+    public static ImageVariantSpec parse(String value) {
+        if (StringUtils.isEmpty(value)) {
+            throw new IllegalArgumentException("图片规格不能为空");
+        }
+        String size = value.trim().toLowerCase();
+        String format = null;
+        int dot = size.indexOf('.');
+        if (dot > 0) {
+            format = size.substring(dot + 1);
+            size = size.substring(0, dot);
+        }
+        int x = size.indexOf('x');
+        if (x <= 0) {
+            throw new IllegalArgumentException("图片规格格式错误: " + value);
+        }
+        int width;
+        int height;
+        try {
+            width = Integer.parseInt(size.substring(0, x));
+            height = Integer.parseInt(size.substring(x + 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("图片规格格式错误: " + value);
+        }
+        return new ImageVariantSpec(width, height, format);
+    }
+    
+    /**
+     * 根据原图扩展名确定输出格式
+     */
+    public String resolveFormat(String sourceExtension) {
+        if (format != null) {
+            return format;
+        }
+        String ext = sourceExtension != null ? sourceExtension.toLowerCase() : "";
+        return "png".equals(ext) || "gif".equals(ext) ? "png" : "jpg";
+    }
+    
+    public int getWidth() {
+        return width;
+    }
+    
+    public int getHeight() {
+        return height;
+    }
+    
+    public String getFormat() {
+        return format;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ImageVariantSpec that)) {
+            return false;
+        }
+        return width == that.width && height == that.height && Objects.equals(format, that.format);
+    }
+    
+    @Override
+    public int hashCode() {
+        return Objects.hash(width, height, format);
+    }
+    
+    @Override
+    public String toString() {
+        return width + "x" + height + (format != null ? "." + format : "");
+    }
+}
@@ -0,0 +1,55 @@
+package com.dw.common.storage.lifecycle;
+
+import com.dw.common.utils.StringUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * 生命周期规则：路径前缀下创建时间超过保留期的文件自动删除
+ * 前缀可以是分类目录（如 files/ 或 exports/），也可以是更细的目录（如 files/2024/）
+ */
+public class LifecycleRule {
+    
+    private final String prefix;
+    private final Duration retention;
+    
+    /**
+     * @param prefix 路径前缀，不能为空（避免误删全部文件）
+     * @param retention 保留时长
+     */
+    public LifecycleRule(String prefix, Duration retention) {
+        if (StringUtils.isEmpty(prefix) || "/".equals(prefix)) {
+            throw new IllegalArgumentException("生命周期规则的路径前缀不能为空");
+        }
+        if (retention == null || retention.isNegative() || retention.isZero()) {
+            throw new IllegalArgumentException("生命周期规则的保留时长必须大于0");
+        }
+        this.prefix = prefix.startsWith("/") ? prefix.substring(1) : prefix;
+        this.retention = retention;
+    }
+    
+    public static LifecycleRule ofDays(String prefix, int days) {
+        return new LifecycleRule(prefix, Duration.ofDays(days));
+    }
+    
+    /**
+     * 文件是否已过期，创建时间未知的文件不过期
+     */
+    public boolean isExpired(LocalDateTime createdAt, LocalDateTime now) {
+        return createdAt != null && createdAt.plus(retention).isBefore(now);
+    }
+    
+    public String getPrefix() {
+        return prefix;
+    }
+    
+    public Duration getRetention() {
+        return retention;
+    }
+    
+    @Override
+    public String toString() {
+        return prefix + " -> " + retention;
+    }
+}
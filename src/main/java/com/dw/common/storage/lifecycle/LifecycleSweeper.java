@@ -0,0 +1,248 @@
+package com.dw.common.storage.lifecycle;
+
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePage;
+import com.dw.common.storage.StoredFile;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * 生命周期清理
+ * 按规则分批扫描过期文件并删除：每轮只扫描有限数量的文件，删除按速率限流，
+ * 扫描位置（游标）持久化，重启后从上次位置继续；任务在独立的低优先级调度线程中执行，
+ * 限流等待不占用文件线程池，上一轮未结束时下一轮顺延
+ */
+@Slf4j
+public class LifecycleSweeper implements Closeable {
+    
+    private final FileStorage fileStorage;
+    private final List<LifecycleRule> rules;
+    private final int batchSize;
+    private final long deleteIntervalNanos;
+    private final Path cursorPath;
+    
+    /**
+     * 各规则的扫描游标（规则前缀 -> 上次扫描到的路径）
+     */
+    private final Map<String, String> cursors = new ConcurrentHashMap<>();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong scannedCount = new AtomicLong();
+    private final AtomicLong deletedCount = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+    private Consumer<StoredFile> expiredListener;
+    private int ruleIndex;
+    private long nextDeleteTime;
+    
+    /**
+     * @param fileStorage 文件存储
+     * @param rules 生命周期规则
+     * @param batchSize 每轮扫描的文件数
+     * @param maxDeletesPerSecond 每秒最多删除的文件数，0表示不限制
+     * @param cursorPath 游标文件，为null时游标只保存在内存中
+     */
+    public LifecycleSweeper(FileStorage fileStorage, List<LifecycleRule> rules, int batchSize,
+                            int maxDeletesPerSecond, Path cursorPath) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("每轮扫描数量必须大于0");
+        }
+        this.fileStorage = fileStorage;
+        this.rules = List.copyOf(rules);
+        this.batchSize = batchSize;
+        this.deleteIntervalNanos = maxDeletesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxDeletesPerSecond : 0;
+        this.cursorPath = cursorPath;
+        loadCursors();
+    }
+    
+    /**
+     * 设置文件过期删除后的回调（如扣减存储用量、删除缩略图）
+     */
+    public void setExpiredListener(Consumer<StoredFile> expiredListener) {
+        this.expiredListener = expiredListener;
+    }
+    
+    /**
+     * 开始定期清理
+     * @param intervalSeconds 每轮间隔（秒）
+     */
+    public synchronized void start(long intervalSeconds) {
+        if (scheduler != null || rules.isEmpty()) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "dw-lifecycle");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::sweepQuietly, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+        log.info("文件生命周期清理已启动: {}", rules);
+    }
+    
+    /**
+     * 执行一轮清理：从当前规则的游标处扫描最多batchSize个文件
+     * 规则轮流处理，一个规则扫描完一遍后游标归零、切换到下一个规则
+     * @return 本轮删除的文件数，已有清理在进行时返回-1
+     */
+    public int sweepOnce() {
+        if (rules.isEmpty() || !running.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            LifecycleRule rule = rules.get(ruleIndex % rules.size());
+            String cursor = cursors.get(rule.getPrefix());
+            StoragePage page = fileStorage.listPage(rule.getPrefix(), cursor, batchSize);
+            
+            LocalDateTime now = LocalDateTime.now();
+            int deleted = 0;
+            for (StoredFile file : page.getItems()) {
+                scannedCount.incrementAndGet();
+                if (rule.isExpired(file.getCreatedAt(), now) && delete(file)) {
+                    deleted++;
+                }
+            }
+            
+            if (page.getNextCursor() != null) {
+                cursors.put(rule.getPrefix(), page.getNextCursor());
+            } else {
+                cursors.remove(rule.getPrefix());
+                ruleIndex = (ruleIndex + 1) % rules.size();
+            }
+            saveCursors();
+            if (deleted > 0) {
+                log.info("生命周期清理 [{}] 删除过期文件{}个", rule.getPrefix(), deleted);
+            }
+            return deleted;
+        } finally {
+            running.set(false);
+        }
+    }
+    
+    public long getScannedCount() {
+        return scannedCount.get();
+    }
+    
+    public long getDeletedCount() {
+        return deletedCount.get();
+    }
+    
+    /**
+     * 获取规则的当前游标，未在扫描中返回null
+     */
+    public String getCursor(String prefix) {
+        return cursors.get(prefix);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+    
+    private void sweepQuietly() {
+        try {
+            sweepOnce();
+        } catch (Exception e) {
+            log.warn("生命周期清理失败: {}", e.getMessage());
+        }
+    }
+    
+    private boolean delete(StoredFile file) {
+        throttle();
+        if (expiredListener != null && file.getOwner() == null) {
+            // 目录遍历的结果不含归属者和原始大小，删除前从元数据读取，供回调扣减用量
+            StoredFile metadata = fileStorage.getMetadata(file.getPath());
+            if (metadata != null) {
+                file = metadata;
+            }
+        }
+        if (!fileStorage.delete(file.getPath())) {
+            return false;
+        }
+        deletedCount.incrementAndGet();
+        if (expiredListener != null) {
+            try {
+                expiredListener.accept(file);
+            } catch (Exception e) {
+                log.warn("过期文件删除回调失败: {}", e.getMessage());
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 按速率限流，删除过快时在当前线程等待
+     */
+    private void throttle() {
+        if (deleteIntervalNanos <= 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (nextDeleteTime > now) {
+            LockSupport.parkNanos(nextDeleteTime - now);
+            now = nextDeleteTime;
+        }
+        nextDeleteTime = now + deleteIntervalNanos;
+    }
+    
+    private void loadCursors() {
+        if (cursorPath == null) {
+            return;
+        }
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(cursorPath, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (NoSuchFileException e) {
+            return;
+        } catch (IOException e) {
+            log.warn("读取生命周期清理游标失败: {}", e.getMessage());
+            return;
+        }
+        for (LifecycleRule rule : rules) {
+            String cursor = props.getProperty(rule.getPrefix());
+            if (cursor != null) {
+                cursors.put(rule.getPrefix(), cursor);
+            }
+        }
+    }
+    
+    private void saveCursors() {
+        if (cursorPath == null) {
+            return;
+        }
+        Properties props = new Properties();
+        props.putAll(cursors);
+        try {
+            Files.createDirectories(cursorPath.getParent());
+            Path tempPath = Files.createTempFile(cursorPath.getParent(), ".lifecycle-", ".tmp");
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                props.store(writer, null);
+            }
+            Files.move(tempPath, cursorPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("保存生命周期清理游标失败: {}", e.getMessage());
+        }
+    }
+}
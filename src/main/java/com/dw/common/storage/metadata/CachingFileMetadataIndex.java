@@ -0,0 +1,139 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.cache.ShardedLruCache;
+import com.dw.common.storage.StoredFile;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 带缓存的文件元数据索引
+ * 在底层索引（如数据库）前加一层分段LRU缓存，同时缓存"不存在"的结果，避免重复查询；
+ * "不存在"的结果只缓存 negativeTtl，以便看到其他实例写入的记录。
+ * 写入与删除按分段递增版本号，加载期间同一分段有写入时，加载结果不会覆盖写入的结果
+ */
+public class CachingFileMetadataIndex implements FileMetadataIndex {
+    
+    /**
+     * 默认的"不存在"结果缓存时长
+     */
+    public static final Duration DEFAULT_NEGATIVE_TTL = Duration.ofSeconds(30);
+    
+    /**
+     * 版本号分段数
+     */
+    private static final int STRIPES = 64;
+    
+    private final FileMetadataIndex delegate;
+    private final ShardedLruCache<String, Entry> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final long negativeTtlNanos;
+    
+    public CachingFileMetadataIndex(FileMetadataIndex delegate, int capacity) {
+        this(delegate, capacity, DEFAULT_NEGATIVE_TTL);
+    }
+    
+    /**
+     * @param delegate 底层索引
+     * @param capacity 缓存容量（含"不存在"的结果）
+     * @param negativeTtl "不存在"结果的缓存时长
+     */
+    public CachingFileMetadataIndex(FileMetadataIndex delegate, int capacity, Duration negativeTtl) {
+        if (negativeTtl == null || negativeTtl.isNegative()) {
+            throw new IllegalArgumentException("缓存时长不能为负数");
+        }
+        this.delegate = delegate;
+        this.cache = new ShardedLruCache<>(capacity);
+        this.negativeTtlNanos = negativeTtl.toNanos();
+    }
+    
+    @Override
+    public void put(StoredFile storedFile) {
+        delegate.put(storedFile);
+        write(normalize(storedFile.getPath()), new Entry(storedFile, 0));
+    }
+    
+    @Override
+    public StoredFile get(String path) {
+        if (path == null) {
+            return null;
+        }
+        String key = normalize(path);
+        Entry entry = cache.get(key);
+        if (entry != null && !entry.isExpired()) {
+            return entry.file;
+        }
+        
+        int stripe = stripe(key);
+        long version = versions.get(stripe);
+        StoredFile loaded = delegate.get(key);
+        Entry fresh = new Entry(loaded, loaded != null ? 0 : System.nanoTime() + negativeTtlNanos);
+        // 加载期间有写入时保留写入的结果
+        Entry cached = cache.compute(key, (k, current) -> versions.get(stripe) == version ? fresh : current);
+        return cached != null ? cached.file : loaded;
+    }
+    
+    @Override
+    public boolean remove(String path) {
+        boolean removed = delegate.remove(path);
+        if (path != null) {
+            write(normalize(path), new Entry(null, System.nanoTime() + negativeTtlNanos));
+        }
+        return removed;
+    }
+    
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        // 列表查询直接走底层索引，结果集不适合放入点查缓存
+        return delegate.list(prefix, startAfter, limit);
+    }
+    
+    /**
+     * 清空缓存
+     */
+    public void invalidateAll() {
+        cache.clear();
+    }
+    
+    /**
+     * 底层索引写入后更新缓存，同时递增版本号使进行中的加载结果失效
+     */
+    private void write(String key, Entry entry) {
+        cache.compute(key, (k, current) -> {
+            versions.incrementAndGet(stripe(k));
+            return entry;
+        });
+    }
+    
+    private static int stripe(String key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+    
+    private String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    /**
+     * 缓存项，file为null表示不存在
+     */
+    private static final class Entry {
+        
+        private final StoredFile file;
+        
+        /**
+         * "不存在"结果的过期时间（System.nanoTime）
+         */
+        private final long expiresAt;
+        
+        Entry(StoredFile file, long expiresAt) {
+            this.file = file;
+            this.expiresAt = expiresAt;
+        }
+        
+        boolean isExpired() {
+            return file == null && System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
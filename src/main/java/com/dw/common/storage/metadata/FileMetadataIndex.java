@@ -0,0 +1,50 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.storage.StoredFile;
+
+import java.util.List;
+
+/**
+ * 文件元数据索引接口
+ * 用于在不访问文件系统的情况下回答存在性、大小和列表查询
+ */
+public interface FileMetadataIndex {
+    
+    /**
+     * 写入（或覆盖）文件元数据
+     * @param storedFile 文件元数据
+     */
+    void put(StoredFile storedFile);
+    
+    /**
+     * 获取文件元数据
+     * @param path 文件路径
+     * @return 文件元数据，不存在返回null
+     */
+    StoredFile get(String path);
+    
+    /**
+     * 删除文件元数据
+     * @param path 文件路径
+     * @return 是否存在并删除
+     */
+    boolean remove(String path);
+    
+    /**
+     * 按路径前缀分页列出文件（按路径升序）
+     * @param prefix 路径前缀，为空时列出全部
+     * @param startAfter 起始游标（不包含），为空时从头开始
+     * @param limit 最大返回条数
+     * @return 文件元数据列表
+     */
+    List<StoredFile> list(String prefix, String startAfter, int limit);
+    
+    /**
+     * 判断文件是否存在
+     * @param path 文件路径
+     * @return 是否存在
+     */
+    default boolean contains(String path) {
+        return get(path) != null;
+    }
+}
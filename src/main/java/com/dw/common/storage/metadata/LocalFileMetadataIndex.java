@@ -0,0 +1,254 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.storage.StoredFile;
+import com.dw.common.utils.JsonUtils;
+import com.dw.common.utils.StringUtils;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 本地文件元数据索引
+ * 以追加写日志文件持久化，启动时回放到内存有序表；查询完全在内存中完成，不访问文件系统。
+ * 内存有序表是索引本身（列表查询依赖完整数据），不做淘汰；日志在启动时和运行中超过阈值时压缩
+ */
+@Slf4j
+public class LocalFileMetadataIndex implements FileMetadataIndex, Closeable {
+    
+    private static final String OP_PUT = "P";
+    private static final String OP_REMOVE = "D";
+    
+    /**
+     * 日志中的无效记录超过有效记录的倍数时触发压缩
+     */
+    private static final int COMPACT_RATIO = 2;
+    
+    /**
+     * 运行中触发压缩的最小日志记录数，避免小索引频繁重写日志
+     */
+    public static final int DEFAULT_COMPACT_THRESHOLD = 10_000;
+    
+    private final Path journalPath;
+    private final int compactThreshold;
+    private final ConcurrentSkipListMap<String, StoredFile> entries = new ConcurrentSkipListMap<>();
+    private final Object writeLock = new Object();
+    private BufferedWriter writer;
+    private long journalRecords;
+    
+    public LocalFileMetadataIndex(Path journalPath) {
+        this(journalPath, DEFAULT_COMPACT_THRESHOLD);
+    }
+    
+    /**
+     * @param journalPath 日志文件
+     * @param compactThreshold 运行中日志记录数达到该值且无效记录超过有效记录的2倍时压缩
+     */
+    public LocalFileMetadataIndex(Path journalPath, int compactThreshold) {
+        if (compactThreshold <= 0) {
+            throw new IllegalArgumentException("压缩阈值必须大于0");
+        }
+        this.journalPath = journalPath;
+        this.compactThreshold = compactThreshold;
+        try {
+            Files.createDirectories(journalPath.getParent());
+            replay();
+            if (journalRecords > (long) COMPACT_RATIO * Math.max(entries.size(), 1)) {
+                compact();
+            }
+            this.writer = openWriter();
+        } catch (IOException e) {
+            throw new IllegalStateException("初始化文件元数据索引失败: " + journalPath, e);
+        }
+        log.info("文件元数据索引加载完成: {}，共{}条", journalPath, entries.size());
+    }
+    
+    @Override
+    public void put(StoredFile storedFile) {
+        if (storedFile == null || StringUtils.isEmpty(storedFile.getPath())) {
+            return;
+        }
+        String key = normalize(storedFile.getPath());
+        synchronized (writeLock) {
+            append(new JournalRecord(OP_PUT, key, storedFile));
+            entries.put(key, storedFile);
+            compactIfNeeded();
+        }
+    }
+    
+    @Override
+    public StoredFile get(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        return entries.get(normalize(path));
+    }
+    
+    @Override
+    public boolean remove(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        String key = normalize(path);
+        synchronized (writeLock) {
+            if (!entries.containsKey(key)) {
+                return false;
+            }
+            append(new JournalRecord(OP_REMOVE, key, null));
+            entries.remove(key);
+            compactIfNeeded();
+            return true;
+        }
+    }
+    
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        String from = StringUtils.isEmpty(prefix) ? "" : normalize(prefix);
+        ConcurrentNavigableMap<String, StoredFile> view = StringUtils.isEmpty(startAfter) || normalize(startAfter).compareTo(from) < 0
+                ? entries.tailMap(from, true)
+                : entries.tailMap(normalize(startAfter), false);
+                
+        List<StoredFile> result = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<String, StoredFile> entry : view.entrySet()) {
+            if (!entry.getKey().startsWith(from) || result.size() >= limit) {
+                break;
+            }
+            result.add(entry.getValue());
+        }
+        return result;
+    }
+    
+    /**
+     * 索引条数
+     */
+    public int size() {
+        return entries.size();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            if (writer != null) {
+                writer.close();
+                writer = null;
+            }
+        }
+    }
+    
+    /**
+     * 回放日志文件
+     */
+    private void replay() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(journalPath, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                journalRecords++;
+                JournalRecord record = JsonUtils.fromJson(line, JournalRecord.class);
+                if (record == null || record.getPath() == null) {
+                    // 进程异常退出可能留下不完整的最后一行，跳过即可
+                    log.warn("跳过无法解析的索引记录: {}", line);
+                    continue;
+                }
+                if (OP_PUT.equals(record.getOp()) && record.getFile() != null) {
+                    entries.put(record.getPath(), record.getFile());
+                } else if (OP_REMOVE.equals(record.getOp())) {
+                    entries.remove(record.getPath());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            // 首次启动没有日志文件
+        }
+    }
+    
+    /**
+     * 压缩日志：只保留当前有效记录
+     */
+    private void compact() throws IOException {
+        Path tempPath = journalPath.resolveSibling(journalPath.getFileName() + ".compact");
+        try (BufferedWriter out = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, StoredFile> entry : entries.entrySet()) {
+                out.write(JsonUtils.toJson(new JournalRecord(OP_PUT, entry.getKey(), entry.getValue())));
+                out.newLine();
+            }
+        }
+        Files.move(tempPath, journalPath, StandardCopyOption.REPLACE_EXISTING);
+        log.info("文件元数据索引压缩完成: {} -> {}条", journalRecords, entries.size());
+        journalRecords = entries.size();
+    }
+    
+    /**
+     * 运行中压缩日志（调用方持有写锁）：压缩失败时保留原日志继续追加
+     */
+    private void compactIfNeeded() {
+        if (journalRecords < compactThreshold || journalRecords <= (long) COMPACT_RATIO * Math.max(entries.size(), 1)) {
+            return;
+        }
+        try {
+            writer.close();
+            compact();
+        } catch (IOException e) {
+            log.warn("文件元数据索引压缩失败: {}", e.getMessage());
+        }
+        try {
+            writer = openWriter();
+        } catch (IOException e) {
+            throw new IllegalStateException("重新打开文件元数据索引失败: " + journalPath, e);
+        }
+    }
+    
+    private BufferedWriter openWriter() throws IOException {
+        return Files.newBufferedWriter(journalPath, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+    
+    private void append(JournalRecord record) {
+        try {
+            writer.write(JsonUtils.toJson(record));
+            writer.newLine();
+            writer.flush();
+            journalRecords++;
+        } catch (IOException e) {
+            throw new IllegalStateException("写入文件元数据索引失败", e);
+        }
+    }
+    
+    private String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+    
+    /**
+     * 日志记录
+     */
+    @Data
+    static class JournalRecord {
+        private String op;
+        private String path;
+        private StoredFile file;
+        
+        JournalRecord() {
+        }
+        
+        JournalRecord(String op, String path, StoredFile file) {
+            this.op = op;
+            this.path = path;
+            this.file = file;
+        }
+    }
+}
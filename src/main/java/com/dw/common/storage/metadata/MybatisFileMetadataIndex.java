@@ -0,0 +1,112 @@
+package com.dw.common.storage.metadata;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.dw.common.entity.SysFileMetadata;
+import com.dw.common.mapper.SysFileMetadataMapper;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.utils.StringUtils;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 基于MyBatis-Plus数据表的文件元数据索引
+ * 适用于多实例共享元数据的场景，通常与{@link CachingFileMetadataIndex}配合使用；
+ * 表结构见 db/sys_file_metadata.sql（path唯一），写入为按路径upsert，删除为物理删除
+ */
+public class MybatisFileMetadataIndex implements FileMetadataIndex {
+    
+    private final SysFileMetadataMapper mapper;
+    
+    public MybatisFileMetadataIndex(SysFileMetadataMapper mapper) {
+        this.mapper = mapper;
+    }
+    
+    @Override
+    public void put(StoredFile storedFile) {
+        if (storedFile == null || StringUtils.isEmpty(storedFile.getPath())) {
+            return;
+        }
+        // 同一路径重复上传时覆盖原记录
+        mapper.upsert(toEntity(storedFile));
+    }
+    
+    @Override
+    public StoredFile get(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+        LambdaQueryWrapper<SysFileMetadata> queryWrapper = Wrappers.<SysFileMetadata>lambdaQuery()
+                .eq(SysFileMetadata::getPath, normalize(path))
+                .last("limit 1");
+        SysFileMetadata entity = mapper.selectOne(queryWrapper);
+        return entity != null ? toStoredFile(entity) : null;
+    }
+    
+    @Override
+    public boolean remove(String path) {
+        if (StringUtils.isEmpty(path)) {
+            return false;
+        }
+        return mapper.deleteByPath(normalize(path)) > 0;
+    }
+    
+    @Override
+    public List<StoredFile> list(String prefix, String startAfter, int limit) {
+        LambdaQueryWrapper<SysFileMetadata> queryWrapper = Wrappers.<SysFileMetadata>lambdaQuery()
+                .apply(StringUtils.isNotEmpty(prefix), "path LIKE {0} ESCAPE '!'",
+                        prefix == null ? null : escapeLike(normalize(prefix)) + "%")
+                .gt(StringUtils.isNotEmpty(startAfter), SysFileMetadata::getPath, startAfter == null ? null : normalize(startAfter))
+                .orderByAsc(SysFileMetadata::getPath)
+                .last("limit " + Math.max(limit, 0));
+        return mapper.selectList(queryWrapper).stream()
+                .map(this::toStoredFile)
+                .collect(Collectors.toList());
+    }
+    
+    private SysFileMetadata toEntity(StoredFile storedFile) {
+        SysFileMetadata entity = new SysFileMetadata();
+        entity.setPath(normalize(storedFile.getPath()));
+        entity.setUrl(storedFile.getUrl());
+        entity.setSize(storedFile.getSize());
+        entity.setContentType(storedFile.getContentType());
+        entity.setSha256(storedFile.getSha256());
+        entity.setCrc32c(storedFile.getCrc32c());
+        entity.setOwner(storedFile.getOwner());
+        entity.setCreateTime(storedFile.getCreatedAt());
+        return entity;
+    }
+    
+    private StoredFile toStoredFile(SysFileMetadata entity) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(entity.getPath());
+        storedFile.setUrl(entity.getUrl());
+        storedFile.setSize(entity.getSize() != null ? entity.getSize() : 0L);
+        storedFile.setContentType(entity.getContentType());
+        storedFile.setSha256(entity.getSha256());
+        storedFile.setCrc32c(entity.getCrc32c());
+        storedFile.setOwner(entity.getOwner());
+        storedFile.setCreatedAt(entity.getCreateTime());
+        return storedFile;
+    }
+    
+    /**
+     * 转义LIKE通配符，前缀中的 _ 和 % 按字面匹配
+     */
+    static String escapeLike(String value) {
+        StringBuilder sb = new StringBuilder(value.length() + 8);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '!' || c == '_' || c == '%') {
+                sb.append('!');
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+    
+    private String normalize(String path) {
+        return path.startsWith("/") ? path.substring(1) : path;
+    }
+}
@@ -0,0 +1,282 @@
+package com.dw.common.storage.quota;
+
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePage;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.utils.StringUtils;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 存储用量统计与配额
+ * 按分类和归属者增量维护字节数和文件数（LongAdder分段计数，高并发上传时无锁竞争），
+ * 上传前的配额检查只读取内存计数，时间复杂度O(1)；计数定期快照到本地文件，重启后恢复。
+ * 快照之间异常退出会丢失最近的增量，可调用rebuild从存储重新统计
+ */
+@Slf4j
+public class StorageAccounting implements Closeable {
+    
+    private static final String CATEGORY_PREFIX = "category.";
+    private static final String OWNER_PREFIX = "owner.";
+    private static final String BYTES_SUFFIX = ".bytes";
+    private static final String FILES_SUFFIX = ".files";
+    
+    private final Path snapshotPath;
+    private final Map<String, Long> categoryQuota;
+    private final long ownerQuota;
+    private final ConcurrentHashMap<String, Counter> categories = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Counter> owners = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    
+    /**
+     * @param snapshotPath 快照文件路径
+     * @param categoryQuota 分类配额（字节），未配置的分类不限制，可为null
+     * @param ownerQuota 每个归属者的配额（字节），0表示不限制
+     * @param flushIntervalSeconds 快照间隔（秒），0表示只在关闭时快照
+     */
+    public StorageAccounting(Path snapshotPath, Map<String, Long> categoryQuota, long ownerQuota,
+                             long flushIntervalSeconds) {
+        this.snapshotPath = snapshotPath;
+        this.categoryQuota = categoryQuota != null ? Map.copyOf(categoryQuota) : Map.of();
+        this.ownerQuota = ownerQuota;
+        try {
+            Files.createDirectories(snapshotPath.getParent());
+            load();
+        } catch (IOException e) {
+            throw new IllegalStateException("加载存储用量快照失败: " + snapshotPath, e);
+        }
+        
+        if (flushIntervalSeconds > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "dw-storage-accounting");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalSeconds, flushIntervalSeconds,
+                    TimeUnit.SECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+    
+    /**
+     * 预占用量：先计入再检查配额，超出时回滚并抛出异常（并发上传不会因检查与计入之间的间隙超出配额）
+     * @param category 分类
+     * @param owner 归属者，为空时只统计分类
+     * @param bytes 字节数
+     */
+    public void reserve(String category, String owner, long bytes) {
+        Counter categoryCounter = counter(categories, category);
+        Counter ownerCounter = StringUtils.isEmpty(owner) ? null : counter(owners, owner);
+        
+        categoryCounter.add(bytes, 1);
+        if (ownerCounter != null) {
+            ownerCounter.add(bytes, 1);
+        }
+        dirty.set(true);
+        
+        Long limit = categoryQuota.get(category);
+        if (limit != null && limit > 0 && categoryCounter.bytes.sum() > limit) {
+            release(category, owner, bytes);
+            throw new IllegalArgumentException("分类存储空间不足: " + category);
+        }
+        if (ownerCounter != null && ownerQuota > 0 && ownerCounter.bytes.sum() > ownerQuota) {
+            release(category, owner, bytes);
+            throw new IllegalArgumentException("个人存储空间不足");
+        }
+    }
+    
+    /**
+     * 释放用量（文件删除或上传失败时调用）
+     */
+    public void release(String category, String owner, long bytes) {
+        counter(categories, category).add(-bytes, -1);
+        if (StringUtils.isNotEmpty(owner)) {
+            counter(owners, owner).add(-bytes, -1);
+        }
+        dirty.set(true);
+    }
+    
+    /**
+     * 调整已计入文件的字节数（流式上传时上传前大小未知）
+     */
+    public void adjustBytes(String category, String owner, long delta) {
+        counter(categories, category).add(delta, 0);
+        if (StringUtils.isNotEmpty(owner)) {
+            counter(owners, owner).add(delta, 0);
+        }
+        dirty.set(true);
+    }
+    
+    /**
+     * 获取分类用量
+     */
+    public StorageUsage getCategoryUsage(String category) {
+        Counter counter = category != null ? categories.get(category) : null;
+        return counter != null ? counter.toUsage() : new StorageUsage();
+    }
+    
+    /**
+     * 获取归属者用量
+     */
+    public StorageUsage getOwnerUsage(String owner) {
+        Counter counter = owner != null ? owners.get(owner) : null;
+        return counter != null ? counter.toUsage() : new StorageUsage();
+    }
+    
+    /**
+     * 获取所有分类用量（按分类名排序）
+     */
+    public Map<String, StorageUsage> getCategoryUsages() {
+        Map<String, StorageUsage> usages = new TreeMap<>();
+        categories.forEach((category, counter) -> usages.put(category, counter.toUsage()));
+        return usages;
+    }
+    
+    /**
+     * 从存储重新统计分类用量（分页遍历全部文件，归属者信息无法从存储恢复，保持不变）
+     * 用于首次启用或快照丢失后校正，统计期间的上传和删除可能不被计入
+     */
+    public void rebuild(FileStorage fileStorage, int pageSize) {
+        Map<String, StorageUsage> rebuilt = new TreeMap<>();
+        String cursor = null;
+        do {
+            StoragePage page = fileStorage.listPage(null, cursor, pageSize);
+            for (StoredFile file : page.getItems()) {
+                StorageUsage usage = rebuilt.computeIfAbsent(categoryOf(file.getPath()), k -> new StorageUsage());
+                usage.setBytes(usage.getBytes() + file.getSize());
+                usage.setFiles(usage.getFiles() + 1);
+            }
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+        
+        categories.clear();
+        rebuilt.forEach((category, usage) -> counter(categories, category).add(usage.getBytes(), usage.getFiles()));
+        dirty.set(true);
+        flushQuietly();
+        log.info("存储用量重新统计完成: {}", rebuilt);
+    }
+    
+    /**
+     * 写入快照（用量无变化时跳过）
+     */
+    public synchronized void flush() throws IOException {
+        if (!dirty.getAndSet(false)) {
+            return;
+        }
+        Properties props = new Properties();
+        categories.forEach((category, counter) -> counter.store(props, CATEGORY_PREFIX + category));
+        owners.forEach((owner, counter) -> counter.store(props, OWNER_PREFIX + owner));
+        
+        // 先写临时文件再替换，避免写入中途退出导致快照损坏
+        Path tempPath = Files.createTempFile(snapshotPath.getParent(), ".usage-", ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8)) {
+                props.store(writer, null);
+            }
+            Files.move(tempPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            dirty.set(true);
+            Files.deleteIfExists(tempPath);
+            throw e;
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flushQuietly();
+    }
+    
+    /**
+     * 路径的第一级目录作为分类
+     */
+    public static String categoryOf(String path) {
+        String normalized = path.startsWith("/") ? path.substring(1) : path;
+        int slash = normalized.indexOf('/');
+        return slash > 0 ? normalized.substring(0, slash) : "";
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("保存存储用量快照失败: {}", e.getMessage());
+        }
+    }
+    
+    private void load() throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(snapshotPath, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        for (String key : props.stringPropertyNames()) {
+            boolean isBytes = key.endsWith(BYTES_SUFFIX);
+            if (!isBytes && !key.endsWith(FILES_SUFFIX)) {
+                continue;
+            }
+            String name = key.substring(0, key.length() - (isBytes ? BYTES_SUFFIX : FILES_SUFFIX).length());
+            long value = Long.parseLong(props.getProperty(key));
+            Counter counter;
+            if (name.startsWith(CATEGORY_PREFIX)) {
+                counter = counter(categories, name.substring(CATEGORY_PREFIX.length()));
+            } else if (name.startsWith(OWNER_PREFIX)) {
+                counter = counter(owners, name.substring(OWNER_PREFIX.length()));
+            } else {
+                continue;
+            }
+            counter.add(isBytes ? value : 0, isBytes ? 0 : value);
+        }
+        log.info("存储用量快照加载完成: {}个分类，{}个归属者", categories.size(), owners.size());
+    }
+    
+    private static Counter counter(ConcurrentHashMap<String, Counter> counters, String key) {
+        return counters.computeIfAbsent(key != null ? key : "", k -> new Counter());
+    }
+    
+    /**
+     * 分段计数器
+     */
+    private static class Counter {
+        
+        private final LongAdder bytes = new LongAdder();
+        private final LongAdder files = new LongAdder();
+        
+        void add(long deltaBytes, long deltaFiles) {
+            bytes.add(deltaBytes);
+            files.add(deltaFiles);
+        }
+        
+        StorageUsage toUsage() {
+            return new StorageUsage(bytes.sum(), files.sum());
+        }
+        
+        void store(Properties props, String name) {
+            props.setProperty(name + BYTES_SUFFIX, String.valueOf(bytes.sum()));
+            props.setProperty(name + FILES_SUFFIX, String.valueOf(files.sum()));
+        }
+    }
+}
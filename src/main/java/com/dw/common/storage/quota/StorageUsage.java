@@ -0,0 +1,24 @@
+package com.dw.common.storage.quota;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 存储用量
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageUsage {
+    
+    /**
+     * 占用字节数
+     */
+    private long bytes;
+    
+    /**
+     * 文件数
+     */
+    private long files;
+}
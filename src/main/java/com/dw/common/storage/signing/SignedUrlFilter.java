@@ -0,0 +1,101 @@
+package com.dw.common.storage.signing;
+
+import com.dw.common.result.DWResult;
+import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.utils.JsonUtils;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * 文件访问签名校验过滤器
+ * 位于静态资源处理之前，只校验URL前缀下受保护目录的请求，校验过程无状态；
+ * 存储内部文件（.meta 元数据等）的请求直接返回404
+ */
+@Slf4j
+public class SignedUrlFilter extends OncePerRequestFilter {
+    
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+    
+    private final UrlSigner urlSigner;
+    private final String urlPrefix;
+    private final List<String> protectedPrefixes;
+    
+    /**
+     * @param urlSigner URL签名
+     * @param urlPrefix 文件访问URL前缀，如 /files
+     * @param protectedPrefixes 需要签名访问的路径前缀，为空时URL前缀下全部需要签名
+     */
+    public SignedUrlFilter(UrlSigner urlSigner, String urlPrefix, List<String> protectedPrefixes) {
+        this.urlSigner = urlSigner;
+        this.urlPrefix = urlPrefix.endsWith("/") ? urlPrefix : urlPrefix + "/";
+        this.protectedPrefixes = protectedPrefixes != null
+                ? protectedPrefixes.stream().map(p -> p.startsWith("/") ? p.substring(1) : p).toList()
+                : List.of();
+    }
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = getStoragePath(request);
+        return path == null || !LocalFileStorage.isInternalPath(path) && !isProtected(path);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String path = getStoragePath(request);
+        if (LocalFileStorage.isInternalPath(path)) {
+            writeError(response, HttpServletResponse.SC_NOT_FOUND, "文件不存在");
+            return;
+        }
+        if (urlSigner.verify(path, request.getParameter(UrlSigner.PARAM_EXPIRES),
+                request.getParameter(UrlSigner.PARAM_SIGNATURE))) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        log.debug("文件访问签名无效或已过期: {}", path);
+        writeError(response, HttpServletResponse.SC_FORBIDDEN, "文件访问链接无效或已过期");
+    }
+    
+    private void writeError(HttpServletResponse response, int status, String message) throws IOException {
+        response.setStatus(status);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write(JsonUtils.toJson(DWResult.fail(status, message)));
+    }
+    
+    /**
+     * 获取请求对应的存储路径，不在URL前缀下时返回null
+     */
+    private String getStoragePath(HttpServletRequest request) {
+        String requestPath = URL_PATH_HELPER.getPathWithinApplication(request);
+        if (!requestPath.startsWith(urlPrefix)) {
+            return null;
+        }
+        return requestPath.substring(urlPrefix.length());
+    }
+    
+    /**
+     * 是否需要签名访问，未配置受保护前缀时全部需要
+     */
+    private boolean isProtected(String path) {
+        if (protectedPrefixes.isEmpty()) {
+            return true;
+        }
+        for (String prefix : protectedPrefixes) {
+            if (path.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package com.dw.common.storage.signing;
+
+import com.dw.common.utils.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+
+/**
+ * 文件访问URL签名
+ * 对 路径+过期时间 计算HmacSHA256签名，校验时只做本地计算和常量时间比较，不依赖会话或数据库
+ * 密钥只初始化一次，Mac实例按线程缓存复用
+ */
+public class UrlSigner {
+    
+    public static final String PARAM_EXPIRES = "expires";
+    public static final String PARAM_SIGNATURE = "signature";
+    
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    
+    private final SecretKeySpec key;
+    private final Duration defaultTtl;
+    private final Clock clock;
+    private final ThreadLocal<Mac> macs;
+    
+    public UrlSigner(String secret, Duration defaultTtl) {
+        this(secret, defaultTtl, Clock.systemUTC());
+    }
+    
+    /**
+     * @param secret 签名密钥，不少于16个字符
+     * @param defaultTtl 默认有效期
+     * @param clock 时钟
+     */
+    public UrlSigner(String secret, Duration defaultTtl, Clock clock) {
+        if (StringUtils.isEmpty(secret) || secret.length() < 16) {
+            throw new IllegalArgumentException("URL签名密钥不能少于16个字符");
+        }
+        if (defaultTtl == null || defaultTtl.isNegative() || defaultTtl.isZero()) {
+            throw new IllegalArgumentException("URL签名有效期必须大于0");
+        }
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.defaultTtl = defaultTtl;
+        this.clock = clock;
+        this.macs = ThreadLocal.withInitial(this::createMac);
+    }
+    
+    /**
+     * 生成签名查询参数，使用默认有效期
+     */
+    public String sign(String path) {
+        return sign(path, defaultTtl);
+    }
+    
+    /**
+     * 生成签名查询参数：expires=过期时间戳（秒）&signature=签名
+     * @param path 文件路径（不含URL前缀）
+     * @param ttl 有效期
+     */
+    public String sign(String path, Duration ttl) {
+        Duration effectiveTtl = ttl != null ? ttl : defaultTtl;
+        long expires = clock.instant().plus(effectiveTtl).getEpochSecond();
+        return PARAM_EXPIRES + "=" + expires + "&" + PARAM_SIGNATURE + "=" + ENCODER.encodeToString(hmac(path, expires));
+    }
+    
+    /**
+     * 校验签名，参数缺失、格式错误、已过期或签名不符时返回false
+     */
+    public boolean verify(String path, String expires, String signature) {
+        if (path == null || StringUtils.isEmpty(expires) || StringUtils.isEmpty(signature)) {
+            return false;
+        }
+        long expiresAt;
+        byte[] actual;
+        try {
+            expiresAt = Long.parseLong(expires);
+            actual = DECODER.decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        if (clock.instant().getEpochSecond() > expiresAt) {
+            return false;
+        }
+        return MessageDigest.isEqual(hmac(path, expiresAt), actual);
+    }
+    
+    public Duration getDefaultTtl() {
+        return defaultTtl;
+    }
+    
+    private byte[] hmac(String path, long expires) {
+        String normalized = path.startsWith("/") ? path.substring(1) : path;
+        Mac mac = macs.get();
+        return mac.doFinal((normalized + "\n" + expires).getBytes(StandardCharsets.UTF_8));
+    }
+    
+    private Mac createMac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("初始化URL签名失败", e);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.dw.common.storage.validation;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * 上传文件校验
+ * 按分类限制文件大小，并根据文件头魔数校验内容与扩展名是否一致。
+ * 内容校验在上传流中进行：只预读文件头少量字节，大小在读取过程中累计，不额外读取或缓冲整个文件
+ */
+public class UploadValidator {
+    
+    /**
+     * 默认最大文件大小（10MB）
+     */
+    public static final long DEFAULT_MAX_SIZE = 10 * 1024 * 1024;
+    
+    /**
+     * 默认校验规则：所有分类10MB，校验文件内容
+     */
+    public static final UploadValidator DEFAULT = new UploadValidator(DEFAULT_MAX_SIZE, null, true);
+    
+    /**
+     * 识别文件类型需要的文件头字节数
+     */
+    static final int HEAD_SIZE = 16;
+    
+    /**
+     * 扩展名对应的文件头特征，未列出的扩展名不校验内容
+     */
+    private static final Map<String, Predicate<byte[]>> SIGNATURES = new HashMap<>();
+    
+    /**
+     * 纯文本扩展名，内容中不能出现NUL字节
+     */
+    private static final Set<String> TEXT_EXTENSIONS = Set.of("txt", "csv", "md", "json", "xml", "log");
+    
+    static {
+        Predicate<byte[]> jpg = head -> startsWith(head, 0, 0xFF, 0xD8, 0xFF);
+        Predicate<byte[]> zip = head -> startsWith(head, 0, 'P', 'K', 0x03, 0x04);
+        Predicate<byte[]> ole = head -> startsWith(head, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1);
+        SIGNATURES.put("jpg", jpg);
+        SIGNATURES.put("jpeg", jpg);
+        SIGNATURES.put("png", head -> startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A));
+        SIGNATURES.put("gif", head -> startsWith(head, 0, 'G', 'I', 'F', '8', '7', 'a')
+                || startsWith(head, 0, 'G', 'I', 'F', '8', '9', 'a'));
+        SIGNATURES.put("bmp", head -> startsWith(head, 0, 'B', 'M'));
+        SIGNATURES.put("webp", head -> startsWith(head, 0, 'R', 'I', 'F', 'F')
+                && startsWith(head, 8, 'W', 'E', 'B', 'P'));
+        SIGNATURES.put("pdf", head -> startsWith(head, 0, '%', 'P', 'D', 'F', '-'));
+        // Office 2007+ 格式为zip压缩包，97-2003 格式为OLE复合文档
+        SIGNATURES.put("docx", zip);
+        SIGNATURES.put("xlsx", zip);
+        SIGNATURES.put("pptx", zip);
+        SIGNATURES.put("zip", zip);
+        SIGNATURES.put("doc", ole);
+        SIGNATURES.put("xls", ole);
+        SIGNATURES.put("ppt", ole);
+    }
+    
+    private final long maxSize;
+    private final Map<String, Long> categoryMaxSize;
+    private final boolean sniffContent;
+    
+    /**
+     * @param maxSize 默认最大文件大小（字节）
+     * @param categoryMaxSize 按分类（images、documents、files）覆盖的最大文件大小，可为null
+     * @param sniffContent 是否校验文件内容与扩展名一致
+     */
+    public UploadValidator(long maxSize, Map<String, Long> categoryMaxSize, boolean sniffContent) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("最大文件大小必须大于0");
+        }
+        this.maxSize = maxSize;
+        this.categoryMaxSize = categoryMaxSize != null ? Map.copyOf(categoryMaxSize) : Map.of();
+        this.sniffContent = sniffContent;
+    }
+    
+    /**
+     * 获取分类的最大文件大小
+     */
+    public long getMaxSize(String category) {
+        Long size = category != null ? categoryMaxSize.get(category) : null;
+        return size != null && size > 0 ? size : maxSize;
+    }
+    
+    /**
+     * 校验声明的文件大小（不读取文件）
+     */
+    public void checkSize(String category, long size) {
+        long limit = getMaxSize(category);
+        if (size > limit) {
+            throw new IllegalArgumentException(sizeMessage(limit));
+        }
+    }
+    
+    /**
+     * 包装上传文件，读取内容时进行流式校验
+     * @param file 上传文件
+     * @param category 分类
+     * @param extension 文件扩展名
+     */
+    public ValidatingMultipartFile wrap(MultipartFile file, String category, String extension) {
+        return new ValidatingMultipartFile(file, this, category, extension);
+    }
+    
+    /**
+     * 包装输入流，读取时进行流式校验
+     */
+    public ValidatingInputStream wrap(InputStream inputStream, String category, String extension) {
+        return new ValidatingInputStream(inputStream, this, getMaxSize(category), extension);
+    }
+    
+    /**
+     * 根据文件头校验内容
+     * @param extension 文件扩展名
+     * @param head 文件头（最多HEAD_SIZE字节，文件较小时更短）
+     * @return 校验失败原因，通过返回null
+     */
+    String checkContent(String extension, byte[] head) {
+        if (!sniffContent || extension == null) {
+            return null;
+        }
+        String ext = extension.toLowerCase(Locale.ROOT);
+        Predicate<byte[]> signature = SIGNATURES.get(ext);
+        if (signature != null) {
+            return signature.test(head) ? null : "文件内容与类型不符: " + extension;
+        }
+        if (TEXT_EXTENSIONS.contains(ext)) {
+            for (byte b : head) {
+                if (b == 0) {
+                    return "文件内容与类型不符: " + extension;
+                }
+            }
+        }
+        return null;
+    }
+    
+    static String sizeMessage(long limit) {
+        return "文件大小不能超过" + formatSize(limit);
+    }
+    
+    private static String formatSize(long bytes) {
+        if (bytes % (1024 * 1024) == 0) {
+            return bytes / (1024 * 1024) + "MB";
+        }
+        if (bytes % 1024 == 0) {
+            return bytes / 1024 + "KB";
+        }
+        return bytes + "B";
+    }
+    
+    private static boolean startsWith(byte[] head, int offset, int... expected) {
+        if (head.length < offset + expected.length) {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if ((head[offset + i] & 0xFF) != expected[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
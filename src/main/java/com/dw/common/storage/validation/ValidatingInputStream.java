@@ -0,0 +1,105 @@
+package com.dw.common.storage.validation;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+
+/**
+ * 边读边校验的输入流
+ * 第一次读取时预读文件头校验类型（预读的字节推回流中，不影响后续读取），
+ * 读取过程中累计字节数，超过上限立即中断，存储实现随之放弃写入
+ */
+public class ValidatingInputStream extends FilterInputStream {
+    
+    private final UploadValidator validator;
+    private final long maxSize;
+    private final String extension;
+    private long count;
+    private boolean headChecked;
+    private volatile String rejection;
+    
+    ValidatingInputStream(InputStream inputStream, UploadValidator validator, long maxSize, String extension) {
+        super(new PushbackInputStream(inputStream, UploadValidator.HEAD_SIZE));
+        this.validator = validator;
+        this.maxSize = maxSize;
+        this.extension = extension;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        checkHead();
+        int b = super.read();
+        if (b >= 0) {
+            count(1);
+        }
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        checkHead();
+        int read = super.read(b, off, len);
+        if (read > 0) {
+            count(read);
+        }
+        return read;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        checkHead();
+        long skipped = super.skip(n);
+        count(skipped);
+        return skipped;
+    }
+    
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+    
+    /**
+     * 已读取的字节数
+     */
+    public long getCount() {
+        return count;
+    }
+    
+    /**
+     * 校验失败原因，未失败返回null
+     */
+    public String getRejection() {
+        return rejection;
+    }
+    
+    private void checkHead() throws IOException {
+        if (rejection != null) {
+            // 校验失败后不再允许继续读取
+            throw new IOException(rejection);
+        }
+        if (headChecked) {
+            return;
+        }
+        headChecked = true;
+        PushbackInputStream pushback = (PushbackInputStream) in;
+        byte[] head = pushback.readNBytes(UploadValidator.HEAD_SIZE);
+        pushback.unread(head);
+        String error = validator.checkContent(extension, head);
+        if (error != null) {
+            reject(error);
+        }
+    }
+    
+    private void count(long n) throws IOException {
+        count += n;
+        if (count > maxSize) {
+            reject(UploadValidator.sizeMessage(maxSize));
+        }
+    }
+    
+    private void reject(String message) throws IOException {
+        rejection = message;
+        throw new IOException(message);
+    }
+}
@@ -0,0 +1,83 @@
+package com.dw.common.storage.validation;
+
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * 读取内容时进行流式校验的上传文件
+ * 存储实现无需感知校验：校验失败时读取抛出IOException，按上传失败处理，失败原因通过getRejection获取
+ */
+public class ValidatingMultipartFile implements MultipartFile {
+    
+    private final MultipartFile delegate;
+    private final UploadValidator validator;
+    private final String category;
+    private final String extension;
+    private volatile ValidatingInputStream lastStream;
+    
+    ValidatingMultipartFile(MultipartFile delegate, UploadValidator validator, String category, String extension) {
+        this.delegate = delegate;
+        this.validator = validator;
+        this.category = category;
+        this.extension = extension;
+    }
+    
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+    
+    @Override
+    public String getOriginalFilename() {
+        return delegate.getOriginalFilename();
+    }
+    
+    @Override
+    public String getContentType() {
+        return delegate.getContentType();
+    }
+    
+    @Override
+    public boolean isEmpty() {
+        return delegate.isEmpty();
+    }
+    
+    @Override
+    public long getSize() {
+        return delegate.getSize();
+    }
+    
+    @Override
+    public byte[] getBytes() throws IOException {
+        try (InputStream inputStream = getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+    
+    @Override
+    public InputStream getInputStream() throws IOException {
+        ValidatingInputStream inputStream = validator.wrap(delegate.getInputStream(), category, extension);
+        lastStream = inputStream;
+        return inputStream;
+    }
+    
+    @Override
+    public void transferTo(File dest) throws IOException {
+        try (InputStream inputStream = getInputStream()) {
+            Files.copy(inputStream, dest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    
+    /**
+     * 校验失败原因，未读取或校验通过返回null
+     */
+    public String getRejection() {
+        ValidatingInputStream inputStream = lastStream;
+        return inputStream != null ? inputStream.getRejection() : null;
+    }
+}
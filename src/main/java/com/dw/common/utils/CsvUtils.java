@@ -0,0 +1,257 @@
+package com.dw.common.utils;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.ExcelReader;
+import com.alibaba.excel.ExcelWriter;
+import com.alibaba.excel.enums.CellDataTypeEnum;
+import com.alibaba.excel.metadata.data.WriteCellData;
+import com.alibaba.excel.read.metadata.holder.csv.CsvReadWorkbookHolder;
+import com.alibaba.excel.support.ExcelTypeEnum;
+import com.alibaba.excel.write.handler.CellWriteHandler;
+import com.alibaba.excel.write.handler.context.CellWriteHandlerContext;
+import com.alibaba.excel.write.metadata.WriteSheet;
+import com.dw.common.excel.CsvFormat;
+import com.dw.common.excel.CsvReader;
+import com.dw.common.excel.CsvWriter;
+import com.dw.common.excel.ExcelColumnMapping;
+import com.dw.common.excel.ExcelImportListener;
+import com.dw.common.excel.ExcelImportResult;
+import com.dw.common.excel.ExcelPageSource;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * CSV/TSV工具类
+ * 导入导出与 {@link ExcelUtils} 使用相同的实体映射、校验和 {@link ExcelImportResult}：
+ * 实体类使用 @ExcelColumn 声明列时，由 {@link CsvReader}/{@link CsvWriter} 直接在字节流上解析和写出，
+ * 不经过EasyExcel的单元格模型；仅使用 @ExcelProperty 的实体类交给EasyExcel的CSV读写（TSV导出不支持）
+ */
+@Slf4j
+public class CsvUtils {
+    
+    private static final int DETECT_BYTES = 64 * 1024;
+    
+    /**
+     * 导入CSV/TSV
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param format 格式
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importCsv(InputStream inputStream, Class<T> clazz, CsvFormat format) {
+        return importCsv(inputStream, clazz, format, new ExcelImportListener<>());
+    }
+    
+    /**
+     * 流式导入CSV/TSV：校验通过的数据按批交给接收方，结果中不保存数据
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param format 格式
+     * @param batchSize 每批条数
+     * @param sink 批量数据接收方，抛出异常时导入中止
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importCsv(InputStream inputStream, Class<T> clazz, CsvFormat format,
+                                                     int batchSize, Consumer<List<T>> sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("数据接收方不能为空");
+        }
+        return importCsv(inputStream, clazz, format, new ExcelImportListener<>(batchSize, sink));
+    }
+    
+    /**
+     * 使用指定的监听器导入CSV/TSV，编码按内容识别（BOM或合法UTF-8时为UTF-8，否则为GB18030）
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param format 格式
+     * @param listener 导入监听器
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importCsv(InputStream inputStream, Class<T> clazz, CsvFormat format,
+                                                     ExcelImportListener<T> listener) {
+        try {
+            if (ExcelColumnMapping.supports(clazz)) {
+                read(new CsvReader(inputStream, format, null), ExcelColumnMapping.of(clazz), listener);
+            } else {
+                readWithEasyExcel(inputStream, clazz, format, listener);
+            }
+            
+            return listener.getResult();
+            
+        } catch (Exception e) {
+            listener.getResult().close();
+            log.error("导入CSV失败", e);
+            throw new RuntimeException("导入CSV失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 首个非空行为表头，按表头名绑定列；转换失败的行记为错误，其余交给监听器校验
+     */
+    private static <T> void read(CsvReader csvReader, ExcelColumnMapping<T> mapping,
+                                 ExcelImportListener<T> listener) throws IOException {
+        if (!csvReader.next()) {
+            listener.finish();
+            return;
+        }
+        ExcelColumnMapping.RowReader<T> rowReader = mapping.reader(csvReader.toMap());
+        while (csvReader.next()) {
+            int rowNum = (int) csvReader.getRowNum();
+            T row;
+            try {
+                row = rowReader.read(csvReader::get);
+            } catch (ExcelColumnMapping.ConvertException e) {
+                listener.rejectRow(rowNum, e.getErrors());
+                continue;
+            }
+            listener.accept(row, rowNum);
+        }
+        listener.finish();
+    }
+    
+    private static <T> void readWithEasyExcel(InputStream inputStream, Class<T> clazz, CsvFormat format,
+                                              ExcelImportListener<T> listener) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(inputStream, DETECT_BYTES);
+        buffered.mark(DETECT_BYTES);
+        byte[] head = buffered.readNBytes(DETECT_BYTES);
+        buffered.reset();
+        Charset charset;
+        if (head.length >= 3 && (head[0] & 0xFF) == 0xEF && (head[1] & 0xFF) == 0xBB && (head[2] & 0xFF) == 0xBF) {
+            buffered.skipNBytes(3);
+            charset = StandardCharsets.UTF_8;
+        } else {
+            charset = CsvReader.detectCharset(head, 0, head.length);
+        }
+        try (ExcelReader excelReader = EasyExcel.read(buffered, clazz, listener)
+                .excelType(ExcelTypeEnum.CSV)
+                .charset(charset)
+                .build()) {
+            ((CsvReadWorkbookHolder) excelReader.analysisContext().readWorkbookHolder())
+                    .setCsvFormat(format == CsvFormat.TSV ? CSVFormat.TDF : CSVFormat.DEFAULT);
+            excelReader.read(EasyExcel.readSheet(0).build());
+        }
+    }
+    
+    /**
+     * 导出CSV/TSV到响应流
+     * @param response HTTP响应
+     * @param data 数据列表
+     * @param clazz 实体类
+     * @param fileName 文件名（不含扩展名）
+     * @param format 格式
+     */
+    public static <T> void exportCsv(HttpServletResponse response, List<T> data, Class<T> clazz, String fileName,
+                                     CsvFormat format) {
+        exportCsvByPage(response, clazz, fileName, ExcelPageSource.once(() -> data), format);
+    }
+    
+    /**
+     * 分页导出CSV/TSV到响应流：逐页取数、逐页写出，CSV没有行数上限，写出的字节立即发送给客户端
+     * @param response HTTP响应
+     * @param clazz 实体类
+     * @param fileName 文件名（不含扩展名）
+     * @param source 分页数据源，导出结束后关闭
+     * @param format 格式
+     * @return 导出行数
+     */
+    public static <T> long exportCsvByPage(HttpServletResponse response, Class<T> clazz, String fileName,
+                                           ExcelPageSource<T> source, CsvFormat format) {
+        try {
+            response.setContentType(format.getContentType());
+            response.setCharacterEncoding("utf-8");
+            fileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+            response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + format.getExtension());
+            
+            return writeCsv(response.getOutputStream(), clazz, source, format);
+            
+        } catch (IOException e) {
+            log.error("导出CSV失败", e);
+            throw new RuntimeException("导出CSV失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 分页写入CSV/TSV到输出流（UTF-8带BOM）
+     * @param outputStream 输出流（不关闭）
+     * @param clazz 实体类
+     * @param source 分页数据源，写入结束后关闭
+     * @param format 格式
+     * @return 写入行数
+     */
+    public static <T> long writeCsv(OutputStream outputStream, Class<T> clazz, ExcelPageSource<T> source,
+                                    CsvFormat format) throws IOException {
+        if (!ExcelColumnMapping.supports(clazz)) {
+            return writeWithEasyExcel(outputStream, clazz, source, format);
+        }
+        ExcelColumnMapping<T> mapping = ExcelColumnMapping.of(clazz);
+        long total = 0;
+        try (source; CsvWriter csvWriter = new CsvWriter(outputStream, format)) {
+            csvWriter.writeRow(mapping.head().stream().map(header -> header.get(0)).toList());
+            List<T> page;
+            while ((page = source.nextPage()) != null && !page.isEmpty()) {
+                for (T item : page) {
+                    csvWriter.writeRow(mapping.toRow(item));
+                }
+                csvWriter.flush();
+                total += page.size();
+            }
+        }
+        log.info("导出CSV完成，共{}行", total);
+        return total;
+    }
+    
+    private static <T> long writeWithEasyExcel(OutputStream outputStream, Class<T> clazz, ExcelPageSource<T> source,
+                                               CsvFormat format) {
+        if (format != CsvFormat.CSV) {
+            throw new IllegalArgumentException("TSV导出需要实体类使用@ExcelColumn声明列");
+        }
+        long total = 0;
+        try (source; ExcelWriter excelWriter = EasyExcel.write(outputStream, clazz)
+                .excelType(ExcelTypeEnum.CSV)
+                .withBom(true)
+                .autoCloseStream(false)
+                .registerWriteHandler(FormulaNeutralizingHandler.INSTANCE)
+                .build()) {
+            WriteSheet writeSheet = EasyExcel.writerSheet(0).build();
+            List<T> page;
+            boolean written = false;
+            while ((page = source.nextPage()) != null && !page.isEmpty()) {
+                excelWriter.write(page, writeSheet);
+                written = true;
+                total += page.size();
+            }
+            if (!written) {
+                excelWriter.write(List.of(), writeSheet);
+            }
+        }
+        log.info("导出CSV完成，共{}行", total);
+        return total;
+    }
+    
+    /**
+     * EasyExcel导出CSV时与 {@link CsvWriter} 一致地处理公式文本
+     */
+    private static final class FormulaNeutralizingHandler implements CellWriteHandler {
+        
+        private static final FormulaNeutralizingHandler INSTANCE = new FormulaNeutralizingHandler();
+        
+        @Override
+        public void afterCellDataConverted(CellWriteHandlerContext context) {
+            WriteCellData<?> cellData = context.getFirstCellData();
+            if (cellData != null && cellData.getType() == CellDataTypeEnum.STRING) {
+                cellData.setStringValue(CsvWriter.neutralize(cellData.getStringValue()));
+            }
+        }
+    }
+}
@@ -4,24 +4,47 @@ import com.alibaba.excel.EasyExcel;
 import com.alibaba.excel.ExcelWriter;
 import com.alibaba.excel.read.listener.PageReadListener;
 import com.alibaba.excel.write.metadata.WriteSheet;
+import com.dw.common.excel.CsvFormat;
+import com.dw.common.excel.ExcelColumnMapping;
+import com.dw.common.excel.ExcelColumnReadListener;
 import com.dw.common.excel.ExcelImportListener;
+import com.dw.common.excel.ExcelImportPipeline;
 import com.dw.common.excel.ExcelImportResult;
+import com.dw.common.excel.ExcelPageSource;
+import com.dw.common.excel.ExcelSheetPrefetcher;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.multipart.MultipartFile;
 
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 /**
  * Excel工具类
+ * 实体类使用 @ExcelColumn 声明列时，表头、单元格格式和导入时的类型转换由 {@link ExcelColumnMapping} 处理，
+ * 否则按EasyExcel的 @ExcelProperty 模型读写
  */
 @Slf4j
 public class ExcelUtils {
     
+    /**
+     * 分页导出时单个Sheet的最大行数（xlsx上限为1048576行），超出后续写到新Sheet
+     */
+    public static final int MAX_ROWS_PER_SHEET = 1_000_000;
+    
+    /**
+     * 多Sheet并行导出时每个Sheet缓冲的最大页数
+     */
+    public static final int SHEET_BUFFER_PAGES = 2;
+    
     /**
      * 导出Excel到响应流
      * @param response HTTP响应
@@ -36,9 +59,17 @@ public class ExcelUtils {
             fileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
             response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".xlsx");
             
-            EasyExcel.write(response.getOutputStream(), clazz)
-                    .sheet("数据")
-                    .doWrite(data);
+            if (ExcelColumnMapping.supports(clazz)) {
+                ExcelColumnMapping<T> mapping = ExcelColumnMapping.of(clazz);
+                EasyExcel.write(response.getOutputStream())
+                        .head(mapping.head())
+                        .sheet("数据")
+                        .doWrite(toRows(mapping, data));
+            } else {
+                EasyExcel.write(response.getOutputStream(), clazz)
+                        .sheet("数据")
+                        .doWrite(data);
+            }
                     
         } catch (IOException e) {
             log.error("导出Excel失败", e);
@@ -47,38 +78,200 @@ public class ExcelUtils {
     }
     
     /**
-     * 导出多个Sheet的Excel
+     * 导出多个Sheet的Excel（按顺序逐个Sheet取数和写入）
      * @param response HTTP响应
      * @param fileName 文件名
      * @param sheets Sheet数据
      */
     public static void exportExcelWithMultipleSheets(HttpServletResponse response, String fileName, List<ExcelSheet<?>> sheets) {
+        exportExcelWithMultipleSheets(response, fileName, sheets, null);
+    }
+    
+    /**
+     * 导出多个Sheet的Excel：各Sheet的数据在线程池中并行获取，写入仍按Sheet顺序进行，
+     * 每个Sheet最多缓冲 {@link #SHEET_BUFFER_PAGES} 页
+     * @param response HTTP响应
+     * @param fileName 文件名
+     * @param sheets Sheet数据
+     * @param executor 取数线程池，为null时按顺序取数
+     */
+    public static void exportExcelWithMultipleSheets(HttpServletResponse response, String fileName, List<ExcelSheet<?>> sheets,
+                                                     Executor executor) {
         try {
             response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
             response.setCharacterEncoding("utf-8");
             fileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
             response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".xlsx");
             
-            ExcelWriter excelWriter = EasyExcel.write(response.getOutputStream()).build();
+            writeExcelWithMultipleSheets(response.getOutputStream(), sheets, executor);
             
+        } catch (IOException e) {
+            log.error("导出多Sheet Excel失败", e);
+            throw new RuntimeException("导出Excel失败: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * 写入多个Sheet的Excel到输出流
+     * @param outputStream 输出流（不关闭）
+     * @param sheets Sheet数据
+     * @param executor 取数线程池，为null时按顺序取数
+     */
+    public static void writeExcelWithMultipleSheets(OutputStream outputStream, List<ExcelSheet<?>> sheets, Executor executor) {
+        List<ExcelSheetPrefetcher<?>> prefetchers = new ArrayList<>(sheets.size());
+        boolean completed = false;
+        try (ExcelWriter excelWriter = EasyExcel.write(outputStream).autoCloseStream(false).build()) {
+            if (executor != null) {
+                for (ExcelSheet<?> sheet : sheets) {
+                    prefetchers.add(prefetch(sheet, executor));
+                }
+            }
             for (int i = 0; i < sheets.size(); i++) {
-                ExcelSheet<?> sheetData = sheets.get(i);
-                WriteSheet writeSheet = EasyExcel.writerSheet(i, sheetData.getSheetName())
-                        .head(sheetData.getClazz())
-                        .build();
-                excelWriter.write(sheetData.getData(), writeSheet);
+                writeSheet(excelWriter, i, sheets.get(i), executor != null ? prefetchers.get(i) : null);
             }
+            completed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("导出Excel被中断");
+        } catch (IllegalStateException e) {
+            log.error("导出多Sheet Excel失败", e);
+            throw new RuntimeException("导出Excel失败: " + e.getMessage());
+        } finally {
+            if (!completed) {
+                prefetchers.forEach(ExcelSheetPrefetcher::cancel);
+            }
+        }
+    }
+    
+    private static <T> ExcelSheetPrefetcher<T> prefetch(ExcelSheet<T> sheet, Executor executor) {
+        ExcelSheetPrefetcher<T> prefetcher = new ExcelSheetPrefetcher<>(sheet.getSource(), SHEET_BUFFER_PAGES);
+        prefetcher.start(executor, Thread.currentThread());
+        return prefetcher;
+    }
+    
+    /**
+     * 分页导出Excel到响应流：逐页取数、逐页写入，内存占用与总行数无关
+     * 响应头在取数前提交，客户端可以立即开始下载
+     * @param response HTTP响应
+     * @param clazz 实体类
+     * @param fileName 文件名
+     * @param source 分页数据源，导出结束后关闭
+     * @return 导出行数
+     */
+    public static <T> long exportExcelByPage(HttpServletResponse response, Class<T> clazz, String fileName,
+                                             ExcelPageSource<T> source) {
+        try {
+            response.setContentType("application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+            response.setCharacterEncoding("utf-8");
+            fileName = URLEncoder.encode(fileName, StandardCharsets.UTF_8).replaceAll("\\+", "%20");
+            response.setHeader("Content-disposition", "attachment;filename*=utf-8''" + fileName + ".xlsx");
+            response.flushBuffer();
             
-            excelWriter.finish();
+            return writeExcelByPage(response.getOutputStream(), clazz, source);
             
         } catch (IOException e) {
-            log.error("导出多Sheet Excel失败", e);
+            log.error("导出Excel失败", e);
             throw new RuntimeException("导出Excel失败: " + e.getMessage());
         }
     }
     
     /**
-     * 从文件导入Excel
+     * 分页写入Excel到输出流，超过 {@link #MAX_ROWS_PER_SHEET} 行时续写到新Sheet（数据、数据2……）
+     * @param outputStream 输出流（不关闭）
+     * @param clazz 实体类
+     * @param source 分页数据源，写入结束后关闭
+     * @return 写入行数
+     */
+    public static <T> long writeExcelByPage(OutputStream outputStream, Class<T> clazz, ExcelPageSource<T> source) {
+        ExcelColumnMapping<T> mapping = ExcelColumnMapping.supports(clazz) ? ExcelColumnMapping.of(clazz) : null;
+        long total = 0;
+        try (source; ExcelWriter excelWriter = mapping != null
+                ? EasyExcel.write(outputStream).head(mapping.head()).autoCloseStream(false).build()
+                : EasyExcel.write(outputStream, clazz).autoCloseStream(false).build()) {
+            int sheetNo = 0;
+            int sheetRows = 0;
+            WriteSheet writeSheet = EasyExcel.writerSheet(sheetNo, "数据").build();
+            List<T> page;
+            while ((page = source.nextPage()) != null && !page.isEmpty()) {
+                int offset = 0;
+                while (offset < page.size()) {
+                    if (sheetRows >= MAX_ROWS_PER_SHEET) {
+                        sheetNo++;
+                        sheetRows = 0;
+                        writeSheet = EasyExcel.writerSheet(sheetNo, "数据" + (sheetNo + 1)).build();
+                    }
+                    int end = Math.min(page.size(), offset + MAX_ROWS_PER_SHEET - sheetRows);
+                    List<T> part = page.subList(offset, end);
+                    excelWriter.write(mapping != null ? toRows(mapping, part) : part, writeSheet);
+                    sheetRows += part.size();
+                    offset = end;
+                }
+                total += page.size();
+            }
+            if (total == 0) {
+                // 没有数据时也输出表头
+                excelWriter.write(List.of(), writeSheet);
+            }
+        }
+        log.info("分页导出Excel完成，共{}行", total);
+        return total;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> void writeSheet(ExcelWriter excelWriter, int sheetNo, ExcelSheet<T> sheetData,
+                                       ExcelSheetPrefetcher<?> prefetcher) throws InterruptedException {
+        ExcelColumnMapping<T> mapping = ExcelColumnMapping.supports(sheetData.getClazz())
+                ? ExcelColumnMapping.of(sheetData.getClazz()) : null;
+        WriteSheet writeSheet = mapping != null
+                ? EasyExcel.writerSheet(sheetNo, sheetData.getSheetName()).head(mapping.head()).build()
+                : EasyExcel.writerSheet(sheetNo, sheetData.getSheetName()).head(sheetData.getClazz()).build();
+        boolean written = false;
+        if (prefetcher != null) {
+            List<T> page;
+            while ((page = ((ExcelSheetPrefetcher<T>) prefetcher).take()) != null) {
+                excelWriter.write(mapping != null ? toRows(mapping, page) : page, writeSheet);
+                written = true;
+            }
+        } else {
+            try (ExcelPageSource<T> source = sheetData.getSource()) {
+                List<T> page;
+                while ((page = source.nextPage()) != null && !page.isEmpty()) {
+                    excelWriter.write(mapping != null ? toRows(mapping, page) : page, writeSheet);
+                    written = true;
+                }
+            }
+        }
+        if (!written) {
+            // 没有数据时也输出表头
+            excelWriter.write(List.of(), writeSheet);
+        }
+    }
+    
+    private static <T> List<List<Object>> toRows(ExcelColumnMapping<T> mapping, List<T> data) {
+        List<List<Object>> rows = new ArrayList<>(data.size());
+        for (T item : data) {
+            rows.add(mapping.toRow(item));
+        }
+        return rows;
+    }
+    
+    /**
+     * 按实体类选择读取方式：@ExcelColumn 实体按列映射读取，类型转换失败的行记为错误
+     */
+    private static <T> void read(InputStream inputStream, Class<T> clazz, ExcelImportListener<T> listener) {
+        if (ExcelColumnMapping.supports(clazz)) {
+            EasyExcel.read(inputStream, new ExcelColumnReadListener<>(ExcelColumnMapping.of(clazz), listener, listener::rejectRow))
+                    .sheet()
+                    .doRead();
+        } else {
+            EasyExcel.read(inputStream, clazz, listener)
+                    .sheet()
+                    .doRead();
+        }
+    }
+    
+    /**
+     * 从文件导入Excel，.csv/.tsv 文件按分隔符文本导入（见 {@link CsvUtils}）
      * @param file 上传文件
      * @param clazz 实体类
      * @return 导入结果
@@ -89,6 +282,10 @@ public class ExcelUtils {
         }
         
         try {
+            CsvFormat csvFormat = CsvFormat.detect(file.getOriginalFilename(), file.getContentType());
+            if (csvFormat != null) {
+                return CsvUtils.importCsv(file.getInputStream(), clazz, csvFormat);
+            }
             return importExcel(file.getInputStream(), clazz);
         } catch (IOException e) {
             log.error("读取Excel文件失败", e);
@@ -103,21 +300,63 @@ public class ExcelUtils {
      * @return 导入结果
      */
     public static <T> ExcelImportResult<T> importExcel(InputStream inputStream, Class<T> clazz) {
-        ExcelImportListener<T> listener = new ExcelImportListener<>();
-        
+        return importExcel(inputStream, clazz, new ExcelImportListener<>());
+    }
+    
+    /**
+     * 流式导入Excel：校验通过的数据按批交给接收方，结果中不保存数据，只保留计数和有限条错误信息
+     * 内存占用只与批大小有关，与文件行数无关
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param batchSize 每批条数
+     * @param sink 批量数据接收方（如写库、投递队列），抛出异常时导入中止
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcel(InputStream inputStream, Class<T> clazz, int batchSize,
+                                                       Consumer<List<T>> sink) {
+        if (sink == null) {
+            throw new IllegalArgumentException("数据接收方不能为空");
+        }
+        return importExcel(inputStream, clazz, new ExcelImportListener<>(batchSize, sink));
+    }
+    
+    /**
+     * 使用指定的监听器导入Excel，可以事先调整错误收集方式，如：
+     * listener.getResult().getErrors().setSpill(true) 超出保留行数的错误写入临时文件
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param listener 导入监听器
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcel(InputStream inputStream, Class<T> clazz, ExcelImportListener<T> listener) {
         try {
-            EasyExcel.read(inputStream, clazz, listener)
-                    .sheet()
-                    .doRead();
-                    
+            read(inputStream, clazz, listener);
+            
             return listener.getResult();
             
         } catch (Exception e) {
+            listener.getResult().close();
             log.error("导入Excel失败", e);
             throw new RuntimeException("导入Excel失败: " + e.getMessage());
         }
     }
     
+    /**
+     * 流水线并行导入Excel：解析、校验、写入分线程执行，校验按并行度在线程池中进行
+     * 接收方在独立的写入线程中按行顺序调用
+     * @param inputStream 输入流
+     * @param clazz 实体类
+     * @param batchSize 每批条数
+     * @param sink 批量数据接收方，抛出异常时导入中止
+     * @param executor 校验线程池，为null时使用临时线程池
+     * @param parallelism 并行校验数
+     * @return 导入结果
+     */
+    public static <T> ExcelImportResult<T> importExcelParallel(InputStream inputStream, Class<T> clazz, int batchSize,
+                                                               Consumer<List<T>> sink, Executor executor, int parallelism) {
+        return new ExcelImportPipeline<>(clazz, null, executor, parallelism, batchSize, sink).run(inputStream);
+    }
+    
     /**
      * 简单读取Excel（适用于小文件）
      * @param file 上传文件
@@ -148,7 +387,7 @@ public class ExcelUtils {
      * @param pageSize 每页大小
      * @param consumer 数据消费者
      */
-    public static <T> void readExcelByPage(InputStream inputStream, Class<T> clazz, int pageSize, java.util.function.Consumer<List<T>> consumer) {
+    public static <T> void readExcelByPage(InputStream inputStream, Class<T> clazz, int pageSize, Consumer<List<T>> consumer) {
         EasyExcel.read(inputStream, clazz, new PageReadListener<T>(consumer, pageSize))
                 .sheet()
                 .doRead();
@@ -156,11 +395,13 @@ public class ExcelUtils {
     
     /**
      * Excel Sheet数据封装
+     * 数据可以直接给出，也可以由生产方在导出时获取（{@link #lazy}、{@link #paged}），并行导出时各Sheet的生产方同时执行
      */
     public static class ExcelSheet<T> {
         private String sheetName;
         private Class<T> clazz;
         private List<T> data;
+        private ExcelPageSource<T> source;
         
         public ExcelSheet(String sheetName, Class<T> clazz, List<T> data) {
             this.sheetName = sheetName;
@@ -168,6 +409,28 @@ public class ExcelUtils {
             this.data = data;
         }
         
+        private ExcelSheet(String sheetName, Class<T> clazz, ExcelPageSource<T> source) {
+            this.sheetName = sheetName;
+            this.clazz = clazz;
+            this.source = source;
+        }
+        
+        /**
+         * 导出时才获取数据的Sheet
+         * @param producer 数据生产方（如一次报表查询）
+         */
+        public static <T> ExcelSheet<T> lazy(String sheetName, Class<T> clazz, Supplier<List<T>> producer) {
+            return new ExcelSheet<>(sheetName, clazz, ExcelPageSource.once(producer));
+        }
+        
+        /**
+         * 导出时逐页获取数据的Sheet
+         * @param source 分页数据源
+         */
+        public static <T> ExcelSheet<T> paged(String sheetName, Class<T> clazz, ExcelPageSource<T> source) {
+            return new ExcelSheet<>(sheetName, clazz, source);
+        }
+        
         // Getters
         public String getSheetName() {
             return sheetName;
@@ -177,8 +440,18 @@ public class ExcelUtils {
             return clazz;
         }
         
+        /**
+         * 直接给出的数据，懒加载的Sheet返回null
+         */
         public List<T> getData() {
             return data;
         }
+        
+        /**
+         * 数据源（直接给出的数据视为只有一页）
+         */
+        public ExcelPageSource<T> getSource() {
+            return source != null ? source : ExcelPageSource.once(() -> data);
+        }
     }
-}
\ No newline at end of file
+}
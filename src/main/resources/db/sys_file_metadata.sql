@@ -0,0 +1,24 @@
+-- 文件元数据表（file.storage.index.type=db 时使用）
+-- path唯一：同一路径重复上传时覆盖原记录，删除文件时物理删除
+CREATE TABLE IF NOT EXISTS sys_file_metadata (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    path VARCHAR(500) NOT NULL COMMENT '存储路径',
+    url VARCHAR(1000) COMMENT '访问URL',
+    size BIGINT COMMENT '文件大小（字节）',
+    content_type VARCHAR(200) COMMENT '文件类型',
+    sha256 CHAR(64) COMMENT 'SHA-256摘要',
+    crc32c CHAR(8) COMMENT 'CRC32C校验值',
+    owner VARCHAR(100) COMMENT '归属者',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    is_deleted TINYINT DEFAULT 0 COMMENT '逻辑删除标记（文件元数据物理删除，始终为0）',
+    UNIQUE KEY uk_path (path)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_bin COMMENT = '文件元数据表';
+
+-- 从早期版本（path上为普通索引）升级时，先清理重复和逻辑删除的记录再建唯一索引：
+-- DELETE FROM sys_file_metadata WHERE is_deleted = 1;
+-- DELETE a FROM sys_file_metadata a JOIN sys_file_metadata b ON a.path = b.path AND a.id < b.id;
+-- ALTER TABLE sys_file_metadata DROP INDEX idx_path, ADD UNIQUE KEY uk_path (path);
+
+-- 从没有归属者列的版本升级：
+-- ALTER TABLE sys_file_metadata ADD COLUMN owner VARCHAR(100) COMMENT '归属者' AFTER crc32c;
@@ -2,10 +2,36 @@ package com.dw;
 
 import com.dw.common.aspect.OperationLogAspectTest;
 import com.dw.common.async.AsyncTaskManagerTest;
+import com.dw.common.cache.ShardedLruCacheTest;
+import com.dw.common.excel.ExcelColumnMappingTest;
+import com.dw.common.excel.ExcelErrorCollectorTest;
+import com.dw.common.excel.ExcelImportPipelineTest;
+import com.dw.common.excel.ExcelPageSourceTest;
+import com.dw.common.excel.ExcelSheetPrefetcherTest;
+import com.dw.common.excel.ExcelValidationPlanTest;
 import com.dw.common.service.AsyncTaskServiceTest;
 import com.dw.common.service.ExcelServiceTest;
+import com.dw.common.service.ExcelExportJobServiceTest;
+import com.dw.common.service.ExcelImportJobServiceTest;
 import com.dw.common.service.FileServiceTest;
 import com.dw.common.storage.LocalFileStorageTest;
+import com.dw.common.storage.S3FileStorageTest;
+import com.dw.common.storage.StoragePathLayoutTest;
+import com.dw.common.storage.TieredFileStorageTest;
+import com.dw.common.storage.ZipArchiveWriterTest;
+import com.dw.common.storage.image.ImageVariantServiceTest;
+import com.dw.common.storage.validation.UploadValidatorTest;
+import com.dw.common.storage.quota.StorageAccountingTest;
+import com.dw.common.storage.lifecycle.LifecycleSweeperTest;
+import com.dw.common.storage.signing.UrlSignerTest;
+import com.dw.common.storage.conformance.BenchmarkBaselineTest;
+import com.dw.common.storage.conformance.LocalFileStorageConformanceTest;
+import com.dw.common.storage.conformance.S3FileStorageConformanceTest;
+import com.dw.common.storage.conformance.TieredFileStorageConformanceTest;
+import com.dw.common.storage.conformance.TieredWriteBackConformanceTest;
+import com.dw.common.storage.metadata.CachingFileMetadataIndexTest;
+import com.dw.common.storage.metadata.LocalFileMetadataIndexTest;
+import com.dw.common.storage.metadata.MybatisFileMetadataIndexTest;
 import com.dw.common.utils.*;
 import com.dw.devwheels.DevWheelsApplicationTests;
 import org.junit.jupiter.api.DisplayName;
@@ -35,10 +61,37 @@ import org.junit.platform.suite.api.Suite;
     // Excel处理测试
     ExcelServiceTest.class,
     ExcelUtilsTest.class,
+    CsvUtilsTest.class,
+    ExcelColumnMappingTest.class,
+    ExcelErrorCollectorTest.class,
+    ExcelImportPipelineTest.class,
+    ExcelPageSourceTest.class,
+    ExcelSheetPrefetcherTest.class,
+    ExcelValidationPlanTest.class,
     
     // 文件管理测试
+    ExcelExportJobServiceTest.class,
+    ExcelImportJobServiceTest.class,
     FileServiceTest.class,
     LocalFileStorageTest.class,
+    S3FileStorageTest.class,
+    StoragePathLayoutTest.class,
+    TieredFileStorageTest.class,
+    ZipArchiveWriterTest.class,
+    ImageVariantServiceTest.class,
+    UploadValidatorTest.class,
+    StorageAccountingTest.class,
+    LifecycleSweeperTest.class,
+    UrlSignerTest.class,
+    LocalFileStorageConformanceTest.class,
+    S3FileStorageConformanceTest.class,
+    TieredFileStorageConformanceTest.class,
+    TieredWriteBackConformanceTest.class,
+    BenchmarkBaselineTest.class,
+    LocalFileMetadataIndexTest.class,
+    CachingFileMetadataIndexTest.class,
+    MybatisFileMetadataIndexTest.class,
+    ShardedLruCacheTest.class,
     
     // 异步任务测试
     AsyncTaskServiceTest.class,
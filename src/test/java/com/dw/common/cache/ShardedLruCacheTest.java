@@ -0,0 +1,107 @@
+package com.dw.common.cache;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("分段LRU缓存测试")
+public class ShardedLruCacheTest {
+
+    @Test
+    @DisplayName("基本读写测试")
+    void testPutAndGet() {
+        ShardedLruCache<String, Integer> cache = new ShardedLruCache<>(100, 4);
+        cache.put("a", 1);
+
+        assertEquals(1, cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.remove("a"));
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    @DisplayName("容量淘汰测试")
+    void testEviction() {
+        ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(64, 4);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(i, i);
+        }
+        assertTrue(cache.size() <= 64);
+    }
+
+    @Test
+    @DisplayName("最近访问的数据不被淘汰测试")
+    void testLeastRecentlyUsedEvicted() {
+        ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(2, 1);
+        cache.put(1, 1);
+        cache.put(2, 2);
+        cache.get(1);
+        cache.put(3, 3);
+
+        assertEquals(1, cache.get(1));
+        assertNull(cache.get(2));
+        assertEquals(3, cache.get(3));
+    }
+
+    @Test
+    @DisplayName("加载未命中数据测试")
+    void testComputeIfAbsent() {
+        ShardedLruCache<String, String> cache = new ShardedLruCache<>(10);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("v", cache.computeIfAbsent("k", key -> {
+            loads.incrementAndGet();
+            return "v";
+        }));
+        assertEquals("v", cache.computeIfAbsent("k", key -> {
+            loads.incrementAndGet();
+            return "other";
+        }));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    @DisplayName("按当前值计算新值测试")
+    void testCompute() {
+        ShardedLruCache<String, Integer> cache = new ShardedLruCache<>(10);
+
+        assertEquals(1, cache.compute("k", (key, current) -> current == null ? 1 : current + 1));
+        assertEquals(2, cache.compute("k", (key, current) -> current == null ? 1 : current + 1));
+        assertEquals(2, cache.get("k"));
+        assertNull(cache.compute("k", (key, current) -> null));
+        assertNull(cache.get("k"));
+    }
+
+    @Test
+    @DisplayName("并发读写测试")
+    void testConcurrentAccess() throws InterruptedException {
+        ShardedLruCache<Integer, Integer> cache = new ShardedLruCache<>(1000, 8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch latch = new CountDownLatch(8);
+
+        for (int t = 0; t < 8; t++) {
+            final int offset = t * 10000;
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 10000; i++) {
+                        cache.put(offset + i, i);
+                        cache.get(offset + i / 2);
+                    }
+                } finally {
+                    latch.countDown();
+                }
+            });
+        }
+
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(cache.size() <= 1000);
+    }
+}
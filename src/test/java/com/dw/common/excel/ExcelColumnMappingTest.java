@@ -0,0 +1,156 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.annotation.format.DateTimeFormat;
+import com.dw.common.annotation.ExcelColumn;
+import com.dw.common.utils.ExcelUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("@ExcelColumn列映射测试")
+public class ExcelColumnMappingTest {
+
+    public static class Mixed {
+        @ExcelColumn("姓名")
+        private String name;
+
+        @DateTimeFormat("yyyy-MM-dd")
+        private LocalDate joinDate;
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public LocalDate getJoinDate() { return joinDate; }
+        public void setJoinDate(LocalDate joinDate) { this.joinDate = joinDate; }
+    }
+
+    public static class Employee {
+        @ExcelColumn(value = "工号", index = 0, required = true, pattern = "E\\d{4}")
+        private String code;
+
+        @ExcelColumn(value = "入职日期", index = 2, format = "yyyy/MM/dd")
+        private LocalDate joinDate;
+
+        @ExcelColumn(value = "姓名", index = 1, required = true, maxLength = 10)
+        private String name;
+
+        @ExcelColumn(value = "薪资", index = 3, format = "#,##0.00")
+        private BigDecimal salary;
+
+        @ExcelColumn("在职")
+        private boolean active;
+
+        private String remark;
+
+        public Employee() {}
+
+        public Employee(String code, String name, LocalDate joinDate, BigDecimal salary, boolean active) {
+            this.code = code;
+            this.name = name;
+            this.joinDate = joinDate;
+            this.salary = salary;
+            this.active = active;
+        }
+
+        public String getCode() { return code; }
+        public void setCode(String code) { this.code = code; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public LocalDate getJoinDate() { return joinDate; }
+        public void setJoinDate(LocalDate joinDate) { this.joinDate = joinDate; }
+        public BigDecimal getSalary() { return salary; }
+        public void setSalary(BigDecimal salary) { this.salary = salary; }
+        public boolean isActive() { return active; }
+        public void setActive(boolean active) { this.active = active; }
+    }
+
+    @Test
+    @DisplayName("表头与单元格格式化测试")
+    void testHeadAndFormat() {
+        ExcelColumnMapping<Employee> mapping = ExcelColumnMapping.of(Employee.class);
+        assertSame(mapping, ExcelColumnMapping.of(Employee.class));
+        assertTrue(ExcelColumnMapping.supports(Employee.class));
+        assertFalse(ExcelColumnMapping.supports(String.class));
+
+        // 按index排序，未声明index的列排在后面，未标注的字段不导出
+        assertEquals(List.of(List.of("工号"), List.of("姓名"), List.of("入职日期"), List.of("薪资"), List.of("在职")),
+                mapping.head());
+
+        Employee employee = new Employee("E0001", "张三", LocalDate.of(2024, 3, 5), new BigDecimal("12345.6"), true);
+        assertEquals(Arrays.asList("E0001", "张三", "2024/03/05", "12,345.60", true), mapping.toRow(employee));
+        assertEquals(Arrays.asList(null, null, null, null, false), mapping.toRow(new Employee()));
+    }
+
+    @Test
+    @DisplayName("导出后导入往返测试")
+    void testRoundTrip() {
+        List<Employee> employees = List.of(
+                new Employee("E0001", "张三", LocalDate.of(2024, 3, 5), new BigDecimal("12345.60"), true),
+                new Employee("E0002", "李四", LocalDate.of(2023, 12, 31), new BigDecimal("800.00"), false));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExcelUtils.exportExcel(response, employees, Employee.class, "员工");
+
+        ExcelImportResult<Employee> result = ExcelUtils.importExcel(
+                new ByteArrayInputStream(response.getContentAsByteArray()), Employee.class);
+
+        assertEquals(2, result.getSuccessCount());
+        assertEquals(0, result.getFailCount());
+        Employee first = result.getData().get(0);
+        assertEquals("E0001", first.getCode());
+        assertEquals("张三", first.getName());
+        assertEquals(LocalDate.of(2024, 3, 5), first.getJoinDate());
+        assertEquals(0, new BigDecimal("12345.60").compareTo(first.getSalary()));
+        assertTrue(first.isActive());
+        assertFalse(result.getData().get(1).isActive());
+    }
+
+    @Test
+    @DisplayName("按表头名定位列并校验规则测试")
+    void testReadByHeaderWithRules() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        // 列顺序与实体声明不同，按表头名匹配
+        EasyExcel.write(out)
+                .head(List.of(List.of("姓名"), List.of("薪资"), List.of("工号"), List.of("入职日期")))
+                .sheet()
+                .doWrite(List.of(
+                        Arrays.<Object>asList("王五", "1,000.00", "E0003", "2024/01/02"),
+                        Arrays.<Object>asList("赵六", "1,000.00", "X1", "2024/01/02"),
+                        Arrays.<Object>asList("孙七", "1,000.00", "E0004", "2024-01-02"),
+                        Arrays.<Object>asList(null, "1,000.00", "E0005", null)));
+
+        ExcelImportResult<Employee> result = ExcelUtils.importExcel(new ByteArrayInputStream(out.toByteArray()),
+                Employee.class);
+
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(3, result.getFailCount());
+        Employee employee = result.getData().get(0);
+        assertEquals("王五", employee.getName());
+        assertEquals("E0003", employee.getCode());
+        assertEquals(LocalDate.of(2024, 1, 2), employee.getJoinDate());
+        assertEquals(0, new BigDecimal("1000").compareTo(employee.getSalary()));
+
+        assertEquals("code: 格式不正确; ", result.getErrorMessages().get(3));
+        assertEquals("joinDate: 格式不正确; ", result.getErrorMessages().get(4));
+        assertEquals("name: 不能为空; ", result.getErrorMessages().get(5));
+    }
+
+    @Test
+    @DisplayName("混用@ExcelColumn与EasyExcel列注解时报错测试")
+    void testRejectMixedAnnotations() {
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> ExcelColumnMapping.supports(Mixed.class));
+        assertTrue(e.getMessage().contains("joinDate"));
+        assertThrows(RuntimeException.class,
+                () -> ExcelUtils.importExcel(new ByteArrayInputStream(new byte[0]), Mixed.class));
+        assertTrue(ExcelColumnMapping.supports(Employee.class));
+    }
+}
@@ -0,0 +1,154 @@
+package com.dw.common.excel;
+
+import com.dw.common.annotation.ExcelColumn;
+import com.dw.common.utils.JsonUtils;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.validation.constraints.Min;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Excel导入错误收集测试")
+public class ExcelErrorCollectorTest {
+
+    public static class Contact {
+        @ExcelColumn(value = "姓名", required = true, maxLength = 4)
+        private String name;
+
+        @ExcelColumn(value = "年龄")
+        @Min(value = 0, message = "年龄不能为负数")
+        private Integer age;
+
+        public Contact(String name, Integer age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+
+    @Test
+    @DisplayName("结构化错误码测试")
+    void testErrorCodes() {
+        ExcelValidationPlan<Contact> plan = ExcelValidationPlan.of(Contact.class);
+        assertNull(plan.check(new Contact("张三", 20), null));
+
+        List<ExcelFieldError> errors = plan.check(new Contact(null, -1), null);
+        assertEquals(2, errors.size());
+        assertEquals(ExcelFieldError.Code.REQUIRED, errors.get(0).getCode());
+        assertEquals("name", errors.get(0).getField());
+        assertEquals(ExcelFieldError.Code.CONSTRAINT, errors.get(1).getCode());
+        assertEquals("age", errors.get(1).getField());
+        assertEquals("name: 不能为空; age: 年龄不能为负数; ", ExcelFieldError.format(errors));
+
+        // 同一列的同类错误复用同一个实例
+        assertSame(errors.get(0), plan.check(new Contact(" ", 1), null).get(0));
+        assertEquals(ExcelFieldError.Code.LENGTH, plan.check(new Contact("欧阳张三丰", 1), null).get(0).getCode());
+    }
+
+    @Test
+    @DisplayName("保留上限与按列统计测试")
+    void testLimitAndStats() {
+        ExcelValidationPlan<Contact> plan = ExcelValidationPlan.of(Contact.class);
+        ExcelImportResult<Contact> result = new ExcelImportResult<>();
+        result.setErrorLimit(100);
+        for (int row = 2; row <= 3001; row++) {
+            // 2-1001行姓名为空，1002行之后每隔一行年龄为负数
+            Contact contact = row <= 1001 ? new Contact(null, 1) : new Contact("张三", row % 2 == 0 ? -1 : 1);
+            List<ExcelFieldError> errors = plan.check(contact, null);
+            if (errors != null) {
+                result.addError(row, errors);
+                result.incrementFailCount();
+            } else {
+                result.incrementSuccessCount();
+            }
+        }
+
+        assertEquals(2000, result.getFailCount());
+        assertEquals(100, result.getErrorMessages().size());
+        assertEquals("name: 不能为空; ", result.getErrorMessages().get(2));
+
+        List<ExcelErrorStat> stats = result.getErrorStats();
+        assertEquals(2, stats.size());
+        ExcelErrorStat required = stats.get(0);
+        assertEquals("name", required.getField());
+        assertEquals(ExcelFieldError.Code.REQUIRED, required.getCode());
+        assertEquals(1000, required.getCount());
+        assertEquals("2-1001", required.getRowRanges());
+        ExcelErrorStat negative = stats.get(1);
+        assertEquals(1000, negative.getCount());
+        assertEquals(1002, negative.getFirstRow());
+        assertEquals(3000, negative.getLastRow());
+        assertTrue(negative.isTruncated());
+        assertTrue(negative.getRowRanges().startsWith("1002、1004、1006"));
+
+        String summary = result.getErrorSummary();
+        System.out.println(summary);
+        assertTrue(summary.contains("...还有1995条错误"));
+        assertTrue(summary.contains("name 不能为空（REQUIRED）: 1000条，第2-1001行"));
+    }
+
+    @Test
+    @DisplayName("超出上限的错误溢写临时文件测试")
+    void testSpill() throws Exception {
+        ExcelErrorCollector collector = new ExcelErrorCollector();
+        collector.setLimit(10);
+        collector.setSpill(true);
+        ExcelFieldError required = new ExcelFieldError("name", ExcelFieldError.Code.REQUIRED, "不能为空");
+        for (int row = 1; row <= 50; row++) {
+            if (row % 10 == 0) {
+                collector.add(row, "第" + row + "行\t写库失败");
+            } else {
+                collector.add(row, List.of(required));
+            }
+        }
+
+        assertEquals(10, collector.getMessages().size());
+        assertEquals(40, collector.getSpilledRows());
+        Path spillFile = collector.getSpillFile();
+        assertTrue(Files.exists(spillFile));
+
+        List<Integer> rows = new ArrayList<>();
+        List<ExcelFieldError> errors = new ArrayList<>();
+        collector.forEachSpilled((row, error) -> {
+            rows.add(row);
+            errors.add(error);
+        });
+        assertEquals(40, rows.size());
+        assertEquals(11, rows.get(0));
+        assertEquals(required, errors.get(0));
+        assertEquals(new ExcelFieldError(null, ExcelFieldError.Code.OTHER, "第20行 写库失败"), errors.get(9));
+
+        collector.close();
+        assertFalse(Files.exists(spillFile));
+        assertNull(collector.getSpillFile());
+    }
+
+    @Test
+    @DisplayName("导入结果序列化不暴露溢写文件")
+    @SuppressWarnings("deprecation")
+    void testResultJson() {
+        try (ExcelImportResult<Contact> result = new ExcelImportResult<>()) {
+            result.setErrorLimit(1);
+            result.getErrors().setSpill(true);
+            result.addError(2, "姓名不能为空");
+            result.addError(3, "年龄不能为负数");
+            Path spillFile = result.getErrors().getSpillFile();
+            assertNotNull(spillFile);
+
+            String json = JsonUtils.toJson(result);
+            assertNotNull(json);
+            assertFalse(json.contains("\"errors\""), json);
+            assertFalse(json.contains(spillFile.getFileName().toString()), json);
+            assertTrue(json.contains("\"errorMessages\""), json);
+            assertTrue(json.contains("姓名不能为空"), json);
+
+            result.setErrorMessages(Map.of(5, "旧格式错误"));
+            assertEquals(Map.of(5, "旧格式错误"), result.getErrorMessages());
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.dw.common.utils.ExcelUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("流水线并行导入测试")
+public class ExcelImportPipelineTest {
+
+    public static class Item {
+        @ExcelProperty("名称")
+        @NotBlank(message = "名称不能为空")
+        private String name;
+
+        @ExcelProperty("序号")
+        @Min(value = 0, message = "序号不能为负数")
+        private Integer seq;
+
+        public Item() {}
+
+        public Item(String name, Integer seq) {
+            this.name = name;
+            this.seq = seq;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public Integer getSeq() { return seq; }
+        public void setSeq(Integer seq) { this.seq = seq; }
+    }
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private byte[] generateExcel(int rows) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= rows; i++) {
+            // 每7行有1行名称为空
+            items.add(new Item(i % 7 == 0 ? "" : "条目" + i, i));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExcelUtils.exportExcel(response, items, Item.class, "条目");
+        return response.getContentAsByteArray();
+    }
+
+    @Test
+    @DisplayName("并行校验后按行顺序写入测试")
+    void testOrderedParallelImport() {
+        byte[] excel = generateExcel(3000);
+        List<Integer> received = new ArrayList<>();
+        List<Integer> batchSizes = new ArrayList<>();
+
+        ExcelImportResult<Item> result = ExcelUtils.importExcelParallel(new ByteArrayInputStream(excel), Item.class,
+                500, batch -> {
+                    batchSizes.add(batch.size());
+                    batch.forEach(item -> received.add(item.getSeq()));
+                }, executor, 4);
+
+        int invalid = 3000 / 7;
+        assertEquals(3000 - invalid, result.getSuccessCount());
+        assertEquals(invalid, result.getFailCount());
+        assertTrue(result.getData().isEmpty());
+
+        // 数据按原始行顺序交给接收方
+        assertEquals(3000 - invalid, received.size());
+        for (int i = 1; i < received.size(); i++) {
+            assertTrue(received.get(i - 1) < received.get(i));
+        }
+        assertTrue(batchSizes.subList(0, batchSizes.size() - 1).stream().allMatch(size -> size == 500));
+
+        // 错误按行号顺序保留前若干条（表头占第1行，数据第7行位于第8行）
+        List<Integer> errorRows = new ArrayList<>(result.getErrorMessages().keySet());
+        assertEquals(ExcelImportListener.DEFAULT_ERROR_SAMPLE_SIZE, errorRows.size());
+        assertEquals(8, errorRows.get(0));
+        for (int i = 1; i < errorRows.size(); i++) {
+            assertTrue(errorRows.get(i - 1) < errorRows.get(i));
+        }
+        Map.Entry<Integer, String> first = result.getErrorMessages().entrySet().iterator().next();
+        assertTrue(first.getValue().contains("名称不能为空"));
+    }
+
+    @Test
+    @DisplayName("接收方失败时中止导入测试")
+    void testSinkFailureAbortsImport() {
+        byte[] excel = generateExcel(5000);
+        AtomicInteger batches = new AtomicInteger();
+
+        RuntimeException exception = assertThrows(RuntimeException.class, () ->
+                ExcelUtils.importExcelParallel(new ByteArrayInputStream(excel), Item.class, 100, batch -> {
+                    if (batches.incrementAndGet() == 3) {
+                        throw new IllegalStateException("写入失败");
+                    }
+                }, executor, 2));
+
+        assertTrue(exception.getMessage().contains("写入失败"));
+        // 失败后不再写入
+        assertEquals(3, batches.get());
+    }
+}
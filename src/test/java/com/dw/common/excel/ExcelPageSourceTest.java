@@ -0,0 +1,193 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.dw.common.utils.ExcelUtils;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DisplayName("分页导出测试")
+public class ExcelPageSourceTest {
+
+    public static class Order {
+        @TableId
+        @ExcelProperty("订单号")
+        private Long id;
+
+        @ExcelProperty("状态")
+        private String status;
+
+        public Order() {}
+
+        public Order(Long id, String status) {
+            this.id = id;
+            this.status = status;
+        }
+
+        public Long getId() { return id; }
+        public void setId(Long id) { this.id = id; }
+        public String getStatus() { return status; }
+        public void setStatus(String status) { this.status = status; }
+    }
+
+    @BeforeAll
+    static void initTableInfo() {
+        TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), Order.class);
+    }
+
+    @Test
+    @DisplayName("逐页写入并关闭数据源测试")
+    void testExportByPage() {
+        List<Order> orders = LongStream.rangeClosed(1, 2500)
+                .mapToObj(id -> new Order(id, "PAID"))
+                .collect(Collectors.toList());
+        ExcelPageSource<Order> pages = ExcelPageSource.of(orders.iterator(), 1000);
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        ExcelPageSource<Order> source = new ExcelPageSource<>() {
+            @Override
+            public List<Order> nextPage() {
+                fetched.incrementAndGet();
+                return pages.nextPage();
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        long rows = ExcelUtils.exportExcelByPage(response, Order.class, "订单", source);
+
+        assertEquals(2500, rows);
+        // 3页数据加1次空页结束
+        assertEquals(4, fetched.get());
+        assertTrue(closed.get());
+        assertTrue(response.isCommitted());
+
+        ExcelImportResult<Order> result = ExcelUtils.importExcel(
+                new ByteArrayInputStream(response.getContentAsByteArray()), Order.class);
+        assertEquals(2500, result.getSuccessCount());
+        assertEquals(2500L, result.getData().get(2499).getId());
+    }
+
+    @Test
+    @DisplayName("按key游标分页查询测试")
+    @SuppressWarnings("unchecked")
+    void testKeysetPaging() {
+        List<Order> table = LongStream.rangeClosed(1, 25)
+                .mapToObj(id -> new Order(id * 10, id % 2 == 0 ? "PAID" : "NEW"))
+                .collect(Collectors.toList());
+        List<String> sqlSegments = new ArrayList<>();
+        BaseMapper<Order> mapper = mock(BaseMapper.class);
+        when(mapper.selectList(any(IPage.class), any(Wrapper.class))).thenAnswer(invocation -> {
+            IPage<Order> page = invocation.getArgument(0);
+            Wrapper<Order> wrapper = invocation.getArgument(1);
+            sqlSegments.add(wrapper.getSqlSegment());
+            long lastKey = ((LambdaQueryWrapper<Order>) wrapper).getParamNameValuePairs().values().stream()
+                    .filter(Long.class::isInstance)
+                    .mapToLong(Long.class::cast)
+                    .findFirst()
+                    .orElse(0L);
+            assertEquals(1, page.getCurrent());
+            assertFalse(page.searchCount());
+            return table.stream()
+                    .filter(order -> order.getId() > lastKey)
+                    .limit(page.getSize())
+                    .collect(Collectors.toList());
+        });
+
+        LambdaQueryWrapper<Order> query = Wrappers.lambdaQuery(Order.class).isNotNull(Order::getStatus);
+        ExcelPageSource<Order> source = ExcelPageSource.keyset(mapper, query, Order::getId, 10);
+
+        List<Long> ids = new ArrayList<>();
+        List<Order> page;
+        while (!(page = source.nextPage()).isEmpty()) {
+            page.forEach(order -> ids.add(order.getId()));
+        }
+
+        assertEquals(25, ids.size());
+        assertEquals(250L, ids.get(24));
+        // 最后一页不足10条后不再查询
+        assertEquals(3, sqlSegments.size());
+        assertFalse(sqlSegments.get(0).contains("id >"));
+        assertTrue(sqlSegments.get(1).contains("id >"));
+        assertTrue(sqlSegments.get(1).contains("ORDER BY id ASC"));
+        // 原查询条件不被修改
+        assertFalse(query.getSqlSegment().contains("ORDER BY"));
+    }
+
+    @Test
+    @DisplayName("游标分页保留OR条件的优先级测试")
+    @SuppressWarnings("unchecked")
+    void testKeysetPagingWithOr() {
+        List<Order> table = LongStream.rangeClosed(1, 30)
+                .mapToObj(id -> new Order(id, id % 3 == 0 ? "PAID" : id % 3 == 1 ? "NEW" : "CLOSED"))
+                .collect(Collectors.toList());
+        List<String> sqlSegments = new ArrayList<>();
+        BaseMapper<Order> mapper = mock(BaseMapper.class);
+        when(mapper.selectList(any(IPage.class), any(Wrapper.class))).thenAnswer(invocation -> {
+            IPage<Order> page = invocation.getArgument(0);
+            LambdaQueryWrapper<Order> wrapper = invocation.getArgument(1);
+            String sql = wrapper.getSqlSegment();
+            sqlSegments.add(sql);
+            // 按生成的SQL片段求值：status 条件需整体与 id 条件取交集
+            Map<String, Object> params = wrapper.getParamNameValuePairs();
+            Matcher keyMatcher = Pattern.compile("id > #\\{ew\\.paramNameValuePairs\\.(\\w+)}").matcher(sql);
+            long lastKey = keyMatcher.find() ? (Long) params.get(keyMatcher.group(1)) : 0L;
+            assertTrue(sql.startsWith("((status = "), sql);
+            return table.stream()
+                    .filter(order -> order.getId() > lastKey)
+                    .filter(order -> params.containsValue(order.getStatus()))
+                    .limit(page.getSize())
+                    .collect(Collectors.toList());
+        });
+
+        LambdaQueryWrapper<Order> query = Wrappers.lambdaQuery(Order.class)
+                .eq(Order::getStatus, "PAID")
+                .or()
+                .eq(Order::getStatus, "NEW");
+        ExcelPageSource<Order> source = ExcelPageSource.keyset(mapper, query, Order::getId, 8);
+
+        List<Long> ids = new ArrayList<>();
+        List<Order> page;
+        while (!(page = source.nextPage()).isEmpty()) {
+            page.forEach(order -> ids.add(order.getId()));
+        }
+
+        assertEquals(20, ids.size());
+        assertEquals(LongStream.rangeClosed(1, 30).filter(id -> id % 3 != 2).boxed().collect(Collectors.toList()), ids);
+        assertTrue(sqlSegments.get(1).matches("\\(\\(status = .+ OR status = .+\\) AND id > .+\\).*"),
+                sqlSegments.get(1));
+        // 原查询条件不被修改
+        assertEquals("(status = #{ew.paramNameValuePairs.MPGENVAL1} OR status = #{ew.paramNameValuePairs.MPGENVAL2})",
+                query.getSqlSegment());
+    }
+}
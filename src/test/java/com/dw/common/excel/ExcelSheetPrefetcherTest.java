@@ -0,0 +1,142 @@
+package com.dw.common.excel;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.dw.common.utils.ExcelUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("多Sheet并行导出测试")
+public class ExcelSheetPrefetcherTest {
+
+    public static class Metric {
+        @ExcelProperty("指标")
+        private String name;
+
+        @ExcelProperty("数值")
+        private Integer value;
+
+        public Metric() {}
+
+        public Metric(String name, Integer value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public Integer getValue() { return value; }
+        public void setValue(Integer value) { this.value = value; }
+    }
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private static List<Metric> slowQuery(String name, int rows) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(300);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return IntStream.range(0, rows).mapToObj(i -> new Metric(name, i)).collect(Collectors.toList());
+    }
+
+    @Test
+    @DisplayName("各Sheet并行取数按顺序写入测试")
+    void testParallelSheets() {
+        List<ExcelUtils.ExcelSheet<?>> sheets = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            String name = "报表" + i;
+            int rows = i * 10;
+            sheets.add(ExcelUtils.ExcelSheet.lazy(name, Metric.class, () -> slowQuery(name, rows)));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long start = System.nanoTime();
+        ExcelUtils.writeExcelWithMultipleSheets(out, sheets, executor);
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        System.out.println("4个Sheet并行导出耗时: " + elapsedMs + "ms");
+
+        // 4个300ms的查询同时执行，总耗时远小于串行的1200ms
+        assertTrue(elapsedMs < 1000, "耗时" + elapsedMs + "ms");
+        for (int i = 1; i <= 4; i++) {
+            List<Metric> rows = EasyExcel.read(new ByteArrayInputStream(out.toByteArray()))
+                    .head(Metric.class)
+                    .sheet(i - 1)
+                    .doReadSync();
+            assertEquals(i * 10, rows.size());
+            assertEquals("报表" + i, rows.get(0).getName());
+        }
+    }
+
+    @Test
+    @DisplayName("缓冲页数有上限测试")
+    void testBoundedBuffer() throws Exception {
+        AtomicInteger fetched = new AtomicInteger();
+        AtomicBoolean closed = new AtomicBoolean();
+        ExcelPageSource<Metric> source = new ExcelPageSource<>() {
+            @Override
+            public List<Metric> nextPage() {
+                return fetched.get() < 10 ? List.of(new Metric("页", fetched.incrementAndGet())) : List.of();
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        ExcelSheetPrefetcher<Metric> prefetcher = new ExcelSheetPrefetcher<>(source, 2);
+        prefetcher.start(executor, Thread.currentThread());
+
+        TimeUnit.MILLISECONDS.sleep(200);
+        // 缓冲2页，第3页取出后等待空位
+        assertEquals(3, fetched.get());
+        assertFalse(closed.get());
+
+        int pages = 0;
+        while (prefetcher.take() != null) {
+            pages++;
+        }
+        assertEquals(10, pages);
+        assertTrue(closed.get());
+    }
+
+    @Test
+    @DisplayName("取数失败时导出失败测试")
+    void testProducerFailure() {
+        List<ExcelUtils.ExcelSheet<?>> sheets = List.of(
+                ExcelUtils.ExcelSheet.lazy("正常", Metric.class, () -> slowQuery("正常", 5)),
+                ExcelUtils.ExcelSheet.lazy("失败", Metric.class, () -> {
+                    throw new IllegalStateException("查询超时");
+                }));
+
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> ExcelUtils.writeExcelWithMultipleSheets(new ByteArrayOutputStream(), sheets, executor));
+        assertTrue(exception.getMessage().contains("查询超时"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.dw.common.excel;
+
+import com.dw.common.annotation.ExcelColumn;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import jakarta.validation.Validator;
+import jakarta.validation.constraints.Min;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DisplayName("Excel行校验计划测试")
+public class ExcelValidationPlanTest {
+
+    public static class Contact {
+        @ExcelColumn(value = "姓名", required = true, maxLength = 4)
+        private String name;
+
+        @ExcelColumn(value = "手机号", pattern = "1\\d{10}")
+        private String phone;
+
+        @ExcelColumn(value = "年龄", required = true)
+        @Min(value = 0, message = "年龄不能为负数")
+        private Integer age;
+
+        public Contact(String name, String phone, Integer age) {
+            this.name = name;
+            this.phone = phone;
+            this.age = age;
+        }
+    }
+
+    public static class PlainRow {
+        @ExcelColumn(value = "编码", required = true, format = "字母+两位数字，如A01")
+        private String code;
+
+        public PlainRow(String code) {
+            this.code = code;
+        }
+    }
+
+    @Test
+    @DisplayName("@ExcelColumn规则校验测试")
+    void testColumnChecks() {
+        ExcelValidationPlan<Contact> plan = ExcelValidationPlan.of(Contact.class);
+        assertSame(plan, ExcelValidationPlan.of(Contact.class));
+        assertEquals(3, plan.getColumnCheckCount());
+        assertTrue(plan.isJakartaConstrained());
+
+        assertNull(plan.validate(new Contact("张三", "13800138000", 20), null));
+        // 非必填字段为空时不校验格式
+        assertNull(plan.validate(new Contact("张三", null, 20), null));
+        assertNull(plan.validate(new Contact("张三", "", 20), null));
+
+        assertEquals("name: 不能为空; ", plan.validate(new Contact("  ", "13800138000", 20), null));
+        assertEquals("name: 长度不能超过4; ", plan.validate(new Contact("欧阳张三丰", "13800138000", 20), null));
+        assertEquals("phone: 格式不正确; ", plan.validate(new Contact("张三", "12345", 20), null));
+        assertEquals("age: 不能为空; ", plan.validate(new Contact("张三", null, null), null));
+
+        // Jakarta约束作为兜底继续生效
+        String error = plan.validate(new Contact(null, "abc", -1), null);
+        assertTrue(error.contains("name: 不能为空"));
+        assertTrue(error.contains("phone: 格式不正确"));
+        assertTrue(error.contains("age: 年龄不能为负数"));
+    }
+
+    @Test
+    @DisplayName("无Jakarta约束时跳过Validator测试")
+    void testSkipValidatorWithoutConstraints() {
+        ExcelValidationPlan<PlainRow> plan = ExcelValidationPlan.of(PlainRow.class);
+        assertFalse(plan.isJakartaConstrained());
+
+        Validator validator = mock(Validator.class);
+        assertNull(plan.validate(new PlainRow("A01"), validator));
+        // 文本字段的format只是说明，不按正则校验
+        assertNull(plan.validate(new PlainRow("B2"), validator));
+        assertEquals("code: 不能为空; ", plan.validate(new PlainRow(null), validator));
+        verify(validator, never()).validate(any());
+    }
+}
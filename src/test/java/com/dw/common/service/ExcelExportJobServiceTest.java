@@ -0,0 +1,179 @@
+package com.dw.common.service;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.dw.common.excel.ExcelExportJob;
+import com.dw.common.excel.ExcelJob;
+import com.dw.common.excel.ExcelPageSource;
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@DisplayName("Excel异步导出服务测试")
+public class ExcelExportJobServiceTest {
+
+    public static class Row {
+        @ExcelProperty("序号")
+        private Integer seq;
+
+        public Row() {}
+
+        public Row(Integer seq) {
+            this.seq = seq;
+        }
+
+        public Integer getSeq() { return seq; }
+        public void setSeq(Integer seq) { this.seq = seq; }
+    }
+
+    @Mock
+    private FileStorage fileStorage;
+
+    @InjectMocks
+    private ExcelExportJobService exportJobService;
+
+    private final Map<String, byte[]> stored = new ConcurrentHashMap<>();
+
+    private void mockStorage() {
+        when(fileStorage.store(any(InputStream.class), anyString(), anyString())).thenAnswer(invocation -> {
+            String path = invocation.getArgument(1);
+            stored.put(path, ((InputStream) invocation.getArgument(0)).readAllBytes());
+            StoredFile storedFile = new StoredFile();
+            storedFile.setPath(path);
+            return storedFile;
+        });
+        when(fileStorage.getSignedUrl(anyString(), eq(ExcelExportJobService.DOWNLOAD_URL_TTL)))
+                .thenAnswer(invocation -> "http://localhost/files/" + invocation.getArgument(0) + "?signature=x");
+    }
+
+    private static ExcelPageSource<Row> rows(int count) {
+        List<Row> rows = IntStream.rangeClosed(1, count).mapToObj(Row::new).collect(Collectors.toList());
+        return ExcelPageSource.of(rows.iterator(), 100);
+    }
+
+    private static void await(ExcelJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertTrue(job.getStatus().isFinished(), "任务未在10秒内完成");
+    }
+
+    @Test
+    @DisplayName("导出完成并返回下载链接测试")
+    void testExportJob() throws Exception {
+        mockStorage();
+        List<Long> progress = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        exportJobService.addListener(job -> {
+            progress.add(job.getProcessedRows());
+            if (job.getStatus().isFinished()) {
+                finished.countDown();
+            }
+        });
+
+        ExcelExportJob job = exportJobService.submit("序号", Row.class, () -> rows(350), 350, null);
+        assertNotNull(exportJobService.getJob(job.getJobId()));
+        // 等到结束通知之后再断言，避免与最后一次回调竞争
+        assertTrue(finished.await(10, TimeUnit.SECONDS), "任务未在10秒内完成");
+
+        assertEquals(ExcelJob.Status.SUCCESS, job.getStatus());
+        assertEquals(350, job.getProcessedRows());
+        assertEquals(100, job.getPercent());
+        assertTrue(job.getPath().startsWith(ExcelExportJobService.EXPORT_CATEGORY + "/"));
+        assertTrue(job.getDownloadUrl().endsWith(job.getPath() + "?signature=x"));
+        // 开始、4页、结束各通知一次
+        assertEquals(List.of(0L, 100L, 200L, 300L, 350L, 350L), progress);
+
+        List<Row> exported = EasyExcel.read(new ByteArrayInputStream(stored.get(job.getPath())))
+                .head(Row.class).sheet().doReadSync();
+        assertEquals(350, exported.size());
+        assertEquals(350, exported.get(349).getSeq());
+    }
+
+    @Test
+    @DisplayName("相同请求去重测试")
+    void testDeduplication() throws Exception {
+        mockStorage();
+        CountDownLatch release = new CountDownLatch(1);
+        ExcelExportJob first = exportJobService.submit("报表", Row.class, () -> {
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rows(10);
+        }, -1, "user-1|report");
+
+        // 执行中和完成后都复用同一任务
+        assertSame(first, exportJobService.submit("报表", Row.class, () -> rows(10), -1, "user-1|report"));
+        release.countDown();
+        await(first);
+        assertSame(first, exportJobService.submit("报表", Row.class, () -> rows(10), -1, "user-1|report"));
+
+        // 不同去重键是新任务
+        ExcelExportJob other = exportJobService.submit("报表", Row.class, () -> rows(10), -1, "user-2|report");
+        assertNotSame(first, other);
+        await(other);
+    }
+
+    @Test
+    @DisplayName("导出失败后不复用测试")
+    void testFailedJob() throws Exception {
+        ExcelExportJob failed = exportJobService.submit("报表", Row.class, () -> () -> {
+            throw new IllegalStateException("数据库连接失败");
+        }, -1, "user-1|broken");
+        await(failed);
+
+        assertEquals(ExcelJob.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getErrorMessage().contains("数据库连接失败"));
+        assertNull(failed.getDownloadUrl());
+        assertNull(exportJobService.refreshDownloadUrl(failed.getJobId()));
+        verify(fileStorage, never()).store(any(InputStream.class), anyString(), anyString());
+
+        ExcelExportJob retry = exportJobService.submit("报表", Row.class, () -> rows(1), -1, "user-1|broken");
+        assertNotSame(failed, retry);
+    }
+
+    @Test
+    @DisplayName("任务过期时删除导出文件测试")
+    void testEvictionDeletesExport() throws Exception {
+        mockStorage();
+        ExcelExportJob job = exportJobService.submit("报表", Row.class, () -> rows(3), 3, "user-1|expired");
+        await(job);
+        assertEquals(ExcelJob.Status.SUCCESS, job.getStatus());
+
+        // 超过保留时长后，下一次提交时清理任务状态和导出文件
+        job.setFinishTime(job.getFinishTime().minus(ExcelExportJobService.JOB_RETENTION).minusMinutes(1));
+        ExcelExportJob next = exportJobService.submit("报表", Row.class, () -> rows(3), 3, "user-1|expired");
+        assertNotSame(job, next);
+        assertNull(exportJobService.getJob(job.getJobId()));
+        verify(fileStorage).delete(job.getPath());
+        await(next);
+    }
+}
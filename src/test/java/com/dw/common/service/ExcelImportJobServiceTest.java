@@ -0,0 +1,287 @@
+package com.dw.common.service;
+
+import com.alibaba.excel.EasyExcel;
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.dw.common.excel.ExcelErrorFileWriter;
+import com.dw.common.excel.ExcelImportJob;
+import com.dw.common.excel.ExcelJob;
+import com.dw.common.storage.FileStorage;
+import com.dw.common.utils.ExcelUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import jakarta.validation.constraints.NotBlank;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Excel异步导入服务测试")
+public class ExcelImportJobServiceTest {
+
+    public static class Item {
+        @ExcelProperty("名称")
+        @NotBlank(message = "名称不能为空")
+        private String name;
+
+        @ExcelProperty("序号")
+        private Integer seq;
+
+        public Item() {}
+
+        public Item(String name, Integer seq) {
+            this.name = name;
+            this.seq = seq;
+        }
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public Integer getSeq() { return seq; }
+        public void setSeq(Integer seq) { this.seq = seq; }
+    }
+
+    /**
+     * 内存文件存储
+     */
+    static class MemoryFileStorage implements FileStorage {
+        final Map<String, byte[]> files = new ConcurrentHashMap<>();
+
+        @Override
+        public String upload(MultipartFile file, String path) {
+            try {
+                return upload(file.getInputStream(), path, file.getContentType());
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public String upload(InputStream inputStream, String path, String contentType) {
+            try {
+                files.put(path, inputStream.readAllBytes());
+                return getUrl(path);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean delete(String path) {
+            return files.remove(path) != null;
+        }
+
+        @Override
+        public String getUrl(String path) {
+            return "http://localhost/files/" + path;
+        }
+
+        @Override
+        public boolean exists(String path) {
+            return files.containsKey(path);
+        }
+
+        @Override
+        public InputStream download(String path) {
+            byte[] content = files.get(path);
+            return content != null ? new ByteArrayInputStream(content) : null;
+        }
+    }
+
+    private static final int ROWS = 2500;
+    private static final int INVALID = ROWS / 7;
+
+    private ExcelImportJobService importJobService;
+    private MemoryFileStorage storage;
+
+    @BeforeEach
+    void setUp() {
+        importJobService = new ExcelImportJobService();
+        storage = new MemoryFileStorage();
+        ReflectionTestUtils.setField(importJobService, "fileStorage", storage);
+    }
+
+    private MockMultipartFile generateExcel() {
+        List<Item> items = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            // 每7行有1行名称为空
+            items.add(new Item(i % 7 == 0 ? "" : "条目" + i, i));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExcelUtils.exportExcel(response, items, Item.class, "条目");
+        return new MockMultipartFile("file", "items.xlsx",
+                "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", response.getContentAsByteArray());
+    }
+
+    private static void await(ExcelJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+        while (!job.getStatus().isFinished() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertTrue(job.getStatus().isFinished(), "任务未在20秒内完成");
+    }
+
+    private List<Map<Integer, String>> readErrorFile(ExcelImportJob job) {
+        return EasyExcel.read(new ByteArrayInputStream(storage.files.get(job.getErrorFilePath())))
+                .headRowNumber(0)
+                .sheet()
+                .doReadSync();
+    }
+
+    @Test
+    @DisplayName("检查点批量导入并生成错误文件测试")
+    void testImportWithErrorFile() throws Exception {
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        List<Integer> checkpoints = new CopyOnWriteArrayList<>();
+        CountDownLatch finished = new CountDownLatch(1);
+        importJobService.addListener(job -> {
+            checkpoints.add(job.getCheckpointRow());
+            if (job.getStatus().isFinished()) {
+                finished.countDown();
+            }
+        });
+
+        ExcelImportJob job = importJobService.submit(generateExcel(), Item.class, 500,
+                batch -> batchSizes.add(batch.size()));
+        // 等到结束通知之后再断言，避免与最后一次回调竞争
+        assertTrue(finished.await(20, TimeUnit.SECONDS), "任务未在20秒内完成");
+
+        assertEquals(ExcelJob.Status.SUCCESS, job.getStatus());
+        assertEquals(ROWS - INVALID, job.getSuccessCount());
+        assertEquals(INVALID, job.getFailCount());
+        assertEquals(ROWS, job.getProcessedRows());
+        assertEquals(ROWS, job.getTotalRows());
+        assertEquals(ROWS + 1, job.getCheckpointRow());
+        assertEquals(ROWS - INVALID, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 500));
+        // 开始、5个检查点、结束
+        assertEquals(List.of(0, 501, 1001, 1501, 2001, 2501, 2501), checkpoints);
+        // 导入成功后删除导入文件
+        assertFalse(storage.exists(job.getInputPath()));
+
+        // 错误文件：原表头加原行号、错误信息两列
+        assertNotNull(job.getErrorFileUrl());
+        List<Map<Integer, String>> rows = readErrorFile(job);
+        assertEquals(List.of("名称", "序号", ExcelErrorFileWriter.ROW_NUM_HEADER, ExcelErrorFileWriter.ERROR_HEADER),
+                new ArrayList<>(rows.get(0).values()));
+        assertEquals(INVALID + 1, rows.size());
+        assertEquals("7", rows.get(1).get(1));
+        assertEquals("8", rows.get(1).get(2));
+        assertTrue(rows.get(1).get(3).contains("名称不能为空"));
+    }
+
+    @Test
+    @DisplayName("失败后从检查点继续测试")
+    void testResumeFromCheckpoint() throws Exception {
+        List<Integer> received = new CopyOnWriteArrayList<>();
+        AtomicInteger calls = new AtomicInteger();
+
+        ExcelImportJob job = importJobService.submit(generateExcel(), Item.class, 500, batch -> {
+            if (calls.incrementAndGet() == 3) {
+                throw new IllegalStateException("数据库连接中断");
+            }
+            batch.forEach(item -> received.add(item.getSeq()));
+        });
+        await(job);
+
+        assertEquals(ExcelJob.Status.FAILED, job.getStatus());
+        assertTrue(job.getErrorMessage().contains("数据库连接中断"));
+        assertEquals(1001, job.getCheckpointRow());
+        String failedErrorFile = job.getErrorFilePath();
+        assertNotNull(failedErrorFile);
+        // 失败时保留导入文件用于续传
+        assertTrue(storage.exists(job.getInputPath()));
+
+        importJobService.resume(job.getJobId());
+        await(job);
+
+        assertEquals(ExcelJob.Status.SUCCESS, job.getStatus());
+        assertEquals(ROWS - INVALID, job.getSuccessCount());
+        assertEquals(INVALID, job.getFailCount());
+        // 检查点之前的数据不重复交给接收方
+        assertEquals(ROWS - INVALID, received.size());
+        assertEquals(ROWS - INVALID, new HashSet<>(received).size());
+
+        // 错误文件保留检查点之前的错误，且不重复
+        List<Map<Integer, String>> rows = readErrorFile(job);
+        List<String> errorRows = rows.subList(1, rows.size()).stream()
+                .map(row -> row.get(2))
+                .collect(Collectors.toList());
+        assertEquals(INVALID, errorRows.size());
+        assertEquals(INVALID, new HashSet<>(errorRows).size());
+        assertFalse(storage.exists(failedErrorFile));
+
+        assertThrows(IllegalStateException.class, () -> importJobService.resume(job.getJobId()));
+    }
+
+    @Test
+    @DisplayName("任务过期时删除导入文件和错误文件测试")
+    void testEvictionDeletesFiles() throws Exception {
+        ExcelImportJob failed = importJobService.submit(generateExcel(), Item.class, 500, batch -> {
+            throw new IllegalStateException("数据库连接中断");
+        });
+        await(failed);
+        assertEquals(ExcelJob.Status.FAILED, failed.getStatus());
+        assertTrue(storage.exists(failed.getInputPath()));
+        assertTrue(storage.exists(failed.getErrorFilePath()));
+
+        // 超过保留时长后，下一次提交时清理任务状态和文件
+        failed.setFinishTime(failed.getFinishTime().minus(ExcelImportJobService.JOB_RETENTION).minusMinutes(1));
+        ExcelImportJob next = importJobService.submit(generateExcel(), Item.class, 500, batch -> { });
+        assertNull(importJobService.getJob(failed.getJobId()));
+        assertFalse(storage.exists(failed.getInputPath()));
+        assertFalse(storage.exists(failed.getErrorFilePath()));
+        assertThrows(IllegalArgumentException.class, () -> importJobService.resume(failed.getJobId()));
+        await(next);
+    }
+
+    @Test
+    @DisplayName("导入线程池已满时拒绝提交测试")
+    void testRejectWhenExecutorFull() throws Exception {
+        ExcelImportJob failed = importJobService.submit(generateExcel(), Item.class, 500, batch -> {
+            throw new IllegalStateException("数据库连接中断");
+        });
+        await(failed);
+        int storedFiles = storage.files.size();
+
+        Executor full = command -> {
+            throw new RejectedExecutionException("队列已满");
+        };
+        ReflectionTestUtils.setField(importJobService, "importExecutor", full);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> importJobService.submit(generateExcel(), Item.class, 500, batch -> { }));
+        assertTrue(e.getMessage().contains("导入任务过多"));
+        // 未提交的任务不保留状态和导入文件
+        assertEquals(storedFiles, storage.files.size());
+
+        // 续传被拒绝时保持失败状态，之后仍可续传
+        e = assertThrows(IllegalStateException.class, () -> importJobService.resume(failed.getJobId()));
+        assertTrue(e.getMessage().contains("导入任务过多"));
+        assertEquals(ExcelJob.Status.FAILED, failed.getStatus());
+        assertTrue(failed.getErrorMessage().contains("数据库连接中断"));
+        assertNotNull(failed.getFinishTime());
+
+        ReflectionTestUtils.setField(importJobService, "importExecutor", null);
+        importJobService.resume(failed.getJobId());
+        await(failed);
+        assertEquals(ExcelJob.Status.FAILED, failed.getStatus());
+    }
+}
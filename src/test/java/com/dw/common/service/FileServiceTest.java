@@ -1,14 +1,24 @@
 package com.dw.common.service;
 
+import com.dw.common.config.FileStorageConfig;
+import com.dw.common.storage.BatchResult;
 import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.storage.StoredFile;
+import com.dw.common.storage.image.ImageVariantService;
+import com.dw.common.storage.quota.StorageAccounting;
+import com.dw.common.storage.signing.UrlSigner;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.multipart.MultipartFile;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,7 +26,16 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.ZipInputStream;
 
 @ExtendWith(MockitoExtension.class)
 @DisplayName("文件服务测试")
@@ -350,4 +369,224 @@ public class FileServiceTest {
         verify(fileStorage, times(supportedTypes.length))
             .upload(any(MultipartFile.class), anyString());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("异步上传图片测试")
+    void testUploadImageAsync() throws Exception {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setUrl("http://localhost:8080/files/images/2024/01/15/uuid.jpg");
+        when(fileStorage.store(any(InputStream.class), anyString(), anyString()))
+            .thenReturn(storedFile);
+
+        String actualUrl = fileService.uploadImageAsync(mockImageFile).get();
+
+        assertEquals(storedFile.getUrl(), actualUrl);
+    }
+
+    @Test
+    @DisplayName("异步上传失败和校验测试")
+    void testUploadFileAsyncFailure() {
+        when(fileStorage.store(any(InputStream.class), anyString(), anyString()))
+            .thenReturn(null);
+
+        // 存储失败通过Future传递
+        ExecutionException exception = assertThrows(ExecutionException.class,
+            () -> fileService.uploadFileAsync(mockDocumentFile).get());
+        assertEquals("文件上传失败", exception.getCause().getMessage());
+
+        // 参数校验同步抛出
+        assertThrows(IllegalArgumentException.class, () -> fileService.uploadImageAsync(mockInvalidFile));
+    }
+
+    @Test
+    @DisplayName("批量上传测试")
+    void testUploadAll() {
+        MockMultipartFile noExtension = new MockMultipartFile("file", "README", "text/plain", "content".getBytes());
+        when(fileStorage.uploadAll(anyMap(), any(), anyInt())).thenAnswer(invocation -> {
+            Map<String, MultipartFile> files = invocation.getArgument(0);
+            BatchResult result = new BatchResult();
+            for (String path : files.keySet()) {
+                StoredFile storedFile = new StoredFile();
+                storedFile.setUrl("http://localhost:8080/files/" + path);
+                result.getItems().add(BatchResult.Item.success(path, storedFile));
+            }
+            return result;
+        });
+
+        BatchResult result = fileService.uploadAll(List.of(mockImageFile, noExtension, mockDocumentFile));
+
+        assertEquals(3, result.getItems().size());
+        assertEquals(2, result.getSuccessCount());
+        assertTrue(result.getItems().get(0).getPath().endsWith(".jpg"));
+        assertFalse(result.getItems().get(1).isSuccess());
+        assertEquals("文件扩展名不能为空", result.getItems().get(1).getErrorMessage());
+        assertTrue(result.getItems().get(2).getPath().endsWith(".pdf"));
+    }
+
+    @Test
+    @DisplayName("批量删除测试")
+    void testDeleteAll() {
+        ImageVariantService imageVariantService = mock(ImageVariantService.class);
+        ReflectionTestUtils.setField(fileService, "imageVariantService", imageVariantService);
+        when(fileStorage.delete(anyString())).thenAnswer(invocation -> !"documents/c.pdf".equals(invocation.getArgument(0)));
+
+        BatchResult result = fileService.deleteAll(List.of(
+            "http://localhost:8080/files/images/a.jpg",
+            "http://localhost:8080/files/documents/b.pdf",
+            "http://localhost:8080/files/documents/c.pdf"
+        ));
+
+        assertEquals(2, result.getSuccessCount());
+        assertEquals("images/a.jpg", result.getItems().get(0).getPath());
+        assertEquals("documents/b.pdf", result.getItems().get(1).getPath());
+        assertFalse(result.getItems().get(2).isSuccess());
+        verify(fileStorage, times(3)).delete(anyString());
+        // 删除成功的文件同时清理图片变体
+        verify(imageVariantService).deleteVariants("images/a.jpg");
+        verify(imageVariantService).deleteVariants("documents/b.pdf");
+        verify(imageVariantService, never()).deleteVariants("documents/c.pdf");
+    }
+
+    @Test
+    @DisplayName("异步删除清理图片变体测试")
+    void testDeleteFileAsyncDeletesVariants() throws Exception {
+        ImageVariantService imageVariantService = mock(ImageVariantService.class);
+        ReflectionTestUtils.setField(fileService, "imageVariantService", imageVariantService);
+        when(fileStorage.delete("images/a.jpg")).thenReturn(true);
+
+        assertTrue(fileService.deleteFileAsync("http://localhost:8080/files/images/a.jpg").get());
+        verify(imageVariantService).deleteVariants("images/a.jpg");
+    }
+
+    @Test
+    @DisplayName("打包下载测试")
+    void testDownloadZip() throws Exception {
+        when(fileStorage.download(anyString()))
+            .thenAnswer(invocation -> new ByteArrayInputStream(("content of " + invocation.getArgument(0)).getBytes()));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        fileService.downloadZip(response, List.of(
+            "http://localhost:8080/files/images/a.jpg",
+            "http://localhost:8080/files/documents/b.pdf"
+        ), "附件");
+
+        assertEquals("application/zip", response.getContentType());
+        assertTrue(response.getHeader("Content-disposition").endsWith(".zip"));
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(response.getContentAsByteArray()))) {
+            assertEquals("a.jpg", zip.getNextEntry().getName());
+            assertEquals("content of images/a.jpg", new String(zip.readAllBytes()));
+            assertEquals("b.pdf", zip.getNextEntry().getName());
+            assertNull(zip.getNextEntry());
+        }
+
+        assertThrows(IllegalArgumentException.class,
+            () -> fileService.downloadZip(new MockHttpServletResponse(), List.of(), "empty"));
+    }
+
+    @Test
+    @DisplayName("上传内容校验测试")
+    void testUploadContentSniffing() {
+        // 存储实现读取内容时触发流式校验
+        when(fileStorage.upload(any(MultipartFile.class), anyString())).thenAnswer(invocation -> {
+            MultipartFile file = invocation.getArgument(0);
+            try (InputStream inputStream = file.getInputStream()) {
+                inputStream.readAllBytes();
+            } catch (IOException e) {
+                return null;
+            }
+            return "http://localhost:8080/files/" + invocation.getArgument(1);
+        });
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0, 0, 0, 13};
+        MockMultipartFile realImage = new MockMultipartFile("image", "real.png", "image/png", png);
+
+        assertTrue(fileService.uploadImage(realImage).endsWith(".png"));
+
+        IllegalArgumentException exception = assertThrows(
+            IllegalArgumentException.class,
+            () -> fileService.uploadImage(mockImageFile)
+        );
+        assertEquals("文件内容与类型不符: jpg", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("按记录的归属者扣减存储用量测试")
+    void testReleaseQuotaToStoredOwner(@TempDir Path tempDir) throws Exception {
+        LocalFileStorage localStorage = new LocalFileStorage(tempDir.toString(), "/files");
+        StorageAccounting accounting = new StorageAccounting(tempDir.resolve(".meta/usage.properties"), null, 0, 0);
+        FileService service = new FileService();
+        ReflectionTestUtils.setField(service, "fileStorage", localStorage);
+        ReflectionTestUtils.setField(service, "storageAccounting", accounting);
+        MockMultipartFile file = new MockMultipartFile("file", "a.txt", "text/plain", "hello".getBytes());
+
+        String syncUrl = service.uploadFile(file, "u1");
+        String asyncUrl = service.uploadFileAsync(file, "u1").get();
+        assertEquals(2, accounting.getOwnerUsage("u1").getFiles());
+        assertEquals(10, accounting.getOwnerUsage("u1").getBytes());
+
+        // URL去掉访问前缀后即存储路径，归属者记录在元数据中
+        String path = syncUrl.substring("/files/".length());
+        assertTrue(path.startsWith("files/"));
+        assertTrue(service.fileExists("http://localhost:8080" + syncUrl + "?expires=1&signature=x"));
+        assertEquals("u1", localStorage.getMetadata(path).getOwner());
+
+        // 删除时不指定归属者也按记录的归属者扣减
+        assertTrue(service.deleteFile(syncUrl));
+        assertTrue(service.deleteFileAsync(asyncUrl).get());
+        // 批量删除在各项任务中读取归属者并扣减
+        String batchUrl = service.uploadFile(file, "u1");
+        assertEquals(1, accounting.getOwnerUsage("u1").getFiles());
+        assertTrue(service.deleteAll(List.of(batchUrl)).isAllSuccess());
+        assertEquals(0, accounting.getOwnerUsage("u1").getFiles());
+        assertEquals(0, accounting.getOwnerUsage("u1").getBytes());
+        assertEquals(0, accounting.getCategoryUsages().get("files").getBytes());
+    }
+
+    @Test
+    @DisplayName("受保护目录上传返回签名URL测试")
+    void testSignedUploadUrl(@TempDir Path tempDir) throws Exception {
+        UrlSigner urlSigner = new UrlSigner("0123456789abcdef", Duration.ofMinutes(10));
+        LocalFileStorage localStorage = new LocalFileStorage(tempDir.toString(), "/files");
+        localStorage.setUrlSigner(urlSigner);
+        FileStorageConfig config = new FileStorageConfig();
+        config.getSigning().setEnabled(true);
+        config.getSigning().setProtectedPrefixes(List.of("/documents/"));
+        FileService service = new FileService();
+        ReflectionTestUtils.setField(service, "fileStorage", localStorage);
+        ReflectionTestUtils.setField(service, "fileStorageConfig", config);
+        MockMultipartFile document = new MockMultipartFile("file", "b.txt", "text/plain", "hello".getBytes());
+        MockMultipartFile file = new MockMultipartFile("file", "a.txt", "text/plain", "world".getBytes());
+
+        // 受保护目录返回签名URL，其余目录返回普通URL
+        String documentUrl = service.uploadDocument(document);
+        String asyncDocumentUrl = service.uploadDocumentAsync(document).get();
+        String fileUrl = service.uploadFile(file);
+        assertTrue(documentUrl.contains("?" + UrlSigner.PARAM_EXPIRES + "="));
+        assertTrue(asyncDocumentUrl.contains("&" + UrlSigner.PARAM_SIGNATURE + "="));
+        assertFalse(fileUrl.contains("?"));
+
+        String path = documentUrl.substring("/files/".length(), documentUrl.indexOf('?'));
+        String query = service.getSignedUrl(fileUrl).substring(fileUrl.length() + 1);
+        String[] params = query.split("&");
+        assertTrue(urlSigner.verify(fileUrl.substring("/files/".length()), params[0].split("=")[1], params[1].split("=")[1]));
+        assertTrue(service.getSignedUrl(documentUrl, Duration.ofSeconds(30)).startsWith("/files/" + path + "?"));
+        assertTrue(service.fileExists(documentUrl));
+
+        // 未配置受保护前缀时全部文件都需要签名
+        config.getSigning().setProtectedPrefixes(List.of());
+        assertTrue(service.uploadFile(file).contains("?"));
+        assertTrue(service.uploadAll(List.of(file)).getItems().get(0).getFile().getUrl().contains("?"));
+    }
+
+    @Test
+    @DisplayName("拒绝越出根目录和内部文件的URL测试")
+    void testRejectUnsafeUrls() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.writeZip(List.of("/files/../../etc/passwd"), out));
+        assertThrows(IllegalArgumentException.class,
+                () -> fileService.writeZip(List.of("/files/.meta/index.log"), out));
+        assertThrows(IllegalArgumentException.class, () -> fileService.getFileInfo("/files/images/./a.jpg"));
+        assertEquals(0, out.size());
+        verifyNoInteractions(fileStorage);
+    }
+}
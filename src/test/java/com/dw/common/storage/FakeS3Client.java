@@ -0,0 +1,275 @@
+package com.dw.common.storage;
+
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 进程内S3模拟客户端
+ * 支持普通上传、分片上传、Range下载、标签和列表，用于在无MinIO环境下测试S3FileStorage
+ */
+public class FakeS3Client implements S3Client {
+
+    private final ConcurrentSkipListMap<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+    private final Map<String, Map<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+    private final AtomicInteger uploadPartCalls = new AtomicInteger();
+    private final AtomicInteger rangeRequests = new AtomicInteger();
+    private final AtomicInteger activeParts = new AtomicInteger();
+    private final AtomicInteger maxActiveParts = new AtomicInteger();
+    private final AtomicInteger partsAfterAbort = new AtomicInteger();
+    private volatile long partDelayMillis = 0;
+    private volatile int failingPart = 0;
+
+    @Override
+    public String serviceName() {
+        return "s3";
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public PutObjectResponse putObject(PutObjectRequest request, RequestBody requestBody) {
+        byte[] data = readAll(requestBody);
+        objects.put(request.key(), new StoredObject(data, request.contentType(), request.metadata()));
+        return PutObjectResponse.builder().eTag(etag(data)).build();
+    }
+
+    @Override
+    public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+        String uploadId = UUID.randomUUID().toString();
+        uploads.put(uploadId, new ConcurrentHashMap<>());
+        return CreateMultipartUploadResponse.builder().uploadId(uploadId).key(request.key()).build();
+    }
+
+    @Override
+    public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody requestBody) {
+        uploadPartCalls.incrementAndGet();
+        int active = activeParts.incrementAndGet();
+        maxActiveParts.accumulateAndGet(active, Math::max);
+        try {
+            if (request.partNumber() == failingPart) {
+                Thread.sleep(partDelayMillis / 4);
+                throw (S3Exception) S3Exception.builder().statusCode(500).message("InternalError").build();
+            }
+            if (partDelayMillis > 0) {
+                Thread.sleep(partDelayMillis);
+            }
+            byte[] data = readAll(requestBody);
+            Map<Integer, byte[]> parts = uploads.get(request.uploadId());
+            if (parts == null) {
+                partsAfterAbort.incrementAndGet();
+                throw (S3Exception) S3Exception.builder().statusCode(404).message("NoSuchUpload").build();
+            }
+            parts.put(request.partNumber(), data);
+            return UploadPartResponse.builder().eTag(etag(data)).build();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            activeParts.decrementAndGet();
+        }
+    }
+
+    @Override
+    public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+        Map<Integer, byte[]> parts = uploads.remove(request.uploadId());
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (CompletedPart part : request.multipartUpload().parts()) {
+            out.writeBytes(parts.get(part.partNumber()));
+        }
+        objects.put(request.key(), new StoredObject(out.toByteArray(), null, Map.of()));
+        return CompleteMultipartUploadResponse.builder().key(request.key()).build();
+    }
+
+    @Override
+    public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+        uploads.remove(request.uploadId());
+        return AbortMultipartUploadResponse.builder().build();
+    }
+
+    @Override
+    public PutObjectTaggingResponse putObjectTagging(PutObjectTaggingRequest request) {
+        object(request.key()).tags = new ArrayList<>(request.tagging().tagSet());
+        return PutObjectTaggingResponse.builder().build();
+    }
+
+    @Override
+    public GetObjectTaggingResponse getObjectTagging(GetObjectTaggingRequest request) {
+        return GetObjectTaggingResponse.builder().tagSet(object(request.key()).tags).build();
+    }
+
+    @Override
+    public HeadObjectResponse headObject(HeadObjectRequest request) {
+        StoredObject object = object(request.key());
+        return HeadObjectResponse.builder()
+                .contentLength((long) object.data.length)
+                .contentType(object.contentType)
+                .metadata(object.metadata)
+                .eTag(etag(object.data))
+                .lastModified(object.lastModified)
+                .build();
+    }
+
+    @Override
+    public <ReturnT> ReturnT getObject(GetObjectRequest request,
+                                       ResponseTransformer<GetObjectResponse, ReturnT> transformer) {
+        StoredObject object = object(request.key());
+        if (request.ifMatch() != null && !request.ifMatch().equals(etag(object.data))) {
+            throw (S3Exception) S3Exception.builder().statusCode(412).message("PreconditionFailed").build();
+        }
+
+        int start = 0;
+        int end = object.data.length - 1;
+        if (request.range() != null) {
+            rangeRequests.incrementAndGet();
+            String[] range = request.range().substring("bytes=".length()).split("-");
+            start = Integer.parseInt(range[0]);
+            end = Math.min(Integer.parseInt(range[1]), end);
+        }
+
+        InputStream body = new ByteArrayInputStream(object.data, start, end - start + 1);
+        GetObjectResponse response = GetObjectResponse.builder()
+                .contentLength((long) (end - start + 1))
+                .contentType(object.contentType)
+                .eTag(etag(object.data))
+                .build();
+        try {
+            return transformer.transform(response, AbortableInputStream.create(body));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Override
+    public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+        return getObject(request, ResponseTransformer.toBytes());
+    }
+
+    @Override
+    public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+        objects.remove(request.key());
+        return DeleteObjectResponse.builder().build();
+    }
+
+    @Override
+    public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+        String prefix = request.prefix() != null ? request.prefix() : "";
+        int maxKeys = request.maxKeys() != null ? request.maxKeys() : 1000;
+        Map<String, StoredObject> view = request.startAfter() != null
+                ? objects.tailMap(request.startAfter(), false)
+                : objects.tailMap(prefix, true);
+
+        List<S3Object> contents = new ArrayList<>();
+        for (Map.Entry<String, StoredObject> entry : view.entrySet()) {
+            if (!entry.getKey().startsWith(prefix) || contents.size() >= maxKeys) {
+                break;
+            }
+            contents.add(S3Object.builder()
+                    .key(entry.getKey())
+                    .size((long) entry.getValue().data.length)
+                    .lastModified(entry.getValue().lastModified)
+                    .build());
+        }
+        return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).build();
+    }
+
+    /**
+     * 设置每个分片上传的模拟延迟，用于验证并行度
+     */
+    public void setPartDelayMillis(long partDelayMillis) {
+        this.partDelayMillis = partDelayMillis;
+    }
+
+    /**
+     * 设置上传失败的分片号（经过1/4的分片延迟后失败），0表示不失败
+     */
+    public void setFailingPart(int failingPart) {
+        this.failingPart = failingPart;
+    }
+
+    public byte[] getObjectData(String key) {
+        StoredObject object = objects.get(key);
+        return object != null ? object.data : null;
+    }
+
+    public int getUploadPartCalls() {
+        return uploadPartCalls.get();
+    }
+
+    public int getRangeRequests() {
+        return rangeRequests.get();
+    }
+
+    public int getMaxActiveParts() {
+        return maxActiveParts.get();
+    }
+
+    public int getActiveParts() {
+        return activeParts.get();
+    }
+
+    public int getPendingUploads() {
+        return uploads.size();
+    }
+
+    /**
+     * 上传已取消后才写入的分片数
+     */
+    public int getPartsAfterAbort() {
+        return partsAfterAbort.get();
+    }
+
+    private StoredObject object(String key) {
+        StoredObject object = objects.get(key);
+        if (object == null) {
+            throw (NoSuchKeyException) NoSuchKeyException.builder().statusCode(404).message("NoSuchKey").build();
+        }
+        return object;
+    }
+
+    private static byte[] readAll(RequestBody requestBody) {
+        try (InputStream in = requestBody.contentStreamProvider().newStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String etag(byte[] data) {
+        return "\"" + Integer.toHexString(java.util.Arrays.hashCode(data)) + "-" + data.length + "\"";
+    }
+
+    private static class StoredObject {
+        private final byte[] data;
+        private final String contentType;
+        private final Map<String, String> metadata;
+        private final Instant lastModified = Instant.now();
+        private List<Tag> tags = new ArrayList<>();
+
+        StoredObject(byte[] data, String contentType, Map<String, String> metadata) {
+            this.data = data;
+            this.contentType = contentType;
+            this.metadata = metadata;
+        }
+    }
+}
@@ -1,19 +1,49 @@
 package com.dw.common.storage;
 
+import com.dw.common.config.FileStorageConfig;
+import com.dw.common.storage.metadata.LocalFileMetadataIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.HttpRequestHandler;
+import org.springframework.web.context.support.GenericWebApplicationContext;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.handler.AbstractHandlerMapping;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+import org.springframework.web.util.ServletRequestPathUtils;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
 
 @DisplayName("本地文件存储测试")
 public class LocalFileStorageTest {
@@ -267,6 +297,27 @@ public class LocalFileStorageTest {
         assertFalse(localStorage.exists(specialPath));
     }
 
+    @Test
+    @DisplayName("路径越出根目录测试")
+    void testPathOutsideRoot() throws IOException {
+        Path outside = tempDir.getParent().resolve(tempDir.getFileName() + "-outside.txt");
+        Files.writeString(outside, "secret");
+        try {
+            String escaped = "../" + outside.getFileName();
+            assertThrows(IllegalArgumentException.class, () -> localStorage.download(escaped));
+            assertThrows(IllegalArgumentException.class, () -> localStorage.exists("docs/../../" + outside.getFileName()));
+            assertNull(localStorage.store(new ByteArrayInputStream("x".getBytes()), escaped, "text/plain"));
+            assertFalse(localStorage.delete(escaped));
+            assertEquals("secret", Files.readString(outside));
+
+            // 以 / 开头的路径仍相对于根目录
+            localStorage.upload(new ByteArrayInputStream("a".getBytes()), "/abs/a.txt", "text/plain");
+            assertTrue(Files.exists(tempDir.resolve("abs/a.txt")));
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+
     @Test
     @DisplayName("大文件上传测试")
     void testLargeFileUpload() throws IOException {
@@ -331,4 +382,423 @@ public class LocalFileStorageTest {
             assertTrue(result);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("上传时同步计算摘要测试")
+    void testStoreComputesChecksum() throws Exception {
+        byte[] content = "Checksum Content".getBytes();
+        String storagePath = "checksum/test.txt";
+
+        StoredFile storedFile = localStorage.store(new ByteArrayInputStream(content), storagePath, "text/plain");
+
+        assertNotNull(storedFile);
+        assertEquals(storagePath, storedFile.getPath());
+        assertEquals(urlPrefix + "/" + storagePath, storedFile.getUrl());
+        assertEquals(content.length, storedFile.getSize());
+        assertEquals("text/plain", storedFile.getContentType());
+        assertNotNull(storedFile.getCreatedAt());
+
+        String expectedSha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        assertEquals(expectedSha256, storedFile.getSha256());
+        assertEquals("\"" + expectedSha256 + "\"", storedFile.getEtag());
+
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(content);
+        assertEquals(String.format("%08x", crc32c.getValue()), storedFile.getCrc32c());
+    }
+
+    @Test
+    @DisplayName("元数据旁路文件读取测试")
+    void testGetMetadata() {
+        String storagePath = "meta/test.txt";
+        StoredFile storedFile = localStorage.store(
+            new ByteArrayInputStream("Metadata".getBytes()), storagePath, "text/plain"
+        );
+
+        StoredFile metadata = localStorage.getMetadata(storagePath);
+
+        assertNotNull(metadata);
+        assertEquals(storedFile.getSha256(), metadata.getSha256());
+        assertEquals(storedFile.getCrc32c(), metadata.getCrc32c());
+        assertEquals(storedFile.getSize(), metadata.getSize());
+        assertEquals("text/plain", metadata.getContentType());
+
+        // 删除文件后元数据同步删除
+        assertTrue(localStorage.delete(storagePath));
+        assertNull(localStorage.getMetadata(storagePath));
+    }
+
+    @Test
+    @DisplayName("上传失败不残留临时文件测试")
+    void testStoreFailureLeavesNoTempFile() throws IOException {
+        InputStream failingStream = new InputStream() {
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ > 10) {
+                    throw new IOException("模拟读取失败");
+                }
+                return 'a';
+            }
+        };
+
+        assertNull(localStorage.store(failingStream, "fail/test.txt", "text/plain"));
+
+        Path dir = tempDir.resolve("fail");
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("使用元数据索引回答存在性和大小查询测试")
+    void testMetadataIndex() throws IOException {
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(tempDir.resolve(".meta/index.log"))) {
+            localStorage.setMetadataIndex(index);
+
+            String storagePath = "indexed/test.txt";
+            localStorage.store(new ByteArrayInputStream("Indexed".getBytes()), storagePath, "text/plain");
+
+            // 直接删除磁盘文件，查询结果仍来自索引，说明未访问文件系统
+            Files.delete(tempDir.resolve(storagePath));
+            assertTrue(localStorage.exists(storagePath));
+            assertEquals(7, localStorage.size(storagePath));
+            assertEquals(1, localStorage.list("indexed/", null, 10).size());
+
+            localStorage.delete(storagePath);
+            assertFalse(localStorage.exists(storagePath));
+            assertEquals(-1, localStorage.size(storagePath));
+        }
+    }
+
+    @Test
+    @DisplayName("启用索引前已有文件的回退查询与补写测试")
+    void testMetadataIndexBackfill() throws IOException {
+        localStorage.store(new ByteArrayInputStream("before".getBytes()), "old/a.txt", "text/plain");
+        localStorage.store(new ByteArrayInputStream("before-2".getBytes()), "old/b.txt", "text/plain");
+        localStorage.store(new ByteArrayInputStream("before-3".getBytes()), "old/c.txt", "text/plain");
+
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(tempDir.resolve(".meta/index.log"))) {
+            localStorage.setMetadataIndex(index);
+
+            // 索引未命中时回退到文件系统，并补写索引
+            assertTrue(localStorage.exists("old/a.txt"));
+            assertTrue(index.contains("old/a.txt"));
+            assertEquals(8, localStorage.size("old/b.txt"));
+            assertNotNull(localStorage.getMetadata("old/b.txt").getSha256());
+            assertFalse(localStorage.exists("old/missing.txt"));
+
+            assertEquals(1, localStorage.backfillMetadataIndex(2));
+            assertEquals(List.of("old/a.txt", "old/b.txt", "old/c.txt"),
+                    localStorage.list("old/", null, 10).stream().map(StoredFile::getPath).toList());
+            assertEquals(0, localStorage.backfillMetadataIndex(2));
+        }
+    }
+
+    @Test
+    @DisplayName("异步上传和读取测试")
+    void testAsyncStoreAndDownload() throws Exception {
+        // 超过一个异步分块，验证多次回调续写
+        byte[] data = new byte[200 * 1024 + 17];
+        new Random(42).nextBytes(data);
+        String storagePath = "async/data.bin";
+
+        StoredFile storedFile = localStorage.storeAsync(new ByteArrayInputStream(data), storagePath,
+                "application/octet-stream").get(10, TimeUnit.SECONDS);
+
+        assertNotNull(storedFile);
+        assertEquals(data.length, storedFile.getSize());
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data)),
+                storedFile.getSha256());
+        assertArrayEquals(data, Files.readAllBytes(tempDir.resolve(storagePath)));
+        assertEquals(storedFile.getSha256(), localStorage.getMetadata(storagePath).getSha256());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long read = localStorage.downloadAsync(storagePath, out).get(10, TimeUnit.SECONDS);
+        assertEquals(data.length, read);
+        assertArrayEquals(data, out.toByteArray());
+
+        assertEquals(-1L, localStorage.downloadAsync("async/missing.bin", out).get());
+        assertTrue(localStorage.existsAsync(storagePath).get());
+        assertTrue(localStorage.deleteAsync(storagePath).get());
+        assertFalse(localStorage.existsAsync(storagePath).get());
+    }
+
+    @Test
+    @DisplayName("异步上传源数据读取失败测试")
+    void testAsyncStoreFailureLeavesNoTempFile() throws Exception {
+        InputStream failing = new InputStream() {
+            private int remaining = 100 * 1024;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("模拟读取失败");
+                }
+                return 1;
+            }
+        };
+
+        StoredFile storedFile = localStorage.storeAsync(failing, "async/broken.bin", "application/octet-stream")
+                .get(10, TimeUnit.SECONDS);
+
+        assertNull(storedFile);
+        assertFalse(Files.exists(tempDir.resolve("async/broken.bin")));
+        try (var files = Files.list(tempDir.resolve("async"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("批量上传和删除测试")
+    void testBatchUploadAndDelete() throws Exception {
+        Map<String, MultipartFile> files = new LinkedHashMap<>();
+        for (int i = 0; i < 30; i++) {
+            String path = "batch/dir" + (i % 3) + "/file" + i + ".txt";
+            files.put(path, new MockMultipartFile("f", "file" + i + ".txt", "text/plain", ("content" + i).getBytes()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            BatchResult uploadResult = localStorage.uploadAll(files, executor, 4);
+
+            assertTrue(uploadResult.isAllSuccess());
+            assertEquals(30, uploadResult.getItems().size());
+            List<String> paths = new ArrayList<>(files.keySet());
+            for (int i = 0; i < paths.size(); i++) {
+                BatchResult.Item item = uploadResult.getItems().get(i);
+                assertEquals(paths.get(i), item.getPath());
+                assertEquals("content" + i, Files.readString(tempDir.resolve(paths.get(i))));
+                assertEquals(urlPrefix + "/" + paths.get(i), item.getFile().getUrl());
+            }
+
+            List<String> toDelete = new ArrayList<>(paths);
+            toDelete.add(1, "batch/dir0/missing.txt");
+            BatchResult deleteResult = localStorage.deleteAll(toDelete, executor, 4);
+
+            assertEquals(30, deleteResult.getSuccessCount());
+            assertEquals(1, deleteResult.getFailCount());
+            assertEquals("batch/dir0/missing.txt", deleteResult.getFailedItems().get(0).getPath());
+            assertFalse(deleteResult.getItems().get(1).isSuccess());
+            for (String path : paths) {
+                assertFalse(Files.exists(tempDir.resolve(path)));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("目录流式分页列表测试")
+    void testListPagesWithoutIndex() throws IOException {
+        List<String> expected = new ArrayList<>();
+        for (String dir : new String[]{"img/2024/01/a0", "img/2024/01/b1", "img/2024/02/c2"}) {
+            for (int i = 0; i < 4; i++) {
+                String path = dir + "/f" + i + ".jpg";
+                localStorage.upload(new ByteArrayInputStream(new byte[i + 1]), path, "image/jpeg");
+                expected.add(path);
+            }
+        }
+        // 空目录和隐藏的临时文件不应影响分页
+        Files.createDirectories(tempDir.resolve("img/2024/01/a5"));
+        Files.createDirectories(tempDir.resolve("img/2024/01/a6"));
+        Files.writeString(tempDir.resolve("img/2024/01/b1/.upload-1.tmp"), "tmp");
+        Collections.sort(expected);
+
+        List<String> actual = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            StoragePage page = localStorage.listPage("img/", cursor, 5);
+            page.getItems().forEach(item -> actual.add(item.getPath()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertEquals(expected, actual);
+        assertEquals(3, pages);
+
+        // 前缀按名称匹配
+        List<StoredFile> january = localStorage.list("img/2024/01", null, 100);
+        assertEquals(8, january.size());
+        assertEquals(3, january.get(2).getSize());
+        assertEquals(urlPrefix + "/img/2024/01/a0/f2.jpg", january.get(2).getUrl());
+        assertEquals(4, localStorage.list("img/2024/02/", null, 100).size());
+        assertEquals(0, localStorage.list("img/2025", null, 100).size());
+
+        // 游标在目录中间时从下一个文件继续
+        List<StoredFile> resumed = localStorage.list("img/", "img/2024/01/b1/f1.jpg", 3);
+        assertEquals("img/2024/01/b1/f2.jpg", resumed.get(0).getPath());
+        assertEquals("img/2024/02/c2/f0.jpg", resumed.get(2).getPath());
+    }
+
+    @Test
+    @DisplayName("落盘压缩读写测试")
+    void testAtRestCompression() throws Exception {
+        AtRestCompression compression = new AtRestCompression(6, 1024, 0.9);
+        localStorage.setCompression(compression);
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            csv.append(i).append(",name").append(i).append(",2024-01-01\n");
+        }
+        byte[] content = csv.toString().getBytes();
+
+        StoredFile storedFile = localStorage.store(new ByteArrayInputStream(content), "docs/data.csv", "text/csv");
+
+        // 磁盘上是gzip内容，元数据记录原始大小和原始内容摘要
+        assertEquals("gzip", storedFile.getEncoding());
+        assertEquals(content.length, storedFile.getSize());
+        long diskSize = Files.size(tempDir.resolve("docs/data.csv"));
+        assertEquals(diskSize, storedFile.getStoredSize());
+        assertTrue(diskSize < content.length / 4);
+        assertEquals(HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content)),
+                storedFile.getSha256());
+        assertEquals("gzip", localStorage.getMetadata("docs/data.csv").getEncoding());
+        assertEquals(content.length, localStorage.size("docs/data.csv"));
+
+        // 读取时透明解压（同步和异步）
+        try (InputStream inputStream = localStorage.download("docs/data.csv")) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, localStorage.downloadAsync("docs/data.csv", out).get(10, TimeUnit.SECONDS));
+        assertArrayEquals(content, out.toByteArray());
+
+        assertEquals(1, compression.getCompressedFiles());
+        assertEquals(content.length, compression.getOriginalBytes());
+        assertTrue(compression.getRatio() < 0.25);
+
+        // 关闭压缩后已压缩的文件仍可读取
+        localStorage.setCompression(null);
+        try (InputStream inputStream = localStorage.download("docs/data.csv")) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("落盘压缩跳过不适合压缩的文件测试")
+    void testAtRestCompressionSkipsUnsuitableFiles() throws IOException {
+        AtRestCompression compression = new AtRestCompression(6, 1024, 0.9);
+        localStorage.setCompression(compression);
+        byte[] random = new byte[8192];
+        new Random(42).nextBytes(random);
+        byte[] text = "x".repeat(8192).getBytes();
+
+        // 图片等已压缩格式、小文件、压缩效果差的文件都按原样保存
+        StoredFile image = localStorage.store(new ByteArrayInputStream(text), "img/a.jpg", "image/jpeg");
+        StoredFile small = localStorage.store(new ByteArrayInputStream("hello".getBytes()), "docs/a.txt", "text/plain");
+        StoredFile noisy = localStorage.store(new ByteArrayInputStream(random), "docs/b.txt", "text/plain");
+
+        assertNull(image.getEncoding());
+        assertNull(small.getEncoding());
+        assertNull(noisy.getEncoding());
+        assertArrayEquals(text, Files.readAllBytes(tempDir.resolve("img/a.jpg")));
+        assertArrayEquals(random, Files.readAllBytes(tempDir.resolve("docs/b.txt")));
+        assertEquals(0, compression.getCompressedFiles());
+        assertEquals(2, compression.getSkippedFiles());
+        try (InputStream inputStream = localStorage.download("docs/b.txt")) {
+            assertArrayEquals(random, inputStream.readAllBytes());
+        }
+        // 不留下临时文件
+        try (var files = Files.list(tempDir.resolve("docs"))) {
+            assertEquals(2, files.count());
+        }
+    }
+
+    @Test
+    @DisplayName("压缩文件元数据写入失败时上传失败测试")
+    void testAtRestCompressionMetadataFailure() throws IOException {
+        localStorage.setCompression(new AtRestCompression(6, 1024, 0.9));
+        byte[] text = "line\n".repeat(2000).getBytes();
+        // 元数据旁路文件位置被目录占用，无法写入
+        Files.createDirectories(tempDir.resolve(".meta/docs/c.txt.properties"));
+
+        assertNull(localStorage.store(new ByteArrayInputStream(text), "docs/c.txt", "text/plain"));
+        assertFalse(Files.exists(tempDir.resolve("docs/c.txt")));
+        assertFalse(localStorage.exists("docs/c.txt"));
+
+        // 未压缩文件不受影响
+        Files.createDirectories(tempDir.resolve(".meta/img/c.jpg.properties"));
+        StoredFile image = localStorage.store(new ByteArrayInputStream(text), "img/c.jpg", "image/jpeg");
+        assertNotNull(image);
+        assertArrayEquals(text, Files.readAllBytes(tempDir.resolve("img/c.jpg")));
+    }
+
+    @Test
+    @DisplayName("Accept-Encoding的q值解析测试")
+    void testAcceptEncodingQuality() {
+        assertTrue(CompressedResourceResolver.acceptsGzip("gzip, deflate, br"));
+        assertTrue(CompressedResourceResolver.acceptsGzip("br;q=1.0, gzip;q=0.8"));
+        assertTrue(CompressedResourceResolver.acceptsGzip("*"));
+        assertFalse(CompressedResourceResolver.acceptsGzip("gzip;q=0"));
+        assertFalse(CompressedResourceResolver.acceptsGzip("gzip;q=0.000, *;q=1"));
+        assertFalse(CompressedResourceResolver.acceptsGzip("*;q=0"));
+        assertFalse(CompressedResourceResolver.acceptsGzip("identity"));
+        assertFalse(CompressedResourceResolver.acceptsGzip(null));
+    }
+
+    @Test
+    @DisplayName("内部元数据文件不对外提供测试")
+    void testInternalFilesNotServed() throws Exception {
+        localStorage.store(new ByteArrayInputStream("hello".getBytes()), "docs/a.txt", "text/plain");
+        Files.createDirectories(tempDir.resolve(".meta"));
+        Files.writeString(tempDir.resolve(".meta/index.log"), "PUT docs/a.txt");
+        Files.createDirectories(tempDir.resolve(".variants/img/a.jpg"));
+        Files.write(tempDir.resolve(".variants/img/a.jpg/thumb.jpg"), new byte[]{1, 2, 3});
+
+        FileStorageConfig config = new FileStorageConfig();
+        config.setType("local");
+        config.setRootPath(tempDir.toString());
+        config.setUrlPrefix(urlPrefix);
+        ObjectProvider<FileStorage> provider = new StaticListableBeanFactory(Map.of("fileStorage", localStorage))
+                .getBeanProvider(FileStorage.class);
+        ReflectionTestUtils.setField(config, "fileStorageProvider", provider);
+        MockServletContext servletContext = new MockServletContext();
+        GenericWebApplicationContext context = new GenericWebApplicationContext(servletContext);
+        context.refresh();
+        var registry = new ResourceHandlerRegistry(context, servletContext) {
+            @Override
+            public AbstractHandlerMapping getHandlerMapping() {
+                return super.getHandlerMapping();
+            }
+        };
+        config.addResourceHandlers(registry);
+        AbstractHandlerMapping mapping = registry.getHandlerMapping();
+        mapping.setApplicationContext(context);
+
+        assertEquals(404, serve(mapping, "/files/.meta/index.log").getStatus());
+        assertEquals(404, serve(mapping, "/files/.meta/docs/a.txt.properties").getStatus());
+        assertEquals(404, serve(mapping, "/files/%2emeta/index.log").getStatus());
+        assertEquals(404, serve(mapping, "/files/.variants/../.meta/index.log").getStatus());
+        MockHttpServletResponse response = serve(mapping, "/files/docs/a.txt");
+        assertEquals(200, response.getStatus());
+        assertEquals("hello", response.getContentAsString());
+        assertEquals(200, serve(mapping, "/files/.variants/img/a.jpg/thumb.jpg").getStatus());
+
+        assertTrue(LocalFileStorage.isInternalPath(".upload-1.tmp"));
+        assertTrue(LocalFileStorage.isInternalPath("docs/.hidden"));
+        assertFalse(LocalFileStorage.isInternalPath("docs/a.txt"));
+        assertFalse(LocalFileStorage.isInternalPath("/.variants/img/a.jpg/thumb.jpg"));
+        assertTrue(LocalFileStorage.isInternalPath("img/.variants/a.jpg"));
+    }
+
+    private MockHttpServletResponse serve(AbstractHandlerMapping mapping, String uri) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ServletRequestPathUtils.parseAndCache(request);
+        HandlerExecutionChain chain = mapping.getHandler(request);
+        if (chain == null) {
+            response.setStatus(404);
+            return response;
+        }
+        for (HandlerInterceptor interceptor : chain.getInterceptorList()) {
+            interceptor.preHandle(request, response, chain.getHandler());
+        }
+        try {
+            ((HttpRequestHandler) chain.getHandler()).handleRequest(request, response);
+        } catch (NoResourceFoundException e) {
+            response.setStatus(404);
+        }
+        return response;
+    }
+}
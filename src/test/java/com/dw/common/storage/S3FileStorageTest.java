@@ -0,0 +1,259 @@
+package com.dw.common.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import software.amazon.awssdk.core.ResponseBytes;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("S3对象存储测试")
+public class S3FileStorageTest {
+
+    private static final int PART_SIZE = S3FileStorage.MIN_PART_SIZE;
+
+    private FakeS3Client s3Client;
+    private S3FileStorage s3Storage;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = new FakeS3Client();
+        s3Storage = new S3FileStorage(s3Client, "test-bucket", "http://cdn.example.com", PART_SIZE, 4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        s3Storage.close();
+    }
+
+    private byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    @DisplayName("小文件单次上传测试")
+    void testSmallUpload() throws Exception {
+        MockMultipartFile file = new MockMultipartFile("f", "a.txt", "text/plain", "Hello S3".getBytes());
+
+        StoredFile storedFile = s3Storage.store(file, "docs/a.txt");
+
+        assertNotNull(storedFile);
+        assertEquals("http://cdn.example.com/docs/a.txt", storedFile.getUrl());
+        assertEquals(8, storedFile.getSize());
+        assertArrayEquals("Hello S3".getBytes(), s3Client.getObjectData("docs/a.txt"));
+        assertEquals(0, s3Client.getUploadPartCalls());
+
+        StoredFile metadata = s3Storage.getMetadata("docs/a.txt");
+        assertEquals(storedFile.getSha256(), metadata.getSha256());
+        assertEquals("text/plain", metadata.getContentType());
+    }
+
+    @Test
+    @DisplayName("大文件分片并行上传测试")
+    void testMultipartUpload() throws Exception {
+        byte[] data = randomBytes(PART_SIZE * 10 + 123);
+        s3Client.setPartDelayMillis(50);
+
+        StoredFile storedFile = s3Storage.store(new ByteArrayInputStream(data), "big/data.bin", "application/octet-stream");
+
+        assertNotNull(storedFile);
+        assertEquals(data.length, storedFile.getSize());
+        assertArrayEquals(data, s3Client.getObjectData("big/data.bin"));
+        assertEquals(11, s3Client.getUploadPartCalls());
+        assertTrue(s3Client.getMaxActiveParts() > 1, "分片应并行上传");
+        assertTrue(s3Client.getMaxActiveParts() <= 4, "并行分片数不应超过配置");
+
+        String expectedSha256 = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        assertEquals(expectedSha256, storedFile.getSha256());
+        assertEquals(expectedSha256, s3Storage.getMetadata("big/data.bin").getSha256());
+    }
+
+    @Test
+    @DisplayName("文件大小恰好为分片整数倍测试")
+    void testExactMultipleOfPartSize() {
+        byte[] data = randomBytes(PART_SIZE * 3);
+
+        StoredFile storedFile = s3Storage.store(new ByteArrayInputStream(data), "exact.bin", null);
+
+        assertNotNull(storedFile);
+        assertArrayEquals(data, s3Client.getObjectData("exact.bin"));
+        assertEquals(3, s3Client.getUploadPartCalls());
+    }
+
+    @Test
+    @DisplayName("分片上传失败时取消上传测试")
+    void testMultipartUploadFailureAborts() {
+        InputStream failing = new InputStream() {
+            private int count = 0;
+
+            @Override
+            public int read() throws IOException {
+                if (count++ >= PART_SIZE * 2) {
+                    throw new IOException("模拟读取失败");
+                }
+                return 1;
+            }
+        };
+
+        assertNull(s3Storage.store(failing, "broken.bin", null));
+        assertNull(s3Client.getObjectData("broken.bin"));
+        assertEquals(0, s3Client.getPendingUploads());
+    }
+
+    @Test
+    @DisplayName("分片上传失败时等进行中的分片结束再取消测试")
+    void testAbortAfterInFlightParts() {
+        s3Client.setPartDelayMillis(200);
+        s3Client.setFailingPart(1);
+
+        assertNull(s3Storage.store(new ByteArrayInputStream(randomBytes(PART_SIZE * 6)), "failed.bin", null));
+        // 返回时已没有进行中的分片
+        assertEquals(0, s3Client.getActiveParts());
+        assertNull(s3Client.getObjectData("failed.bin"));
+        assertEquals(0, s3Client.getPendingUploads());
+        assertEquals(0, s3Client.getPartsAfterAbort());
+
+        // 失败后缓冲区全部归还，后续上传不受影响
+        s3Client.setFailingPart(0);
+        s3Client.setPartDelayMillis(0);
+        byte[] data = randomBytes(PART_SIZE * 3 + 5);
+        assertNotNull(s3Storage.store(new ByteArrayInputStream(data), "retry.bin", null));
+        assertArrayEquals(data, s3Client.getObjectData("retry.bin"));
+    }
+
+    @Test
+    @DisplayName("多个文件同时分片上传共用缓冲池测试")
+    void testConcurrentMultipartUploads() throws Exception {
+        s3Client.setPartDelayMillis(20);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<StoredFile>> futures = new ArrayList<>();
+            for (int i = 0; i < 4; i++) {
+                byte[] data = randomBytes(PART_SIZE * 3 + i);
+                String path = "concurrent/" + i + ".bin";
+                futures.add(executor.submit(() -> s3Storage.store(new ByteArrayInputStream(data), path, null)));
+            }
+            for (int i = 0; i < 4; i++) {
+                assertNotNull(futures.get(i).get(30, TimeUnit.SECONDS));
+                assertArrayEquals(randomBytes(PART_SIZE * 3 + i), s3Client.getObjectData("concurrent/" + i + ".bin"));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("不足一个分片的文件单次上传测试")
+    void testSinglePutBelowPartSize() {
+        byte[] data = randomBytes(PART_SIZE - 1);
+
+        StoredFile storedFile = s3Storage.store(new ByteArrayInputStream(data), "medium.bin", null);
+
+        assertNotNull(storedFile);
+        assertEquals(data.length, storedFile.getSize());
+        assertArrayEquals(data, s3Client.getObjectData("medium.bin"));
+        assertEquals(0, s3Client.getUploadPartCalls());
+        assertEquals(storedFile.getSha256(), s3Storage.getMetadata("medium.bin").getSha256());
+    }
+
+    @Test
+    @DisplayName("大文件Range并行下载测试")
+    void testRangedDownload() {
+        byte[] data = randomBytes(PART_SIZE * 5 + 7);
+        s3Storage.store(new ByteArrayInputStream(data), "big/download.bin", null);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written = s3Storage.download("big/download.bin", out);
+
+        assertEquals(data.length, written);
+        assertArrayEquals(data, out.toByteArray());
+        assertEquals(6, s3Client.getRangeRequests());
+    }
+
+    @Test
+    @DisplayName("分片大小小于5MB时拒绝创建测试")
+    void testRejectSmallPartSize() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3FileStorage(s3Client, "test-bucket", "http://cdn.example.com", PART_SIZE - 1, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new S3FileStorage(s3Client, "test-bucket", "http://cdn.example.com", PART_SIZE, 0));
+    }
+
+    @Test
+    @DisplayName("Range下载失败时抛出原始异常测试")
+    void testRangedDownloadFailureUnwrapped() {
+        FakeS3Client failingClient = new FakeS3Client() {
+            @Override
+            public ResponseBytes<GetObjectResponse> getObjectAsBytes(GetObjectRequest request) {
+                throw (S3Exception) S3Exception.builder().statusCode(412).message("PreconditionFailed").build();
+            }
+        };
+        try (S3FileStorage storage = new S3FileStorage(failingClient, "test-bucket", "http://cdn.example.com", PART_SIZE, 4)) {
+            storage.store(new ByteArrayInputStream(randomBytes(PART_SIZE * 2 + 1)), "big/changed.bin", null);
+
+            S3Exception e = assertThrows(S3Exception.class,
+                    () -> storage.download("big/changed.bin", new ByteArrayOutputStream()));
+            assertEquals(412, e.statusCode());
+        }
+    }
+
+    @Test
+    @DisplayName("流式下载测试")
+    void testDownloadStream() throws IOException {
+        s3Storage.upload(new ByteArrayInputStream("stream".getBytes()), "s.txt", "text/plain");
+
+        try (InputStream in = s3Storage.download("s.txt")) {
+            assertEquals("stream", new String(in.readAllBytes()));
+        }
+        assertNull(s3Storage.download("missing.txt"));
+        assertEquals(-1, s3Storage.download("missing.txt", new ByteArrayOutputStream()));
+    }
+
+    @Test
+    @DisplayName("存在性检查和删除测试")
+    void testExistsAndDelete() {
+        s3Storage.upload(new ByteArrayInputStream("x".getBytes()), "/d/x.txt", "text/plain");
+
+        assertTrue(s3Storage.exists("d/x.txt"));
+        assertTrue(s3Storage.delete("d/x.txt"));
+        assertFalse(s3Storage.exists("d/x.txt"));
+        assertFalse(s3Storage.delete("d/x.txt"));
+    }
+
+    @Test
+    @DisplayName("按前缀分页列出测试")
+    void testList() {
+        for (int i = 0; i < 5; i++) {
+            s3Storage.upload(new ByteArrayInputStream(new byte[]{1}), "list/" + i + ".bin", null);
+        }
+        s3Storage.upload(new ByteArrayInputStream(new byte[]{1}), "other/0.bin", null);
+
+        List<StoredFile> page1 = s3Storage.list("list/", null, 3);
+        List<StoredFile> page2 = s3Storage.list("list/", page1.get(2).getPath(), 3);
+
+        assertEquals(3, page1.size());
+        assertEquals(2, page2.size());
+        assertEquals("list/4.bin", page2.get(1).getPath());
+    }
+}
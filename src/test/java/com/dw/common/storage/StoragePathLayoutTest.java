@@ -0,0 +1,37 @@
+package com.dw.common.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("存储路径布局测试")
+public class StoragePathLayoutTest {
+
+    @Test
+    @DisplayName("默认布局测试")
+    void testDefaultLayout() {
+        String path = StoragePathLayout.DEFAULT.generate("images", "JPG");
+
+        assertTrue(path.matches("images/\\d{4}/\\d{2}/\\d{2}/[0-9a-f]{32}\\.jpg"), path);
+    }
+
+    @Test
+    @DisplayName("哈希前缀扇出测试")
+    void testFanOutLayout() {
+        String path = new StoragePathLayout(2).generate("documents", "pdf");
+
+        assertTrue(path.matches("documents/\\d{4}/\\d{2}/\\d{2}/[0-9a-f]{2}/[0-9a-f]{2}/[0-9a-f]{32}\\.pdf"), path);
+        String[] segments = path.split("/");
+        String filename = segments[segments.length - 1];
+        assertEquals(filename.substring(0, 2), segments[4]);
+        assertEquals(filename.substring(2, 4), segments[5]);
+    }
+
+    @Test
+    @DisplayName("非法扇出层级测试")
+    void testInvalidDepth() {
+        assertThrows(IllegalArgumentException.class, () -> new StoragePathLayout(-1));
+        assertThrows(IllegalArgumentException.class, () -> new StoragePathLayout(5));
+    }
+}
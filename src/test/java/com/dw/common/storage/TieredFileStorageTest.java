@@ -0,0 +1,401 @@
+package com.dw.common.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("分层存储测试")
+public class TieredFileStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    private CountingFileStorage remote;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        remote = new CountingFileStorage(tempDir.resolve("remote").toString());
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private TieredFileStorage createStorage(long maxBytes, TieredFileStorage.EvictionPolicy policy,
+                                            TieredFileStorage.WriteMode mode) {
+        return new TieredFileStorage(remote, tempDir.resolve("cache").toString(), maxBytes, policy, mode, executor);
+    }
+
+    private void putRemote(String path, int size) {
+        remote.store(new ByteArrayInputStream(new byte[size]), path, "application/octet-stream");
+    }
+
+    private void read(TieredFileStorage storage, String path) throws Exception {
+        try (InputStream in = storage.download(path)) {
+            assertNotNull(in);
+            in.readAllBytes();
+        }
+    }
+
+    @Test
+    @DisplayName("缓存命中后不再回源测试")
+    void testCacheHit() throws Exception {
+        putRemote("a/1.bin", 100);
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+
+        read(storage, "a/1.bin");
+        read(storage, "a/1.bin");
+        read(storage, "a/1.bin");
+
+        assertEquals(1, remote.downloads.get());
+        assertEquals(1, storage.getMissCount());
+        assertEquals(2, storage.getHitCount());
+        assertNull(storage.download("a/missing.bin"));
+    }
+
+    @Test
+    @DisplayName("并发未命中只回源一次测试")
+    void testSingleFlight() throws Exception {
+        putRemote("hot.bin", 1000);
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+        remote.delayMillis = 200;
+
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService readers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(readers.submit(() -> {
+                    start.await();
+                    read(storage, "hot.bin");
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            readers.shutdownNow();
+        }
+
+        assertEquals(1, remote.downloads.get());
+    }
+
+    @Test
+    @DisplayName("LRU淘汰测试")
+    void testLruEviction() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            putRemote("f" + i, 300);
+        }
+        TieredFileStorage storage = createStorage(1000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+
+        read(storage, "f0");
+        read(storage, "f1");
+        read(storage, "f2");
+        read(storage, "f0");
+        read(storage, "f3");
+
+        assertTrue(storage.getCachedBytes() <= 1000);
+        remote.downloads.set(0);
+        read(storage, "f0");
+        assertEquals(0, remote.downloads.get(), "最近访问的文件应保留在缓存中");
+        read(storage, "f1");
+        assertEquals(1, remote.downloads.get(), "最久未访问的文件应被淘汰");
+    }
+
+    @Test
+    @DisplayName("LFU淘汰测试")
+    void testLfuEviction() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            putRemote("f" + i, 300);
+        }
+        TieredFileStorage storage = createStorage(1000, TieredFileStorage.EvictionPolicy.LFU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+
+        read(storage, "f0");
+        for (int i = 0; i < 5; i++) {
+            read(storage, "f0");
+        }
+        read(storage, "f1");
+        read(storage, "f2");
+        read(storage, "f3");
+
+        remote.downloads.set(0);
+        read(storage, "f0");
+        assertEquals(0, remote.downloads.get(), "高频访问的文件应保留在缓存中");
+    }
+
+    @Test
+    @DisplayName("同步写入测试")
+    void testWriteThrough() throws Exception {
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+
+        StoredFile storedFile = storage.store(new ByteArrayInputStream("hello".getBytes()), "docs/a.txt", "text/plain");
+
+        assertNotNull(storedFile);
+        assertTrue(Files.exists(tempDir.resolve("remote/docs/a.txt")));
+        read(storage, "docs/a.txt");
+        assertEquals(0, remote.downloads.get());
+
+        assertTrue(storage.delete("docs/a.txt"));
+        assertFalse(storage.exists("docs/a.txt"));
+        assertEquals(0, storage.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("后台写入测试")
+    void testWriteBack() throws Exception {
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        remote.delayMillis = 200;
+
+        StoredFile storedFile = storage.store(new ByteArrayInputStream("hello".getBytes()), "docs/b.txt", "text/plain");
+
+        assertNotNull(storedFile);
+        assertEquals(5, storedFile.getSize());
+        assertTrue(storage.exists("docs/b.txt"));
+        try (InputStream in = storage.download("docs/b.txt")) {
+            assertArrayEquals("hello".getBytes(), in.readAllBytes());
+        }
+
+        storage.flush();
+        assertArrayEquals("hello".getBytes(), Files.readAllBytes(tempDir.resolve("remote/docs/b.txt")));
+    }
+
+    @Test
+    @DisplayName("重启后加载已有缓存测试")
+    void testReloadExistingCache() throws Exception {
+        putRemote("r.bin", 100);
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+        read(storage, "r.bin");
+
+        TieredFileStorage reopened = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+        read(reopened, "r.bin");
+
+        assertEquals(1, remote.downloads.get());
+        assertEquals(100, reopened.getCachedBytes());
+    }
+
+    @Test
+    @DisplayName("后台写入完成前新文件不被淘汰测试")
+    void testWriteBackPinnedBeforeEviction() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            putRemote("hot" + i, 300);
+        }
+        TieredFileStorage storage = createStorage(1000, TieredFileStorage.EvictionPolicy.LFU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        for (int i = 0; i < 3; i++) {
+            read(storage, "hot" + i);
+            read(storage, "hot" + i);
+        }
+        remote.delayMillis = 200;
+
+        // LFU下新文件访问次数为0，是第一个淘汰候选；超过容量90%的文件在LRU下同样会被立即淘汰
+        assertNotNull(storage.store(new ByteArrayInputStream(new byte[300]), "new.bin", null));
+        assertNotNull(storage.store(new ByteArrayInputStream(new byte[950]), "big.bin", null));
+        assertTrue(Files.exists(tempDir.resolve("cache/new.bin")));
+        assertTrue(Files.exists(tempDir.resolve("cache/big.bin")));
+        assertEquals(2, storage.getPendingWriteCount());
+
+        storage.flush();
+        assertEquals(300, Files.size(tempDir.resolve("remote/new.bin")));
+        assertEquals(950, Files.size(tempDir.resolve("remote/big.bin")));
+        assertEquals(0, storage.getPendingWriteCount());
+        assertTrue(storage.getCachedBytes() <= 1000);
+        assertFalse(Files.exists(tempDir.resolve("cache/.pending-new.bin")));
+    }
+
+    @Test
+    @DisplayName("后台写入失败重试测试")
+    void testWriteBackRetry() throws Exception {
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        storage.setWriteBackRetry(3, Duration.ofMillis(10));
+        remote.failures.set(2);
+
+        storage.store(new ByteArrayInputStream("retry".getBytes()), "r.txt", "text/plain");
+        storage.flush();
+
+        assertArrayEquals("retry".getBytes(), Files.readAllBytes(tempDir.resolve("remote/r.txt")));
+        assertEquals(0, storage.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("重启后重新写回未同步文件测试")
+    void testWriteBackRecoveredAfterRestart() throws Exception {
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        storage.setWriteBackRetry(1, Duration.ofMillis(10));
+        remote.failures.set(1);
+
+        storage.store(new ByteArrayInputStream("unsynced".getBytes()), "u/a.txt", "text/plain");
+        storage.flush();
+        assertFalse(Files.exists(tempDir.resolve("remote/u/a.txt")));
+        assertEquals(1, storage.getPendingWriteCount());
+        assertTrue(Files.exists(tempDir.resolve("cache/u/.pending-a.txt")));
+
+        // 重启后即使缓存已满，未同步的文件也不会被淘汰，并重新写入远端
+        TieredFileStorage reopened = createStorage(1, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        reopened.flush();
+        assertArrayEquals("unsynced".getBytes(), Files.readAllBytes(tempDir.resolve("remote/u/a.txt")));
+        assertEquals("text/plain", remote.getMetadata("u/a.txt").getContentType());
+        assertFalse(Files.exists(tempDir.resolve("cache/u/.pending-a.txt")));
+        assertEquals(0, reopened.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("同一文件多次写回按顺序执行测试")
+    void testWriteBackOrderedPerKey() throws Exception {
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        remote.delayMillis = 200;
+        storage.store(new ByteArrayInputStream("v1".getBytes()), "same.txt", "text/plain");
+        remote.delayMillis = 0;
+        storage.store(new ByteArrayInputStream("v2".getBytes()), "same.txt", "text/plain");
+
+        storage.flush();
+        assertArrayEquals("v2".getBytes(), Files.readAllBytes(tempDir.resolve("remote/same.txt")));
+        assertEquals(0, storage.getPendingWriteCount());
+    }
+
+    @Test
+    @DisplayName("回源期间写入新内容时丢弃旧内容测试")
+    void testFillRacingStore() throws Exception {
+        remote.store(new ByteArrayInputStream("old".getBytes()), "race.txt", "text/plain");
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_BACK);
+        CountDownLatch release = new CountDownLatch(1);
+        remote.downloadOpened = new CountDownLatch(1);
+        remote.downloadRelease = release;
+        Future<byte[]> reader = executor.submit(() -> {
+            try (InputStream in = storage.download("race.txt")) {
+                return in.readAllBytes();
+            }
+        });
+        assertTrue(remote.downloadOpened.await(5, TimeUnit.SECONDS));
+        // 之后的回源不再等待
+        remote.downloadRelease = null;
+
+        remote.delayMillis = 200;
+        storage.store(new ByteArrayInputStream("new".getBytes()), "race.txt", "text/plain");
+        release.countDown();
+        assertArrayEquals("new".getBytes(), reader.get(5, TimeUnit.SECONDS));
+
+        // 旧内容没有覆盖尚未写回的新内容，写回的是新内容
+        storage.flush();
+        assertArrayEquals("new".getBytes(), Files.readAllBytes(tempDir.resolve("remote/race.txt")));
+        try (InputStream in = storage.download("race.txt")) {
+            assertArrayEquals("new".getBytes(), in.readAllBytes());
+        }
+    }
+
+    @Test
+    @DisplayName("回源期间删除时不缓存已删除文件测试")
+    void testFillRacingDelete() throws Exception {
+        remote.store(new ByteArrayInputStream("old".getBytes()), "gone.txt", "text/plain");
+        TieredFileStorage storage = createStorage(10_000, TieredFileStorage.EvictionPolicy.LRU,
+                TieredFileStorage.WriteMode.WRITE_THROUGH);
+        CountDownLatch release = new CountDownLatch(1);
+        remote.downloadOpened = new CountDownLatch(1);
+        remote.downloadRelease = release;
+        Future<?> reader = executor.submit(() -> {
+            try (InputStream in = storage.download("gone.txt")) {
+                return in != null ? in.readAllBytes() : null;
+            }
+        });
+        assertTrue(remote.downloadOpened.await(5, TimeUnit.SECONDS));
+        // 之后的回源不再等待
+        remote.downloadRelease = null;
+
+        assertTrue(storage.delete("gone.txt"));
+        release.countDown();
+        reader.get(5, TimeUnit.SECONDS);
+
+        assertFalse(storage.exists("gone.txt"));
+        assertNull(storage.download("gone.txt"));
+        assertEquals(0, storage.getCachedBytes());
+    }
+
+    /**
+     * 记录回源次数的远端存储
+     */
+    private static class CountingFileStorage extends LocalFileStorage {
+
+        private final AtomicInteger downloads = new AtomicInteger();
+        private final AtomicInteger failures = new AtomicInteger();
+        private volatile long delayMillis;
+        private volatile CountDownLatch downloadOpened;
+        private volatile CountDownLatch downloadRelease;
+
+        CountingFileStorage(String rootPath) {
+            super(rootPath, "http://remote");
+        }
+
+        @Override
+        public StoredFile store(InputStream inputStream, String path, String contentType) {
+            sleep();
+            if (failures.getAndUpdate(n -> Math.max(n - 1, 0)) > 0) {
+                return null;
+            }
+            return super.store(inputStream, path, contentType);
+        }
+
+        @Override
+        public InputStream download(String path) {
+            downloads.incrementAndGet();
+            sleep();
+            InputStream inputStream = super.download(path);
+            CountDownLatch release = downloadRelease;
+            if (release != null) {
+                // 已打开旧内容，等待测试在回源期间写入或删除
+                downloadOpened.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return inputStream;
+        }
+
+        private void sleep() {
+            if (delayMillis > 0) {
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.dw.common.storage;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ZIP打包测试")
+public class ZipArchiveWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileStorage storage;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        storage = new LocalFileStorage(tempDir.toString(), "/files");
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private byte[] put(String path, int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        storage.upload(new ByteArrayInputStream(data), path, "application/octet-stream");
+        return data;
+    }
+
+    private Map<String, byte[]> unzip(byte[] zip, Map<String, ZipEntry> entries) throws IOException {
+        Map<String, byte[]> contents = new LinkedHashMap<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                contents.put(entry.getName(), in.readAllBytes());
+                entries.put(entry.getName(), entry);
+            }
+        }
+        return contents;
+    }
+
+    @Test
+    @DisplayName("并行预读打包测试")
+    void testParallelZip() throws IOException {
+        List<String> paths = new ArrayList<>();
+        List<byte[]> expected = new ArrayList<>();
+        for (int i = 0; i < 12; i++) {
+            String path = "docs/" + i + "/file" + i + ".bin";
+            // 包含跨多个预读分块的大文件
+            expected.add(put(path, i == 5 ? 1024 * 1024 + 7 : 1000 + i));
+            paths.add(path);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = new ZipArchiveWriter(storage, executor, 3).write(paths, out);
+
+        assertEquals(12, written);
+        Map<String, byte[]> contents = unzip(out.toByteArray(), new LinkedHashMap<>());
+        assertEquals(12, contents.size());
+        int i = 0;
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            assertEquals("file" + i + ".bin", entry.getKey(), "条目顺序应与输入一致");
+            assertArrayEquals(expected.get(i), entry.getValue());
+            i++;
+        }
+    }
+
+    @Test
+    @DisplayName("重名、缺失文件和已压缩格式测试")
+    void testDuplicateMissingAndCompressed() throws IOException {
+        byte[] text = new byte[20000];
+        Arrays.fill(text, (byte) 'a');
+        storage.upload(new ByteArrayInputStream(text), "a/readme.txt", "text/plain");
+        storage.upload(new ByteArrayInputStream(text), "b/readme.txt", "text/plain");
+        storage.upload(new ByteArrayInputStream(text), "c/photo.jpg", "image/jpeg");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = new ZipArchiveWriter(storage, executor, 2)
+                .write(List.of("a/readme.txt", "missing/x.txt", "b/readme.txt", "c/photo.jpg"), out);
+
+        assertEquals(3, written);
+        Map<String, ZipEntry> entries = new LinkedHashMap<>();
+        Map<String, byte[]> contents = unzip(out.toByteArray(), entries);
+        assertEquals(List.of("readme.txt", "readme (1).txt", "photo.jpg"), new ArrayList<>(contents.keySet()));
+        assertArrayEquals(text, contents.get("readme (1).txt"));
+        // 文本压缩到远小于原大小，jpg不压缩，整体大小应接近一份原文件
+        assertTrue(out.size() > text.length && out.size() < text.length * 2, "zip大小: " + out.size());
+    }
+
+    @Test
+    @DisplayName("线程池饱和在写入线程执行预读测试")
+    void testCallerRunsPrefetch() {
+        byte[] first = put("y/first.bin", 600 * 1024);
+        byte[] second = put("y/second.bin", 600 * 1024);
+
+        // 相当于CallerRunsPolicy：预读任务在写入线程执行，不能因缓冲区写满而阻塞
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int written = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> new ZipArchiveWriter(storage, Runnable::run, 2).write(List.of("y/first.bin", "y/second.bin"), out));
+
+        assertEquals(2, written);
+        Map<String, byte[]> contents = assertDoesNotThrow(() -> unzip(out.toByteArray(), new LinkedHashMap<>()));
+        assertArrayEquals(first, contents.get("first.bin"));
+        assertArrayEquals(second, contents.get("second.bin"));
+    }
+
+    @Test
+    @DisplayName("顺序读取和写出失败测试")
+    void testSequentialAndWriteFailure() throws IOException {
+        byte[] data = put("x/data.bin", 300 * 1024);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(1, new ZipArchiveWriter(storage, null, 4).write(List.of("x/data.bin"), out));
+        assertArrayEquals(data, unzip(out.toByteArray(), new LinkedHashMap<>()).get("data.bin"));
+
+        // 客户端断开时抛出异常并释放预读任务
+        OutputStream broken = new OutputStream() {
+            private int count;
+
+            @Override
+            public void write(int b) throws IOException {
+                if (++count > 1000) {
+                    throw new IOException("连接已断开");
+                }
+            }
+        };
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            put("y/" + i + ".bin", 200 * 1024);
+            paths.add("y/" + i + ".bin");
+        }
+        assertThrows(IOException.class, () -> new ZipArchiveWriter(storage, executor, 4).write(paths, broken));
+    }
+}
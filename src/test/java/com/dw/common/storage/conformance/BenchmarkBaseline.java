@@ -0,0 +1,119 @@
+package com.dw.common.storage.conformance;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 基准测试结果与基线
+ * 指标键形如 upload.backend-local.fileSize-1024.threads-4.thrpt，
+ * 以 .thrpt 结尾的为吞吐量（越大越好），其他为延迟（越小越好）
+ */
+public class BenchmarkBaseline {
+
+    public static final String THROUGHPUT = "thrpt";
+    public static final String MEAN = "mean";
+    public static final String P99 = "p99";
+
+    private final Map<String, Double> scores = new TreeMap<>();
+
+    /**
+     * 从JMH运行结果收集指标
+     */
+    public void addAll(Collection<RunResult> results) {
+        for (RunResult runResult : results) {
+            BenchmarkParams params = runResult.getParams();
+            StringBuilder key = new StringBuilder(
+                    params.getBenchmark().substring(params.getBenchmark().lastIndexOf('.') + 1));
+            for (String name : params.getParamsKeys()) {
+                key.append('.').append(name).append('-').append(params.getParam(name));
+            }
+            key.append(".threads-").append(params.getThreads()).append('.');
+
+            Result<?> result = runResult.getPrimaryResult();
+            switch (params.getMode()) {
+                case Throughput -> put(key + THROUGHPUT, result.getScore());
+                case SampleTime -> {
+                    put(key + MEAN, result.getScore());
+                    put(key + P99, result.getStatistics().getPercentile(99));
+                }
+                default -> put(key + params.getMode().shortLabel(), result.getScore());
+            }
+        }
+    }
+
+    public void put(String key, double score) {
+        scores.put(key, score);
+    }
+
+    public Double get(String key) {
+        return scores.get(key);
+    }
+
+    public Map<String, Double> getScores() {
+        return scores;
+    }
+
+    /**
+     * 与基线对比，返回超出容差的退化指标说明；基线中没有的指标不参与对比
+     * @param baseline 基线
+     * @param tolerance 容差比例，如0.1表示允许10%的波动
+     */
+    public List<String> findRegressions(BenchmarkBaseline baseline, double tolerance) {
+        List<String> regressions = new ArrayList<>();
+        for (Map.Entry<String, Double> entry : scores.entrySet()) {
+            Double expected = baseline.get(entry.getKey());
+            if (expected == null || expected <= 0) {
+                continue;
+            }
+            double current = entry.getValue();
+            double change = (current - expected) / expected;
+            boolean regressed = entry.getKey().endsWith("." + THROUGHPUT) ? change < -tolerance : change > tolerance;
+            if (regressed) {
+                regressions.add(String.format("%s: %.3f -> %.3f (%+.1f%%)",
+                        entry.getKey(), expected, current, change * 100));
+            }
+        }
+        return regressions;
+    }
+
+    public static BenchmarkBaseline load(Path path) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        }
+        BenchmarkBaseline baseline = new BenchmarkBaseline();
+        for (String key : props.stringPropertyNames()) {
+            baseline.put(key, Double.parseDouble(props.getProperty(key)));
+        }
+        return baseline;
+    }
+
+    /**
+     * 按指标名排序写出，便于基线文件纳入版本管理后对比差异
+     */
+    public void save(Path path) throws IOException {
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        try (Writer writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            writer.write("# FileStorage benchmark (thrpt: ops/ms, mean/p99: ms/op)\n");
+            for (Map.Entry<String, Double> entry : scores.entrySet()) {
+                writer.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        }
+    }
+}
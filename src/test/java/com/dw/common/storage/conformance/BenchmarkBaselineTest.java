@@ -0,0 +1,58 @@
+package com.dw.common.storage.conformance;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("基准测试基线对比测试")
+public class BenchmarkBaselineTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("退化判定测试")
+    void testFindRegressions() {
+        BenchmarkBaseline baseline = new BenchmarkBaseline();
+        baseline.put("upload.backend-local.fileSize-1024.threads-1.thrpt", 100);
+        baseline.put("upload.backend-local.fileSize-1024.threads-1.p99", 2.0);
+        baseline.put("exists.backend-local.fileSize-1024.threads-1.thrpt", 1000);
+
+        BenchmarkBaseline current = new BenchmarkBaseline();
+        // 吞吐量下降超过容差
+        current.put("upload.backend-local.fileSize-1024.threads-1.thrpt", 85);
+        // 延迟上升超过容差
+        current.put("upload.backend-local.fileSize-1024.threads-1.p99", 2.3);
+        // 容差范围内
+        current.put("exists.backend-local.fileSize-1024.threads-1.thrpt", 950);
+        // 基线中没有的指标不对比
+        current.put("download.backend-local.fileSize-1024.threads-1.thrpt", 1);
+
+        List<String> regressions = current.findRegressions(baseline, 0.1);
+        assertEquals(2, regressions.size());
+        assertTrue(regressions.get(0).startsWith("upload.backend-local.fileSize-1024.threads-1.p99"));
+        assertTrue(regressions.get(1).startsWith("upload.backend-local.fileSize-1024.threads-1.thrpt"));
+
+        // 性能提升不算退化
+        BenchmarkBaseline improved = new BenchmarkBaseline();
+        improved.put("upload.backend-local.fileSize-1024.threads-1.thrpt", 200);
+        improved.put("upload.backend-local.fileSize-1024.threads-1.p99", 1.0);
+        assertTrue(improved.findRegressions(baseline, 0.1).isEmpty());
+    }
+
+    @Test
+    @DisplayName("基线保存和读取测试")
+    void testSaveAndLoad() throws Exception {
+        BenchmarkBaseline baseline = new BenchmarkBaseline();
+        baseline.put("download.backend-s3.fileSize-65536.threads-4.mean", 0.125);
+        Path path = tempDir.resolve("benchmark/baseline.properties");
+        baseline.save(path);
+
+        assertEquals(0.125, BenchmarkBaseline.load(path).get("download.backend-s3.fileSize-65536.threads-4.mean"));
+    }
+}
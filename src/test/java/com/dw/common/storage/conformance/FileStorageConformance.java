@@ -0,0 +1,173 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoragePage;
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * FileStorage一致性用例
+ * 每个存储实现继承本类并提供createStorage即可验证是否满足FileStorage约定
+ */
+public abstract class FileStorageConformance {
+
+    @TempDir
+    Path tempDir;
+
+    protected FileStorage storage;
+
+    /**
+     * 创建待测存储
+     * @param dir 临时工作目录
+     */
+    protected abstract FileStorage createStorage(Path dir);
+
+    @BeforeEach
+    void setUpStorage() {
+        storage = createStorage(tempDir);
+    }
+
+    @AfterEach
+    void closeStorage() throws Exception {
+        if (storage instanceof Closeable closeable) {
+            closeable.close();
+        }
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] data = new byte[size];
+        new Random(size).nextBytes(data);
+        return data;
+    }
+
+    private StoredFile put(String path, byte[] data) {
+        return storage.store(new ByteArrayInputStream(data), path, "application/octet-stream");
+    }
+
+    private byte[] read(String path) throws Exception {
+        try (InputStream in = storage.download(path)) {
+            assertNotNull(in, "文件不存在: " + path);
+            return in.readAllBytes();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 8 * 1024, 1024 * 1024 + 7})
+    @DisplayName("上传下载往返一致性")
+    void testRoundTrip(int size) throws Exception {
+        byte[] data = randomBytes(size);
+        String path = "conformance/roundtrip/" + size + ".bin";
+
+        StoredFile stored = put(path, data);
+        assertNotNull(stored);
+        assertEquals(size, stored.getSize());
+        assertTrue(storage.exists(path));
+        assertEquals(size, storage.size(path));
+        assertArrayEquals(data, read(path));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(size, storage.download(path, out));
+        assertArrayEquals(data, out.toByteArray());
+
+        StoredFile metadata = storage.getMetadata(path);
+        assertNotNull(metadata);
+        assertEquals(size, metadata.getSize());
+        assertTrue(storage.getUrl(path).endsWith(path));
+    }
+
+    @Test
+    @DisplayName("覆盖写入一致性")
+    void testOverwrite() throws Exception {
+        String path = "conformance/overwrite.bin";
+        put(path, randomBytes(100));
+        byte[] replacement = randomBytes(37);
+        put(path, replacement);
+
+        assertArrayEquals(replacement, read(path));
+        assertEquals(37, storage.size(path));
+    }
+
+    @Test
+    @DisplayName("不存在文件的返回值一致性")
+    void testMissingFile() {
+        String path = "conformance/missing.bin";
+        assertFalse(storage.exists(path));
+        assertNull(storage.download(path));
+        assertEquals(-1, storage.size(path));
+        assertNull(storage.getMetadata(path));
+        assertFalse(storage.delete(path));
+    }
+
+    @Test
+    @DisplayName("删除一致性")
+    void testDelete() {
+        String path = "conformance/delete.bin";
+        put(path, randomBytes(10));
+        assertTrue(storage.delete(path));
+        assertFalse(storage.exists(path));
+        assertFalse(storage.delete(path));
+    }
+
+    @Test
+    @DisplayName("分页列表一致性")
+    void testListPage() {
+        for (int i = 0; i < 5; i++) {
+            put("conformance/list/f" + i + ".bin", randomBytes(i + 1));
+        }
+        put("conformance/other/x.bin", randomBytes(1));
+
+        List<String> paths = new ArrayList<>();
+        String cursor = null;
+        do {
+            StoragePage page = storage.listPage("conformance/list/", cursor, 2);
+            assertTrue(page.getItems().size() <= 2);
+            page.getItems().forEach(file -> paths.add(file.getPath()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of("conformance/list/f0.bin", "conformance/list/f1.bin", "conformance/list/f2.bin",
+                "conformance/list/f3.bin", "conformance/list/f4.bin"), paths);
+    }
+
+    @Test
+    @DisplayName("并发写入一致性")
+    void testConcurrentWrites() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                int index = i;
+                futures.add(executor.submit(() -> put("conformance/concurrent/" + index + ".bin",
+                        randomBytes(1024 + index))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        for (int i = 0; i < 32; i++) {
+            assertArrayEquals(randomBytes(1024 + i), read("conformance/concurrent/" + i + ".bin"));
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FileStorage;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.file.Path;
+
+@DisplayName("本地存储一致性测试")
+public class LocalFileStorageConformanceTest extends FileStorageConformance {
+
+    @Override
+    protected FileStorage createStorage(Path dir) {
+        return StorageBackends.create("local", dir);
+    }
+}
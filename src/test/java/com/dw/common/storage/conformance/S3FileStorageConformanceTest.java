@@ -0,0 +1,15 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FileStorage;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.file.Path;
+
+@DisplayName("S3对象存储一致性测试")
+public class S3FileStorageConformanceTest extends FileStorageConformance {
+
+    @Override
+    protected FileStorage createStorage(Path dir) {
+        return StorageBackends.create("s3", dir);
+    }
+}
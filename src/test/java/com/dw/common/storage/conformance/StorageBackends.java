@@ -0,0 +1,69 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FakeS3Client;
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.storage.S3FileStorage;
+import com.dw.common.storage.TieredFileStorage;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * 一致性测试和基准测试使用的存储后端
+ * 新的FileStorage实现通过register注册后即可复用全部一致性用例和基准测试（JMH参数 backend=名称）
+ */
+public final class StorageBackends {
+
+    private static final Map<String, Function<Path, FileStorage>> FACTORIES = new ConcurrentHashMap<>();
+
+    private static final Executor WRITE_BACK_EXECUTOR = Executors.newFixedThreadPool(4, runnable -> {
+        Thread thread = new Thread(runnable, "conformance-write-back");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        register("local", dir -> new LocalFileStorage(dir.resolve("local").toString(), "/files"));
+        register("s3", dir -> new S3FileStorage(new FakeS3Client(), "conformance", "http://cdn.example.com",
+                5 * 1024 * 1024, 4));
+        register("tiered", dir -> new TieredFileStorage(
+                new LocalFileStorage(dir.resolve("remote").toString(), "/files"),
+                dir.resolve("cache").toString(), 64L * 1024 * 1024,
+                TieredFileStorage.EvictionPolicy.LRU, TieredFileStorage.WriteMode.WRITE_THROUGH, null));
+        // 缓存小于单个大文件，覆盖异步写回与淘汰同时发生的路径
+        register("tiered-writeback-lfu", dir -> new TieredFileStorage(
+                new LocalFileStorage(dir.resolve("remote").toString(), "/files"),
+                dir.resolve("cache").toString(), 256L * 1024,
+                TieredFileStorage.EvictionPolicy.LFU, TieredFileStorage.WriteMode.WRITE_BACK, WRITE_BACK_EXECUTOR));
+    }
+
+    private StorageBackends() {
+    }
+
+    /**
+     * 注册存储后端
+     * @param name 后端名称
+     * @param factory 根据工作目录创建存储
+     */
+    public static void register(String name, Function<Path, FileStorage> factory) {
+        FACTORIES.put(name, factory);
+    }
+
+    public static FileStorage create(String name, Path dir) {
+        Function<Path, FileStorage> factory = FACTORIES.get(name);
+        if (factory == null) {
+            throw new IllegalArgumentException("未注册的存储后端: " + name);
+        }
+        return factory.apply(dir);
+    }
+
+    public static Set<String> names() {
+        return Set.copyOf(FACTORIES.keySet());
+    }
+}
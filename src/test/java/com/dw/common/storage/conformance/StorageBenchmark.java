@@ -0,0 +1,105 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FileStorage;
+import com.dw.common.storage.StoredFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * FileStorage基准测试（JMH）
+ * 按 存储后端 x 文件大小 测量上传、下载、exists、元数据和删除操作；并发度由运行参数 threads 指定
+ * Throughput模式得到吞吐量，SampleTime模式得到延迟分布（p99）
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+
+    /**
+     * 上传时循环覆盖的文件数，避免长时间测试写满磁盘
+     */
+    private static final int UPLOAD_SLOTS = 256;
+
+    @Param({"local", "tiered", "tiered-writeback-lfu"})
+    public String backend;
+
+    @Param({"1024", "65536", "1048576"})
+    public int fileSize;
+
+    private Path dir;
+    private FileStorage storage;
+    private byte[] payload;
+    private String readPath;
+    private final AtomicLong sequence = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("dw-storage-bench-");
+        storage = StorageBackends.create(backend, dir);
+        payload = new byte[fileSize];
+        new Random(fileSize).nextBytes(payload);
+        readPath = "bench/read/" + fileSize + ".bin";
+        storage.store(new ByteArrayInputStream(payload), readPath, "application/octet-stream");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        if (storage instanceof Closeable closeable) {
+            closeable.close();
+        }
+        FileSystemUtils.deleteRecursively(dir);
+    }
+
+    @Benchmark
+    public StoredFile upload() {
+        String path = "bench/upload/" + (sequence.incrementAndGet() % UPLOAD_SLOTS) + ".bin";
+        return storage.store(new ByteArrayInputStream(payload), path, "application/octet-stream");
+    }
+
+    @Benchmark
+    public long download() {
+        return storage.download(readPath, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public boolean exists() {
+        return storage.exists(readPath);
+    }
+
+    /**
+     * 元数据读取开销，小文件时与下载对比可看出元数据相对数据读取的占比
+     */
+    @Benchmark
+    public StoredFile metadata() {
+        return storage.getMetadata(readPath);
+    }
+
+    /**
+     * 删除操作：每次先写入再删除，删除本身的开销为与upload的差值
+     */
+    @Benchmark
+    public boolean uploadAndDelete() {
+        String path = "bench/delete/" + sequence.incrementAndGet() + ".bin";
+        storage.store(new ByteArrayInputStream(payload), path, "application/octet-stream");
+        return storage.delete(path);
+    }
+}
@@ -0,0 +1,79 @@
+package com.dw.common.storage.conformance;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 存储基准测试入口，默认不执行
+ * mvn test -Dtest=StorageBenchmarkTest -Dstorage.benchmark=true
+ *   [-Dstorage.benchmark.backends=local,tiered] [-Dstorage.benchmark.sizes=1024,1048576]
+ *   [-Dstorage.benchmark.threads=1,4] [-Dstorage.benchmark.include=upload|download]
+ *   [-Dstorage.benchmark.tolerance=0.2] [-Dstorage.benchmark.updateBaseline=true]
+ * 本次结果写入 target/benchmark/storage-benchmark.properties，与 src/test/resources/benchmark/storage-baseline.properties
+ * 对比，超出容差的指标判定为退化；基线不存在时测试失败。-Dstorage.benchmark.updateBaseline=true 时不对比，
+ * 把结果另存为 target/benchmark/storage-baseline.properties，确认后由人工复制到基线位置提交
+ */
+@Slf4j
+@DisplayName("存储基准测试")
+@EnabledIfSystemProperty(named = "storage.benchmark", matches = "true")
+public class StorageBenchmarkTest {
+
+    private static final String DEFAULT_BASELINE = "src/test/resources/benchmark/storage-baseline.properties";
+
+    @Test
+    @DisplayName("基准测试与基线对比")
+    void testBenchmarkAgainstBaseline() throws Exception {
+        String include = System.getProperty("storage.benchmark.include", "");
+        BenchmarkBaseline current = new BenchmarkBaseline();
+        for (String threads : System.getProperty("storage.benchmark.threads", "1,4").split(",")) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(StorageBenchmark.class.getSimpleName() + ".(" + (include.isEmpty() ? ".*" : include) + ")$")
+                    .threads(Integer.parseInt(threads.trim()))
+                    .forks(Integer.getInteger("storage.benchmark.forks", 1))
+                    .warmupIterations(Integer.getInteger("storage.benchmark.warmupIterations", 2))
+                    .warmupTime(TimeValue.seconds(1))
+                    .measurementIterations(Integer.getInteger("storage.benchmark.iterations", 3))
+                    .measurementTime(TimeValue.seconds(1));
+            String backends = System.getProperty("storage.benchmark.backends");
+            if (backends != null) {
+                options.param("backend", backends.split(","));
+            }
+            String sizes = System.getProperty("storage.benchmark.sizes");
+            if (sizes != null) {
+                options.param("fileSize", sizes.split(","));
+            }
+            current.addAll(new Runner(options.build()).run());
+        }
+        Path outputDir = Paths.get("target", "benchmark");
+        current.save(outputDir.resolve("storage-benchmark.properties"));
+
+        if (Boolean.getBoolean("storage.benchmark.updateBaseline")) {
+            Path candidate = outputDir.resolve("storage-baseline.properties");
+            current.save(candidate);
+            log.info("已生成基准测试基线: {}，确认后复制到 {}", candidate.toAbsolutePath(), DEFAULT_BASELINE);
+            return;
+        }
+
+        Path baselinePath = Paths.get(System.getProperty("storage.benchmark.baseline", DEFAULT_BASELINE));
+        assertTrue(Files.exists(baselinePath), "基准测试基线不存在: " + baselinePath.toAbsolutePath()
+                + "，请先以 -Dstorage.benchmark.updateBaseline=true 运行生成基线并复制到该位置");
+
+        double tolerance = Double.parseDouble(System.getProperty("storage.benchmark.tolerance", "0.2"));
+        List<String> regressions = current.findRegressions(BenchmarkBaseline.load(baselinePath), tolerance);
+        assertTrue(regressions.isEmpty(), () -> "存在" + regressions.size() + "项性能退化:\n"
+                + String.join("\n", regressions));
+    }
+}
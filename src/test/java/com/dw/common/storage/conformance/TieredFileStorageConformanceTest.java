@@ -0,0 +1,15 @@
+package com.dw.common.storage.conformance;
+
+import com.dw.common.storage.FileStorage;
+import org.junit.jupiter.api.DisplayName;
+
+import java.nio.file.Path;
+
+@DisplayName("分层存储一致性测试")
+public class TieredFileStorageConformanceTest extends FileStorageConformance {
+
+    @Override
+    protected FileStorage createStorage(Path dir) {
+        return StorageBackends.create("tiered", dir);
+    }
+}
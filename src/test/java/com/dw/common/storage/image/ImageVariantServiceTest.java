@@ -0,0 +1,189 @@
+package com.dw.common.storage.image;
+
+import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("图片变体服务测试")
+public class ImageVariantServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileStorage storage;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        storage = new LocalFileStorage(tempDir.toString(), "/files");
+        executor = Executors.newFixedThreadPool(4);
+        storage.upload(new ByteArrayInputStream(createImage(800, 600, "jpg")), "images/photo.jpg", "image/jpeg");
+        storage.upload(new ByteArrayInputStream(createImage(400, 400, "png")), "images/logo.png", "image/png");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    private byte[] createImage(int width, int height, String format) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setColor(Color.ORANGE);
+        g.fillRect(0, 0, width, height);
+        g.setColor(Color.BLUE);
+        g.fillOval(width / 4, height / 4, width / 2, height / 2);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, format, out);
+        return out.toByteArray();
+    }
+
+    private BufferedImage readVariant(String path) throws IOException {
+        return ImageIO.read(tempDir.resolve(path).toFile());
+    }
+
+    @Test
+    @DisplayName("首次访问生成缩略图测试")
+    void testLazyVariant() throws IOException {
+        ImageVariantService service = new ImageVariantService(storage, executor, 10_000_000, null);
+
+        String url = service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(200, 200));
+
+        assertEquals("/files/.variants/images/photo.jpg/200x200.jpg", url);
+        BufferedImage variant = readVariant(".variants/images/photo.jpg/200x200.jpg");
+        assertEquals(200, variant.getWidth());
+        assertEquals(150, variant.getHeight());
+
+        // 再次访问直接命中
+        service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(200, 200));
+        assertEquals(1, service.getGeneratedCount());
+
+        // png保持png格式
+        service.getVariantUrl("images/logo.png", ImageVariantSpec.of(100, 50));
+        BufferedImage png = readVariant(".variants/images/logo.png/100x50.png");
+        assertEquals(50, png.getWidth());
+        assertEquals(50, png.getHeight());
+    }
+
+    @Test
+    @DisplayName("并发请求只生成一次测试")
+    void testConcurrentGenerationDeduplicated() throws Exception {
+        ImageVariantService service = new ImageVariantService(storage, executor, 10_000_000, null);
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(callers.submit(() -> {
+                    start.await();
+                    return service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(320, 320));
+                }));
+            }
+            start.countDown();
+            for (Future<String> future : futures) {
+                assertEquals("/files/.variants/images/photo.jpg/320x320.jpg", future.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertEquals(1, service.getGeneratedCount());
+    }
+
+    @Test
+    @DisplayName("预生成测试")
+    void testEagerGeneration() throws Exception {
+        List<ImageVariantSpec> eager = List.of(ImageVariantSpec.parse("100x100"), ImageVariantSpec.parse("300x300.png"));
+        ImageVariantService service = new ImageVariantService(storage, executor, 10_000_000, eager);
+
+        service.generateEagerly("images/photo.jpg");
+        StoredFile generated = service.getVariantAsync("images/photo.jpg", eager.get(1)).get(10, TimeUnit.SECONDS);
+        service.getVariantAsync("images/photo.jpg", eager.get(0)).get(10, TimeUnit.SECONDS);
+
+        assertNotNull(generated);
+        assertTrue(Files.exists(tempDir.resolve(".variants/images/photo.jpg/100x100.jpg")));
+        assertTrue(Files.exists(tempDir.resolve(".variants/images/photo.jpg/300x300.png")));
+        assertEquals(2, service.getGeneratedCount());
+    }
+
+    @Test
+    @DisplayName("磁盘预算淘汰测试")
+    void testBudgetEviction() throws IOException {
+        ImageVariantService probe = new ImageVariantService(storage, null, Long.MAX_VALUE, null);
+        probe.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(400, 400));
+        long variantSize = probe.getUsedBytes();
+        storage.delete(".variants/images/photo.jpg/400x400.jpg");
+
+        // 预算只够保存一个变体
+        ImageVariantService service = new ImageVariantService(storage, null, variantSize + variantSize / 2, null);
+        service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(400, 400));
+        service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(390, 390));
+
+        assertTrue(service.getUsedBytes() <= variantSize + variantSize / 2);
+        assertFalse(Files.exists(tempDir.resolve(".variants/images/photo.jpg/400x400.jpg")));
+        assertTrue(Files.exists(tempDir.resolve(".variants/images/photo.jpg/390x390.jpg")));
+    }
+
+    @Test
+    @DisplayName("删除变体和异常输入测试")
+    void testDeleteVariantsAndInvalidInput() {
+        ImageVariantService service = new ImageVariantService(storage, null, 10_000_000, null);
+        service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(100, 100));
+        service.getVariantUrl("images/photo.jpg", ImageVariantSpec.of(200, 200));
+
+        assertEquals(2, service.deleteVariants("images/photo.jpg"));
+        assertEquals(0, service.getUsedBytes());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> service.getVariantUrl("images/missing.jpg", ImageVariantSpec.of(100, 100)));
+        assertThrows(IllegalArgumentException.class, () -> ImageVariantSpec.parse("100"));
+        assertThrows(IllegalArgumentException.class, () -> ImageVariantSpec.parse("100x100.gif"));
+        assertThrows(IllegalArgumentException.class, () -> ImageVariantSpec.of(0, 100));
+    }
+
+    @Test
+    @DisplayName("原图路径穿越测试")
+    void testRejectTraversal() throws IOException {
+        ImageVariantService service = new ImageVariantService(storage, null, 10_000_000, null);
+        Path outside = tempDir.getParent().resolve(tempDir.getFileName() + "-outside.png");
+        Files.write(outside, createImage(100, 100, "png"));
+        try {
+            String escaped = "../" + outside.getFileName();
+            assertThrows(IllegalArgumentException.class,
+                    () -> service.getVariantUrl(escaped, ImageVariantSpec.of(50, 50)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> ImageVariantService.variantPath("images/../../x.png", ImageVariantSpec.of(50, 50)));
+            assertThrows(IllegalArgumentException.class,
+                    () -> ImageVariantService.variantPath(".variants/images/photo.jpg/50x50.jpg", ImageVariantSpec.of(50, 50)));
+            assertEquals(0, service.deleteVariants(escaped));
+            assertEquals(0, service.getGeneratedCount());
+        } finally {
+            Files.deleteIfExists(outside);
+        }
+    }
+}
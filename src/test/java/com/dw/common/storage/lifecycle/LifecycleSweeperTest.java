@@ -0,0 +1,130 @@
+package com.dw.common.storage.lifecycle;
+
+import com.dw.common.storage.LocalFileStorage;
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("文件生命周期清理测试")
+public class LifecycleSweeperTest {
+
+    @TempDir
+    Path tempDir;
+
+    private LocalFileStorage storage;
+    private Path root;
+
+    @BeforeEach
+    void setUp() {
+        root = tempDir.resolve("uploads");
+        storage = new LocalFileStorage(root.toString(), "/files");
+    }
+
+    private void createFile(String path, int ageDays) throws IOException {
+        storage.upload(new ByteArrayInputStream(new byte[10]), path, "application/octet-stream");
+        Instant modified = Instant.now().minus(Duration.ofDays(ageDays));
+        Files.setLastModifiedTime(root.resolve(path), FileTime.from(modified));
+    }
+
+    @Test
+    @DisplayName("按前缀删除过期文件测试")
+    void testSweepExpiredFiles() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            createFile("files/exports/old" + i + ".xlsx", 10);
+        }
+        createFile("files/exports/recent.xlsx", 1);
+        createFile("images/old.jpg", 100);
+
+        storage.setOwner("files/exports/old0.xlsx", "u1");
+        List<String> expired = new ArrayList<>();
+        List<String> owners = new ArrayList<>();
+        LifecycleSweeper sweeper = new LifecycleSweeper(storage, List.of(LifecycleRule.ofDays("files/exports/", 7)),
+                2, 0, null);
+        sweeper.setExpiredListener(file -> {
+            expired.add(file.getPath());
+            owners.add(file.getOwner());
+        });
+
+        // 每轮最多扫描2个文件，游标逐轮推进
+        assertEquals(2, sweeper.sweepOnce());
+        assertEquals("files/exports/old1.xlsx", sweeper.getCursor("files/exports/"));
+        assertEquals(2, sweeper.sweepOnce());
+        assertEquals(1, sweeper.sweepOnce());
+        // 最后一页为空，本遍扫描结束，游标归零
+        assertEquals(0, sweeper.sweepOnce());
+        assertNull(sweeper.getCursor("files/exports/"));
+
+        assertEquals(5, sweeper.getDeletedCount());
+        assertEquals(6, sweeper.getScannedCount());
+        assertEquals(5, expired.size());
+        // 回调中带有元数据记录的归属者
+        assertEquals("u1", owners.get(0));
+        assertNull(owners.get(1));
+        assertTrue(storage.exists("files/exports/recent.xlsx"));
+        // 规则之外的文件不受影响
+        assertTrue(storage.exists("images/old.jpg"));
+    }
+
+    @Test
+    @DisplayName("游标持久化断点续扫测试")
+    void testResumeFromPersistedCursor() throws IOException {
+        for (int i = 0; i < 4; i++) {
+            createFile("files/tmp/f" + i + ".txt", 30);
+        }
+        Path cursorPath = root.resolve(".meta/lifecycle.properties");
+        List<LifecycleRule> rules = List.of(LifecycleRule.ofDays("files/tmp/", 7));
+
+        LifecycleSweeper first = new LifecycleSweeper(storage, rules, 3, 0, cursorPath);
+        assertEquals(3, first.sweepOnce());
+        first.close();
+
+        // 重启后从上次位置继续
+        LifecycleSweeper resumed = new LifecycleSweeper(storage, rules, 3, 0, cursorPath);
+        assertEquals("files/tmp/f2.txt", resumed.getCursor("files/tmp/"));
+        assertEquals(1, resumed.sweepOnce());
+        assertEquals(1, resumed.getScannedCount());
+        assertFalse(storage.exists("files/tmp/f3.txt"));
+    }
+
+    @Test
+    @DisplayName("删除限流测试")
+    void testThrottledDeletes() throws IOException {
+        for (int i = 0; i < 5; i++) {
+            createFile("files/logs/f" + i + ".log", 30);
+        }
+        LifecycleSweeper sweeper = new LifecycleSweeper(storage, List.of(LifecycleRule.ofDays("files/logs/", 1)),
+                10, 20, null);
+
+        long start = System.nanoTime();
+        assertEquals(5, sweeper.sweepOnce());
+        // 每秒20个，5次删除至少间隔4个50ms
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(190).toNanos());
+    }
+
+    @Test
+    @DisplayName("规则校验测试")
+    void testRuleValidation() {
+        assertThrows(IllegalArgumentException.class, () -> LifecycleRule.ofDays("", 7));
+        assertThrows(IllegalArgumentException.class, () -> LifecycleRule.ofDays("/", 7));
+        assertThrows(IllegalArgumentException.class, () -> LifecycleRule.ofDays("files/", 0));
+        assertEquals("files/", LifecycleRule.ofDays("/files/", 1).getPrefix());
+
+        StoredFile unknownTime = new StoredFile();
+        assertFalse(LifecycleRule.ofDays("files/", 1).isExpired(unknownTime.getCreatedAt(), LocalDateTime.now()));
+    }
+}
@@ -0,0 +1,143 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("带缓存的文件元数据索引测试")
+public class CachingFileMetadataIndexTest {
+
+    /**
+     * 内存索引，记录点查次数；可以让查询在读到结果后暂停
+     */
+    static class MemoryIndex implements FileMetadataIndex {
+        final Map<String, StoredFile> entries = new ConcurrentHashMap<>();
+        final AtomicInteger gets = new AtomicInteger();
+        volatile CountDownLatch loaded;
+        volatile CountDownLatch release;
+
+        @Override
+        public void put(StoredFile storedFile) {
+            entries.put(storedFile.getPath(), storedFile);
+        }
+
+        @Override
+        public StoredFile get(String path) {
+            gets.incrementAndGet();
+            StoredFile storedFile = entries.get(path);
+            CountDownLatch pause = release;
+            if (pause != null) {
+                loaded.countDown();
+                try {
+                    pause.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return storedFile;
+        }
+
+        @Override
+        public boolean remove(String path) {
+            return entries.remove(path) != null;
+        }
+
+        @Override
+        public List<StoredFile> list(String prefix, String startAfter, int limit) {
+            return new ArrayList<>(entries.values());
+        }
+    }
+
+    private StoredFile storedFile(String path, long size) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setSize(size);
+        return storedFile;
+    }
+
+    @Test
+    @DisplayName("缓存命中与不存在结果测试")
+    void testCacheHitAndAbsent() {
+        MemoryIndex delegate = new MemoryIndex();
+        CachingFileMetadataIndex index = new CachingFileMetadataIndex(delegate, 100);
+        index.put(storedFile("a.txt", 1));
+
+        assertEquals(1, index.get("/a.txt").getSize());
+        assertNull(index.get("b.txt"));
+        assertNull(index.get("b.txt"));
+        assertEquals(1, delegate.gets.get());
+
+        assertTrue(index.remove("a.txt"));
+        assertNull(index.get("a.txt"));
+        assertEquals(1, delegate.gets.get());
+    }
+
+    @Test
+    @DisplayName("不存在的结果过期后重新查询测试")
+    void testNegativeEntryExpires() throws Exception {
+        MemoryIndex delegate = new MemoryIndex();
+        CachingFileMetadataIndex index = new CachingFileMetadataIndex(delegate, 100, Duration.ofMillis(50));
+
+        assertNull(index.get("a.txt"));
+        // 其他实例直接写入底层索引
+        delegate.put(storedFile("a.txt", 7));
+        assertNull(index.get("a.txt"));
+
+        TimeUnit.MILLISECONDS.sleep(80);
+        assertEquals(7, index.get("a.txt").getSize());
+        assertEquals(2, delegate.gets.get());
+    }
+
+    @Test
+    @DisplayName("加载期间写入不被加载结果覆盖测试")
+    void testLoadRacingPut() throws Exception {
+        MemoryIndex delegate = new MemoryIndex();
+        CachingFileMetadataIndex index = new CachingFileMetadataIndex(delegate, 100);
+        CountDownLatch release = new CountDownLatch(1);
+        delegate.loaded = new CountDownLatch(1);
+        delegate.release = release;
+
+        // 加载读到"不存在"后暂停，此时写入新记录
+        CompletableFuture<StoredFile> load = CompletableFuture.supplyAsync(() -> index.get("a.txt"));
+        assertTrue(delegate.loaded.await(5, TimeUnit.SECONDS));
+        delegate.release = null;
+        index.put(storedFile("a.txt", 1));
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+
+        assertNotNull(index.get("a.txt"));
+        assertEquals(1, index.get("a.txt").getSize());
+    }
+
+    @Test
+    @DisplayName("加载期间删除不被加载结果覆盖测试")
+    void testLoadRacingRemove() throws Exception {
+        MemoryIndex delegate = new MemoryIndex();
+        CachingFileMetadataIndex index = new CachingFileMetadataIndex(delegate, 100);
+        delegate.put(storedFile("a.txt", 1));
+        CountDownLatch release = new CountDownLatch(1);
+        delegate.loaded = new CountDownLatch(1);
+        delegate.release = release;
+
+        CompletableFuture<StoredFile> load = CompletableFuture.supplyAsync(() -> index.get("a.txt"));
+        assertTrue(delegate.loaded.await(5, TimeUnit.SECONDS));
+        delegate.release = null;
+        assertTrue(index.remove("a.txt"));
+        release.countDown();
+        load.get(5, TimeUnit.SECONDS);
+
+        assertNull(index.get("a.txt"));
+    }
+}
@@ -0,0 +1,146 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("本地文件元数据索引测试")
+public class LocalFileMetadataIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private StoredFile storedFile(String path, long size) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl("/files/" + path);
+        storedFile.setSize(size);
+        storedFile.setContentType("text/plain");
+        storedFile.setSha256("abc");
+        storedFile.setCrc32c("0000abcd");
+        storedFile.setCreatedAt(LocalDateTime.now());
+        return storedFile;
+    }
+
+    @Test
+    @DisplayName("写入、查询和删除测试")
+    void testPutGetRemove() throws IOException {
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(tempDir.resolve("index.log"))) {
+            index.put(storedFile("a/1.txt", 10));
+
+            assertTrue(index.contains("a/1.txt"));
+            assertTrue(index.contains("/a/1.txt"));
+            assertEquals(10, index.get("a/1.txt").getSize());
+
+            assertTrue(index.remove("a/1.txt"));
+            assertFalse(index.remove("a/1.txt"));
+            assertNull(index.get("a/1.txt"));
+        }
+    }
+
+    @Test
+    @DisplayName("重启后回放索引测试")
+    void testReplayAfterReopen() throws IOException {
+        Path journal = tempDir.resolve("index.log");
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(journal)) {
+            index.put(storedFile("a/1.txt", 1));
+            index.put(storedFile("a/2.txt", 2));
+            index.put(storedFile("a/2.txt", 22));
+            index.remove("a/1.txt");
+        }
+
+        try (LocalFileMetadataIndex reopened = new LocalFileMetadataIndex(journal)) {
+            assertEquals(1, reopened.size());
+            assertNull(reopened.get("a/1.txt"));
+            assertEquals(22, reopened.get("a/2.txt").getSize());
+            assertNotNull(reopened.get("a/2.txt").getCreatedAt());
+        }
+    }
+
+    @Test
+    @DisplayName("重启时压缩日志测试")
+    void testCompactOnReopen() throws IOException {
+        Path journal = tempDir.resolve("index.log");
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(journal)) {
+            for (int i = 0; i < 10; i++) {
+                index.put(storedFile("same.txt", i));
+            }
+        }
+        assertEquals(10, Files.readAllLines(journal).size());
+
+        try (LocalFileMetadataIndex reopened = new LocalFileMetadataIndex(journal)) {
+            assertEquals(9, reopened.get("same.txt").getSize());
+        }
+        assertEquals(1, Files.readAllLines(journal).size());
+    }
+
+    @Test
+    @DisplayName("运行中超过阈值时压缩日志测试")
+    void testCompactWhileRunning() throws IOException {
+        Path journal = tempDir.resolve("index.log");
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(journal, 100)) {
+            index.put(storedFile("keep.txt", 1));
+            for (int i = 0; i < 1000; i++) {
+                index.put(storedFile("same.txt", i));
+            }
+            index.put(storedFile("temp.txt", 1));
+            index.remove("temp.txt");
+
+            assertTrue(Files.readAllLines(journal).size() <= 100, "日志应在运行中压缩");
+            assertEquals(999, index.get("same.txt").getSize());
+        }
+
+        try (LocalFileMetadataIndex reopened = new LocalFileMetadataIndex(journal)) {
+            assertEquals(2, reopened.size());
+            assertEquals(999, reopened.get("same.txt").getSize());
+            assertTrue(reopened.contains("keep.txt"));
+            assertFalse(reopened.contains("temp.txt"));
+        }
+    }
+
+    @Test
+    @DisplayName("忽略损坏的日志行测试")
+    void testSkipCorruptedLine() throws IOException {
+        Path journal = tempDir.resolve("index.log");
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(journal)) {
+            index.put(storedFile("ok.txt", 1));
+        }
+        Files.writeString(journal, Files.readString(journal) + "{\"op\":\"P\",\"pa");
+
+        try (LocalFileMetadataIndex reopened = new LocalFileMetadataIndex(journal)) {
+            assertTrue(reopened.contains("ok.txt"));
+        }
+    }
+
+    @Test
+    @DisplayName("按前缀分页列出测试")
+    void testListByPrefix() throws IOException {
+        try (LocalFileMetadataIndex index = new LocalFileMetadataIndex(tempDir.resolve("index.log"))) {
+            index.put(storedFile("images/3.jpg", 3));
+            index.put(storedFile("images/1.jpg", 1));
+            index.put(storedFile("images/2.jpg", 2));
+            index.put(storedFile("files/1.txt", 1));
+
+            List<StoredFile> page1 = index.list("images/", null, 2);
+            assertEquals(2, page1.size());
+            assertEquals("images/1.jpg", page1.get(0).getPath());
+            assertEquals("images/2.jpg", page1.get(1).getPath());
+
+            List<StoredFile> page2 = index.list("images/", page1.get(1).getPath(), 2);
+            assertEquals(1, page2.size());
+            assertEquals("images/3.jpg", page2.get(0).getPath());
+
+            assertTrue(index.list("images/", "images/3.jpg", 2).isEmpty());
+            assertEquals(4, index.list(null, null, 10).size());
+        }
+    }
+}
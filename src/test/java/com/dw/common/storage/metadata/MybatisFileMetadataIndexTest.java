@@ -0,0 +1,163 @@
+package com.dw.common.storage.metadata;
+
+import com.dw.common.mapper.SysFileMetadataMapper;
+import com.dw.common.storage.StoredFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 使用测试数据库（application-test.yml）验证，数据库不可用时跳过
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@DisplayName("数据库文件元数据索引测试")
+public class MybatisFileMetadataIndexTest {
+
+    private static final String ROOT = "mybatis_index-test/";
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private SysFileMetadataMapper mapper;
+
+    /**
+     * 数据库是否可用（只探测一次）
+     */
+    private static String unavailableReason;
+    private static boolean probed;
+
+    private MybatisFileMetadataIndex index;
+
+    @BeforeEach
+    void setUp() {
+        if (!probed) {
+            probed = true;
+            try (Connection connection = dataSource.getConnection()) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/sys_file_metadata.sql"));
+            } catch (Exception e) {
+                unavailableReason = e.getMessage();
+            }
+        }
+        assumeTrue(unavailableReason == null, () -> "测试数据库不可用: " + unavailableReason);
+        cleanup();
+        index = new MybatisFileMetadataIndex(mapper);
+    }
+
+    @AfterEach
+    void cleanup() {
+        if (unavailableReason != null) {
+            return;
+        }
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "DELETE FROM sys_file_metadata WHERE path LIKE 'mybatis!_index-test/%' ESCAPE '!'")) {
+            statement.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private StoredFile storedFile(String path, long size) {
+        StoredFile storedFile = new StoredFile();
+        storedFile.setPath(path);
+        storedFile.setUrl("/files/" + path);
+        storedFile.setSize(size);
+        storedFile.setContentType("text/plain");
+        storedFile.setSha256("a".repeat(64));
+        storedFile.setCrc32c("0000abcd");
+        storedFile.setCreatedAt(LocalDateTime.now().withNano(0));
+        return storedFile;
+    }
+
+    private int countRows(String path) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM sys_file_metadata WHERE path = ?")) {
+            statement.setString(1, path);
+            try (ResultSet resultSet = statement.executeQuery()) {
+                resultSet.next();
+                return resultSet.getInt(1);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("重复写入覆盖与物理删除测试")
+    void testUpsertAndRemove() throws SQLException {
+        String path = ROOT + "a.txt";
+        index.put(storedFile(path, 1));
+        index.put(storedFile("/" + path, 2));
+
+        assertEquals(1, countRows(path));
+        assertEquals(2, index.get(path).getSize());
+
+        assertTrue(index.remove(path));
+        assertFalse(index.remove(path));
+        assertNull(index.get(path));
+        // 物理删除，不留下逻辑删除记录；再次写入同一路径不冲突
+        assertEquals(0, countRows(path));
+        index.put(storedFile(path, 3));
+        assertEquals(3, index.get(path).getSize());
+    }
+
+    @Test
+    @DisplayName("并发写入同一路径不产生重复记录测试")
+    void testConcurrentPut() throws Exception {
+        String path = ROOT + "concurrent.txt";
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            long size = i;
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                index.put(storedFile(path, size));
+            }));
+        }
+        start.countDown();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+
+        assertEquals(1, countRows(path));
+    }
+
+    @Test
+    @DisplayName("前缀中的通配符按字面匹配测试")
+    void testListEscapesWildcards() {
+        index.put(storedFile(ROOT + "a_b/1.txt", 1));
+        index.put(storedFile(ROOT + "axb/2.txt", 2));
+        index.put(storedFile(ROOT + "a%b/3.txt", 3));
+
+        assertEquals(List.of(ROOT + "a_b/1.txt"),
+                index.list(ROOT + "a_b/", null, 10).stream().map(StoredFile::getPath).toList());
+        assertEquals(List.of(ROOT + "a%b/3.txt"),
+                index.list(ROOT + "a%", null, 10).stream().map(StoredFile::getPath).toList());
+        assertEquals(3, index.list(ROOT, null, 10).size());
+        assertEquals(List.of(ROOT + "axb/2.txt"),
+                index.list(ROOT, ROOT + "a_b/1.txt", 10).stream().map(StoredFile::getPath).toList());
+    }
+}
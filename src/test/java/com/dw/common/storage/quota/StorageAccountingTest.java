@@ -0,0 +1,129 @@
+package com.dw.common.storage.quota;
+
+import com.dw.common.storage.LocalFileStorage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("存储用量统计测试")
+public class StorageAccountingTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path snapshot() {
+        return tempDir.resolve(".meta/usage.properties");
+    }
+
+    @Test
+    @DisplayName("用量统计和配额测试")
+    void testReserveAndQuota() {
+        try (StorageAccounting accounting = new StorageAccounting(snapshot(), Map.of("images", 1000L), 300, 0)) {
+            accounting.reserve("images", "u1", 200);
+            accounting.reserve("images", "u2", 300);
+            accounting.reserve("documents", "u1", 100);
+
+            assertEquals(new StorageUsage(500, 2), accounting.getCategoryUsage("images"));
+            assertEquals(new StorageUsage(300, 2), accounting.getOwnerUsage("u1"));
+
+            // 超出个人配额，回滚后用量不变
+            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                    () -> accounting.reserve("images", "u1", 1));
+            assertEquals("个人存储空间不足", exception.getMessage());
+            assertEquals(new StorageUsage(300, 2), accounting.getOwnerUsage("u1"));
+            assertEquals(new StorageUsage(500, 2), accounting.getCategoryUsage("images"));
+
+            // 超出分类配额
+            assertThrows(IllegalArgumentException.class, () -> accounting.reserve("images", null, 501));
+            accounting.reserve("images", null, 500);
+
+            accounting.release("images", "u1", 200);
+            accounting.adjustBytes("documents", "u1", 50);
+            assertEquals(new StorageUsage(150, 1), accounting.getOwnerUsage("u1"));
+            assertEquals(new StorageUsage(800, 2), accounting.getCategoryUsage("images"));
+            assertEquals(new StorageUsage(), accounting.getOwnerUsage("nobody"));
+        }
+    }
+
+    @Test
+    @DisplayName("并发预占不超出配额测试")
+    void testConcurrentReserve() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (StorageAccounting accounting = new StorageAccounting(snapshot(), Map.of("files", 1000L), 0, 0)) {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        accounting.reserve("files", null, 10);
+                        return true;
+                    } catch (IllegalArgumentException e) {
+                        return false;
+                    }
+                }));
+            }
+            int accepted = 0;
+            for (Future<Boolean> future : futures) {
+                accepted += future.get() ? 1 : 0;
+            }
+
+            StorageUsage usage = accounting.getCategoryUsage("files");
+            assertTrue(usage.getBytes() <= 1000);
+            assertEquals(accepted * 10L, usage.getBytes());
+            assertEquals(accepted, usage.getFiles());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("快照持久化测试")
+    void testSnapshotPersistence() throws Exception {
+        try (StorageAccounting accounting = new StorageAccounting(snapshot(), null, 0, 0)) {
+            accounting.reserve("images", "user.with.dots", 123);
+            accounting.reserve("files", null, 45);
+        }
+        assertTrue(Files.exists(snapshot()));
+
+        try (StorageAccounting reloaded = new StorageAccounting(snapshot(), null, 0, 0)) {
+            assertEquals(new StorageUsage(123, 1), reloaded.getCategoryUsage("images"));
+            assertEquals(new StorageUsage(45, 1), reloaded.getCategoryUsage("files"));
+            assertEquals(new StorageUsage(123, 1), reloaded.getOwnerUsage("user.with.dots"));
+
+            // 无变化时不重写快照
+            long modified = Files.getLastModifiedTime(snapshot()).toMillis();
+            Thread.sleep(20);
+            reloaded.flush();
+            assertEquals(modified, Files.getLastModifiedTime(snapshot()).toMillis());
+        }
+    }
+
+    @Test
+    @DisplayName("从存储重新统计测试")
+    void testRebuild() {
+        LocalFileStorage storage = new LocalFileStorage(tempDir.resolve("uploads").toString(), "/files");
+        storage.upload(new ByteArrayInputStream(new byte[100]), "images/2024/01/01/a.jpg", "image/jpeg");
+        storage.upload(new ByteArrayInputStream(new byte[50]), "images/2024/01/02/b.jpg", "image/jpeg");
+        storage.upload(new ByteArrayInputStream(new byte[10]), "documents/2024/01/01/c.pdf", "application/pdf");
+
+        try (StorageAccounting accounting = new StorageAccounting(snapshot(), null, 0, 0)) {
+            accounting.reserve("stale", null, 999);
+            accounting.rebuild(storage, 2);
+
+            assertEquals(new StorageUsage(150, 2), accounting.getCategoryUsage("images"));
+            assertEquals(new StorageUsage(10, 1), accounting.getCategoryUsage("documents"));
+            assertEquals(List.of("documents", "images"), new ArrayList<>(accounting.getCategoryUsages().keySet()));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.dw.common.storage.signing;
+
+import com.dw.common.storage.LocalFileStorage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("文件访问URL签名测试")
+public class UrlSignerTest {
+
+    private static final String SECRET = "0123456789abcdef-secret";
+
+    @TempDir
+    Path tempDir;
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : query.split("&")) {
+            int index = pair.indexOf('=');
+            params.put(pair.substring(0, index), pair.substring(index + 1));
+        }
+        return params;
+    }
+
+    @Test
+    @DisplayName("签名校验测试")
+    void testSignAndVerify() {
+        Clock clock = Clock.fixed(Instant.parse("2024-01-15T00:00:00Z"), ZoneOffset.UTC);
+        UrlSigner signer = new UrlSigner(SECRET, Duration.ofMinutes(10), clock);
+
+        Map<String, String> params = parseQuery(signer.sign("images/a.jpg"));
+        String expires = params.get(UrlSigner.PARAM_EXPIRES);
+        String signature = params.get(UrlSigner.PARAM_SIGNATURE);
+        assertEquals(String.valueOf(clock.instant().plusSeconds(600).getEpochSecond()), expires);
+
+        assertTrue(signer.verify("images/a.jpg", expires, signature));
+        assertTrue(signer.verify("/images/a.jpg", expires, signature));
+        // 路径、过期时间或签名被篡改
+        assertFalse(signer.verify("images/b.jpg", expires, signature));
+        assertFalse(signer.verify("images/a.jpg", String.valueOf(Long.parseLong(expires) + 1), signature));
+        assertFalse(signer.verify("images/a.jpg", expires, signature.substring(1)));
+        assertFalse(signer.verify("images/a.jpg", "abc", signature));
+        assertFalse(signer.verify("images/a.jpg", expires, "!!!"));
+        assertFalse(signer.verify("images/a.jpg", null, signature));
+        // 不同密钥签名不通过
+        assertFalse(new UrlSigner(SECRET + "x", Duration.ofMinutes(10), clock).verify("images/a.jpg", expires, signature));
+
+        assertThrows(IllegalArgumentException.class, () -> new UrlSigner("short", Duration.ofMinutes(1)));
+    }
+
+    @Test
+    @DisplayName("签名过期测试")
+    void testExpired() {
+        Instant now = Instant.parse("2024-01-15T00:00:00Z");
+        UrlSigner signer = new UrlSigner(SECRET, Duration.ofMinutes(10), Clock.fixed(now, ZoneOffset.UTC));
+        Map<String, String> params = parseQuery(signer.sign("files/a.txt", Duration.ofSeconds(30)));
+
+        UrlSigner later = new UrlSigner(SECRET, Duration.ofMinutes(10), Clock.fixed(now.plusSeconds(31), ZoneOffset.UTC));
+        assertFalse(later.verify("files/a.txt", params.get(UrlSigner.PARAM_EXPIRES), params.get(UrlSigner.PARAM_SIGNATURE)));
+    }
+
+    @Test
+    @DisplayName("签名过滤器测试")
+    void testFilter() throws Exception {
+        UrlSigner signer = new UrlSigner(SECRET, Duration.ofMinutes(10));
+        LocalFileStorage storage = new LocalFileStorage(tempDir.toString(), "/files");
+        storage.setUrlSigner(signer);
+        SignedUrlFilter filter = new SignedUrlFilter(signer, "/files", List.of("documents/"));
+
+        String signedUrl = storage.getSignedUrl("documents/2024/01/15/a.pdf", null);
+        assertTrue(signedUrl.startsWith("/files/documents/2024/01/15/a.pdf?expires="));
+        Map<String, String> params = parseQuery(signedUrl.substring(signedUrl.indexOf('?') + 1));
+
+        // 签名正确放行
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/files/documents/2024/01/15/a.pdf");
+        request.setParameters(params);
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+
+        // 缺少签名返回403
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/files/documents/2024/01/15/a.pdf"), response, chain);
+        assertNull(chain.getRequest());
+        assertEquals(403, response.getStatus());
+        assertTrue(response.getContentAsString().contains("403"));
+
+        // 签名不能用于其他文件
+        request = new MockHttpServletRequest("GET", "/files/documents/2024/01/15/b.pdf");
+        request.setParameters(params);
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+        assertEquals(403, response.getStatus());
+
+        // 未受保护的目录不校验
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/files/images/a.jpg"), new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+
+        // 内部元数据文件即使不在受保护目录也返回404
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/files/.meta/index.log"), response, chain);
+        assertNull(chain.getRequest());
+        assertEquals(404, response.getStatus());
+
+        // 图片变体目录正常访问
+        chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/files/.variants/images/a.jpg/thumb.jpg"),
+                new MockHttpServletResponse(), chain);
+        assertNotNull(chain.getRequest());
+    }
+}
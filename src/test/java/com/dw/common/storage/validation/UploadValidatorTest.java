@@ -0,0 +1,96 @@
+package com.dw.common.storage.validation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("上传文件校验测试")
+public class UploadValidatorTest {
+
+    private static final byte[] JPG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, (byte) 0xE0, 0, 16, 'J', 'F', 'I', 'F'};
+    private static final byte[] PDF = "%PDF-1.7\n%âãÏÓ\n".getBytes();
+
+    private byte[] readAll(InputStream inputStream) throws IOException {
+        try (inputStream) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    @Test
+    @DisplayName("文件头校验测试")
+    void testSniffContent() throws IOException {
+        UploadValidator validator = UploadValidator.DEFAULT;
+
+        // 预读的文件头推回流中，读取内容完整
+        assertArrayEquals(JPG, readAll(validator.wrap(new ByteArrayInputStream(JPG), "images", "jpg")));
+        assertArrayEquals(PDF, readAll(validator.wrap(new ByteArrayInputStream(PDF), "documents", "PDF")));
+        assertArrayEquals("hello".getBytes(), readAll(validator.wrap(new ByteArrayInputStream("hello".getBytes()), "files", "txt")));
+        // 未知扩展名不校验内容
+        assertArrayEquals(JPG, readAll(validator.wrap(new ByteArrayInputStream(JPG), "files", "bin")));
+
+        ValidatingInputStream fakePdf = validator.wrap(new ByteArrayInputStream(JPG), "documents", "pdf");
+        IOException exception = assertThrows(IOException.class, () -> readAll(fakePdf));
+        assertEquals("文件内容与类型不符: pdf", exception.getMessage());
+        assertEquals("文件内容与类型不符: pdf", fakePdf.getRejection());
+
+        ValidatingInputStream binaryText = validator.wrap(new ByteArrayInputStream(new byte[]{'a', 0, 'b'}), "files", "txt");
+        assertThrows(IOException.class, () -> readAll(binaryText));
+
+        // 关闭内容校验
+        UploadValidator lenient = new UploadValidator(UploadValidator.DEFAULT_MAX_SIZE, null, false);
+        assertArrayEquals(JPG, readAll(lenient.wrap(new ByteArrayInputStream(JPG), "documents", "pdf")));
+    }
+
+    @Test
+    @DisplayName("分类大小限制测试")
+    void testCategorySizeLimit() {
+        UploadValidator validator = new UploadValidator(1024, Map.of("images", 2048L), true);
+
+        assertEquals(2048, validator.getMaxSize("images"));
+        assertEquals(1024, validator.getMaxSize("documents"));
+        validator.checkSize("images", 2048);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> validator.checkSize("documents", 1025));
+        assertEquals("文件大小不能超过1KB", exception.getMessage());
+        assertEquals("文件大小不能超过10MB", assertThrows(IllegalArgumentException.class,
+                () -> UploadValidator.DEFAULT.checkSize("files", UploadValidator.DEFAULT_MAX_SIZE + 1)).getMessage());
+    }
+
+    @Test
+    @DisplayName("流式大小限制测试")
+    void testStreamingSizeLimit() throws IOException {
+        UploadValidator validator = new UploadValidator(1024, null, true);
+
+        assertEquals(1024, readAll(validator.wrap(new ByteArrayInputStream(new byte[1024]), "files", "bin")).length);
+
+        // 实际内容超过限制时在读取过程中中断，不依赖声明的大小
+        ValidatingInputStream tooLarge = validator.wrap(new ByteArrayInputStream(new byte[4096]), "files", "bin");
+        byte[] buffer = new byte[512];
+        assertEquals(512, tooLarge.read(buffer));
+        assertEquals(512, tooLarge.read(buffer));
+        IOException exception = assertThrows(IOException.class, () -> tooLarge.read(buffer));
+        assertEquals("文件大小不能超过1KB", exception.getMessage());
+    }
+
+    @Test
+    @DisplayName("上传文件包装测试")
+    void testValidatingMultipartFile() throws IOException {
+        MockMultipartFile fake = new MockMultipartFile("file", "a.png", "image/png", "not an image".getBytes());
+        ValidatingMultipartFile file = UploadValidator.DEFAULT.wrap(fake, "images", "png");
+
+        // 未读取内容前不做任何IO
+        assertNull(file.getRejection());
+        assertEquals("a.png", file.getOriginalFilename());
+        assertEquals(fake.getSize(), file.getSize());
+
+        assertThrows(IOException.class, file::getBytes);
+        assertEquals("文件内容与类型不符: png", file.getRejection());
+    }
+}
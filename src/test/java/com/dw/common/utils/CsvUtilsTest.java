@@ -0,0 +1,274 @@
+package com.dw.common.utils;
+
+import com.alibaba.excel.annotation.ExcelProperty;
+import com.dw.common.annotation.ExcelColumn;
+import com.dw.common.excel.CsvFormat;
+import com.dw.common.excel.CsvReader;
+import com.dw.common.excel.CsvWriter;
+import com.dw.common.excel.ExcelFieldError;
+import com.dw.common.excel.ExcelImportResult;
+import com.dw.common.excel.ExcelPageSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CSV/TSV导入导出测试")
+public class CsvUtilsTest {
+
+    public static class Product {
+        @ExcelColumn(value = "编码", required = true, pattern = "P\\d{3}")
+        private String code;
+
+        @ExcelColumn(value = "名称", required = true, maxLength = 20)
+        private String name;
+
+        @ExcelColumn(value = "价格", format = "#,##0.00")
+        private BigDecimal price;
+
+        @ExcelColumn("库存")
+        private Integer stock;
+
+        public Product() {}
+
+        public Product(String code, String name, BigDecimal price, Integer stock) {
+            this.code = code;
+            this.name = name;
+            this.price = price;
+            this.stock = stock;
+        }
+
+        public String getCode() { return code; }
+        public void setCode(String code) { this.code = code; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public BigDecimal getPrice() { return price; }
+        public void setPrice(BigDecimal price) { this.price = price; }
+        public Integer getStock() { return stock; }
+        public void setStock(Integer stock) { this.stock = stock; }
+    }
+
+    public static class Contact {
+        @ExcelProperty("姓名")
+        private String name;
+
+        @ExcelProperty("年龄")
+        private Integer age;
+
+        public Contact() {}
+
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public Integer getAge() { return age; }
+        public void setAge(Integer age) { this.age = age; }
+    }
+
+    private static List<String> readAll(byte[] content, CsvFormat format, Charset charset) throws Exception {
+        List<String> rows = new ArrayList<>();
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(content), format, charset);
+        while (reader.next()) {
+            List<String> fields = new ArrayList<>();
+            for (int i = 0; i < reader.size(); i++) {
+                fields.add(reader.get(i));
+            }
+            rows.add(String.join("|", fields));
+        }
+        return rows;
+    }
+
+    @Test
+    @DisplayName("引号、换行、空行与编码识别测试")
+    void testReader() throws Exception {
+        String csv = "\uFEFFa,b,c\r\n"
+                + "1,\"x,y\",\"he said \"\"hi\"\"\"\r\n"
+                + "\r\n"
+                + "2,\"多\n行\",\n"
+                + "3,,末尾无换行";
+        assertEquals(List.of("a|b|c", "1|x,y|he said \"hi\"", "2|多\n行|", "3||末尾无换行"),
+                readAll(csv.getBytes(StandardCharsets.UTF_8), CsvFormat.CSV, null));
+
+        // 无BOM的GBK文件按GB18030解码
+        byte[] gbk = "姓名\t年龄\n张三\t20\n".getBytes(Charset.forName("GBK"));
+        CsvReader reader = new CsvReader(new ByteArrayInputStream(gbk), CsvFormat.TSV, null);
+        assertTrue(reader.next());
+        assertEquals("GB18030", reader.getCharset().name());
+        assertTrue(reader.next());
+        assertEquals("张三", reader.get(0));
+        assertEquals("20", reader.get(1));
+        assertNull(reader.get(2));
+        assertEquals(2, reader.getRowNum());
+        assertFalse(reader.next());
+
+        // 跨缓冲区的长字段
+        String longText = "中".repeat(50_000);
+        assertEquals(List.of("1|" + longText + "|2"),
+                readAll(("1,\"" + longText + "\",2").getBytes(StandardCharsets.UTF_8), CsvFormat.CSV, null));
+    }
+
+    @Test
+    @DisplayName("@ExcelColumn实体CSV/TSV往返测试")
+    void testRoundTrip() throws Exception {
+        List<Product> products = List.of(
+                new Product("P001", "螺丝,M3", new BigDecimal("1234.5"), 100),
+                new Product("P002", "带\"引号\"的名称", new BigDecimal("0.5"), null),
+                new Product("P003", "多行\n名称", null, 3));
+        for (CsvFormat format : CsvFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            long rows = CsvUtils.writeCsv(out, Product.class, ExcelPageSource.of(products.iterator(), 2), format);
+            assertEquals(3, rows);
+
+            ExcelImportResult<Product> result = CsvUtils.importCsv(new ByteArrayInputStream(out.toByteArray()),
+                    Product.class, format);
+            assertFalse(result.hasError(), result.getErrorSummary());
+            assertEquals(3, result.getSuccessCount());
+            Product first = result.getData().get(0);
+            assertEquals("螺丝,M3", first.getName());
+            assertEquals(0, new BigDecimal("1234.50").compareTo(first.getPrice()));
+            assertEquals(100, first.getStock());
+            assertEquals("带\"引号\"的名称", result.getData().get(1).getName());
+            assertNull(result.getData().get(1).getStock());
+            assertEquals("多行\n名称", result.getData().get(2).getName());
+        }
+
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        CsvUtils.exportCsv(response, products, Product.class, "商品", CsvFormat.TSV);
+        assertEquals("text/tab-separated-values;charset=utf-8", response.getContentType());
+        assertTrue(response.getHeader("Content-disposition").endsWith(".tsv"));
+        assertTrue(response.getContentAsString(StandardCharsets.UTF_8).startsWith("\uFEFF编码\t名称\t价格\t库存\r\n"));
+    }
+
+    @Test
+    @DisplayName("校验与转换错误测试")
+    void testErrors() {
+        String csv = "库存,名称,价格,编码\n"
+                + "5,正常,,P001\n"
+                + "abc,转换失败,,P002\n"
+                + "1,,,P003\n"
+                + "2,格式错误,,X1\n";
+        AtomicInteger received = new AtomicInteger();
+        ExcelImportResult<Product> result = CsvUtils.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)),
+                Product.class, CsvFormat.CSV, 100, batch -> received.addAndGet(batch.size()));
+
+        // 按表头名定位列，与列顺序无关
+        assertEquals(1, result.getSuccessCount());
+        assertEquals(1, received.get());
+        assertEquals(3, result.getFailCount());
+        assertEquals("stock: 格式不正确; ", result.getErrorMessages().get(3));
+        assertEquals("name: 不能为空; ", result.getErrorMessages().get(4));
+        assertEquals("code: 格式不正确; ", result.getErrorMessages().get(5));
+        assertEquals(List.of(ExcelFieldError.Code.CONVERT, ExcelFieldError.Code.REQUIRED, ExcelFieldError.Code.FORMAT),
+                result.getErrorStats().stream().map(stat -> stat.getCode()).toList());
+    }
+
+    @Test
+    @DisplayName("按文件名识别并导入@ExcelProperty实体测试")
+    void testDetectAndFallback() {
+        assertEquals(CsvFormat.CSV, CsvFormat.detect("data.CSV", null));
+        assertEquals(CsvFormat.TSV, CsvFormat.detect(null, "text/tab-separated-values"));
+        assertNull(CsvFormat.detect("data.xlsx", "text/csv"));
+
+        for (CsvFormat format : CsvFormat.values()) {
+            String delimiter = String.valueOf(format.getDelimiter());
+            String content = "姓名" + delimiter + "年龄\n张三" + delimiter + "20\n李四" + delimiter + "30\n";
+            MockMultipartFile file = new MockMultipartFile("file", "contacts" + format.getExtension(),
+                    "application/octet-stream", content.getBytes(StandardCharsets.UTF_8));
+            ExcelImportResult<Contact> result = ExcelUtils.importExcel(file, Contact.class);
+            assertEquals(2, result.getSuccessCount());
+            assertEquals("李四", result.getData().get(1).getName());
+            assertEquals(30, result.getData().get(1).getAge());
+        }
+    }
+
+    @Test
+    @DisplayName("公式注入防护测试")
+    void testFormulaNeutralized() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (CsvWriter writer = new CsvWriter(out, CsvFormat.CSV)) {
+            writer.writeRow(List.of("=1+1", "+cmd", "-2+3", "@SUM(A1)", "-", "a=b"));
+            writer.writeRow(List.of("-1,234.50", "+1", new BigDecimal("-0.5"), "=HYPERLINK(\"x\",\"y\")"));
+        }
+        assertEquals(List.of("'=1+1|'+cmd|'-2+3|'@SUM(A1)|'-|a=b", "-1,234.50|+1|-0.5|'=HYPERLINK(\"x\",\"y\")"),
+                readAll(out.toByteArray(), CsvFormat.CSV, null));
+        assertEquals("'\t=1+1", CsvWriter.neutralize("\t=1+1"));
+        assertEquals("'\r=1+1", CsvWriter.neutralize("\r=1+1"));
+        assertEquals(" =1+1", CsvWriter.neutralize(" =1+1"));
+    }
+
+    @Test
+    @DisplayName("@ExcelProperty实体导出CSV时防公式注入测试")
+    void testFormulaNeutralizedWithEasyExcel() throws Exception {
+        Contact formula = new Contact();
+        formula.setName("=HYPERLINK(\"http://evil\",\"x\")");
+        formula.setAge(-1);
+        Contact tab = new Contact();
+        tab.setName("\t@SUM(A1)");
+        tab.setAge(30);
+        Contact plain = new Contact();
+        plain.setName("张三");
+        plain.setAge(20);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        CsvUtils.writeCsv(out, Contact.class, ExcelPageSource.of(List.of(formula, tab, plain).iterator(), 10), CsvFormat.CSV);
+
+        String csv = new String(out.toByteArray(), StandardCharsets.UTF_8);
+        assertTrue(csv.contains("'=HYPERLINK("), csv);
+        assertTrue(csv.contains("'\t@SUM(A1)"), csv);
+        assertTrue(csv.contains("张三,20"), csv);
+        assertTrue(csv.contains(",-1"), csv);
+        assertFalse(csv.contains("\n=HYPERLINK") || csv.contains(",=HYPERLINK") || csv.contains("\"=HYPERLINK"), csv);
+    }
+
+    /**
+     * 耗时对比依赖机器负载，仅在 -Dstorage.benchmark=true 时执行
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "storage.benchmark", matches = "true")
+    @DisplayName("CSV与XLSX导入耗时对比")
+    void testCsvFasterThanXlsx() throws Exception {
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            products.add(new Product(String.format("P%03d", i % 1000), "商品" + i, new BigDecimal(i), i));
+        }
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        CsvUtils.writeCsv(csv, Product.class, ExcelPageSource.of(products.iterator(), 1000), CsvFormat.CSV);
+        ByteArrayOutputStream xlsx = new ByteArrayOutputStream();
+        ExcelUtils.writeExcelByPage(xlsx, Product.class, ExcelPageSource.of(products.iterator(), 1000));
+
+        // 预热
+        importCount(csv.toByteArray(), true);
+        importCount(xlsx.toByteArray(), false);
+
+        long start = System.nanoTime();
+        assertEquals(50_000, importCount(csv.toByteArray(), true));
+        long csvNanos = System.nanoTime() - start;
+        start = System.nanoTime();
+        assertEquals(50_000, importCount(xlsx.toByteArray(), false));
+        long xlsxNanos = System.nanoTime() - start;
+        System.out.println("导入50000行 CSV: " + csvNanos / 1_000_000 + "ms, XLSX: " + xlsxNanos / 1_000_000 + "ms");
+        assertTrue(csvNanos < xlsxNanos);
+    }
+
+    private static int importCount(byte[] content, boolean csv) {
+        AtomicInteger count = new AtomicInteger();
+        InputStream inputStream = new ByteArrayInputStream(content);
+        if (csv) {
+            CsvUtils.importCsv(inputStream, Product.class, CsvFormat.CSV, 1000, batch -> count.addAndGet(batch.size()));
+        } else {
+            ExcelUtils.importExcel(inputStream, Product.class, 1000, batch -> count.addAndGet(batch.size()));
+        }
+        return count.get();
+    }
+}
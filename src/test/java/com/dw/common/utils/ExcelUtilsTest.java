@@ -329,6 +329,43 @@ public class ExcelUtilsTest {
         assertTrue(duration / (double) result.getTotalCount() < 10, "每条记录处理时间应该小于10ms");
     }
 
+    @Test
+    @DisplayName("流式导入测试")
+    void testStreamingImport() throws IOException {
+        List<Product> products = new java.util.ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            // 每10条有1条名称为空
+            products.add(new Product(i % 10 == 0 ? "" : "产品" + i, 10.0 * i, i, LocalDateTime.now()));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        ExcelUtils.exportExcel(response, products, Product.class, "流式导入产品");
+
+        List<Integer> batchSizes = new java.util.ArrayList<>();
+        AtomicInteger received = new AtomicInteger();
+        ExcelImportResult<Product> result = ExcelUtils.importExcel(
+            new ByteArrayInputStream(response.getContentAsByteArray()), Product.class, 200, batch -> {
+                batchSizes.add(batch.size());
+                received.addAndGet(batch.size());
+            });
+
+        // 数据全部交给接收方，结果中不保留
+        assertTrue(result.getData().isEmpty());
+        assertEquals(900, result.getSuccessCount());
+        assertEquals(900, received.get());
+        assertEquals(List.of(200, 200, 200, 200, 100), batchSizes);
+
+        // 错误信息只保留有限条，计数完整
+        assertEquals(100, result.getFailCount());
+        assertEquals(100, result.getErrorMessages().size());
+        assertTrue(result.getErrorSummary().contains("...还有95条错误"));
+
+        // 接收方失败时导入中止
+        assertThrows(RuntimeException.class, () -> ExcelUtils.importExcel(
+            new ByteArrayInputStream(response.getContentAsByteArray()), Product.class, 200, batch -> {
+                throw new IllegalStateException("写入失败");
+            }));
+    }
+
     // 辅助方法：生成测试Excel数据
     private byte[] generateTestExcel() throws IOException {
         List<Product> products = Arrays.asList(
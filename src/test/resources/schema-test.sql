@@ -39,4 +39,20 @@ CREATE TABLE IF NOT EXISTS test_product (
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     is_deleted TINYINT DEFAULT 0 COMMENT '逻辑删除标记'
-) COMMENT = '测试产品表';
\ No newline at end of file
+) COMMENT = '测试产品表';
+
+-- 创建文件元数据表
+CREATE TABLE IF NOT EXISTS sys_file_metadata (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    path VARCHAR(500) NOT NULL COMMENT '存储路径',
+    url VARCHAR(1000) COMMENT '访问URL',
+    size BIGINT COMMENT '文件大小（字节）',
+    content_type VARCHAR(200) COMMENT '文件类型',
+    sha256 CHAR(64) COMMENT 'SHA-256摘要',
+    crc32c CHAR(8) COMMENT 'CRC32C校验值',
+    owner VARCHAR(100) COMMENT '归属者',
+    create_time DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    is_deleted TINYINT DEFAULT 0 COMMENT '逻辑删除标记',
+    UNIQUE KEY uk_path (path)
+) COMMENT = '文件元数据表';